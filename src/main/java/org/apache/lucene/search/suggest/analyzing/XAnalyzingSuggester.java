@@ -165,6 +165,27 @@ public class XAnalyzingSuggester extends Lookup {
   /** Whether position holes should appear in the automaton. */
   private boolean preservePositionIncrements;
 
+  /** Automaton every analyzed form must be prefixed with, or null. */
+  private Automaton queryPrefix;
+
+  /** Filter results must pass, or null. */
+  private ResultFilter resultFilter;
+
+  /** How many times more completions than requested the
+   *  queue of a filtered lookup keeps, which bounds the
+   *  number of completions the filter may reject. */
+  private static final int FILTERED_QUEUE_DEPTH_FACTOR = 8;
+
+  /** Decides whether a completion found in the FST may be
+   *  returned, eg. because its document was not deleted. */
+  public static interface ResultFilter {
+    /** @param analyzed the analyzed form of the completion
+     *  @param cost the encoded weight of the completion
+     *  @param output the surface form of the completion,
+     *    followed by its payload if payloads are stored */
+    boolean accept(IntsRef analyzed, long cost, BytesRef output) throws IOException;
+  }
+
   /**
    * Calls {@link #XAnalyzingSuggester(Analyzer,Analyzer,int,int,int,FST,boolean,int)
    * AnalyzingSuggester(analyzer, analyzer, EXACT_FIRST |
@@ -235,6 +256,23 @@ public class XAnalyzingSuggester extends Lookup {
     this.preservePositionIncrements = preservePositionIncrements;
   }
 
+  /** Restricts lookups to analyzed forms that start with a path of
+   *  the given automaton. The prefix is matched exactly, also when
+   *  fuzzy matching the rest of the key. */
+  public void setQueryPrefix(Automaton queryPrefix) {
+    this.queryPrefix = queryPrefix;
+  }
+
+  /** Only returns completions accepted by the given filter.
+   *  Rejected completions are not counted against the number
+   *  of completions to return. Once the filter rejected several
+   *  times as many completions as requested the lookup stops,
+   *  and returns fewer completions rather than walking the
+   *  whole FST. */
+  public void setResultFilter(ResultFilter resultFilter) {
+    this.resultFilter = resultFilter;
+  }
+
     /** Returns byte size of the underlying FST. */
   public long sizeInBytes() {
     return fst == null ? 0 : fst.sizeInBytes();
@@ -694,7 +732,7 @@ public class XAnalyzingSuggester extends Lookup {
 
       final List<LookupResult> results = new ArrayList<LookupResult>();
 
-      List<FSTUtil.Path<Pair<Long,BytesRef>>> prefixPaths = FSTUtil.intersectPrefixPaths(lookupAutomaton, fst);
+      List<FSTUtil.Path<Pair<Long,BytesRef>>> prefixPaths = FSTUtil.intersectPrefixPaths(withQueryPrefix(lookupAutomaton), fst);
 
       if (exactFirst) {
 
@@ -753,15 +791,50 @@ public class XAnalyzingSuggester extends Lookup {
         }
       }
 
+      // the number of completions a filter rejects is unbounded, so
+      // we give the queue room for a bounded number of rejections
+      // and stop the search once they are used up:
+      final int topN = num - results.size();
+      final int maxQueueDepth = resultFilter == null ? num * maxAnalyzedPathsForOneInput : FILTERED_QUEUE_DEPTH_FACTOR * num * maxAnalyzedPathsForOneInput;
+      final int maxRejections = resultFilter == null ? Integer.MAX_VALUE : maxQueueDepth - topN;
+      final List<LookupResult> accepted = new ArrayList<LookupResult>();
       Util.TopNSearcher<Pair<Long,BytesRef>> searcher;
       searcher = new Util.TopNSearcher<Pair<Long,BytesRef>>(fst,
-                                                            num - results.size(),
-                                                            num * maxAnalyzedPathsForOneInput,
+                                                            topN,
+                                                            maxQueueDepth,
                                                             weightComparator) {
         private final Set<BytesRef> seen = new HashSet<BytesRef>();
+        private int rejections;
 
         @Override
         protected boolean acceptResult(IntsRef input, Pair<Long,BytesRef> output) {
+          if (rejections == maxRejections) {
+            // TopNSearcher asserts it never rejects more paths
+            // than its queue has room for, so we end the search
+            // by accepting the remaining paths without
+            // returning them:
+            return true;
+          }
+          if (accept(input, output)) {
+            accepted.add(getLookupResult(output.output1, output.output2, spare));
+            return true;
+          }
+          rejections++;
+          return false;
+        }
+
+        private boolean accept(IntsRef input, Pair<Long,BytesRef> output) {
+          if (resultFilter != null) {
+            // strip the END_BYTE and the dedup byte:
+            final IntsRef analyzed = new IntsRef(input.ints, input.offset, input.length - 2);
+            try {
+              if (!resultFilter.accept(analyzed, output.output1, output.output2)) {
+                return false;
+              }
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+          }
 
           // Dedup: when the input analyzes to a graph we
           // can get duplicate surface forms:
@@ -794,11 +867,9 @@ public class XAnalyzingSuggester extends Lookup {
         searcher.addStartPaths(path.fstNode, path.output, true, path.input);
       }
 
-      MinResult<Pair<Long,BytesRef>> completions[] = searcher.search();
-
-      for(MinResult<Pair<Long,BytesRef>> completion : completions) {
+      searcher.search();
 
-        LookupResult result = getLookupResult(completion.output.output1, completion.output.output2, spare);
+      for(LookupResult result : accepted) {
 
         // TODO: for fuzzy case would be nice to return
         // how many edits were required
@@ -827,6 +898,16 @@ public class XAnalyzingSuggester extends Lookup {
     return prefixPaths;
   }
   
+  /** Prepends the query prefix, if any, to the given automaton. */
+  final Automaton withQueryPrefix(Automaton automaton) {
+    if (queryPrefix == null) {
+      return automaton;
+    }
+    Automaton prefixed = BasicOperations.concatenate(queryPrefix, automaton);
+    BasicOperations.determinize(prefixed);
+    return prefixed;
+  }
+
   final Set<IntsRef> toFiniteStrings(final BytesRef surfaceForm, final TokenStreamToAutomaton ts2a) throws IOException {
       // Analyze surface form:
     TokenStream ts = indexAnalyzer.tokenStream("", surfaceForm.utf8ToString());
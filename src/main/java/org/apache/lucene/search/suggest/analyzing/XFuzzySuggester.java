@@ -170,7 +170,7 @@ public final class XFuzzySuggester extends XAnalyzingSuggester {
         // "compete") ... in which case I think the wFST needs
         // to be log weights or something ...
 
-        Automaton levA = toLevenshteinAutomata(lookupAutomaton);
+        Automaton levA = withQueryPrefix(toLevenshteinAutomata(lookupAutomaton));
     /*
       Writer w = new OutputStreamWriter(new FileOutputStream("out.dot"), "UTF-8");
       w.write(levA.toDot());
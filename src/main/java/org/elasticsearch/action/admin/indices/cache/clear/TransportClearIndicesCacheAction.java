@@ -35,6 +35,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.cache.filter.shape.IndicesShapeCellsCache;
 import org.elasticsearch.indices.cache.filter.terms.IndicesTermsFilterCache;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
@@ -51,15 +52,17 @@ public class TransportClearIndicesCacheAction extends TransportBroadcastOperatio
 
     private final IndicesService indicesService;
     private final IndicesTermsFilterCache termsFilterCache;
+    private final IndicesShapeCellsCache shapeCellsCache;
     private final CacheRecycler cacheRecycler;
 
     @Inject
     public TransportClearIndicesCacheAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
                                             TransportService transportService, IndicesService indicesService, IndicesTermsFilterCache termsFilterCache,
-                                            CacheRecycler cacheRecycler) {
+                                            IndicesShapeCellsCache shapeCellsCache, CacheRecycler cacheRecycler) {
         super(settings, threadPool, clusterService, transportService);
         this.indicesService = indicesService;
         this.termsFilterCache = termsFilterCache;
+        this.shapeCellsCache = shapeCellsCache;
         this.cacheRecycler = cacheRecycler;
     }
 
@@ -126,6 +129,7 @@ public class TransportClearIndicesCacheAction extends TransportBroadcastOperatio
                 clearedAtLeastOne = true;
                 service.cache().filter().clear("api");
                 termsFilterCache.clear("api");
+                shapeCellsCache.clear("api");
             }
             if (request.filterKeys() != null && request.filterKeys().length > 0) {
                 clearedAtLeastOne = true;
@@ -161,6 +165,7 @@ public class TransportClearIndicesCacheAction extends TransportBroadcastOperatio
                     service.cache().clear("api");
                     service.fieldData().clear();
                     termsFilterCache.clear("api");
+                    shapeCellsCache.clear("api");
                 }
             }
         }
@@ -26,6 +26,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.cache.facet.FacetCacheStats;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.id.IdCacheStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
@@ -89,6 +90,9 @@ public class CommonStats implements Streamable, ToXContent {
     @Nullable
     public CompletionStats completion;
 
+    @Nullable
+    public FacetCacheStats facetCache;
+
     public void add(CommonStats stats) {
         if (docs == null) {
             if (stats.getDocs() != null) {
@@ -204,6 +208,14 @@ public class CommonStats implements Streamable, ToXContent {
         } else {
             completion.add(stats.getCompletion());
         }
+        if (facetCache == null) {
+            if (stats.getFacetCache() != null) {
+                facetCache = new FacetCacheStats();
+                facetCache.add(stats.getFacetCache());
+            }
+        } else {
+            facetCache.add(stats.getFacetCache());
+        }
     }
 
     @Nullable
@@ -276,6 +288,11 @@ public class CommonStats implements Streamable, ToXContent {
         return completion;
     }
 
+    @Nullable
+    public FacetCacheStats getFacetCache() {
+        return facetCache;
+    }
+
     public static CommonStats readCommonStats(StreamInput in) throws IOException {
         CommonStats stats = new CommonStats();
         stats.readFrom(in);
@@ -328,6 +345,11 @@ public class CommonStats implements Streamable, ToXContent {
                 completion = CompletionStats.readCompletionStats(in);
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (in.readBoolean()) {
+                facetCache = FacetCacheStats.readFacetCacheStats(in);
+            }
+        }
     }
 
     @Override
@@ -418,6 +440,14 @@ public class CommonStats implements Streamable, ToXContent {
                 completion.writeTo(out);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (facetCache == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                facetCache.writeTo(out);
+            }
+        }
     }
 
     // note, requires a wrapping object
@@ -465,6 +495,9 @@ public class CommonStats implements Streamable, ToXContent {
         if (completion != null) {
             completion.toXContent(builder, params);
         }
+        if (facetCache != null) {
+            facetCache.toXContent(builder, params);
+        }
         return builder;
     }
 }
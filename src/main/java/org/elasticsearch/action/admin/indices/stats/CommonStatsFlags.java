@@ -207,7 +207,8 @@ public class CommonStatsFlags implements Streamable, Cloneable {
         Docs("docs"),
         Warmer("warmer"),
         Percolate("percolate"),
-        Completion("completion");
+        Completion("completion"),
+        FacetCache("facet_cache");
 
         private final String restName;
 
@@ -176,6 +176,15 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         return flags.isSet(Flag.FilterCache);
     }
 
+    public IndicesStatsRequest facetCache(boolean facetCache) {
+        flags.set(Flag.FacetCache, facetCache);
+        return this;
+    }
+
+    public boolean facetCache() {
+        return flags.isSet(Flag.FacetCache);
+    }
+
     public IndicesStatsRequest idCache(boolean idCache) {
         flags.set(Flag.IdCache, idCache);
         return this;
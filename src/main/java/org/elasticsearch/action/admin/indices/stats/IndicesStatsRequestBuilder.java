@@ -119,6 +119,11 @@ public class IndicesStatsRequestBuilder extends BroadcastOperationRequestBuilder
         return this;
     }
 
+    public IndicesStatsRequestBuilder setFacetCache(boolean facetCache) {
+        request.facetCache(facetCache);
+        return this;
+    }
+
     public IndicesStatsRequestBuilder setIdCache(boolean idCache) {
         request.idCache(idCache);
         return this;
@@ -170,6 +170,9 @@ public class TransportIndicesStatsAction extends TransportBroadcastOperationActi
         if (request.request.filterCache()) {
             stats.stats.filterCache = indexShard.filterCacheStats();
         }
+        if (request.request.facetCache()) {
+            stats.stats.facetCache = indexShard.facetCacheStats();
+        }
         if (request.request.idCache()) {
             stats.stats.idCache = indexShard.idCacheStats();
         }
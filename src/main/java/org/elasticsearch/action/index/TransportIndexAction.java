@@ -269,7 +269,7 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             }
             documentMapper.refreshSource();
             logger.debug("Sending mapping updated to master: index [{}] type [{}]", request.index(), request.type());
-            mappingUpdatedAction.execute(new MappingUpdatedAction.MappingUpdatedRequest(request.index(), request.type(), documentMapper.mappingSource()), new ActionListener<MappingUpdatedAction.MappingUpdatedResponse>() {
+            mappingUpdatedAction.updateMappingOnMaster(request.index(), request.type(), documentMapper.mappingSource(), new ActionListener<MappingUpdatedAction.MappingUpdatedResponse>() {
                 @Override
                 public void onResponse(MappingUpdatedAction.MappingUpdatedResponse mappingUpdatedResponse) {
                     // all is well
@@ -95,15 +95,27 @@ public class TransportShardMultiPercolateAction extends TransportShardSingleOper
 
     @Override
     protected Response shardOperation(Request request, int shardId) throws ElasticSearchException {
-        // TODO: Look into combining the shard req's docs into one in memory index.
+        List<PercolateShardRequest> shardRequests = new ArrayList<PercolateShardRequest>(request.items.size());
+        for (Request.Item item : request.items) {
+            shardRequests.add(item.request);
+        }
+        PercolatorService.ShardResult[] shardResponses;
+        try {
+            shardResponses = percolatorService.percolate(request.index(), request.shardId(), shardRequests);
+        } catch (Throwable e) {
+            logger.debug("[{}][{}] failed to multi percolate", e, request.index(), request.shardId());
+            throw new ElasticSearchException("", e);
+        }
+
         Response response = new Response();
         response.items = new ArrayList<Response.Item>(request.items.size());
-        for (Request.Item item : request.items) {
+        for (int i = 0; i < request.items.size(); i++) {
             Response.Item responseItem;
-            int slot = item.slot;
-            try {
-                responseItem = new Response.Item(slot, percolatorService.percolate(item.request));
-            } catch (Throwable e) {
+            int slot = request.items.get(i).slot;
+            if (shardResponses[i].failure() == null) {
+                responseItem = new Response.Item(slot, shardResponses[i].response());
+            } else {
+                Throwable e = shardResponses[i].failure();
                 logger.debug("[{}][{}] failed to multi percolate", e, request.index(), request.shardId());
                 if (TransportActions.isShardNotAvailableException(e)) {
                     throw new ElasticSearchException("", e);
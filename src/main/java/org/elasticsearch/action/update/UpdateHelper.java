@@ -184,10 +184,18 @@ public class UpdateHelper extends AbstractComponent {
         }
     }
 
+    /**
+     * Extracts the fields from the source of the updated document to be returned in a update response,
+     * pulling them from the source bytes instead of parsing the whole source
+     */
+    public GetResult extractGetResult(final UpdateRequest request, long version, final BytesReference sourceAsBytes) {
+        return extractGetResult(request, version, null, null, sourceAsBytes);
+    }
+
     /**
      * Extracts the fields from the updated document to be returned in a update response
      */
-    public GetResult extractGetResult(final UpdateRequest request, long version, final Map<String, Object> source, XContentType sourceContentType, @Nullable final BytesReference sourceAsBytes) {
+    public GetResult extractGetResult(final UpdateRequest request, long version, @Nullable final Map<String, Object> source, @Nullable XContentType sourceContentType, @Nullable final BytesReference sourceAsBytes) {
         if (request.fields() == null || request.fields().length == 0) {
             return null;
         }
@@ -195,7 +203,11 @@ public class UpdateHelper extends AbstractComponent {
         Map<String, GetField> fields = null;
         if (request.fields() != null && request.fields().length > 0) {
             SourceLookup sourceLookup = new SourceLookup();
-            sourceLookup.setNextSource(source);
+            if (source != null) {
+                sourceLookup.setNextSource(source);
+            } else {
+                sourceLookup.setNextSource(sourceAsBytes);
+            }
             for (String field : request.fields()) {
                 if (field.equals("_source")) {
                     sourceRequested = true;
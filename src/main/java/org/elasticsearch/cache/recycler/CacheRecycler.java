@@ -21,6 +21,7 @@ package org.elasticsearch.cache.recycler;
 
 import gnu.trove.map.hash.*;
 import gnu.trove.set.hash.THashSet;
+import gnu.trove.set.hash.TIntHashSet;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -38,10 +39,12 @@ public class CacheRecycler extends AbstractComponent {
 
     public final Recycler<ExtTHashMap> hashMap;
     public final Recycler<THashSet> hashSet;
+    public final Recycler<TIntHashSet> intSet;
     public final Recycler<ExtTDoubleObjectHashMap> doubleObjectMap;
     public final Recycler<ExtTLongObjectHashMap> longObjectMap;
     public final Recycler<TLongLongHashMap> longLongMap;
     public final Recycler<TIntIntHashMap> intIntMap;
+    public final Recycler<TIntFloatHashMap> intFloatMap;
     public final Recycler<TFloatIntHashMap> floatIntMap;
     public final Recycler<TDoubleIntHashMap> doubleIntMap;
     public final Recycler<TLongIntHashMap> longIntMap;
@@ -52,10 +55,12 @@ public class CacheRecycler extends AbstractComponent {
     public void close() {
         hashMap.close();
         hashSet.close();
+        intSet.close();
         doubleObjectMap.close();
         longObjectMap.close();
         longLongMap.close();
         intIntMap.close();
+        intFloatMap.close();
         floatIntMap.close();
         doubleIntMap.close();
         longIntMap.close();
@@ -93,6 +98,17 @@ public class CacheRecycler extends AbstractComponent {
                 value.clear();
             }
         });
+        intSet = build(type, limit, smartSize, new Recycler.C<TIntHashSet>() {
+            @Override
+            public TIntHashSet newInstance(int sizing) {
+                return new TIntHashSet(size(sizing));
+            }
+
+            @Override
+            public void clear(TIntHashSet value) {
+                value.clear();
+            }
+        });
         doubleObjectMap = build(type, limit, smartSize, new Recycler.C<ExtTDoubleObjectHashMap>() {
             @Override
             public ExtTDoubleObjectHashMap newInstance(int sizing) {
@@ -137,6 +153,17 @@ public class CacheRecycler extends AbstractComponent {
                 value.clear();
             }
         });
+        intFloatMap = build(type, limit, smartSize, new Recycler.C<TIntFloatHashMap>() {
+            @Override
+            public TIntFloatHashMap newInstance(int sizing) {
+                return new TIntFloatHashMap(size(sizing));
+            }
+
+            @Override
+            public void clear(TIntFloatHashMap value) {
+                value.clear();
+            }
+        });
         floatIntMap = build(type, limit, smartSize, new Recycler.C<TFloatIntHashMap>() {
             @Override
             public TFloatIntHashMap newInstance(int sizing) {
@@ -213,6 +240,10 @@ public class CacheRecycler extends AbstractComponent {
         return (Recycler.V) hashSet.obtain(sizing);
     }
 
+    public Recycler.V<TIntHashSet> intSet(int sizing) {
+        return intSet.obtain(sizing);
+    }
+
     public <T> Recycler.V<ExtTDoubleObjectHashMap<T>> doubleObjectMap(int sizing) {
         return (Recycler.V) doubleObjectMap.obtain(sizing);
     }
@@ -229,6 +260,10 @@ public class CacheRecycler extends AbstractComponent {
         return intIntMap.obtain(sizing);
     }
 
+    public Recycler.V<TIntFloatHashMap> intFloatMap(int sizing) {
+        return intFloatMap.obtain(sizing);
+    }
+
     public Recycler.V<TFloatIntHashMap> floatIntMap(int sizing) {
         return floatIntMap.obtain(sizing);
     }
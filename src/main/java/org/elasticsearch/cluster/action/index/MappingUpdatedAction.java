@@ -19,6 +19,8 @@
 
 package org.elasticsearch.cluster.action.index;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequestValidationException;
@@ -28,6 +30,7 @@ import org.elasticsearch.action.support.master.TransportMasterNodeOperationActio
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.MetaDataMappingService;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.compress.CompressedString;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -37,6 +40,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Called by shards in the cluster when their mapping was dynamically updated and it needs to be updated
@@ -46,6 +51,8 @@ public class MappingUpdatedAction extends TransportMasterNodeOperationAction<Map
 
     private final MetaDataMappingService metaDataMappingService;
 
+    private final Map<Tuple<String, String>, PendingUpdate> pendingUpdates = Maps.newHashMap();
+
     @Inject
     public MappingUpdatedAction(Settings settings, TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
                                 MetaDataMappingService metaDataMappingService) {
@@ -53,6 +60,50 @@ public class MappingUpdatedAction extends TransportMasterNodeOperationAction<Map
         this.metaDataMappingService = metaDataMappingService;
     }
 
+    /**
+     * Sends the mapping of a type to the master, unless the very same mapping is already on its way
+     * there. This is the case when several shards of an index allocated on this node add the same
+     * dynamic fields while indexing, since they share the mapping, in which case the listener is
+     * notified once the pending update is processed.
+     */
+    public void updateMappingOnMaster(String index, String type, CompressedString mappingSource, ActionListener<MappingUpdatedResponse> listener) {
+        final Tuple<String, String> key = Tuple.tuple(index, type);
+        final PendingUpdate pendingUpdate;
+        synchronized (pendingUpdates) {
+            PendingUpdate existing = pendingUpdates.get(key);
+            if (existing != null && existing.mappingSource.equals(mappingSource)) {
+                existing.listeners.add(listener);
+                return;
+            }
+            pendingUpdate = new PendingUpdate(mappingSource, listener);
+            pendingUpdates.put(key, pendingUpdate);
+        }
+        execute(new MappingUpdatedRequest(index, type, mappingSource), new ActionListener<MappingUpdatedResponse>() {
+            @Override
+            public void onResponse(MappingUpdatedResponse response) {
+                for (ActionListener<MappingUpdatedResponse> listener : complete()) {
+                    listener.onResponse(response);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                for (ActionListener<MappingUpdatedResponse> listener : complete()) {
+                    listener.onFailure(e);
+                }
+            }
+
+            private List<ActionListener<MappingUpdatedResponse>> complete() {
+                synchronized (pendingUpdates) {
+                    if (pendingUpdates.get(key) == pendingUpdate) {
+                        pendingUpdates.remove(key);
+                    }
+                    return pendingUpdate.listeners;
+                }
+            }
+        });
+    }
+
     @Override
     protected String transportAction() {
         return "cluster/mappingUpdated";
@@ -90,6 +141,18 @@ public class MappingUpdatedAction extends TransportMasterNodeOperationAction<Map
         });
     }
 
+    private static class PendingUpdate {
+
+        final CompressedString mappingSource;
+
+        final List<ActionListener<MappingUpdatedResponse>> listeners = Lists.newArrayList();
+
+        PendingUpdate(CompressedString mappingSource, ActionListener<MappingUpdatedResponse> listener) {
+            this.mappingSource = mappingSource;
+            listeners.add(listener);
+        }
+    }
+
     public static class MappingUpdatedResponse extends ActionResponse {
         @Override
         public void readFrom(StreamInput in) throws IOException {
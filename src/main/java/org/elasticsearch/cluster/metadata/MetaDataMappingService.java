@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.TimeoutClusterStateUpdateTask;
 import org.elasticsearch.cluster.action.index.NodeMappingCreatedAction;
 import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.compress.CompressedString;
 import org.elasticsearch.common.inject.Inject;
@@ -146,6 +147,10 @@ public class MetaDataMappingService extends AbstractComponent {
             boolean removeIndex = false;
             // keep track of what we already refreshed, no need to refresh it again...
             Set<String> processedRefreshes = Sets.newHashSet();
+            // the mappers updated by this batch, their meta data is only built once all updates are merged
+            Map<String, DocumentMapper> updatedMappers = Maps.newHashMap();
+            // shards usually send the same mapping source for the same dynamic fields, merge them only once
+            Set<Tuple<String, CompressedString>> mergedSources = Sets.newHashSet();
             try {
                 for (Object task : tasks) {
                     if (task instanceof RefreshTask) {
@@ -204,6 +209,9 @@ public class MetaDataMappingService extends AbstractComponent {
                         if (indexMetaData.mappings().containsKey(type) && indexMetaData.mapping(type).source().equals(mappingSource)) {
                             continue;
                         }
+                        if (!mergedSources.add(Tuple.tuple(type, mappingSource))) {
+                            continue;
+                        }
 
                         IndexService indexService = indicesService.indexService(index);
                         if (indexService == null) {
@@ -218,28 +226,37 @@ public class MetaDataMappingService extends AbstractComponent {
 
                         DocumentMapper updatedMapper = indexService.mapperService().merge(type, mappingSource.string(), false);
                         processedRefreshes.add(type);
+                        updatedMappers.put(type, updatedMapper);
+                    } else {
+                        logger.warn("illegal state, got wrong mapping task type [{}]", task);
+                    }
+                }
 
-                        // if we end up with the same mapping as the original once, ignore
-                        if (indexMetaData.mappings().containsKey(type) && indexMetaData.mapping(type).source().equals(updatedMapper.mappingSource())) {
-                            continue;
-                        }
+                for (Map.Entry<String, DocumentMapper> updatedMapperEntry : updatedMappers.entrySet()) {
+                    String type = updatedMapperEntry.getKey();
+                    DocumentMapper updatedMapper = updatedMapperEntry.getValue();
+                    final IndexMetaData indexMetaData = mdBuilder.get(index);
+                    if (indexMetaData == null) {
+                        break;
+                    }
+                    // if we end up with the same mapping as the original once, ignore
+                    if (indexMetaData.mappings().containsKey(type) && indexMetaData.mapping(type).source().equals(updatedMapper.mappingSource())) {
+                        continue;
+                    }
 
-                        // build the updated mapping source
-                        if (logger.isDebugEnabled()) {
-                            try {
-                                logger.debug("[{}] update_mapping [{}] (dynamic) with source [{}]", index, type, updatedMapper.mappingSource().string());
-                            } catch (Exception e) {
-                                // ignore
-                            }
-                        } else if (logger.isInfoEnabled()) {
-                            logger.info("[{}] update_mapping [{}] (dynamic)", index, type);
+                    // build the updated mapping source
+                    if (logger.isDebugEnabled()) {
+                        try {
+                            logger.debug("[{}] update_mapping [{}] (dynamic) with source [{}]", index, type, updatedMapper.mappingSource().string());
+                        } catch (Exception e) {
+                            // ignore
                         }
-
-                        mdBuilder.put(newIndexMetaDataBuilder(indexMetaData).putMapping(new MappingMetaData(updatedMapper)));
-                        dirty = true;
-                    } else {
-                        logger.warn("illegal state, got wrong mapping task type [{}]", task);
+                    } else if (logger.isInfoEnabled()) {
+                        logger.info("[{}] update_mapping [{}] (dynamic)", index, type);
                     }
+
+                    mdBuilder.put(newIndexMetaDataBuilder(indexMetaData).putMapping(new MappingMetaData(updatedMapper)));
+                    dirty = true;
                 }
             } finally {
                 if (removeIndex) {
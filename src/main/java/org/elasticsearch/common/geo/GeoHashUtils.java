@@ -106,6 +106,59 @@ public class GeoHashUtils {
         return geohash.toString();
     }
 
+    /**
+     * Encodes the given latitude and longitude into a geohash packed in a long: the five bits of
+     * each character followed by the precision in the four lowest bits. Unlike the string
+     * encoding this doesn't allocate, and cells of the same precision compare in the same order
+     * as their string encodings when compared as unsigned longs: at precision 12 the highest
+     * bit is used.
+     *
+     * @see #toString(long)
+     */
+    public static long encodeAsLong(double latitude, double longitude, int precision) {
+        double latInterval0 = -90.0;
+        double latInterval1 = 90.0;
+        double lngInterval0 = -180.0;
+        double lngInterval1 = 180.0;
+
+        long bits = 0;
+        final int numBits = precision * 5;
+        for (int i = 0; i < numBits; i++) {
+            bits <<= 1;
+            if ((i & 1) == 0) {
+                final double mid = (lngInterval0 + lngInterval1) / 2D;
+                if (longitude > mid) {
+                    bits |= 1;
+                    lngInterval0 = mid;
+                } else {
+                    lngInterval1 = mid;
+                }
+            } else {
+                final double mid = (latInterval0 + latInterval1) / 2D;
+                if (latitude > mid) {
+                    bits |= 1;
+                    latInterval0 = mid;
+                } else {
+                    latInterval1 = mid;
+                }
+            }
+        }
+        return (bits << 4) | precision;
+    }
+
+    /**
+     * Returns the string encoding of a geohash packed by {@link #encodeAsLong(double, double, int)}.
+     */
+    public static String toString(long geohashAsLong) {
+        final int precision = (int) (geohashAsLong & 15);
+        final long bits = geohashAsLong >>> 4;
+        final char[] chars = new char[precision];
+        for (int i = 0; i < precision; i++) {
+            chars[i] = BASE_32[(int) ((bits >>> ((precision - 1 - i) * 5)) & 31)];
+        }
+        return new String(chars);
+    }
+
     private static final char encode(int x, int y) {
         return BASE_32[((x & 1) + ((y & 1) * 2) + ((x & 2) * 2) + ((y & 2) * 4) + ((x & 4) * 4)) % 32];
     }
@@ -30,6 +30,22 @@ public abstract class TimeZoneRounding {
 
     public abstract long calc(long utcMillis);
 
+    /**
+     * Returns <tt>true</tt> if the rounded value never decreases as the utc millis increase, which
+     * allows to precompute bucket boundaries for a range of values instead of rounding each value.
+     */
+    public boolean isMonotonic() {
+        return false;
+    }
+
+    /**
+     * Returns the fixed interval (in millis) values are truncated to, or <tt>-1</tt> if the size of
+     * a bucket depends on the value being rounded.
+     */
+    public long fixedInterval() {
+        return -1;
+    }
+
     public static Builder builder(DateTimeField field) {
         return new Builder(field);
     }
@@ -158,6 +174,11 @@ public abstract class TimeZoneRounding {
         public long calc(long utcMillis) {
             return field.roundFloor(utcMillis);
         }
+
+        @Override
+        public boolean isMonotonic() {
+            return true;
+        }
     }
 
     static class DayTimeZoneRoundingFloor extends TimeZoneRounding {
@@ -194,6 +215,16 @@ public abstract class TimeZoneRounding {
         public long calc(long utcMillis) {
             return ((utcMillis / interval) * interval);
         }
+
+        @Override
+        public boolean isMonotonic() {
+            return true;
+        }
+
+        @Override
+        public long fixedInterval() {
+            return interval;
+        }
     }
 
 
@@ -259,6 +290,11 @@ public abstract class TimeZoneRounding {
         public long calc(long utcMillis) {
             return timeZoneRounding.calc((long) (factor * utcMillis));
         }
+
+        @Override
+        public boolean isMonotonic() {
+            return factor > 0 && timeZoneRounding.isMonotonic();
+        }
     }
 
     static class PrePostTimeZoneRounding extends TimeZoneRounding {
@@ -278,5 +314,10 @@ public abstract class TimeZoneRounding {
         public long calc(long utcMillis) {
             return postOffset + timeZoneRounding.calc(utcMillis + preOffset);
         }
+
+        @Override
+        public boolean isMonotonic() {
+            return timeZoneRounding.isMonotonic();
+        }
     }
 }
@@ -199,6 +199,13 @@ public abstract class AbstractXContentParser implements XContentParser {
         return list;
     }
 
+    /**
+     * Reads the value the parser is positioned on, <tt>t</tt> being the current token.
+     */
+    static Object readValue(XContentParser parser, XContentParser.Token t) throws IOException {
+        return readValue(parser, SIMPLE_MAP_FACTORY, t);
+    }
+
     private static Object readValue(XContentParser parser, MapFactory mapFactory, XContentParser.Token t) throws IOException {
         if (t == XContentParser.Token.VALUE_NULL) {
             return null;
@@ -24,7 +24,9 @@ import com.google.common.collect.Maps;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -134,6 +136,162 @@ public class XContentMapValues {
         return null;
     }
 
+    /**
+     * Same as {@link #extractRawValues(String, java.util.Map)}, but pulls the values from a parser positioned
+     * before or on the start of an object, without parsing the whole object into a map. Entries that can't
+     * match the path are skipped, and the parser is left as soon as the values have been found, so it may not
+     * be positioned at the end of the object once this method returns.
+     */
+    public static List<Object> extractRawValues(String path, XContentParser parser) throws IOException {
+        List<Object> values = Lists.newArrayList();
+        String[] pathElements = Strings.splitStringToArray(path, '.');
+        if (pathElements.length == 0) {
+            return values;
+        }
+        XContentParser.Token token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+        if (token == XContentParser.Token.START_OBJECT) {
+            extractRawValuesFromObject(values, parser, pathElements, 0, true);
+        }
+        return values;
+    }
+
+    private static void extractRawValuesFromObject(List<Object> values, XContentParser parser, String[] pathElements, int index, boolean exitEarly) throws IOException {
+        List<Object> fallback = null;
+        int fallbackIndex = Integer.MAX_VALUE;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            int nextIndex = matchPath(parser.currentName(), pathElements, index);
+            token = parser.nextToken();
+            if (nextIndex < 0 || token == XContentParser.Token.VALUE_NULL) {
+                parser.skipChildren();
+            } else if (nextIndex == index + 1) {
+                // the shortest key always wins, as with maps
+                extractRawValuesFromValue(values, parser, token, pathElements, nextIndex, exitEarly);
+                if (!exitEarly) {
+                    skipToEndObject(parser);
+                }
+                return;
+            } else if (nextIndex < fallbackIndex) {
+                fallback = Lists.newArrayList();
+                fallbackIndex = nextIndex;
+                extractRawValuesFromValue(fallback, parser, token, pathElements, nextIndex, false);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (fallback != null) {
+            values.addAll(fallback);
+        }
+    }
+
+    private static void extractRawValuesFromValue(List<Object> values, XContentParser parser, XContentParser.Token token, String[] pathElements, int index, boolean exitEarly) throws IOException {
+        if (token == XContentParser.Token.START_OBJECT) {
+            if (index == pathElements.length) {
+                parser.skipChildren();
+            } else {
+                extractRawValuesFromObject(values, parser, pathElements, index, exitEarly);
+            }
+        } else if (token == XContentParser.Token.START_ARRAY) {
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY && token != null) {
+                if (token != XContentParser.Token.VALUE_NULL) {
+                    extractRawValuesFromValue(values, parser, token, pathElements, index, false);
+                }
+            }
+        } else {
+            values.add(AbstractXContentParser.readValue(parser, token));
+        }
+    }
+
+    /**
+     * Same as {@link #extractValue(String, java.util.Map)}, but pulls the value from a parser positioned
+     * before or on the start of an object, without parsing the whole object into a map. Only the extracted
+     * value is fully parsed, and the parser is left as soon as it has been found.
+     */
+    public static Object extractValue(String path, XContentParser parser) throws IOException {
+        String[] pathElements = Strings.splitStringToArray(path, '.');
+        if (pathElements.length == 0) {
+            return null;
+        }
+        XContentParser.Token token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            return null;
+        }
+        return extractValue(pathElements, 0, parser, token, true);
+    }
+
+    private static Object extractValue(String[] pathElements, int index, XContentParser parser, XContentParser.Token token, boolean exitEarly) throws IOException {
+        if (index == pathElements.length) {
+            return AbstractXContentParser.readValue(parser, token);
+        }
+        if (token == XContentParser.Token.START_OBJECT) {
+            Object fallback = null;
+            int fallbackIndex = Integer.MAX_VALUE;
+            while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+                int nextIndex = matchPath(parser.currentName(), pathElements, index);
+                token = parser.nextToken();
+                if (nextIndex < 0 || token == XContentParser.Token.VALUE_NULL) {
+                    parser.skipChildren();
+                } else if (nextIndex == index + 1) {
+                    Object value = extractValue(pathElements, nextIndex, parser, token, exitEarly);
+                    if (!exitEarly) {
+                        skipToEndObject(parser);
+                    }
+                    return value;
+                } else if (nextIndex < fallbackIndex) {
+                    fallbackIndex = nextIndex;
+                    fallback = extractValue(pathElements, nextIndex, parser, token, false);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return fallback;
+        }
+        if (token == XContentParser.Token.START_ARRAY) {
+            List<Object> newList = new ArrayList<Object>();
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY && token != null) {
+                Object listValue = extractValue(pathElements, index, parser, token, false);
+                if (listValue != null) {
+                    newList.add(listValue);
+                }
+            }
+            return newList;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the first path element after <tt>key</tt> if <tt>key</tt> is made of the path elements
+     * starting at <tt>index</tt> joined with dots, or <tt>-1</tt> otherwise.
+     */
+    private static int matchPath(String key, String[] pathElements, int index) {
+        int offset = 0;
+        for (int i = index; i < pathElements.length; i++) {
+            String element = pathElements[i];
+            if (!key.startsWith(element, offset)) {
+                return -1;
+            }
+            offset += element.length();
+            if (offset == key.length()) {
+                return i + 1;
+            }
+            if (key.charAt(offset) != '.') {
+                return -1;
+            }
+            offset++;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the parser, positioned on the value of an entry, to the end of the enclosing object.
+     */
+    private static void skipToEndObject(XContentParser parser) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
     public static Map<String, Object> filter(Map<String, Object> map, String[] includes, String[] excludes) {
         Map<String, Object> result = Maps.newHashMap();
         filter(map, result, includes == null ? Strings.EMPTY_ARRAY : includes, excludes == null ? Strings.EMPTY_ARRAY : excludes, new StringBuilder());
@@ -21,22 +21,32 @@ package org.elasticsearch.index.analysis;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.AnalyzerWrapper;
+import org.apache.lucene.analysis.CustomAnalyzerWrapper;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
- *
+ * Wraps the analyzers of the fields of a document. Instances are short lived (they get recreated
+ * whenever fields are added to a mapping, or per document when the analyzer is resolved from
+ * a path), so the token stream components of wrapped {@link NamedAnalyzer}s are stored with the
+ * named analyzers themselves, and reused across instances.
  */
-public final class FieldNameAnalyzer extends AnalyzerWrapper {
+public final class FieldNameAnalyzer extends CustomAnalyzerWrapper {
 
     private final ImmutableMap<String, Analyzer> analyzers;
 
     private final Analyzer defaultAnalyzer;
 
     public FieldNameAnalyzer(Map<String, Analyzer> analyzers, Analyzer defaultAnalyzer) {
+        this(new WrappedReuseStrategy(), analyzers, defaultAnalyzer);
+    }
+
+    private FieldNameAnalyzer(WrappedReuseStrategy reuseStrategy, Map<String, Analyzer> analyzers, Analyzer defaultAnalyzer) {
+        super(reuseStrategy);
         this.analyzers = ImmutableMap.copyOf(analyzers);
         this.defaultAnalyzer = defaultAnalyzer;
+        reuseStrategy.fieldNameAnalyzer = this;
     }
 
     public ImmutableMap<String, Analyzer> analyzers() {
@@ -64,4 +74,40 @@ public final class FieldNameAnalyzer extends AnalyzerWrapper {
         }
         return defaultAnalyzer;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reuses the components stored with the wrapped {@link NamedAnalyzer}, and falls back to
+     * per field reuse for other analyzers.
+     */
+    static final class WrappedReuseStrategy extends ReuseStrategy {
+
+        private FieldNameAnalyzer fieldNameAnalyzer;
+
+        @Override
+        public TokenStreamComponents getReusableComponents(String fieldName) {
+            Analyzer analyzer = fieldNameAnalyzer.getAnalyzer(fieldName);
+            if (analyzer instanceof NamedAnalyzer) {
+                return ((NamedAnalyzer) analyzer).reusableComponents(fieldName);
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, TokenStreamComponents> componentsPerField = (Map<String, TokenStreamComponents>) getStoredValue();
+            return componentsPerField != null ? componentsPerField.get(fieldName) : null;
+        }
+
+        @Override
+        public void setReusableComponents(String fieldName, TokenStreamComponents components) {
+            Analyzer analyzer = fieldNameAnalyzer.getAnalyzer(fieldName);
+            if (analyzer instanceof NamedAnalyzer) {
+                ((NamedAnalyzer) analyzer).reusableComponents(fieldName, components);
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, TokenStreamComponents> componentsPerField = (Map<String, TokenStreamComponents>) getStoredValue();
+            if (componentsPerField == null) {
+                componentsPerField = new HashMap<String, TokenStreamComponents>();
+                setStoredValue(componentsPerField);
+            }
+            componentsPerField.put(fieldName, components);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.index.analysis;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.CustomAnalyzerWrapper;
+import org.elasticsearch.common.metrics.CounterMetric;
 
 /**
  * Named analyzer is an analyzer wrapper around an actual analyzer ({@link #analyzer} that is associated
@@ -32,6 +33,7 @@ public class NamedAnalyzer extends CustomAnalyzerWrapper {
     private final AnalyzerScope scope;
     private final Analyzer analyzer;
     private final int positionOffsetGap;
+    private final CountingReuseStrategy reuseStrategy;
 
     public NamedAnalyzer(NamedAnalyzer analyzer, int positionOffsetGap) {
         this(analyzer.name(), analyzer.scope(), analyzer.analyzer(), positionOffsetGap);
@@ -47,11 +49,16 @@ public class NamedAnalyzer extends CustomAnalyzerWrapper {
 
     public NamedAnalyzer(String name, AnalyzerScope scope, Analyzer analyzer, int positionOffsetGap) {
         // our named analyzer always wrap a non per field analyzer, so no need to have per field analyzer
-        super(new GlobalReuseStrategy());
+        this(name, scope, analyzer, positionOffsetGap, new CountingReuseStrategy());
+    }
+
+    private NamedAnalyzer(String name, AnalyzerScope scope, Analyzer analyzer, int positionOffsetGap, CountingReuseStrategy reuseStrategy) {
+        super(reuseStrategy);
         this.name = name;
         this.scope = scope;
         this.analyzer = analyzer;
         this.positionOffsetGap = positionOffsetGap;
+        this.reuseStrategy = reuseStrategy;
     }
 
     /**
@@ -75,6 +82,30 @@ public class NamedAnalyzer extends CustomAnalyzerWrapper {
         return this.analyzer;
     }
 
+    /**
+     * The number of times the token stream components of this analyzer have been created, which
+     * happens once per thread as long as the components are reused.
+     */
+    public long componentsCreated() {
+        return reuseStrategy.created.count();
+    }
+
+    /**
+     * The components of this analyzer the current thread can reuse, or <tt>null</tt> if none
+     * have been created yet. Allows wrapping analyzers to share the components of this analyzer
+     * instead of holding their own copy.
+     */
+    TokenStreamComponents reusableComponents(String fieldName) {
+        return reuseStrategy.getReusableComponents(fieldName);
+    }
+
+    /**
+     * Stores the components the current thread created for this analyzer through a wrapping analyzer.
+     */
+    void reusableComponents(String fieldName, TokenStreamComponents components) {
+        reuseStrategy.setReusableComponents(fieldName, components);
+    }
+
     @Override
     protected Analyzer getWrappedAnalyzer(String fieldName) {
         return this.analyzer;
@@ -97,4 +128,23 @@ public class NamedAnalyzer extends CustomAnalyzerWrapper {
     public String toString() {
         return "analyzer name[" + name + "], analyzer [" + analyzer + "]";
     }
+
+    /**
+     * Same as {@link GlobalReuseStrategy}, but keeps track of how many times components got created.
+     */
+    static final class CountingReuseStrategy extends ReuseStrategy {
+
+        final CounterMetric created = new CounterMetric();
+
+        @Override
+        public TokenStreamComponents getReusableComponents(String fieldName) {
+            return (TokenStreamComponents) getStoredValue();
+        }
+
+        @Override
+        public void setReusableComponents(String fieldName, TokenStreamComponents components) {
+            created.inc();
+            setStoredValue(components);
+        }
+    }
 }
@@ -32,6 +32,7 @@ import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.cache.docset.DocSetCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
+import org.elasticsearch.index.cache.fixedbitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.id.IdCache;
 import org.elasticsearch.index.cache.query.parser.QueryParserCache;
 import org.elasticsearch.index.settings.IndexSettings;
@@ -45,17 +46,19 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
     private final QueryParserCache queryParserCache;
     private final IdCache idCache;
     private final DocSetCache docSetCache;
+    private final FixedBitSetFilterCache fixedBitSetFilterCache;
 
     private ClusterService clusterService;
 
     @Inject
     public IndexCache(Index index, @IndexSettings Settings indexSettings, FilterCache filterCache, QueryParserCache queryParserCache, IdCache idCache,
-                      DocSetCache docSetCache) {
+                      DocSetCache docSetCache, FixedBitSetFilterCache fixedBitSetFilterCache) {
         super(index, indexSettings);
         this.filterCache = filterCache;
         this.queryParserCache = queryParserCache;
         this.idCache = idCache;
         this.docSetCache = docSetCache;
+        this.fixedBitSetFilterCache = fixedBitSetFilterCache;
     }
 
     @Inject(optional = true)
@@ -74,6 +77,10 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         return this.docSetCache;
     }
 
+    public FixedBitSetFilterCache fixedBitSetFilterCache() {
+        return this.fixedBitSetFilterCache;
+    }
+
     public IdCache idCache() {
         return this.idCache;
     }
@@ -88,6 +95,7 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         idCache.close();
         queryParserCache.close();
         docSetCache.clear("close");
+        fixedBitSetFilterCache.close();
         if (clusterService != null) {
             clusterService.remove(this);
         }
@@ -97,6 +105,7 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         filterCache.clear(reader);
         idCache.clear(reader);
         docSetCache.clear(reader);
+        fixedBitSetFilterCache.clear(reader);
     }
 
     public void clear(String reason) {
@@ -104,6 +113,7 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         idCache.clear();
         queryParserCache.clear();
         docSetCache.clear(reason);
+        fixedBitSetFilterCache.clear(reason);
     }
 
     @Override
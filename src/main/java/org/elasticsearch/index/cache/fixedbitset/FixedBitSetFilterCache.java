@@ -0,0 +1,223 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.fixedbitset;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.CloseableComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.docset.DocIdSets;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.AbstractIndexComponent;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.object.ObjectMapper;
+import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.warmer.IndicesWarmer;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A per segment cache of the {@link FixedBitSet}s of the filters that mark the boundaries of nested documents.
+ * <p/>
+ * Unlike the filter cache, entries are never evicted because of memory pressure: they are only removed once the
+ * segment is closed. The filters of the nested mappings are loaded for new segments when a refreshed searcher is
+ * warmed, so nested queries, filters, sorts and facets never have to build them while searching.
+ */
+public class FixedBitSetFilterCache extends AbstractIndexComponent implements SegmentReader.CoreClosedListener, CloseableComponent {
+
+    public static final String LOAD_EAGERLY = "index.cache.fixed_bitset.load_eagerly";
+
+    final ConcurrentMap<Object, ConcurrentMap<Filter, FixedBitSet>> loadedFilters = ConcurrentCollections.newConcurrentMap();
+
+    private final NestedFiltersWarmer warmer = new NestedFiltersWarmer();
+
+    private IndicesWarmer indicesWarmer;
+
+    private IndexService indexService;
+
+    @Inject
+    public FixedBitSetFilterCache(Index index, @IndexSettings Settings indexSettings) {
+        super(index, indexSettings);
+    }
+
+    @Inject(optional = true)
+    public void setIndicesWarmer(@Nullable IndicesWarmer indicesWarmer) {
+        if (indicesWarmer != null && indexSettings.getAsBoolean(LOAD_EAGERLY, true)) {
+            this.indicesWarmer = indicesWarmer;
+            indicesWarmer.addListener(warmer);
+        }
+    }
+
+    public void setIndexService(IndexService indexService) {
+        this.indexService = indexService;
+    }
+
+    /**
+     * Returns a filter that loads the docs matching the provided filter into a cached {@link FixedBitSet} per segment.
+     */
+    public FixedBitSetFilter getFixedBitSetFilter(Filter filter) {
+        assert !(filter instanceof FixedBitSetFilter) : "filter is already a fixed bit set filter";
+        return new FixedBitSetFilterWrapper(filter);
+    }
+
+    @Override
+    public void close() throws ElasticSearchException {
+        if (indicesWarmer != null) {
+            indicesWarmer.removeListener(warmer);
+        }
+        clear("close");
+    }
+
+    public void clear(String reason) {
+        logger.debug("clearing all fixed bit sets because [{}]", reason);
+        loadedFilters.clear();
+    }
+
+    public void clear(IndexReader reader) {
+        loadedFilters.remove(reader.getCoreCacheKey());
+    }
+
+    @Override
+    public void onClose(SegmentReader owner) {
+        clear(owner);
+    }
+
+    private FixedBitSet getAndLoadIfNotPresent(Filter filter, AtomicReaderContext context) throws IOException {
+        final Object coreCacheKey = context.reader().getCoreCacheKey();
+        ConcurrentMap<Filter, FixedBitSet> segmentFilters = loadedFilters.get(coreCacheKey);
+        if (segmentFilters == null) {
+            segmentFilters = ConcurrentCollections.newConcurrentMap();
+            ConcurrentMap<Filter, FixedBitSet> existing = loadedFilters.putIfAbsent(coreCacheKey, segmentFilters);
+            if (existing != null) {
+                segmentFilters = existing;
+            } else if (context.reader() instanceof SegmentReader) {
+                // we add a core closed listener only, for non core IndexReaders we rely on clear being called (percolator for example)
+                ((SegmentReader) context.reader()).addCoreClosedListener(this);
+            }
+        }
+
+        FixedBitSet bitSet = segmentFilters.get(filter);
+        if (bitSet == null) {
+            // the live docs are not applied, the same segment core is shared by generations with different deletes
+            final int maxDoc = context.reader().maxDoc();
+            DocIdSet docIdSet = filter.getDocIdSet(context, null);
+            if (DocIdSets.isEmpty(docIdSet)) {
+                bitSet = new FixedBitSet(maxDoc);
+            } else if (docIdSet instanceof FixedBitSet) {
+                bitSet = (FixedBitSet) docIdSet;
+            } else {
+                DocIdSetIterator iterator = docIdSet.iterator();
+                bitSet = iterator == null ? new FixedBitSet(maxDoc) : DocIdSets.toFixedBitSet(iterator, maxDoc);
+            }
+            FixedBitSet existing = segmentFilters.putIfAbsent(filter, bitSet);
+            if (existing != null) {
+                bitSet = existing;
+            }
+        }
+        return bitSet;
+    }
+
+    final class FixedBitSetFilterWrapper extends FixedBitSetFilter {
+
+        final Filter filter;
+
+        FixedBitSetFilterWrapper(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public FixedBitSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+            return getAndLoadIfNotPresent(filter, context);
+        }
+
+        @Override
+        public String toString() {
+            return "fixed_bitset(" + filter + ")";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FixedBitSetFilterWrapper)) return false;
+            return this.filter.equals(((FixedBitSetFilterWrapper) o).filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return filter.hashCode() ^ 0x1117BF25;
+        }
+    }
+
+    final class NestedFiltersWarmer extends IndicesWarmer.Listener {
+
+        @Override
+        public void warm(IndexShard indexShard, IndexMetaData indexMetaData, IndicesWarmer.WarmerContext warmerContext) {
+            if (!index().equals(warmerContext.shardId().index()) || indexService == null) {
+                return;
+            }
+            MapperService mapperService = indexService.mapperService();
+            if (!mapperService.hasNested()) {
+                return;
+            }
+
+            Set<Filter> filters = new HashSet<Filter>();
+            filters.add(NonNestedDocsFilter.INSTANCE);
+            for (DocumentMapper docMapper : mapperService) {
+                for (ObjectMapper objectMapper : docMapper.objectMappers().values()) {
+                    if (objectMapper.nested().isNested()) {
+                        filters.add(objectMapper.nestedTypeFilter());
+                    }
+                }
+            }
+
+            try {
+                long start = System.nanoTime();
+                for (AtomicReaderContext context : warmerContext.newSearcher().reader().leaves()) {
+                    for (Filter filter : filters) {
+                        getAndLoadIfNotPresent(filter, context);
+                    }
+                }
+                if (indexShard.warmerService().logger().isTraceEnabled()) {
+                    indexShard.warmerService().logger().trace("warmed fixed bit sets for [{}] nested filters, took [{}]", filters.size(), TimeValue.timeValueNanos(System.nanoTime() - start));
+                }
+            } catch (Throwable t) {
+                indexShard.warmerService().logger().warn("failed to warm fixed bit sets for nested filters", t);
+            }
+        }
+    }
+}
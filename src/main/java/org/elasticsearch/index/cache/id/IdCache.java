@@ -26,6 +26,7 @@ import org.elasticsearch.common.component.CloseableComponent;
 import org.elasticsearch.index.IndexComponent;
 import org.elasticsearch.index.service.IndexService;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -44,4 +45,10 @@ public interface IdCache extends IndexComponent, CloseableComponent, Iterable<Id
     void refresh(List<AtomicReaderContext> readers) throws Exception;
 
     IdReaderCache reader(AtomicReader reader);
+
+    /**
+     * Returns the ordinals of the ids of the provided parent type that are shared by all segments of the top level
+     * reader. The segments of the reader need to be {@link #refresh(java.util.List) refreshed} first.
+     */
+    ParentOrdinals parentOrdinals(IndexReader topLevelReader, String type) throws IOException;
 }
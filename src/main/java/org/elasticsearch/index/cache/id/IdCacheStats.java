@@ -19,10 +19,12 @@
 
 package org.elasticsearch.index.cache.id;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -35,15 +37,31 @@ public class IdCacheStats implements Streamable, ToXContent {
 
     long memorySize;
 
+    long segments;
+
+    long maxSegmentMemorySize;
+
+    long loadTotal;
+
+    long loadTimeInMillis;
+
     public IdCacheStats() {
     }
 
-    public IdCacheStats(long memorySize) {
+    public IdCacheStats(long memorySize, long segments, long maxSegmentMemorySize, long loadTotal, long loadTimeInMillis) {
         this.memorySize = memorySize;
+        this.segments = segments;
+        this.maxSegmentMemorySize = maxSegmentMemorySize;
+        this.loadTotal = loadTotal;
+        this.loadTimeInMillis = loadTimeInMillis;
     }
 
     public void add(IdCacheStats stats) {
         this.memorySize += stats.memorySize;
+        this.segments += stats.segments;
+        this.maxSegmentMemorySize = Math.max(this.maxSegmentMemorySize, stats.maxSegmentMemorySize);
+        this.loadTotal += stats.loadTotal;
+        this.loadTimeInMillis += stats.loadTimeInMillis;
     }
 
     public long getMemorySizeInBytes() {
@@ -54,6 +72,42 @@ public class IdCacheStats implements Streamable, ToXContent {
         return new ByteSizeValue(memorySize);
     }
 
+    /**
+     * The number of segments that currently have their ids cached.
+     */
+    public long getSegments() {
+        return this.segments;
+    }
+
+    /**
+     * The memory used by the ids of the largest cached segment.
+     */
+    public long getMaxSegmentMemorySizeInBytes() {
+        return this.maxSegmentMemorySize;
+    }
+
+    public ByteSizeValue getMaxSegmentMemorySize() {
+        return new ByteSizeValue(maxSegmentMemorySize);
+    }
+
+    /**
+     * The total number of segments the ids have been loaded for.
+     */
+    public long getLoadTotal() {
+        return this.loadTotal;
+    }
+
+    /**
+     * The total time spent loading the ids of segments (in milliseconds).
+     */
+    public long getLoadTimeInMillis() {
+        return this.loadTimeInMillis;
+    }
+
+    public TimeValue getLoadTime() {
+        return new TimeValue(loadTimeInMillis);
+    }
+
     public static IdCacheStats readIdCacheStats(StreamInput in) throws IOException {
         IdCacheStats stats = new IdCacheStats();
         stats.readFrom(in);
@@ -63,17 +117,33 @@ public class IdCacheStats implements Streamable, ToXContent {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            segments = in.readVLong();
+            maxSegmentMemorySize = in.readVLong();
+            loadTotal = in.readVLong();
+            loadTimeInMillis = in.readVLong();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeVLong(segments);
+            out.writeVLong(maxSegmentMemorySize);
+            out.writeVLong(loadTotal);
+            out.writeVLong(loadTimeInMillis);
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.ID_CACHE);
         builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, memorySize);
+        builder.field(Fields.SEGMENTS, segments);
+        builder.byteSizeField(Fields.MAX_SEGMENT_MEMORY_SIZE_IN_BYTES, Fields.MAX_SEGMENT_MEMORY_SIZE, maxSegmentMemorySize);
+        builder.field(Fields.LOAD_TOTAL, loadTotal);
+        builder.timeValueField(Fields.LOAD_TIME_IN_MILLIS, Fields.LOAD_TIME, loadTimeInMillis);
         builder.endObject();
         return builder;
     }
@@ -82,5 +152,11 @@ public class IdCacheStats implements Streamable, ToXContent {
         static final XContentBuilderString ID_CACHE = new XContentBuilderString("id_cache");
         static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
+        static final XContentBuilderString SEGMENTS = new XContentBuilderString("segments");
+        static final XContentBuilderString MAX_SEGMENT_MEMORY_SIZE = new XContentBuilderString("max_segment_memory_size");
+        static final XContentBuilderString MAX_SEGMENT_MEMORY_SIZE_IN_BYTES = new XContentBuilderString("max_segment_memory_size_in_bytes");
+        static final XContentBuilderString LOAD_TOTAL = new XContentBuilderString("load_total");
+        static final XContentBuilderString LOAD_TIME = new XContentBuilderString("load_time");
+        static final XContentBuilderString LOAD_TIME_IN_MILLIS = new XContentBuilderString("load_time_in_millis");
     }
 }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.cache.id;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.HashedBytesArray;
 
 /**
@@ -38,12 +39,46 @@ public interface IdReaderTypeCache {
      */
     int docById(HashedBytesArray uid);
 
+    /**
+     * @param id    The id of the document to return the lucene docId for
+     * @param spare A reference that may be filled with the ids the given id is compared to, so it must not be the
+     *              same instance as the given id
+     * @return The lucene docId for the specified id, or <tt>-1</tt> if there is no such document in this segment
+     */
+    int docById(BytesRef id, BytesRef spare);
+
     /**
      * @param docId The lucene docId of the document to return _uid for
      * @return The _uid of the specified docId
      */
     HashedBytesArray idByDoc(int docId);
 
+    /**
+     * @param docId The Lucene docId of the child document to return the parent id ordinal for.
+     * @return The ordinal of the parent _uid of the specified docId, or <tt>0</tt> if it has no parent of this type
+     */
+    int parentIdOrdByDoc(int docId);
+
+    /**
+     * @param docId The lucene docId of the document to return the _uid ordinal for
+     * @return The ordinal of the _uid of the specified docId, or <tt>0</tt> if it isn't a document of this type
+     */
+    int idOrdByDoc(int docId);
+
+    /**
+     * @return The number of ordinals, including the ordinal <tt>0</tt> that stands for no id. Ordinals are specific
+     *         to the segment and sorted in the order of the ids they stand for, so both parent and child docs that
+     *         refer to the same id have the same ordinal.
+     */
+    int numOrds();
+
+    /**
+     * @param ord   An ordinal between <tt>1</tt> (included) and {@link #numOrds()} (excluded)
+     * @param spare A reference that may be filled with the id
+     * @return The id the ordinal stands for, which may point to shared bytes
+     */
+    BytesRef idByOrd(int ord, BytesRef spare);
+
     /**
      * @return The size in bytes for this particular instance
      */
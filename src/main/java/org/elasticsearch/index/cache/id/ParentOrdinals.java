@@ -0,0 +1,72 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.id;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+
+/**
+ * Maps the per segment ordinals of the ids of a parent type, see {@link IdReaderTypeCache#idOrdByDoc(int)}, to
+ * ordinals that are shared by all segments of a top level reader. This allows parent/child queries to collect
+ * into arrays that are indexed by ordinal rather than into maps keyed by id.
+ * <p/>
+ * Like the segment ordinals, the ordinal <tt>0</tt> stands for no id.
+ */
+public final class ParentOrdinals {
+
+    private final PackedInts.Reader[] segmentToShardOrds;
+    private final int numOrds;
+
+    /**
+     * @param segmentToShardOrds The shard level ordinal of each segment ordinal, per segment in the order of the
+     *                           leaves of the top level reader, <tt>null</tt> for segments without any id of the type
+     * @param numOrds            The number of shard level ordinals, including <tt>0</tt>
+     */
+    public ParentOrdinals(PackedInts.Reader[] segmentToShardOrds, int numOrds) {
+        this.segmentToShardOrds = segmentToShardOrds;
+        this.numOrds = numOrds;
+    }
+
+    /**
+     * @return The shard level ordinal of an ordinal of the segment with the provided index in the leaves of the
+     *         top level reader
+     */
+    public int shardOrd(int segment, int segmentOrd) {
+        PackedInts.Reader shardOrds = segmentToShardOrds[segment];
+        return shardOrds == null ? 0 : (int) shardOrds.get(segmentOrd);
+    }
+
+    /**
+     * @return The number of shard level ordinals, including the ordinal <tt>0</tt> that stands for no id
+     */
+    public int numOrds() {
+        return numOrds;
+    }
+
+    public long sizeInBytes() {
+        long sizeInBytes = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF * segmentToShardOrds.length;
+        for (PackedInts.Reader shardOrds : segmentToShardOrds) {
+            if (shardOrds != null) {
+                sizeInBytes += shardOrds.ramBytesUsed();
+            }
+        }
+        return sizeInBytes;
+    }
+}
@@ -21,24 +21,49 @@ package org.elasticsearch.index.cache.id;
 
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  */
 public class ShardIdCache extends AbstractIndexShardComponent {
 
     final CounterMetric totalMetric = new CounterMetric();
 
+    final MeanMetric loadMetric = new MeanMetric();
+
+    final ConcurrentMap<Object, Long> segmentSizes = ConcurrentCollections.newConcurrentMap();
+
     @Inject
     public ShardIdCache(ShardId shardId, @IndexSettings Settings indexSettings) {
         super(shardId, indexSettings);
     }
 
     public IdCacheStats stats() {
-        return new IdCacheStats(totalMetric.count());
+        long maxSegmentSize = 0;
+        for (Long segmentSize : segmentSizes.values()) {
+            maxSegmentSize = Math.max(maxSegmentSize, segmentSize);
+        }
+        return new IdCacheStats(totalMetric.count(), segmentSizes.size(), maxSegmentSize, loadMetric.count(),
+                TimeUnit.NANOSECONDS.toMillis(loadMetric.sum()));
+    }
+
+    public void onSegmentCached(Object coreCacheKey, long sizeInBytes, long tookInNanos) {
+        totalMetric.inc(sizeInBytes);
+        segmentSizes.put(coreCacheKey, sizeInBytes);
+        loadMetric.inc(tookInNanos);
+    }
+
+    public void onSegmentRemoval(Object coreCacheKey, long sizeInBytes) {
+        totalMetric.dec(sizeInBytes);
+        segmentSizes.remove(coreCacheKey);
     }
 
     public void onCached(long sizeInBytes) {
@@ -19,31 +19,40 @@
 
 package org.elasticsearch.index.cache.id.simple;
 
-import gnu.trove.impl.Constants;
 import org.apache.lucene.index.*;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.UnicodeUtil;
+import org.apache.lucene.util.PagedBytes;
+import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.packed.AppendingLongBuffer;
+import org.apache.lucene.util.packed.GrowableWriter;
+import org.apache.lucene.util.packed.MonotonicAppendingLongBuffer;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.ElasticSearchException;
-import org.elasticsearch.common.Strings;
-import org.elasticsearch.common.bytes.HashedBytesArray;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
-import org.elasticsearch.common.text.UTF8SortedAsUnicodeComparator;
-import org.elasticsearch.common.trove.ExtTObjectIntHasMap;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.cache.id.IdCache;
 import org.elasticsearch.index.cache.id.IdReaderCache;
+import org.elasticsearch.index.cache.id.IdReaderTypeCache;
+import org.elasticsearch.index.cache.id.ParentOrdinals;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.ParentFieldMapper;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.warmer.IndicesWarmer;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
 
@@ -52,8 +61,23 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class SimpleIdCache extends AbstractIndexComponent implements IdCache, SegmentReader.CoreClosedListener {
 
+    public static final String WARM = "index.cache.id.warm";
+
     private final ConcurrentMap<Object, SimpleIdReaderCache> idReaders;
-    private final boolean reuse;
+
+    private final ConcurrentMap<Object, TopLevelParentOrdinals> parentOrdinals;
+
+    private final IndexReader.ReaderClosedListener parentOrdinalsClosedListener = new IndexReader.ReaderClosedListener() {
+        @Override
+        public void onClose(IndexReader reader) {
+            TopLevelParentOrdinals removed = parentOrdinals.remove(reader.getCoreCacheKey());
+            if (removed != null) onRemoval(removed);
+        }
+    };
+
+    private final IdCacheWarmer warmer = new IdCacheWarmer();
+
+    private IndicesWarmer indicesWarmer;
 
     IndexService indexService;
 
@@ -61,7 +85,16 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
     public SimpleIdCache(Index index, @IndexSettings Settings indexSettings) {
         super(index, indexSettings);
         idReaders = ConcurrentCollections.newConcurrentMap();
-        this.reuse = componentSettings.getAsBoolean("reuse", false);
+        parentOrdinals = ConcurrentCollections.newConcurrentMap();
+    }
+
+    @Inject(optional = true)
+    public void setIndicesWarmer(@Nullable IndicesWarmer indicesWarmer) {
+        // load the ids of new segments before a refreshed searcher is exposed, rather than on the first parent/child query
+        if (indicesWarmer != null && indexSettings.getAsBoolean(WARM, true)) {
+            this.indicesWarmer = indicesWarmer;
+            indicesWarmer.addListener(warmer);
+        }
     }
 
     @Override
@@ -71,15 +104,23 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
 
     @Override
     public void close() throws ElasticSearchException {
+        if (indicesWarmer != null) {
+            indicesWarmer.removeListener(warmer);
+        }
         clear();
     }
 
     @Override
     public void clear() {
-        for (Iterator<SimpleIdReaderCache> it = idReaders.values().iterator(); it.hasNext(); ) {
-            SimpleIdReaderCache idReaderCache = it.next();
+        for (Iterator<Map.Entry<Object, SimpleIdReaderCache>> it = idReaders.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Object, SimpleIdReaderCache> entry = it.next();
+            it.remove();
+            onRemoval(entry.getKey(), entry.getValue());
+        }
+        for (Iterator<TopLevelParentOrdinals> it = parentOrdinals.values().iterator(); it.hasNext(); ) {
+            TopLevelParentOrdinals ordinals = it.next();
             it.remove();
-            onRemoval(idReaderCache);
+            onRemoval(ordinals);
         }
     }
 
@@ -91,7 +132,9 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
     @Override
     public void clear(IndexReader reader) {
         SimpleIdReaderCache removed = idReaders.remove(reader.getCoreCacheKey());
-        if (removed != null) onRemoval(removed);
+        if (removed != null) onRemoval(reader.getCoreCacheKey(), removed);
+        TopLevelParentOrdinals removedOrdinals = parentOrdinals.remove(reader.getCoreCacheKey());
+        if (removedOrdinals != null) onRemoval(removedOrdinals);
     }
 
     @Override
@@ -105,7 +148,6 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
         return (Iterator<IdReaderCache>) idReaders.values();
     }
 
-    @SuppressWarnings({"StringEquality"})
     @Override
     public void refresh(List<AtomicReaderContext> atomicReaderContexts) throws Exception {
         // do a quick check for the common case, that all are there
@@ -115,21 +157,10 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
                     return;
                 }
 
-                // do the refresh
-                Map<Object, Map<String, TypeBuilder>> builders = new HashMap<Object, Map<String, TypeBuilder>>();
-                Map<Object, IndexReader> cacheToReader = new HashMap<Object, IndexReader>();
-
                 // We don't want to load uid of child documents, this allows us to not load uids of child types.
-                NavigableSet<HashedBytesArray> parentTypes = new TreeSet<HashedBytesArray>(UTF8SortedAsUnicodeComparator.utf8SortedAsUnicodeSortOrder);
-                BytesRef spare = new BytesRef();
-                for (String type : indexService.mapperService().types()) {
-                    ParentFieldMapper parentFieldMapper = indexService.mapperService().documentMapper(type).parentFieldMapper();
-                    if (parentFieldMapper != null) {
-                        parentTypes.add(new HashedBytesArray(Strings.toUTF8Bytes(parentFieldMapper.type(), spare)));
-                    }
-                }
+                Set<String> parentTypes = parentTypes();
 
-                // first, go over and load all the id->doc map for all types
+                // segments that are already cached are reused as is, only new segments get loaded
                 for (AtomicReaderContext context : atomicReaderContexts) {
                     AtomicReader reader = context.reader();
                     if (idReaders.containsKey(reader.getCoreCacheKey())) {
@@ -140,158 +171,221 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
                     if (reader instanceof SegmentReader) {
                         ((SegmentReader) reader).addCoreClosedListener(this);
                     }
-                    Map<String, TypeBuilder> readerBuilder = new HashMap<String, TypeBuilder>();
-                    builders.put(reader.getCoreCacheKey(), readerBuilder);
-                    cacheToReader.put(reader.getCoreCacheKey(), context.reader());
-
-
-                    Terms terms = reader.terms(UidFieldMapper.NAME);
-                    if (terms != null) {
-                        TermsEnum termsEnum = terms.iterator(null);
-                        DocsEnum docsEnum = null;
-                        uid: for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
-                            HashedBytesArray[] typeAndId = Uid.splitUidIntoTypeAndId(term);
-                            if (!parentTypes.contains(typeAndId[0])) {
-                                do {
-                                    HashedBytesArray nextParent = parentTypes.ceiling(typeAndId[0]);
-                                    if (nextParent == null) {
-                                        break uid;
-                                    }
-
-                                    TermsEnum.SeekStatus status = termsEnum.seekCeil(nextParent.toBytesRef(), false);
-                                    if (status == TermsEnum.SeekStatus.END) {
-                                        break uid;
-                                    } else if (status == TermsEnum.SeekStatus.NOT_FOUND) {
-                                        term = termsEnum.term();
-                                        typeAndId = Uid.splitUidIntoTypeAndId(term);
-                                    } else if (status == TermsEnum.SeekStatus.FOUND) {
-                                        assert false : "Seek status should never be FOUND, because we seek only the type part";
-                                        term = termsEnum.term();
-                                        typeAndId = Uid.splitUidIntoTypeAndId(term);
-                                    }
-                                } while (!parentTypes.contains(typeAndId[0]));
-                            }
-
-                            String type = typeAndId[0].toUtf8();
-                            TypeBuilder typeBuilder = readerBuilder.get(type);
-                            if (typeBuilder == null) {
-                                typeBuilder = new TypeBuilder(reader);
-                                readerBuilder.put(type, typeBuilder);
-                            }
-
-                            HashedBytesArray idAsBytes = checkIfCanReuse(builders, typeAndId[1]);
-                            docsEnum = termsEnum.docs(null, docsEnum, 0);
-                            for (int docId = docsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
-                                typeBuilder.idToDoc.put(idAsBytes, docId);
-                                typeBuilder.docToId[docId] = idAsBytes;
-                            }
+                    long start = System.nanoTime();
+
+                    Terms uidTerms = reader.terms(UidFieldMapper.NAME);
+                    Terms parentTerms = reader.terms(ParentFieldMapper.NAME);
+                    TermsEnum uidTermsEnum = uidTerms == null ? null : uidTerms.iterator(null);
+                    TermsEnum parentTermsEnum = parentTerms == null ? null : parentTerms.iterator(null);
+
+                    MapBuilder<String, SimpleIdReaderTypeCache> types = MapBuilder.newMapBuilder();
+                    for (String type : parentTypes) {
+                        SimpleIdReaderTypeCache typeCache = loadType(type, reader, uidTermsEnum, parentTermsEnum);
+                        if (typeCache != null) {
+                            types.put(type, typeCache);
                         }
                     }
+                    SimpleIdReaderCache readerCache = new SimpleIdReaderCache(types.immutableMap(), ShardUtils.extractShardId(reader));
+                    idReaders.put(reader.getCoreCacheKey(), readerCache);
+                    onCached(reader.getCoreCacheKey(), readerCache, System.nanoTime() - start);
                 }
+            }
+        }
+    }
 
-                // now, go and load the docId->parentId map
-
-                for (AtomicReaderContext context : atomicReaderContexts) {
-                    AtomicReader reader = context.reader();
-                    if (idReaders.containsKey(reader.getCoreCacheKey())) {
-                        // no need, continue
-                        continue;
-                    }
+    /**
+     * Loads the ids of the provided type from both the _uid and the _parent field, so that a parent doc and its
+     * child docs point to the same ordinal. Returns <tt>null</tt> if the segment has no ids of the type.
+     */
+    private SimpleIdReaderTypeCache loadType(String type, AtomicReader reader, TermsEnum uidTermsEnum, TermsEnum parentTermsEnum) throws IOException {
+        final BytesRef typeAsBytes = new BytesRef(type);
+        final BytesRef prefix = Uid.typePrefixAsBytes(typeAsBytes);
+        BytesRef uid = seekPrefix(uidTermsEnum, typeAsBytes, prefix);
+        BytesRef parent = seekPrefix(parentTermsEnum, typeAsBytes, prefix);
+        if (uid == null && parent == null) {
+            return null;
+        }
 
-                    Map<String, TypeBuilder> readerBuilder = builders.get(reader.getCoreCacheKey());
-
-                    Terms terms = reader.terms(ParentFieldMapper.NAME);
-                    if (terms != null) {
-                        TermsEnum termsEnum = terms.iterator(null);
-                        DocsEnum docsEnum = null;
-                        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
-                            HashedBytesArray[] typeAndId = Uid.splitUidIntoTypeAndId(term);
-
-                            TypeBuilder typeBuilder = readerBuilder.get(typeAndId[0].toUtf8());
-                            if (typeBuilder == null) {
-                                typeBuilder = new TypeBuilder(reader);
-                                readerBuilder.put(typeAndId[0].toUtf8(), typeBuilder);
-                            }
-
-                            HashedBytesArray idAsBytes = checkIfCanReuse(builders, typeAndId[1]);
-                            boolean added = false; // optimize for when all the docs are deleted for this id
-
-                            docsEnum = termsEnum.docs(null, docsEnum, 0);
-                            for (int docId = docsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
-                                if (!added) {
-                                    typeBuilder.parentIdsValues.add(idAsBytes);
-                                    added = true;
-                                }
-                                typeBuilder.parentIdsOrdinals[docId] = typeBuilder.t;
-                            }
-
-                            if (added) {
-                                typeBuilder.t++;
-                            }
-                        }
-                    }
+        final int maxDoc = reader.maxDoc();
+        final PagedBytes bytes = new PagedBytes(15);
+        final MonotonicAppendingLongBuffer ordToOffset = new MonotonicAppendingLongBuffer();
+        final AppendingLongBuffer ordToDoc = new AppendingLongBuffer();
+        final GrowableWriter docToIdOrd = new GrowableWriter(1, maxDoc, PackedInts.FAST);
+        final GrowableWriter docToParentIdOrd = new GrowableWriter(1, maxDoc, PackedInts.FAST);
+        // the first ordinal indicates no id
+        ordToOffset.add(0);
+        ordToDoc.add(0);
+
+        final BytesRef id = new BytesRef();
+        DocsEnum uidDocsEnum = null;
+        DocsEnum parentDocsEnum = null;
+        int ord = 0;
+        while (uid != null || parent != null) {
+            final int cmp = uid == null ? 1 : parent == null ? -1 : uid.compareTo(parent);
+            final BytesRef term = cmp <= 0 ? uid : parent;
+            id.bytes = term.bytes;
+            id.offset = term.offset + prefix.length;
+            id.length = term.length - prefix.length;
+            ordToOffset.add(bytes.copyUsingLengthPrefix(id));
+            ord++;
+
+            int lastDoc = -1;
+            if (cmp <= 0) {
+                uidDocsEnum = uidTermsEnum.docs(null, uidDocsEnum, DocsEnum.FLAG_NONE);
+                for (int docId = uidDocsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = uidDocsEnum.nextDoc()) {
+                    docToIdOrd.set(docId, ord);
+                    lastDoc = docId;
                 }
+                uid = nextWithPrefix(uidTermsEnum, prefix);
+            }
+            ordToDoc.add(lastDoc + 1);
+            if (cmp >= 0) {
+                parentDocsEnum = parentTermsEnum.docs(null, parentDocsEnum, DocsEnum.FLAG_NONE);
+                for (int docId = parentDocsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = parentDocsEnum.nextDoc()) {
+                    docToParentIdOrd.set(docId, ord);
+                }
+                parent = nextWithPrefix(parentTermsEnum, prefix);
+            }
+        }
 
+        final long idsSizeInBytes = bytes.getPointer();
+        return new SimpleIdReaderTypeCache(type, bytes.freeze(true), idsSizeInBytes, ordToOffset, ordToDoc,
+                docToIdOrd.getMutable(), docToParentIdOrd.getMutable());
+    }
 
-                // now, build it back
-                for (Map.Entry<Object, Map<String, TypeBuilder>> entry : builders.entrySet()) {
-                    Object readerKey = entry.getKey();
-                    MapBuilder<String, SimpleIdReaderTypeCache> types = MapBuilder.newMapBuilder();
-                    for (Map.Entry<String, TypeBuilder> typeBuilderEntry : entry.getValue().entrySet()) {
-                        types.put(typeBuilderEntry.getKey(), new SimpleIdReaderTypeCache(typeBuilderEntry.getKey(),
-                                typeBuilderEntry.getValue().idToDoc,
-                                typeBuilderEntry.getValue().docToId,
-                                typeBuilderEntry.getValue().parentIdsValues.toArray(new HashedBytesArray[typeBuilderEntry.getValue().parentIdsValues.size()]),
-                                typeBuilderEntry.getValue().parentIdsOrdinals));
-                    }
-                    IndexReader indexReader = cacheToReader.get(readerKey);
-                    SimpleIdReaderCache readerCache = new SimpleIdReaderCache(types.immutableMap(), ShardUtils.extractShardId(indexReader));
-                    idReaders.put(readerKey, readerCache);
-                    onCached(readerCache);
+    private static BytesRef seekPrefix(TermsEnum termsEnum, BytesRef type, BytesRef prefix) throws IOException {
+        if (termsEnum == null) {
+            return null;
+        }
+        if (termsEnum.seekCeil(type, false) == TermsEnum.SeekStatus.FOUND) {
+            assert false : "Uid [" + type.utf8ToString() + "] has no type delimiter";
+        }
+        if (termsEnum.seekCeil(prefix, false) == TermsEnum.SeekStatus.END) {
+            return null;
+        }
+        final BytesRef term = termsEnum.term();
+        return StringHelper.startsWith(term, prefix) ? term : null;
+    }
+
+    private static BytesRef nextWithPrefix(TermsEnum termsEnum, BytesRef prefix) throws IOException {
+        final BytesRef term = termsEnum.next();
+        return term != null && StringHelper.startsWith(term, prefix) ? term : null;
+    }
+
+    @Override
+    public ParentOrdinals parentOrdinals(IndexReader topLevelReader, String type) throws IOException {
+        final Object key = topLevelReader.getCoreCacheKey();
+        TopLevelParentOrdinals readerOrdinals = parentOrdinals.get(key);
+        if (readerOrdinals == null) {
+            readerOrdinals = new TopLevelParentOrdinals(topLevelReader.leaves().isEmpty() ? null : ShardUtils.extractShardId(topLevelReader.leaves().get(0).reader()));
+            TopLevelParentOrdinals existing = parentOrdinals.putIfAbsent(key, readerOrdinals);
+            if (existing != null) {
+                readerOrdinals = existing;
+            } else {
+                topLevelReader.addReaderClosedListener(parentOrdinalsClosedListener);
+            }
+        }
+        ParentOrdinals ordinals = readerOrdinals.types.get(type);
+        if (ordinals == null) {
+            ordinals = loadParentOrdinals(topLevelReader, type);
+            ParentOrdinals existing = readerOrdinals.types.putIfAbsent(type, ordinals);
+            if (existing != null) {
+                ordinals = existing;
+            } else {
+                onCached(readerOrdinals.shardId, ordinals.sizeInBytes());
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Merges the sorted ids of all segments, giving the same shard level ordinal to ids that are equal.
+     */
+    private ParentOrdinals loadParentOrdinals(IndexReader topLevelReader, String type) {
+        final List<AtomicReaderContext> leaves = topLevelReader.leaves();
+        final PackedInts.Reader[] segmentToShardOrds = new PackedInts.Reader[leaves.size()];
+        final SegmentIdsQueue queue = new SegmentIdsQueue(leaves.size());
+        for (int i = 0; i < leaves.size(); i++) {
+            IdReaderCache readerCache = reader(leaves.get(i).reader());
+            IdReaderTypeCache typeCache = readerCache == null ? null : readerCache.type(type);
+            if (typeCache != null) {
+                SegmentIds segmentIds = new SegmentIds(i, typeCache);
+                if (segmentIds.next()) {
+                    queue.add(segmentIds);
                 }
             }
         }
+
+        final BytesRef current = new BytesRef();
+        int shardOrd = 0;
+        while (queue.size() > 0) {
+            SegmentIds top = queue.top();
+            if (shardOrd == 0 || !top.id.bytesEquals(current)) {
+                shardOrd++;
+                current.copyBytes(top.id);
+            }
+            top.shardOrds.set(top.ord, shardOrd);
+            if (top.next()) {
+                queue.updateTop();
+            } else {
+                segmentToShardOrds[top.segment] = top.shardOrds.getMutable();
+                queue.pop();
+            }
+        }
+        return new ParentOrdinals(segmentToShardOrds, shardOrd + 1);
     }
 
-    void onCached(SimpleIdReaderCache readerCache) {
+    private Set<String> parentTypes() {
+        Set<String> parentTypes = new HashSet<String>();
+        for (String type : indexService.mapperService().types()) {
+            ParentFieldMapper parentFieldMapper = indexService.mapperService().documentMapper(type).parentFieldMapper();
+            if (parentFieldMapper != null) {
+                parentTypes.add(parentFieldMapper.type());
+            }
+        }
+        return parentTypes;
+    }
+
+    void onCached(Object coreCacheKey, SimpleIdReaderCache readerCache, long tookInNanos) {
         if (readerCache.shardId != null) {
             IndexShard shard = indexService.shard(readerCache.shardId.id());
             if (shard != null) {
-                shard.idCache().onCached(readerCache.sizeInBytes());
+                shard.idCache().onSegmentCached(coreCacheKey, readerCache.sizeInBytes(), tookInNanos);
             }
         }
     }
 
-    void onRemoval(SimpleIdReaderCache readerCache) {
+    void onRemoval(Object coreCacheKey, SimpleIdReaderCache readerCache) {
         if (readerCache.shardId != null) {
             IndexShard shard = indexService.shard(readerCache.shardId.id());
             if (shard != null) {
-                shard.idCache().onRemoval(readerCache.sizeInBytes());
+                shard.idCache().onSegmentRemoval(coreCacheKey, readerCache.sizeInBytes());
             }
         }
     }
 
-    private HashedBytesArray checkIfCanReuse(Map<Object, Map<String, TypeBuilder>> builders, HashedBytesArray idAsBytes) {
-        HashedBytesArray finalIdAsBytes;
-        // go over and see if we can reuse this id
-        if (reuse) {
-            for (SimpleIdReaderCache idReaderCache : idReaders.values()) {
-                finalIdAsBytes = idReaderCache.canReuse(idAsBytes);
-                if (finalIdAsBytes != null) {
-                    return finalIdAsBytes;
-                }
+    void onRemoval(TopLevelParentOrdinals readerOrdinals) {
+        for (ParentOrdinals ordinals : readerOrdinals.types.values()) {
+            onRemoval(readerOrdinals.shardId, ordinals.sizeInBytes());
+        }
+    }
+
+    private void onCached(ShardId shardId, long sizeInBytes) {
+        if (shardId != null) {
+            IndexShard shard = indexService.shard(shardId.id());
+            if (shard != null) {
+                shard.idCache().onCached(sizeInBytes);
             }
         }
-        // even if we don't enable reuse, at least check on the current "live" builders that we are handling
-        for (Map<String, TypeBuilder> map : builders.values()) {
-            for (TypeBuilder typeBuilder : map.values()) {
-                finalIdAsBytes = typeBuilder.canReuse(idAsBytes);
-                if (finalIdAsBytes != null) {
-                    return finalIdAsBytes;
-                }
+    }
+
+    private void onRemoval(ShardId shardId, long sizeInBytes) {
+        if (shardId != null) {
+            IndexShard shard = indexService.shard(shardId.id());
+            if (shard != null) {
+                shard.idCache().onRemoval(sizeInBytes);
             }
         }
-        return idAsBytes;
     }
 
     private boolean refreshNeeded(List<AtomicReaderContext> atomicReaderContexts) {
@@ -303,25 +397,74 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
         return false;
     }
 
-    static class TypeBuilder {
-        final ExtTObjectIntHasMap<HashedBytesArray> idToDoc = new ExtTObjectIntHasMap<HashedBytesArray>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
-        final HashedBytesArray[] docToId;
-        final ArrayList<HashedBytesArray> parentIdsValues = new ArrayList<HashedBytesArray>();
-        final int[] parentIdsOrdinals;
-        int t = 1;  // current term number (0 indicated null value)
-
-        TypeBuilder(IndexReader reader) {
-            parentIdsOrdinals = new int[reader.maxDoc()];
-            // the first one indicates null value
-            parentIdsValues.add(null);
-            docToId = new HashedBytesArray[reader.maxDoc()];
+    class IdCacheWarmer extends IndicesWarmer.Listener {
+
+        @Override
+        public void warm(IndexShard indexShard, IndexMetaData indexMetaData, IndicesWarmer.WarmerContext warmerContext) {
+            if (!index().equals(warmerContext.shardId().index()) || indexService == null) {
+                return;
+            }
+            final Set<String> parentTypes = parentTypes();
+            if (parentTypes.isEmpty()) {
+                return;
+            }
+            try {
+                long start = System.nanoTime();
+                refresh(warmerContext.newSearcher().reader().leaves());
+                // the new searcher only holds the new segments, queries use the top level reader of the full searcher
+                final IndexReader topLevelReader = warmerContext.fullSearcher().reader();
+                for (String type : parentTypes) {
+                    parentOrdinals(topLevelReader, type);
+                }
+                if (indexShard.warmerService().logger().isTraceEnabled()) {
+                    indexShard.warmerService().logger().trace("warmed id cache, took [{}]", TimeValue.timeValueNanos(System.nanoTime() - start));
+                }
+            } catch (Throwable t) {
+                indexShard.warmerService().logger().warn("failed to warm id cache", t);
+            }
+        }
+    }
+
+    static class TopLevelParentOrdinals {
+        final ShardId shardId;
+        final ConcurrentMap<String, ParentOrdinals> types = ConcurrentCollections.newConcurrentMap();
+
+        TopLevelParentOrdinals(ShardId shardId) {
+            this.shardId = shardId;
+        }
+    }
+
+    static class SegmentIds {
+        final int segment;
+        final IdReaderTypeCache typeCache;
+        final GrowableWriter shardOrds;
+        final BytesRef id = new BytesRef();
+        int ord;
+
+        SegmentIds(int segment, IdReaderTypeCache typeCache) {
+            this.segment = segment;
+            this.typeCache = typeCache;
+            this.shardOrds = new GrowableWriter(1, typeCache.numOrds(), PackedInts.FAST);
+        }
+
+        boolean next() {
+            if (++ord < typeCache.numOrds()) {
+                typeCache.idByOrd(ord, id);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static class SegmentIdsQueue extends PriorityQueue<SegmentIds> {
+
+        SegmentIdsQueue(int size) {
+            super(size);
         }
 
-        /**
-         * Returns an already stored instance if exists, if not, returns null;
-         */
-        public HashedBytesArray canReuse(HashedBytesArray id) {
-            return idToDoc.key(id);
+        @Override
+        protected boolean lessThan(SegmentIds a, SegmentIds b) {
+            return a.id.compareTo(b.id) < 0;
         }
     }
 }
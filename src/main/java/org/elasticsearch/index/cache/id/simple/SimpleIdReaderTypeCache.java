@@ -19,37 +19,44 @@
 
 package org.elasticsearch.index.cache.id.simple;
 
-import gnu.trove.impl.hash.TObjectHash;
-import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PagedBytes;
+import org.apache.lucene.util.packed.AppendingLongBuffer;
+import org.apache.lucene.util.packed.MonotonicAppendingLongBuffer;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.bytes.HashedBytesArray;
-import org.elasticsearch.common.trove.ExtTObjectIntHasMap;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
 
 /**
- *
+ * Stores the ids of a type once per segment, sorted and addressed by ordinal. Documents only point to the ordinal
+ * of their own id and of their parent id, which are stored as packed ints.
  */
 public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
 
     private final String type;
 
-    private final ExtTObjectIntHasMap<HashedBytesArray> idToDoc;
+    private final PagedBytes.Reader ids;
+    private final long idsSizeInBytes;
+    private final MonotonicAppendingLongBuffer ordToOffset;
 
-    private final HashedBytesArray[] docIdToId;
+    // doc + 1 of the parent doc of each ordinal, 0 if only child docs refer to it
+    private final AppendingLongBuffer ordToDoc;
 
-    private final HashedBytesArray[] parentIdsValues;
+    private final PackedInts.Reader docToIdOrd;
 
-    private final int[] parentIdsOrdinals;
+    private final PackedInts.Reader docToParentIdOrd;
 
     private long sizeInBytes = -1;
 
-    public SimpleIdReaderTypeCache(String type, ExtTObjectIntHasMap<HashedBytesArray> idToDoc, HashedBytesArray[] docIdToId,
-                                   HashedBytesArray[] parentIdsValues, int[] parentIdsOrdinals) {
+    public SimpleIdReaderTypeCache(String type, PagedBytes.Reader ids, long idsSizeInBytes, MonotonicAppendingLongBuffer ordToOffset,
+                                   AppendingLongBuffer ordToDoc, PackedInts.Reader docToIdOrd, PackedInts.Reader docToParentIdOrd) {
         this.type = type;
-        this.idToDoc = idToDoc;
-        this.docIdToId = docIdToId;
-        this.idToDoc.trimToSize();
-        this.parentIdsValues = parentIdsValues;
-        this.parentIdsOrdinals = parentIdsOrdinals;
+        this.ids = ids;
+        this.idsSizeInBytes = idsSizeInBytes;
+        this.ordToOffset = ordToOffset;
+        this.ordToDoc = ordToDoc;
+        this.docToIdOrd = docToIdOrd;
+        this.docToParentIdOrd = docToParentIdOrd;
     }
 
     public String type() {
@@ -57,56 +64,72 @@ public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
     }
 
     public HashedBytesArray parentIdByDoc(int docId) {
-        return parentIdsValues[parentIdsOrdinals[docId]];
+        return idByOrd(parentIdOrdByDoc(docId));
     }
 
     public int docById(HashedBytesArray uid) {
-        return idToDoc.get(uid);
+        return docById(uid.toBytesRef(), new BytesRef());
+    }
+
+    @Override
+    public int docById(BytesRef id, BytesRef spare) {
+        // ordinals are sorted by id, ordinal 0 stands for no id
+        int low = 1;
+        int high = numOrds() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = idByOrd(mid, spare).compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return (int) ordToDoc.get(mid) - 1;
+            }
+        }
+        return -1;
     }
 
     public HashedBytesArray idByDoc(int docId) {
-        return docIdToId[docId];
+        return idByOrd(idOrdByDoc(docId));
     }
 
-    public long sizeInBytes() {
-        if (sizeInBytes == -1) {
-            sizeInBytes = computeSizeInBytes();
-        }
-        return sizeInBytes;
+    @Override
+    public int parentIdOrdByDoc(int docId) {
+        return (int) docToParentIdOrd.get(docId);
     }
 
-    /**
-     * Returns an already stored instance if exists, if not, returns null;
-     */
-    public HashedBytesArray canReuse(HashedBytesArray id) {
-        return idToDoc.key(id);
+    @Override
+    public int idOrdByDoc(int docId) {
+        return (int) docToIdOrd.get(docId);
     }
 
-    long computeSizeInBytes() {
-        long sizeInBytes = 0;
-        // Ignore type field
-        //  sizeInBytes += ((type.length() * RamUsage.NUM_BYTES_CHAR) + (3 * RamUsage.NUM_BYTES_INT)) + RamUsage.NUM_BYTES_OBJECT_HEADER;
-        sizeInBytes += RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (idToDoc._valuesSize() * RamUsageEstimator.NUM_BYTES_INT);
-        for (Object o : idToDoc._set) {
-            if (o == TObjectHash.FREE || o == TObjectHash.REMOVED) {
-                sizeInBytes += RamUsageEstimator.NUM_BYTES_OBJECT_REF;
-            } else {
-                HashedBytesArray bytesArray = (HashedBytesArray) o;
-                sizeInBytes += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + (bytesArray.length() + RamUsageEstimator.NUM_BYTES_INT);
-            }
-        }
+    @Override
+    public int numOrds() {
+        return (int) ordToOffset.size();
+    }
 
-        // The docIdToId array contains references to idToDoc for this segment or other segments, so we can use OBJECT_REF
-        sizeInBytes += RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (RamUsageEstimator.NUM_BYTES_OBJECT_REF * docIdToId.length);
-        for (HashedBytesArray bytesArray : parentIdsValues) {
-            if (bytesArray == null) {
-                sizeInBytes += RamUsageEstimator.NUM_BYTES_OBJECT_REF;
-            } else {
-                sizeInBytes += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + (bytesArray.length() + RamUsageEstimator.NUM_BYTES_INT);
-            }
+    @Override
+    public BytesRef idByOrd(int ord, BytesRef spare) {
+        ids.fill(spare, ordToOffset.get(ord));
+        return spare;
+    }
+
+    private HashedBytesArray idByOrd(int ord) {
+        if (ord == 0) {
+            return null;
         }
-        sizeInBytes += RamUsageEstimator.sizeOf(parentIdsOrdinals);
+        final BytesRef spare = idByOrd(ord, new BytesRef());
+        final byte[] bytes = new byte[spare.length];
+        System.arraycopy(spare.bytes, spare.offset, bytes, 0, spare.length);
+        return new HashedBytesArray(bytes);
+    }
 
+    public long sizeInBytes() {
+        if (sizeInBytes == -1) {
+            sizeInBytes = idsSizeInBytes + ordToOffset.ramBytesUsed() + ordToDoc.ramBytesUsed()
+                    + docToIdOrd.ramBytesUsed() + docToParentIdOrd.ramBytesUsed();
+        }
         return sizeInBytes;
     }
 
@@ -57,6 +57,24 @@ public abstract class DoubleValues {
         return missingValue;
     }
 
+    /**
+     * Reads the values of the first <tt>count</tt> docs of <tt>docs</tt> into <tt>values</tt>, and returns the
+     * number of values read. Docs without a value are skipped, and <tt>docs</tt> is compacted so that
+     * <tt>docs[i]</tt> is the doc of <tt>values[i]</tt>. Only supported on single valued values.
+     */
+    public int getValues(int[] docs, int count, double[] values) {
+        assert !isMultiValued();
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            final int docId = docs[i];
+            if (hasValue(docId)) {
+                docs[numValues] = docId;
+                values[numValues++] = getValue(docId);
+            }
+        }
+        return numValues;
+    }
+
     public Iter getIter(int docId) {
         assert !isMultiValued();
         if (hasValue(docId)) {
@@ -85,6 +103,15 @@ public abstract class DoubleValues {
             return getValue(docId);
         }
 
+        @Override
+        public int getValues(int[] docs, int count, double[] values) {
+            assert !isMultiValued();
+            for (int i = 0; i < count; i++) {
+                values[i] = getValue(docs[i]);
+            }
+            return count;
+        }
+
         public final Iter getIter(int docId) {
             assert hasValue(docId);
             assert !isMultiValued();
@@ -130,6 +157,21 @@ public abstract class DoubleValues {
 
         public abstract double getValueByOrd(long ord);
 
+        @Override
+        public int getValues(int[] docs, int count, double[] values) {
+            assert !isMultiValued();
+            int numValues = 0;
+            for (int i = 0; i < count; i++) {
+                final int docId = docs[i];
+                final long ord = ordinals.getOrd(docId);
+                if (ord != 0) {
+                    docs[numValues] = docId;
+                    values[numValues++] = getValueByOrd(ord);
+                }
+            }
+            return numValues;
+        }
+
         @Override
         public final Iter getIter(int docId) {
             return iter.reset(ordinals.getIter(docId));
@@ -44,6 +44,8 @@ public class GeoDistanceComparator extends NumberComparatorBase<Double> {
 
     private final double[] values;
     private double bottom;
+    // bounding box of the distance of the bottom, documents outside of it are further than the bottom
+    private GeoDistance.DistanceBoundingCheck bottomBoundingCheck;
 
     private GeoDistanceValues geoDistanceValues;
 
@@ -84,6 +86,16 @@ public class GeoDistanceComparator extends NumberComparatorBase<Double> {
 
     @Override
     public int compareBottom(int doc) {
+        if (geoDistance != GeoDistance.FACTOR && bottom != Double.MAX_VALUE) {
+            if (bottomBoundingCheck == null) {
+                // lazily, since the bottom changes for every competitive document
+                bottomBoundingCheck = GeoDistance.distanceBoundingCheck(lat, lon, bottom, unit);
+            }
+            if (geoDistanceValues.isOutside(doc, bottomBoundingCheck)) {
+                // further than the bottom, no need to compute the distance
+                return -1;
+            }
+        }
         final double v2 = geoDistanceValues.computeDistance(doc);
         if (bottom > v2) {
             return 1;
@@ -113,7 +125,10 @@ public class GeoDistanceComparator extends NumberComparatorBase<Double> {
 
     @Override
     public void setBottom(final int bottom) {
-        this.bottom = values[bottom];
+        if (this.bottom != values[bottom]) {
+            this.bottom = values[bottom];
+            this.bottomBoundingCheck = null;
+        }
     }
 
     @Override
@@ -156,6 +171,12 @@ public class GeoDistanceComparator extends NumberComparatorBase<Double> {
 
         public abstract double computeDistance(int doc);
 
+        /**
+         * Returns whether the distance of the document is certainly greater than the distance the
+         * bounding check was built for, without computing the distance.
+         */
+        public abstract boolean isOutside(int doc, GeoDistance.DistanceBoundingCheck boundingCheck);
+
     }
 
     // Deals with one geo point per document
@@ -175,6 +196,12 @@ public class GeoDistanceComparator extends NumberComparatorBase<Double> {
                 return fixedSourceDistance.calculate(geoPoint.lat(), geoPoint.lon());
             }
         }
+
+        @Override
+        public boolean isOutside(int doc, GeoDistance.DistanceBoundingCheck boundingCheck) {
+            GeoPoint geoPoint = readerValues.getValue(doc);
+            return geoPoint != null && !boundingCheck.isWithin(geoPoint.lat(), geoPoint.lon());
+        }
     }
 
     // Deals with more than one geo point per document
@@ -225,6 +252,36 @@ public class GeoDistanceComparator extends NumberComparatorBase<Double> {
             }
         }
 
+        @Override
+        public boolean isOutside(int doc, GeoDistance.DistanceBoundingCheck boundingCheck) {
+            GeoPointValues.Iter iter = readerValues.getIter(doc);
+            if (!iter.hasNext()) {
+                return false;
+            }
+            switch (sortMode) {
+                case MIN:
+                    // all points need to be further
+                    while (iter.hasNext()) {
+                        GeoPoint point = iter.next();
+                        if (boundingCheck.isWithin(point.lat(), point.lon())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                case MAX:
+                    // a single point further is enough
+                    while (iter.hasNext()) {
+                        GeoPoint point = iter.next();
+                        if (!boundingCheck.isWithin(point.lat(), point.lon())) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    return false;
+            }
+        }
+
     }
 
 }
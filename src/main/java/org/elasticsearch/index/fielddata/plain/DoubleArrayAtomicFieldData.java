@@ -245,6 +245,19 @@ public abstract class DoubleArrayAtomicFieldData extends AtomicNumericFieldData
             public long getValue(int docId) {
                 return (long) values.get(docId);
             }
+
+            @Override
+            public int getValues(int[] docs, int count, long[] values) {
+                int numValues = 0;
+                for (int i = 0; i < count; i++) {
+                    final int docId = docs[i];
+                    if (set.get(docId)) {
+                        docs[numValues] = docId;
+                        values[numValues++] = (long) this.values.get(docId);
+                    }
+                }
+                return numValues;
+            }
         }
 
         static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues {
@@ -268,6 +281,18 @@ public abstract class DoubleArrayAtomicFieldData extends AtomicNumericFieldData
                 return values.get(docId);
             }
 
+            @Override
+            public int getValues(int[] docs, int count, double[] values) {
+                int numValues = 0;
+                for (int i = 0; i < count; i++) {
+                    final int docId = docs[i];
+                    if (set.get(docId)) {
+                        docs[numValues] = docId;
+                        values[numValues++] = this.values.get(docId);
+                    }
+                }
+                return numValues;
+            }
         }
     }
 
@@ -336,6 +361,13 @@ public abstract class DoubleArrayAtomicFieldData extends AtomicNumericFieldData
                 return (long) values.get(docId);
             }
 
+            @Override
+            public int getValues(int[] docs, int count, long[] values) {
+                for (int i = 0; i < count; i++) {
+                    values[i] = (long) this.values.get(docs[i]);
+                }
+                return count;
+            }
         }
 
         static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues.Dense {
@@ -352,6 +384,13 @@ public abstract class DoubleArrayAtomicFieldData extends AtomicNumericFieldData
                 return values.get(docId);
             }
 
+            @Override
+            public int getValues(int[] docs, int count, double[] values) {
+                for (int i = 0; i < count; i++) {
+                    values[i] = this.values.get(docs[i]);
+                }
+                return count;
+            }
         }
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.*;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PagedMutable;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.geo.GeoUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.*;
+import org.elasticsearch.index.fielddata.fieldcomparator.SortMode;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals.Docs;
+import org.elasticsearch.index.fielddata.ordinals.OrdinalsBuilder;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.settings.IndexSettings;
+
+/**
+ * Geo point field data that quantizes latitudes and longitudes to a configurable <tt>precision</tt>
+ * (defaults to <tt>1cm</tt>) and stores them in packed arrays, instead of two doubles per point.
+ */
+public class GeoPointCompressedIndexFieldData extends AbstractIndexFieldData<GeoPointCompressedAtomicFieldData> implements IndexGeoPointFieldData<GeoPointCompressedAtomicFieldData> {
+
+    private static final String PRECISION_KEY = "precision";
+    private static final String DEFAULT_PRECISION_VALUE = "1cm";
+
+    static final int PAGE_SIZE = 1 << 12;
+
+    public static class Builder implements IndexFieldData.Builder {
+
+        @Override
+        public IndexFieldData<?> build(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType type, IndexFieldDataCache cache) {
+            final String precisionAsString = type.getSettings().get(PRECISION_KEY, DEFAULT_PRECISION_VALUE);
+            final DistanceUnit.Distance precision = DistanceUnit.Distance.parseDistance(precisionAsString, DistanceUnit.METERS);
+            return new GeoPointCompressedIndexFieldData(index, indexSettings, fieldNames, type, cache, precision);
+        }
+    }
+
+    private final Encoding encoding;
+
+    public GeoPointCompressedIndexFieldData(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, IndexFieldDataCache cache, DistanceUnit.Distance precision) {
+        super(index, indexSettings, fieldNames, fieldDataType, cache);
+        this.encoding = Encoding.of(precision);
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    @Override
+    public boolean valuesOrdered() {
+        // because we might have single values? we can dynamically update a flag to reflect that
+        // based on the atomic field data loaded
+        return false;
+    }
+
+    @Override
+    public GeoPointCompressedAtomicFieldData loadDirect(AtomicReaderContext context) throws Exception {
+        AtomicReader reader = context.reader();
+
+        Terms terms = reader.terms(getFieldNames().indexName());
+        if (terms == null) {
+            return GeoPointCompressedAtomicFieldData.empty(reader.maxDoc());
+        }
+        final long initialSize = terms.size() >= 0 ? 1 + terms.size() : 1 + reader.maxDoc();
+        PagedMutable lat = new PagedMutable(initialSize, PAGE_SIZE, encoding.bitsPerCoordinate(), PackedInts.COMPACT);
+        PagedMutable lon = new PagedMutable(initialSize, PAGE_SIZE, encoding.bitsPerCoordinate(), PackedInts.COMPACT);
+        // ordinal 0 indicates a null value, its coordinates are never read
+        final float acceptableTransientOverheadRatio = fieldDataType.getSettings().getAsFloat("acceptable_transient_overhead_ratio", OrdinalsBuilder.DEFAULT_ACCEPTABLE_OVERHEAD_RATIO);
+        OrdinalsBuilder builder = new OrdinalsBuilder(terms.size(), reader.maxDoc(), acceptableTransientOverheadRatio);
+        final CharsRef spare = new CharsRef();
+        try {
+            BytesRefIterator iter = builder.buildFromTerms(terms.iterator(null));
+            BytesRef term;
+            long ord = 0;
+            while ((term = iter.next()) != null) {
+                ++ord;
+                if (ord >= lat.size()) {
+                    final long newSize = ArrayUtil.oversize((int) ord + 1, 1);
+                    lat = lat.resize(newSize);
+                    lon = lon.resize(newSize);
+                }
+                UnicodeUtil.UTF8toUTF16(term, spare);
+                boolean parsed = false;
+                for (int i = spare.offset; i < spare.length; i++) {
+                    if (spare.chars[i] == ',') { // safes a string creation
+                        lat.set(ord, encoding.encodeLat(Double.parseDouble(new String(spare.chars, spare.offset, (i - spare.offset)))));
+                        lon.set(ord, encoding.encodeLon(Double.parseDouble(new String(spare.chars, (spare.offset + (i + 1)), spare.length - ((i + 1) - spare.offset)))));
+                        parsed = true;
+                        break;
+                    }
+                }
+                assert parsed;
+            }
+
+            Ordinals build = builder.build(fieldDataType.getSettings());
+            if (!build.isMultiValued() && CommonSettings.removeOrdsOnSingleValue(fieldDataType)) {
+                Docs ordinals = build.ordinals();
+                int maxDoc = reader.maxDoc();
+                PagedMutable sLat = new PagedMutable(reader.maxDoc(), PAGE_SIZE, encoding.bitsPerCoordinate(), PackedInts.COMPACT);
+                PagedMutable sLon = new PagedMutable(reader.maxDoc(), PAGE_SIZE, encoding.bitsPerCoordinate(), PackedInts.COMPACT);
+                for (int i = 0; i < maxDoc; i++) {
+                    final long nativeOrdinal = ordinals.getOrd(i);
+                    if (nativeOrdinal != 0) {
+                        sLat.set(i, lat.get(nativeOrdinal));
+                        sLon.set(i, lon.get(nativeOrdinal));
+                    }
+                }
+                FixedBitSet set = builder.buildDocsWithValuesSet();
+                if (set == null) {
+                    return new GeoPointCompressedAtomicFieldData.Single(encoding, sLon, sLat, reader.maxDoc(), ordinals.getNumOrds());
+                } else {
+                    return new GeoPointCompressedAtomicFieldData.SingleFixedSet(encoding, sLon, sLat, reader.maxDoc(), set, ordinals.getNumOrds());
+                }
+            } else {
+                if (lat.size() != build.getNumOrds() + 1) {
+                    lat = lat.resize(build.getNumOrds() + 1);
+                    lon = lon.resize(build.getNumOrds() + 1);
+                }
+                return new GeoPointCompressedAtomicFieldData.WithOrdinals(encoding,
+                        lon, lat,
+                        reader.maxDoc(), build);
+            }
+        } finally {
+            builder.close();
+        }
+
+    }
+
+    @Override
+    public XFieldComparatorSource comparatorSource(@Nullable Object missingValue, SortMode sortMode) {
+        throw new ElasticSearchIllegalArgumentException("can't sort on geo_point field without using specific sorting feature, like geo_distance");
+    }
+
+    /**
+     * Quantization of latitudes and longitudes to unsigned integers of a fixed number of bits. Both
+     * coordinates are mapped linearly from their range onto <tt>[0, 2^bits - 1]</tt>, so that the
+     * bounds of the ranges can be represented exactly.
+     */
+    public static class Encoding {
+
+        static final int MAX_BITS_PER_COORDINATE = 48;
+
+        // upper bound of the length of a degree along a meridian or the equator
+        private static final double METERS_PER_DEGREE = GeoUtils.EARTH_EQUATOR / 360;
+
+        /**
+         * Returns the most compact encoding for which decoded points are at most <tt>precision</tt>
+         * away from the original points.
+         */
+        public static Encoding of(DistanceUnit.Distance precision) {
+            final double meters = precision.unit.toMeters(precision.value);
+            for (int bits = 1; bits < MAX_BITS_PER_COORDINATE; ++bits) {
+                final Encoding encoding = new Encoding(bits);
+                if (encoding.precisionInMeters() <= meters) {
+                    return encoding;
+                }
+            }
+            return new Encoding(MAX_BITS_PER_COORDINATE);
+        }
+
+        private final int bitsPerCoordinate;
+        private final long maxValue;
+        private final double latStep, lonStep;
+
+        Encoding(int bitsPerCoordinate) {
+            assert bitsPerCoordinate > 0 && bitsPerCoordinate <= MAX_BITS_PER_COORDINATE;
+            this.bitsPerCoordinate = bitsPerCoordinate;
+            this.maxValue = PackedInts.maxValue(bitsPerCoordinate);
+            this.latStep = 180d / maxValue;
+            this.lonStep = 360d / maxValue;
+        }
+
+        /**
+         * The number of bits used to store a single coordinate.
+         */
+        public int bitsPerCoordinate() {
+            return bitsPerCoordinate;
+        }
+
+        /**
+         * The maximum distance in meters between a point and its decoded value.
+         */
+        public double precisionInMeters() {
+            // rounding to the closest value makes the error at most half a step on each axis
+            return Math.hypot(latStep / 2, lonStep / 2) * METERS_PER_DEGREE;
+        }
+
+        public long encodeLat(double lat) {
+            return clamp(Math.round((lat + 90) / latStep));
+        }
+
+        public long encodeLon(double lon) {
+            return clamp(Math.round((lon + 180) / lonStep));
+        }
+
+        private long clamp(long encoded) {
+            // coordinates out of range are only possible if normalization was disabled on the mapping
+            return Math.max(0, Math.min(maxValue, encoded));
+        }
+
+        public double decodeLat(long encoded) {
+            return encoded * latStep - 90;
+        }
+
+        public double decodeLon(long encoded) {
+            return encoded * lonStep - 180;
+        }
+    }
+}
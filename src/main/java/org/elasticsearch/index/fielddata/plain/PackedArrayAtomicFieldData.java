@@ -52,6 +52,16 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
         return numDocs;
     }
 
+    /**
+     * Returns a lower bound of all values stored in this segment.
+     */
+    public abstract long getMinValue();
+
+    /**
+     * Returns an upper bound of all values stored in this segment.
+     */
+    public abstract long getMaxValue();
+
     static class Empty extends PackedArrayAtomicFieldData {
 
         Empty(int numDocs) {
@@ -88,6 +98,16 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
             return 0;
         }
 
+        @Override
+        public long getMinValue() {
+            return 0;
+        }
+
+        @Override
+        public long getMaxValue() {
+            return 0;
+        }
+
         @Override
         public BytesValues getBytesValues() {
             return BytesValues.EMPTY;
@@ -133,6 +153,16 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
             return ordinals.getNumOrds();
         }
 
+        @Override
+        public long getMinValue() {
+            return values.size() == 0 ? 0L : values.get(0);
+        }
+
+        @Override
+        public long getMaxValue() {
+            return values.size() == 0 ? 0L : values.get(values.size() - 1);
+        }
+
         @Override
         public LongValues getLongValues() {
             return new LongValues(values, ordinals.ordinals());
@@ -184,13 +214,15 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
 
         private final PackedInts.Mutable values;
         private final long minValue;
+        private final long maxValue;
         private final long missingValue;
         private final long numOrds;
 
-        public SingleSparse(PackedInts.Mutable values, long minValue, int numDocs, long missingValue, long numOrds) {
+        public SingleSparse(PackedInts.Mutable values, long minValue, long maxValue, int numDocs, long missingValue, long numOrds) {
             super(numDocs);
             this.values = values;
             this.minValue = minValue;
+            this.maxValue = maxValue;
             this.missingValue = missingValue;
             this.numOrds = numOrds;
         }
@@ -210,6 +242,16 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
             return numOrds;
         }
 
+        @Override
+        public long getMinValue() {
+            return minValue;
+        }
+
+        @Override
+        public long getMaxValue() {
+            return maxValue;
+        }
+
         @Override
         public long getMemorySizeInBytes() {
             if (size == -1) {
@@ -251,6 +293,20 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
                 final long value = values.get(docId);
                 return value == missingValue ? 0L : minValue + value;
             }
+
+            @Override
+            public int getValues(int[] docs, int count, long[] values) {
+                int numValues = 0;
+                for (int i = 0; i < count; i++) {
+                    final int docId = docs[i];
+                    final long value = this.values.get(docId);
+                    if (value != missingValue) {
+                        docs[numValues] = docId;
+                        values[numValues++] = minValue + value;
+                    }
+                }
+                return numValues;
+            }
         }
 
         static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues {
@@ -277,6 +333,20 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
                 final long value = values.get(docId);
                 return value == missingValue ? 0L : minValue + value;
             }
+
+            @Override
+            public int getValues(int[] docs, int count, double[] values) {
+                int numValues = 0;
+                for (int i = 0; i < count; i++) {
+                    final int docId = docs[i];
+                    final long value = this.values.get(docId);
+                    if (value != missingValue) {
+                        docs[numValues] = docId;
+                        values[numValues++] = minValue + value;
+                    }
+                }
+                return numValues;
+            }
         }
     }
 
@@ -287,16 +357,18 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
 
         private final PackedInts.Mutable values;
         private final long minValue;
+        private final long maxValue;
         private final long numOrds;
 
         /**
          * Note, here, we assume that there is no offset by 1 from docId, so position 0
          * is the value for docId 0.
          */
-        public Single(PackedInts.Mutable values, long minValue, int numDocs, long numOrds) {
+        public Single(PackedInts.Mutable values, long minValue, long maxValue, int numDocs, long numOrds) {
             super(numDocs);
             this.values = values;
             this.minValue = minValue;
+            this.maxValue = maxValue;
             this.numOrds = numOrds;
         }
 
@@ -315,6 +387,16 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
             return numOrds;
         }
 
+        @Override
+        public long getMinValue() {
+            return minValue;
+        }
+
+        @Override
+        public long getMaxValue() {
+            return maxValue;
+        }
+
         @Override
         public long getMemorySizeInBytes() {
             if (size == -1) {
@@ -349,6 +431,39 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
                 return minValue + values.get(docId);
             }
 
+            @Override
+            public int getValues(int[] docs, int count, long[] values) {
+                if (isRun(docs, count)) {
+                    // consecutive docs, typically when all docs match, can be bulk read
+                    int read = 0;
+                    while (read < count) {
+                        read += this.values.get(docs[0] + read, values, read, count - read);
+                    }
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        values[i] = this.values.get(docs[i]);
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    values[i] += minValue;
+                }
+                return count;
+            }
+
+            private static boolean isRun(int[] docs, int count) {
+                if (count == 0 || docs[count - 1] - docs[0] != count - 1) {
+                    return false;
+                }
+                // docs may be collected out of order
+                final int first = docs[0];
+                for (int i = 1; i < count; i++) {
+                    if (docs[i] != first + i) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
         }
 
         static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues.Dense {
@@ -367,6 +482,14 @@ public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData
                 return minValue + values.get(docId);
             }
 
+            @Override
+            public int getValues(int[] docs, int count, double[] values) {
+                for (int i = 0; i < count; i++) {
+                    values[i] = minValue + this.values.get(docs[i]);
+                }
+                return count;
+            }
+
         }
     }
 }
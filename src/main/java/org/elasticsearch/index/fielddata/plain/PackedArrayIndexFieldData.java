@@ -170,9 +170,9 @@ public class PackedArrayIndexFieldData extends AbstractIndexFieldData<AtomicNume
                     }
                 }
                 if (set == null) {
-                    return new PackedArrayAtomicFieldData.Single(sValues, minValue, reader.maxDoc(), ordinals.getNumOrds());
+                    return new PackedArrayAtomicFieldData.Single(sValues, minValue, maxValue, reader.maxDoc(), ordinals.getNumOrds());
                 } else {
-                    return new PackedArrayAtomicFieldData.SingleSparse(sValues, minValue, reader.maxDoc(), missingValue, ordinals.getNumOrds());
+                    return new PackedArrayAtomicFieldData.SingleSparse(sValues, minValue, maxValue, reader.maxDoc(), missingValue, ordinals.getNumOrds());
                 }
             } else {
                 return new PackedArrayAtomicFieldData.WithOrdinals(values, reader.maxDoc(), build);
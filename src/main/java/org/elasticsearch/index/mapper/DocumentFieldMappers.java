@@ -21,6 +21,7 @@ package org.elasticsearch.index.mapper;
 
 import com.google.common.collect.*;
 import org.apache.lucene.analysis.Analyzer;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.index.analysis.FieldNameAnalyzer;
 
@@ -45,13 +46,21 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
     private final FieldNameAnalyzer searchQuoteAnalyzer;
 
     public DocumentFieldMappers(DocumentMapper docMapper, Iterable<FieldMapper> fieldMappers) {
-        final Map<String, FieldMappers> tempNameFieldMappers = newHashMap();
-        final Map<String, FieldMappers> tempIndexNameFieldMappers = newHashMap();
-        final Map<String, FieldMappers> tempFullNameFieldMappers = newHashMap();
+        this(docMapper, null, fieldMappers);
+    }
 
-        final Map<String, Analyzer> indexAnalyzers = newHashMap();
-        final Map<String, Analyzer> searchAnalyzers = newHashMap();
-        final Map<String, Analyzer> searchQuoteAnalyzers = newHashMap();
+    /**
+     * Builds the lookups on top of the ones of <tt>base</tt>, so that adding (dynamic) fields doesn't
+     * need to process all the existing field mappers again.
+     */
+    private DocumentFieldMappers(DocumentMapper docMapper, @Nullable DocumentFieldMappers base, Iterable<FieldMapper> fieldMappers) {
+        final Map<String, FieldMappers> tempNameFieldMappers = base == null ? Maps.<String, FieldMappers>newHashMap() : newHashMap(base.nameFieldMappers);
+        final Map<String, FieldMappers> tempIndexNameFieldMappers = base == null ? Maps.<String, FieldMappers>newHashMap() : newHashMap(base.indexNameFieldMappers);
+        final Map<String, FieldMappers> tempFullNameFieldMappers = base == null ? Maps.<String, FieldMappers>newHashMap() : newHashMap(base.fullNameFieldMappers);
+
+        final Map<String, Analyzer> indexAnalyzers = base == null ? Maps.<String, Analyzer>newHashMap() : newHashMap(base.indexAnalyzer.analyzers());
+        final Map<String, Analyzer> searchAnalyzers = base == null ? Maps.<String, Analyzer>newHashMap() : newHashMap(base.searchAnalyzer.analyzers());
+        final Map<String, Analyzer> searchQuoteAnalyzers = base == null ? Maps.<String, Analyzer>newHashMap() : newHashMap(base.searchQuoteAnalyzer.analyzers());
 
         for (FieldMapper fieldMapper : fieldMappers) {
             FieldMappers mappers = tempNameFieldMappers.get(fieldMapper.names().name());
@@ -88,7 +97,11 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
                 searchQuoteAnalyzers.put(fieldMapper.names().indexName(), fieldMapper.searchQuoteAnalyzer());
             }
         }
-        this.fieldMappers = ImmutableList.copyOf(fieldMappers);
+        if (base == null) {
+            this.fieldMappers = ImmutableList.copyOf(fieldMappers);
+        } else {
+            this.fieldMappers = ImmutableList.<FieldMapper>builder().addAll(base.fieldMappers).addAll(fieldMappers).build();
+        }
         this.nameFieldMappers = ImmutableMap.copyOf(tempNameFieldMappers);
         this.indexNameFieldMappers = ImmutableMap.copyOf(tempIndexNameFieldMappers);
         this.fullNameFieldMappers = ImmutableMap.copyOf(tempFullNameFieldMappers);
@@ -208,6 +221,6 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
     }
 
     public DocumentFieldMappers concat(DocumentMapper docMapper, Iterable<FieldMapper> fieldMappers) {
-        return new DocumentFieldMappers(docMapper, Iterables.concat(this.fieldMappers, fieldMappers));
+        return new DocumentFieldMappers(docMapper, this, fieldMappers);
     }
 }
@@ -18,12 +18,14 @@
  */
 package org.elasticsearch.index.mapper.core;
 
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Lists;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRef;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -36,12 +38,11 @@ import org.elasticsearch.index.similarity.SimilarityProvider;
 import org.elasticsearch.search.suggest.completion.AnalyzingCompletionLookupProvider;
 import org.elasticsearch.search.suggest.completion.CompletionPostingsFormatProvider;
 import org.elasticsearch.search.suggest.completion.CompletionTokenStream;
+import org.elasticsearch.search.suggest.context.ContextMapping;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 
 /**
  *
@@ -73,6 +74,7 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         public static final String PAYLOADS = "payloads";
         public static final String TYPE = "type";
         public static final String MAX_INPUT_LENGTH = "max_input_len";
+        public static final String CONTEXT = "context";
     }
 
     public static class Builder extends AbstractFieldMapper.OpenBuilder<Builder, CompletionFieldMapper> {
@@ -83,6 +85,7 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         private boolean payloads = Defaults.DEFAULT_HAS_PAYLOADS;
         private boolean preservePositionIncrements = Defaults.DEFAULT_POSITION_INCREMENTS;
         private int maxInputLength = Defaults.DEFAULT_MAX_INPUT_LENGTH;
+        private SortedMap<String, ContextMapping> contextMapping = ImmutableSortedMap.of();
 
         public Builder(String name) {
             super(name, Defaults.FIELD_TYPE);
@@ -121,10 +124,15 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
             return this;
         }
 
+        public Builder contextMapping(SortedMap<String, ContextMapping> contextMapping) {
+            this.contextMapping = contextMapping;
+            return this;
+        }
+
         @Override
         public CompletionFieldMapper build(Mapper.BuilderContext context) {
             return new CompletionFieldMapper(buildNames(context), indexAnalyzer, searchAnalyzer, provider, similarity, payloads,
-                    preserveSeparators, preservePositionIncrements, maxInputLength);
+                    preserveSeparators, preservePositionIncrements, maxInputLength, contextMapping);
         }
     }
 
@@ -155,6 +163,8 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
                     builder.preservePositionIncrements(Boolean.parseBoolean(fieldNode.toString()));
                 } else if (fieldName.equals(Fields.MAX_INPUT_LENGTH) || fieldName.equals("maxInputLen")) {
                     builder.maxInputLength(Integer.parseInt(fieldNode.toString()));
+                } else if (fieldName.equals(Fields.CONTEXT)) {
+                    builder.contextMapping(ContextMapping.parseMappings(fieldNode));
                 } else {
                     throw new MapperParsingException("Unknown field [" + fieldName + "]");
                 }
@@ -189,9 +199,16 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
     private final boolean preservePositionIncrements;
     private final boolean preserveSeparators;
     private int maxInputLength;
+    private final SortedMap<String, ContextMapping> contextMapping;
 
     public CompletionFieldMapper(Names names, NamedAnalyzer indexAnalyzer, NamedAnalyzer searchAnalyzer, PostingsFormatProvider provider, SimilarityProvider similarity, boolean payloads,
                                  boolean preserveSeparators, boolean preservePositionIncrements, int maxInputLength) {
+        this(names, indexAnalyzer, searchAnalyzer, provider, similarity, payloads, preserveSeparators, preservePositionIncrements, maxInputLength,
+                ImmutableSortedMap.<String, ContextMapping>of());
+    }
+
+    public CompletionFieldMapper(Names names, NamedAnalyzer indexAnalyzer, NamedAnalyzer searchAnalyzer, PostingsFormatProvider provider, SimilarityProvider similarity, boolean payloads,
+                                 boolean preserveSeparators, boolean preservePositionIncrements, int maxInputLength, SortedMap<String, ContextMapping> contextMapping) {
         super(names, 1.0f, Defaults.FIELD_TYPE, indexAnalyzer, searchAnalyzer, provider, similarity, null);
         analyzingSuggestLookupProvider = new AnalyzingCompletionLookupProvider(preserveSeparators, false, preservePositionIncrements, payloads);
         this.completionPostingsFormatProvider = new CompletionPostingsFormatProvider("completion", provider, analyzingSuggestLookupProvider);
@@ -199,6 +216,7 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         this.payloads = payloads;
         this.preservePositionIncrements = preservePositionIncrements;
         this.maxInputLength = maxInputLength;
+        this.contextMapping = contextMapping;
     }
 
 
@@ -216,6 +234,7 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         BytesRef payload = null;
         long weight = -1;
         List<String> inputs = Lists.newArrayListWithExpectedSize(4);
+        Map<String, Set<String>> contexts = Collections.emptyMap();
 
         if (token == XContentParser.Token.VALUE_STRING) {
             inputs.add(parser.text());
@@ -237,6 +256,11 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
                     } else {
                         throw new MapperException("payload doesn't support type " + token);
                     }
+                } else if (Fields.CONTEXT.equals(currentFieldName) && token == XContentParser.Token.START_OBJECT) {
+                    if (contextMapping.isEmpty()) {
+                        throw new MapperException("No context mapped for field [" + names.fullName() + "]");
+                    }
+                    contexts = ContextMapping.parseContexts(contextMapping, parser.map());
                 } else if (token == XContentParser.Token.VALUE_STRING) {
                     if ("output".equals(currentFieldName)) {
                         surfaceForm = parser.text();
@@ -261,22 +285,31 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
             }
         }
         payload = payload == null ? EMPTY : payload;
+        List<BytesRef> contextPrefixes = contextMapping.isEmpty() ? null : ContextMapping.toPrefixes(contextMapping, contexts);
         if (surfaceForm == null) { // no surface form use the input
             for (String input : inputs) {
                 BytesRef suggestPayload = analyzingSuggestLookupProvider.buildPayload(new BytesRef(
                         input), weight, payload);
-                context.doc().add(getCompletionField(input, suggestPayload));
+                context.doc().add(getCompletionField(input, suggestPayload, contextPrefixes));
             }
         } else {
             BytesRef suggestPayload = analyzingSuggestLookupProvider.buildPayload(new BytesRef(
                     surfaceForm), weight, payload);
             for (String input : inputs) {
-                context.doc().add(getCompletionField(input, suggestPayload));
+                context.doc().add(getCompletionField(input, suggestPayload, contextPrefixes));
             }
         }
     }
 
     public Field getCompletionField(String input, BytesRef payload) {
+        return getCompletionField(input, payload, null);
+    }
+
+    /**
+     * Creates the field for an input which is indexed once per given context prefix,
+     * or as is if <tt>contextPrefixes</tt> is <tt>null</tt>.
+     */
+    public Field getCompletionField(String input, BytesRef payload, List<BytesRef> contextPrefixes) {
         final String originalInput = input;
         if (input.length() > maxInputLength) {
             final int len = correctSubStringLen(input, Math.min(maxInputLength, input.length()));
@@ -289,7 +322,11 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
                         + "] at position " + i + " is a reserved character");
             }
         }
-        return new SuggestField(names.indexName(), input, this.fieldType, payload, analyzingSuggestLookupProvider);
+        CompletionTokenStream.ToFiniteStrings toFiniteStrings = analyzingSuggestLookupProvider;
+        if (contextPrefixes != null) {
+            toFiniteStrings = new ContextPrefixedFiniteStrings(contextPrefixes, analyzingSuggestLookupProvider);
+        }
+        return new SuggestField(names.indexName(), input, this.fieldType, payload, toFiniteStrings);
     }
 
     public static int correctSubStringLen(String input, int len) {
@@ -329,6 +366,37 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
     }
 
 
+    /**
+     * Prepends every context prefix to every analyzed path of an input.
+     */
+    private static final class ContextPrefixedFiniteStrings implements CompletionTokenStream.ToFiniteStrings {
+        private final List<BytesRef> prefixes;
+        private final CompletionTokenStream.ToFiniteStrings toFiniteStrings;
+
+        ContextPrefixedFiniteStrings(List<BytesRef> prefixes, CompletionTokenStream.ToFiniteStrings toFiniteStrings) {
+            this.prefixes = prefixes;
+            this.toFiniteStrings = toFiniteStrings;
+        }
+
+        @Override
+        public Set<IntsRef> toFiniteStrings(TokenStream stream) throws IOException {
+            Set<IntsRef> strings = toFiniteStrings.toFiniteStrings(stream);
+            Set<IntsRef> prefixed = new HashSet<IntsRef>(strings.size() * prefixes.size());
+            for (BytesRef prefix : prefixes) {
+                for (IntsRef string : strings) {
+                    IntsRef ref = new IntsRef(prefix.length + string.length);
+                    for (int i = 0; i < prefix.length; i++) {
+                        ref.ints[i] = prefix.bytes[prefix.offset + i] & 0xFF;
+                    }
+                    System.arraycopy(string.ints, string.offset, ref.ints, prefix.length, string.length);
+                    ref.length = prefix.length + string.length;
+                    prefixed.add(ref);
+                }
+            }
+            return prefixed;
+        }
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(name())
@@ -343,6 +411,13 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         builder.field(Fields.PRESERVE_SEPARATORS, this.preserveSeparators);
         builder.field(Fields.PRESERVE_POSITION_INCREMENTS, this.preservePositionIncrements);
         builder.field(Fields.MAX_INPUT_LENGTH, this.maxInputLength);
+        if (!contextMapping.isEmpty()) {
+            builder.startObject(Fields.CONTEXT);
+            for (ContextMapping mapping : contextMapping.values()) {
+                mapping.toXContent(builder, params);
+            }
+            builder.endObject();
+        }
         return builder.endObject();
     }
 
@@ -380,6 +455,14 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         return payloads;
     }
 
+    public SortedMap<String, ContextMapping> getContextMapping() {
+        return contextMapping;
+    }
+
+    public boolean requiresContext() {
+        return !contextMapping.isEmpty();
+    }
+
     @Override
     public void merge(Mapper mergeWith, MergeContext mergeContext) throws MergeMappingException {
         super.merge(mergeWith, mergeContext);
@@ -393,6 +476,9 @@ public class CompletionFieldMapper extends AbstractFieldMapper<String> {
         if (preserveSeparators != fieldMergeWith.preserveSeparators) {
             mergeContext.addConflict("mapper [" + names.fullName() + "] has different 'preserve_separators' values");
         }
+        if (!contextMapping.equals(fieldMergeWith.contextMapping)) {
+            mergeContext.addConflict("mapper [" + names.fullName() + "] has different 'context' values");
+        }
         if (!mergeContext.mergeFlags().simulate()) {
             this.maxInputLength = fieldMergeWith.maxInputLength;
         }
@@ -318,6 +318,21 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         return enableLatLon;
     }
 
+    public boolean isEnableGeohash() {
+        return enableGeoHash;
+    }
+
+    public boolean isEnableGeohashPrefix() {
+        return enableGeohashPrefix;
+    }
+
+    /**
+     * The length of the geohashes that are indexed for this field.
+     */
+    public int geoHashPrecision() {
+        return precision;
+    }
+
     @Override
     public void parse(ParseContext context) throws IOException {
         ContentPath.Type origPathType = context.path().pathType();
@@ -391,6 +391,17 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         return this.dynamic == null ? Dynamic.TRUE : this.dynamic;
     }
 
+    /**
+     * The dynamic behavior of this object, falling back to the one of the root object if not set.
+     */
+    private Dynamic dynamic(ParseContext context) {
+        Dynamic dynamic = this.dynamic;
+        if (dynamic == null) {
+            dynamic = context.root().dynamic();
+        }
+        return dynamic;
+    }
+
     protected boolean allowValue() {
         return true;
     }
@@ -509,10 +520,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         if (objectMapper != null) {
             objectMapper.parse(context);
         } else {
-            Dynamic dynamic = this.dynamic;
-            if (dynamic == null) {
-                dynamic = context.root().dynamic();
-            }
+            Dynamic dynamic = dynamic(context);
             if (dynamic == Dynamic.STRICT) {
                 throw new StrictDynamicMappingException(fullPath, currentFieldName);
             } else if (dynamic == Dynamic.TRUE) {
@@ -579,6 +587,9 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         Mapper mapper = mappers.get(lastFieldName);
         if (mapper != null && mapper instanceof ArrayValueMapperParser) {
             mapper.parse(context);
+        } else if (mapper == null && dynamic(context) == Dynamic.FALSE) {
+            // nothing within the array can be mapped, values and objects would be ignored one by one
+            context.parser().skipChildren();
         } else {
             XContentParser parser = context.parser();
             XContentParser.Token token;
@@ -609,10 +620,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
             mapper.parse(context);
             return;
         }
-        Dynamic dynamic = this.dynamic;
-        if (dynamic == null) {
-            dynamic = context.root().dynamic();
-        }
+        Dynamic dynamic = dynamic(context);
         if (dynamic == Dynamic.STRICT) {
             throw new StrictDynamicMappingException(fullPath, currentFieldName);
         }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.HashedBytesRef;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An inverted index from the terms that are extracted from percolator queries to the ids of these queries,
+ * used to select the queries that may match a document before actually running them.
+ * <p/>
+ * Updates are serialized, lookups are lock free and see a weakly consistent view of the updates.
+ */
+final class CandidateQueriesIndex {
+
+    private final ConcurrentMap<Term, Set<HashedBytesRef>> postings = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    // queries we couldn't extract terms from, they are always a candidate
+    private final Set<HashedBytesRef> unconditional = ConcurrentCollections.newConcurrentSet();
+
+    synchronized void add(HashedBytesRef id, Query query) {
+        Set<Term> terms = QueryTermExtractor.extract(query);
+        if (terms == null) {
+            unconditional.add(id);
+            return;
+        }
+        for (Term term : terms) {
+            Set<HashedBytesRef> ids = postings.get(term);
+            if (ids == null) {
+                ids = ConcurrentCollections.newConcurrentSet();
+                postings.put(term, ids);
+            }
+            ids.add(id);
+        }
+    }
+
+    synchronized void remove(HashedBytesRef id, Query query) {
+        Set<Term> terms = QueryTermExtractor.extract(query);
+        if (terms == null) {
+            unconditional.remove(id);
+            return;
+        }
+        for (Term term : terms) {
+            Set<HashedBytesRef> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        postings.clear();
+        unconditional.clear();
+    }
+
+    /**
+     * Returns the ids of the queries that may match a document of the provided reader.
+     */
+    Set<HashedBytesRef> candidates(IndexReader reader) throws IOException {
+        Set<HashedBytesRef> candidates = new HashSet<HashedBytesRef>(unconditional);
+        if (postings.isEmpty()) {
+            return candidates;
+        }
+        for (AtomicReaderContext leaf : reader.leaves()) {
+            Fields fields = leaf.reader().fields();
+            if (fields == null) {
+                continue;
+            }
+            for (String field : fields) {
+                Terms terms = fields.terms(field);
+                if (terms == null) {
+                    continue;
+                }
+                addAll(candidates, postings.get(QueryTermExtractor.anyTerm(field)));
+                TermsEnum termsEnum = terms.iterator(null);
+                BytesRef term;
+                while ((term = termsEnum.next()) != null) {
+                    addAll(candidates, postings.get(new Term(field, term)));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static void addAll(Set<HashedBytesRef> candidates, Set<HashedBytesRef> ids) {
+        if (ids != null) {
+            candidates.addAll(ids);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.elasticsearch.index.percolator;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
@@ -32,6 +33,9 @@ import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.percolator.PercolatorService;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -53,6 +57,8 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
     private final ShardIndexingService indexingService;
 
     private final ConcurrentMap<HashedBytesRef, Query> percolateQueries = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private final CandidateQueriesIndex candidateQueriesIndex = new CandidateQueriesIndex();
+    private final boolean candidateSelection;
     private final ShardLifecycleListener shardLifecycleListener = new ShardLifecycleListener();
     private final RealTimePercolatorOperationListener realTimePercolatorOperationListener = new RealTimePercolatorOperationListener();
     private final PercolateTypeListener percolateTypeListener = new PercolateTypeListener();
@@ -70,6 +76,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
         this.indexingService = indexingService;
         this.indexCache = indexCache;
         this.indexFieldDataService = indexFieldDataService;
+        this.candidateSelection = indexSettings.getAsBoolean("index.percolator.candidate_selection", true);
 
         indicesLifecycle.addListener(shardLifecycleListener);
         mapperService.addTypeListener(percolateTypeListener);
@@ -79,6 +86,17 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
         return percolateQueries;
     }
 
+    /**
+     * Returns the ids of the percolate queries that may match the document held by the provided reader,
+     * or <tt>null</tt> if all queries need to be run against it.
+     */
+    public Set<HashedBytesRef> candidateQueries(IndexReader docReader) throws IOException {
+        if (!candidateSelection) {
+            return null;
+        }
+        return candidateQueriesIndex.candidates(docReader);
+    }
+
     public void close() {
         mapperService.removeTypeListener(percolateTypeListener);
         indicesLifecycle.removeListener(shardLifecycleListener);
@@ -87,7 +105,10 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
     }
 
     public void clear() {
-        percolateQueries.clear();
+        synchronized (candidateQueriesIndex) {
+            percolateQueries.clear();
+            candidateQueriesIndex.clear();
+        }
     }
 
     void enableRealTimePercolator() {
@@ -106,11 +127,29 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
 
     public void addPercolateQuery(String idAsString, BytesReference source) {
         Query query = parsePercolatorDocument(idAsString, source);
-        percolateQueries.put(new HashedBytesRef(new BytesRef(idAsString)), query);
+        addPercolateQuery(new HashedBytesRef(new BytesRef(idAsString)), query);
+    }
+
+    private void addPercolateQuery(HashedBytesRef id, Query query) {
+        // update the candidates with the query the put actually replaced, and under the same lock, otherwise
+        // concurrent registrations of the same id (eg. while loading the queries) leave replaced queries behind
+        synchronized (candidateQueriesIndex) {
+            Query previous = percolateQueries.put(id, query);
+            if (previous != null) {
+                candidateQueriesIndex.remove(id, previous);
+            }
+            candidateQueriesIndex.add(id, query);
+        }
     }
 
     public void removePercolateQuery(String idAsString) {
-        percolateQueries.remove(new HashedBytesRef(idAsString));
+        HashedBytesRef id = new HashedBytesRef(idAsString);
+        synchronized (candidateQueriesIndex) {
+            Query previous = percolateQueries.remove(id);
+            if (previous != null) {
+                candidateQueriesIndex.remove(id, previous);
+            }
+        }
     }
 
     Query parsePercolatorDocument(String id, BytesReference source) {
@@ -236,7 +275,9 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
                     );
                     QueriesLoaderCollector queries = new QueriesLoaderCollector(PercolatorQueriesRegistry.this, logger, indexFieldDataService);
                     searcher.searcher().search(query, queries);
-                    percolateQueries.putAll(queries.queries());
+                    for (Map.Entry<HashedBytesRef, Query> entry : queries.queries().entrySet()) {
+                        addPercolateQuery(entry.getKey(), entry.getValue());
+                    }
                 } finally {
                     searcher.release();
                 }
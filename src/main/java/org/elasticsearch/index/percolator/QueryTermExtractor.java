@@ -0,0 +1,204 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.search.AndFilter;
+import org.elasticsearch.common.lucene.search.OrFilter;
+import org.elasticsearch.common.lucene.search.TermFilter;
+import org.elasticsearch.common.lucene.search.XFilteredQuery;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts from a query a set of terms of which at least one must be present in a document for the query
+ * to match it. Queries that can only match documents that have a field, but not a specific term (ranges,
+ * prefixes, wildcards...), are represented by an {@link #anyTerm(String) any term} of that field.
+ * <p/>
+ * The extracted set is allowed to be a superset of what is strictly required, but never a subset.
+ */
+final class QueryTermExtractor {
+
+    private static final BytesRef ANY_TERM = new BytesRef();
+
+    private QueryTermExtractor() {
+    }
+
+    /**
+     * Returns the term that stands for any term of the provided field.
+     */
+    static Term anyTerm(String field) {
+        return new Term(field, ANY_TERM);
+    }
+
+    /**
+     * Returns the terms extracted from the query, or <tt>null</tt> if the query may match documents that
+     * have none of the terms it consists of, or if it is not supported.
+     */
+    static Set<Term> extract(Query query) {
+        if (query instanceof TermQuery) {
+            return singleton(((TermQuery) query).getTerm());
+        } else if (query instanceof PhraseQuery) {
+            Term[] terms = ((PhraseQuery) query).getTerms();
+            if (terms.length == 0) {
+                return null;
+            }
+            // all terms are required, keep the longest since it is likely to be the least frequent
+            Term best = terms[0];
+            for (int i = 1; i < terms.length; i++) {
+                if (terms[i].bytes().length > best.bytes().length) {
+                    best = terms[i];
+                }
+            }
+            return singleton(best);
+        } else if (query instanceof BooleanQuery) {
+            return extract((BooleanQuery) query);
+        } else if (query instanceof DisjunctionMaxQuery) {
+            Set<Term> terms = new HashSet<Term>();
+            for (Query disjunct : ((DisjunctionMaxQuery) query).getDisjuncts()) {
+                Set<Term> disjunctTerms = extract(disjunct);
+                if (disjunctTerms == null) {
+                    return null;
+                }
+                terms.addAll(disjunctTerms);
+            }
+            return terms.isEmpty() ? null : terms;
+        } else if (query instanceof XFilteredQuery) {
+            return best(extract(((XFilteredQuery) query).getQuery()), extract(((XFilteredQuery) query).getFilter()));
+        } else if (query instanceof FilteredQuery) {
+            return best(extract(((FilteredQuery) query).getQuery()), extract(((FilteredQuery) query).getFilter()));
+        } else if (query instanceof ConstantScoreQuery) {
+            ConstantScoreQuery constantScoreQuery = (ConstantScoreQuery) query;
+            if (constantScoreQuery.getQuery() != null) {
+                return extract(constantScoreQuery.getQuery());
+            }
+            return extract(constantScoreQuery.getFilter());
+        } else if (query instanceof MultiTermQuery) {
+            return singleton(anyTerm(((MultiTermQuery) query).getField()));
+        }
+        return null;
+    }
+
+    private static Set<Term> extract(BooleanQuery query) {
+        BooleanClause[] clauses = query.getClauses();
+        Set<Term> required = null;
+        boolean hasRequired = false;
+        for (BooleanClause clause : clauses) {
+            if (clause.isRequired()) {
+                hasRequired = true;
+                required = best(required, extract(clause.getQuery()));
+            }
+        }
+        if (hasRequired) {
+            return required;
+        }
+
+        // only optional and prohibited clauses, so at least one of the optional ones has to match
+        Set<Term> terms = new HashSet<Term>();
+        for (BooleanClause clause : clauses) {
+            if (clause.isProhibited()) {
+                continue;
+            }
+            Set<Term> clauseTerms = extract(clause.getQuery());
+            if (clauseTerms == null) {
+                return null;
+            }
+            terms.addAll(clauseTerms);
+        }
+        return terms.isEmpty() ? null : terms;
+    }
+
+    private static Set<Term> extract(Filter filter) {
+        if (filter instanceof TermFilter) {
+            return singleton(((TermFilter) filter).getTerm());
+        } else if (filter instanceof MultiTermQueryWrapperFilter) {
+            return singleton(anyTerm(((MultiTermQueryWrapperFilter) filter).getField()));
+        } else if (filter instanceof AndFilter) {
+            Set<Term> best = null;
+            for (Filter clause : ((AndFilter) filter).filters()) {
+                best = best(best, extract(clause));
+            }
+            return best;
+        } else if (filter instanceof OrFilter) {
+            List<? extends Filter> clauses = ((OrFilter) filter).filters();
+            Set<Term> terms = new HashSet<Term>();
+            for (Filter clause : clauses) {
+                Set<Term> clauseTerms = extract(clause);
+                if (clauseTerms == null) {
+                    return null;
+                }
+                terms.addAll(clauseTerms);
+            }
+            return terms.isEmpty() ? null : terms;
+        }
+        return null;
+    }
+
+    /**
+     * Picks, out of two sets of terms that are both required, the one that is expected to select the
+     * fewest candidates: specific terms over any term of a field, then fewer terms, then longer terms.
+     */
+    private static Set<Term> best(Set<Term> terms1, Set<Term> terms2) {
+        if (terms1 == null) {
+            return terms2;
+        } else if (terms2 == null) {
+            return terms1;
+        }
+        boolean anyTerm1 = hasAnyTerm(terms1);
+        if (anyTerm1 != hasAnyTerm(terms2)) {
+            return anyTerm1 ? terms2 : terms1;
+        }
+        if (terms1.size() != terms2.size()) {
+            return terms1.size() < terms2.size() ? terms1 : terms2;
+        }
+        return minLength(terms1) >= minLength(terms2) ? terms1 : terms2;
+    }
+
+    static boolean isAnyTerm(Term term) {
+        return term.bytes().length == 0;
+    }
+
+    private static boolean hasAnyTerm(Set<Term> terms) {
+        for (Term term : terms) {
+            if (isAnyTerm(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int minLength(Set<Term> terms) {
+        int minLength = Integer.MAX_VALUE;
+        for (Term term : terms) {
+            minLength = Math.min(minLength, term.bytes().length);
+        }
+        return minLength;
+    }
+
+    private static Set<Term> singleton(Term term) {
+        Set<Term> terms = new HashSet<Term>(1);
+        terms.add(term);
+        return terms;
+    }
+}
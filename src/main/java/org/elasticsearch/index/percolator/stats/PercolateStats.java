@@ -1,5 +1,6 @@
 package org.elasticsearch.index.percolator.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -17,14 +18,18 @@ public class PercolateStats implements Streamable, ToXContent {
     private long percolateCount;
     private long percolateTimeInMillis;
     private long current;
+    private long candidates;
+    private long matches;
 
     public PercolateStats() {
     }
 
-    public PercolateStats(long percolateCount, long percolateTimeInMillis, long current) {
+    public PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long candidates, long matches) {
         this.percolateCount = percolateCount;
         this.percolateTimeInMillis = percolateTimeInMillis;
         this.current = current;
+        this.candidates = candidates;
+        this.matches = matches;
     }
 
     public long getCount() {
@@ -43,12 +48,28 @@ public class PercolateStats implements Streamable, ToXContent {
         return current;
     }
 
+    /**
+     * The number of percolate queries that were selected as a candidate for a percolated document and verified.
+     */
+    public long getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * The number of candidate percolate queries that matched the percolated document.
+     */
+    public long getMatches() {
+        return matches;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.PERCOLATE);
         builder.field(Fields.TOTAL, percolateCount);
         builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, percolateTimeInMillis);
         builder.field(Fields.CURRENT, current);
+        builder.field(Fields.CANDIDATES, candidates);
+        builder.field(Fields.MATCHES, matches);
         builder.endObject();
         return builder;
     }
@@ -61,6 +82,8 @@ public class PercolateStats implements Streamable, ToXContent {
         percolateCount += percolate.getCount();
         percolateTimeInMillis += percolate.getTimeInMillis();
         current += percolate.getCurrent();
+        candidates += percolate.getCandidates();
+        matches += percolate.getMatches();
     }
 
     static final class Fields {
@@ -69,6 +92,8 @@ public class PercolateStats implements Streamable, ToXContent {
         static final XContentBuilderString TIME = new XContentBuilderString("getTime");
         static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
         static final XContentBuilderString CURRENT = new XContentBuilderString("current");
+        static final XContentBuilderString CANDIDATES = new XContentBuilderString("candidates");
+        static final XContentBuilderString MATCHES = new XContentBuilderString("matches");
     }
 
     public static PercolateStats readPercolateStats(StreamInput in) throws IOException {
@@ -82,6 +107,10 @@ public class PercolateStats implements Streamable, ToXContent {
         percolateCount = in.readVLong();
         percolateTimeInMillis = in.readVLong();
         current = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            candidates = in.readVLong();
+            matches = in.readVLong();
+        }
     }
 
     @Override
@@ -89,5 +118,9 @@ public class PercolateStats implements Streamable, ToXContent {
         out.writeVLong(percolateCount);
         out.writeVLong(percolateTimeInMillis);
         out.writeVLong(current);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeVLong(candidates);
+            out.writeVLong(matches);
+        }
     }
 }
@@ -40,6 +40,8 @@ public class ShardPercolateService extends AbstractIndexShardComponent {
 
     private final MeanMetric percolateMetric = new MeanMetric();
     private final CounterMetric currentMetric = new CounterMetric();
+    private final CounterMetric candidatesMetric = new CounterMetric();
+    private final CounterMetric matchesMetric = new CounterMetric();
 
     public void prePercolate() {
         currentMetric.inc();
@@ -50,8 +52,17 @@ public class ShardPercolateService extends AbstractIndexShardComponent {
         percolateMetric.inc(tookInNanos);
     }
 
+    /**
+     * Records how many queries were selected as candidates for a document, and how many of them matched.
+     */
+    public void onCandidates(long candidates, long matches) {
+        candidatesMetric.inc(candidates);
+        matchesMetric.inc(matches);
+    }
+
     public PercolateStats stats() {
-        return new PercolateStats(percolateMetric.count(), TimeUnit.NANOSECONDS.toMillis(percolateMetric.sum()), currentMetric.count());
+        return new PercolateStats(percolateMetric.count(), TimeUnit.NANOSECONDS.toMillis(percolateMetric.sum()), currentMetric.count(),
+                candidatesMetric.count(), matchesMetric.count());
     }
 
 }
@@ -37,6 +37,8 @@ public class GeoShapeFilterBuilder extends BaseFilterBuilder {
 
     private SpatialStrategy strategy = null;
 
+    private Boolean cacheCells;
+
     private Boolean cache;
     private String cacheKey;
 
@@ -138,6 +140,19 @@ public class GeoShapeFilterBuilder extends BaseFilterBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the cells of the shape should be cached so that they don't need to be computed again the next
+     * time the same shape is used. Only applies to the <tt>intersects</tt> relation, and defaults to <tt>true</tt>
+     * for pre-indexed shapes and <tt>false</tt> otherwise.
+     *
+     * @param cacheCells Whether to cache the cells of the shape
+     * @return this
+     */
+    public GeoShapeFilterBuilder cacheCells(boolean cacheCells) {
+        this.cacheCells = cacheCells;
+        return this;
+    }
+
     /**
      * Sets the name of the index where the indexed Shape can be found
      *
@@ -181,6 +196,10 @@ public class GeoShapeFilterBuilder extends BaseFilterBuilder {
             builder.field("strategy", strategy.getStrategyName());
         }
 
+        if (cacheCells != null) {
+            builder.field("cache_cells", cacheCells);
+        }
+
         if (shape != null) {
             builder.field("shape", shape);
         } else {
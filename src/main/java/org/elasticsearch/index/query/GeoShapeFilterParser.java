@@ -32,6 +32,7 @@ import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.geo.GeoShapeFieldMapper;
 import org.elasticsearch.index.search.shape.ShapeFetchService;
+import org.elasticsearch.indices.cache.filter.shape.IndicesShapeCellsCache;
 
 import java.io.IOException;
 
@@ -63,6 +64,8 @@ public class GeoShapeFilterParser implements FilterParser {
 
     private ShapeFetchService fetchService;
 
+    private IndicesShapeCellsCache shapeCellsCache;
+
     public static class DEFAULTS {
         public static final String INDEX_NAME = "shapes";
         public static final String SHAPE_FIELD_NAME = "shape";
@@ -80,6 +83,7 @@ public class GeoShapeFilterParser implements FilterParser {
         String fieldName = null;
         ShapeRelation shapeRelation = ShapeRelation.INTERSECTS;
         String strategyName = null;
+        Boolean cacheCells = null;
         ShapeBuilder shape = null;
         boolean cache = false;
         CacheKeyFilter.Key cacheKey = null;
@@ -113,6 +117,8 @@ public class GeoShapeFilterParser implements FilterParser {
                             }
                         } else if ("strategy".equals(currentFieldName)) {
                             strategyName = parser.text();
+                        } else if ("cache_cells".equals(currentFieldName) || "cacheCells".equals(currentFieldName)) {
+                            cacheCells = parser.booleanValue();
                         } else if ("indexed_shape".equals(currentFieldName) || "indexedShape".equals(currentFieldName)) {
                             while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                                 if (token == XContentParser.Token.FIELD_NAME) {
@@ -172,7 +178,16 @@ public class GeoShapeFilterParser implements FilterParser {
         if (strategyName != null) {
             strategy = shapeFieldMapper.resolveStrategy(strategyName);
         }
-        Filter filter = strategy.makeFilter(GeoShapeQueryParser.getArgs(shape, shapeRelation));
+        if (cacheCells == null) {
+            // pre-indexed shapes are typically used over and over again
+            cacheCells = id != null;
+        }
+        Filter filter;
+        if (cacheCells && shapeRelation == ShapeRelation.INTERSECTS && shapeCellsCache != null) {
+            filter = shapeCellsCache.intersectsFilter(strategy, shape.build());
+        } else {
+            filter = strategy.makeFilter(GeoShapeQueryParser.getArgs(shape, shapeRelation));
+        }
 
         if (cache) {
             filter = parseContext.cacheFilter(filter, cacheKey);
@@ -191,4 +206,9 @@ public class GeoShapeFilterParser implements FilterParser {
     public void setFetchService(@Nullable ShapeFetchService fetchService) {
         this.fetchService = fetchService;
     }
+
+    @Inject(optional = true)
+    public void setShapeCellsCache(@Nullable IndicesShapeCellsCache shapeCellsCache) {
+        this.shapeCellsCache = shapeCellsCache;
+    }
 }
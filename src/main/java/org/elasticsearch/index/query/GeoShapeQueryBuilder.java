@@ -34,6 +34,8 @@ public class GeoShapeQueryBuilder extends BaseQueryBuilder implements BoostableQ
 
     private SpatialStrategy strategy = null;
 
+    private Boolean cacheCells;
+
     private final ShapeBuilder shape;
 
     private float boost = -1;
@@ -97,6 +99,19 @@ public class GeoShapeQueryBuilder extends BaseQueryBuilder implements BoostableQ
         return this;
     }
 
+    /**
+     * Sets whether the cells of the shape should be cached so that they don't need to be computed again the next
+     * time the same shape is used. Only applies to the <tt>intersects</tt> relation, and defaults to <tt>true</tt>
+     * for pre-indexed shapes and <tt>false</tt> otherwise.
+     *
+     * @param cacheCells Whether to cache the cells of the shape
+     * @return this
+     */
+    public GeoShapeQueryBuilder cacheCells(boolean cacheCells) {
+        this.cacheCells = cacheCells;
+        return this;
+    }
+
     /**
      * Sets the name of the index where the indexed Shape can be found
      *
@@ -137,6 +152,10 @@ public class GeoShapeQueryBuilder extends BaseQueryBuilder implements BoostableQ
             builder.field("strategy", strategy.getStrategyName());
         }
 
+        if (cacheCells != null) {
+            builder.field("cache_cells", cacheCells);
+        }
+
         if (shape != null) {
             builder.field("shape", shape);
         } else {
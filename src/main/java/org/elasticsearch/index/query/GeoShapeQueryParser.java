@@ -29,11 +29,13 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.geo.ShapeRelation;
 import org.elasticsearch.common.geo.builders.ShapeBuilder;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.search.XConstantScoreQuery;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.geo.GeoShapeFieldMapper;
 import org.elasticsearch.index.search.shape.ShapeFetchService;
+import org.elasticsearch.indices.cache.filter.shape.IndicesShapeCellsCache;
 
 import java.io.IOException;
 
@@ -43,6 +45,8 @@ public class GeoShapeQueryParser implements QueryParser {
 
     private ShapeFetchService fetchService;
 
+    private IndicesShapeCellsCache shapeCellsCache;
+
     public static class DEFAULTS {
         public static final String INDEX_NAME = "shapes";
         public static final String SHAPE_FIELD_NAME = "shape";
@@ -60,6 +64,7 @@ public class GeoShapeQueryParser implements QueryParser {
         String fieldName = null;
         ShapeRelation shapeRelation = ShapeRelation.INTERSECTS;
         String strategyName = null;
+        Boolean cacheCells = null;
         ShapeBuilder shape = null;
 
         String id = null;
@@ -86,6 +91,8 @@ public class GeoShapeQueryParser implements QueryParser {
                             shape = ShapeBuilder.parse(parser);
                         } else if ("strategy".equals(currentFieldName)) {
                             strategyName = parser.text();
+                        } else if ("cache_cells".equals(currentFieldName) || "cacheCells".equals(currentFieldName)) {
+                            cacheCells = parser.booleanValue();
                         } else if ("relation".equals(currentFieldName)) {
                             shapeRelation = ShapeRelation.getRelationByName(parser.text());
                             if (shapeRelation == null) {
@@ -148,7 +155,16 @@ public class GeoShapeQueryParser implements QueryParser {
         if (strategyName != null) {
             strategy = shapeFieldMapper.resolveStrategy(strategyName);
         }
-        Query query = strategy.makeQuery(getArgs(shape, shapeRelation));
+        if (cacheCells == null) {
+            // pre-indexed shapes are typically used over and over again
+            cacheCells = id != null;
+        }
+        Query query;
+        if (cacheCells && shapeRelation == ShapeRelation.INTERSECTS && shapeCellsCache != null) {
+            query = new XConstantScoreQuery(shapeCellsCache.intersectsFilter(strategy, shape.build()));
+        } else {
+            query = strategy.makeQuery(getArgs(shape, shapeRelation));
+        }
         query.setBoost(boost);
         if (queryName != null) {
             parseContext.addNamedQuery(queryName, query);
@@ -160,6 +176,11 @@ public class GeoShapeQueryParser implements QueryParser {
     public void setFetchService(@Nullable ShapeFetchService fetchService) {
         this.fetchService = fetchService;
     }
+
+    @Inject(optional = true)
+    public void setShapeCellsCache(@Nullable IndicesShapeCellsCache shapeCellsCache) {
+        this.shapeCellsCache = shapeCellsCache;
+    }
     
     public static SpatialArgs getArgs(ShapeBuilder shape, ShapeRelation relation) {
         switch(relation) {
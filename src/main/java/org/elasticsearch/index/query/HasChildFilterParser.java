@@ -135,6 +135,8 @@ public class HasChildFilterParser implements FilterParser {
         if (searchContext == null) {
             throw new ElasticSearchIllegalStateException("[has_child] Can't execute, search context not set.");
         }
+        // matches depend on the documents of other segments
+        searchContext.markAsNotCacheable();
 
         DocumentMapper parentDocMapper = parseContext.mapperService().documentMapper(parentType);
         if (parentDocMapper == null) {
@@ -137,6 +137,8 @@ public class HasChildQueryParser implements QueryParser {
         if (searchContext == null) {
             throw new ElasticSearchIllegalStateException("[has_child] Can't execute, search context not set.");
         }
+        // matches depend on the documents of other segments
+        searchContext.markAsNotCacheable();
 
         Query query;
         Filter parentFilter = parseContext.cacheFilter(parentDocMapper.typeFilter(), null);
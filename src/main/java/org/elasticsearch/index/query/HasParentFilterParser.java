@@ -135,6 +135,8 @@ public class HasParentFilterParser implements FilterParser {
         if (searchContext == null) {
             throw new ElasticSearchIllegalStateException("[has_parent] Can't execute, search context not set");
         }
+        // matches depend on the documents of other segments
+        searchContext.markAsNotCacheable();
 
         Set<String> parentTypes = new HashSet<String>(5);
         parentTypes.add(parentType);
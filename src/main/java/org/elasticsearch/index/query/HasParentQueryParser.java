@@ -133,6 +133,8 @@ public class HasParentQueryParser implements QueryParser {
         if (searchContext == null) {
             throw new ElasticSearchIllegalStateException("[has_parent] Can't execute, search context not set.");
         }
+        // matches depend on the documents of other segments
+        searchContext.markAsNotCacheable();
 
         Set<String> parentTypes = new HashSet<String>(5);
         parentTypes.add(parentType);
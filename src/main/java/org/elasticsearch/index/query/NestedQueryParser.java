@@ -139,7 +139,7 @@ public class NestedQueryParser implements QueryParser {
                 throw new QueryParsingException(parseContext.index(), "[nested] nested object under path [" + path + "] is not of nested type");
             }
 
-            Filter childFilter = parseContext.cacheFilter(objectMapper.nestedTypeFilter(), null);
+            Filter childFilter = parseContext.fixedBitSetFilter(objectMapper.nestedTypeFilter());
             usAsParentFilter.filter = childFilter;
             // wrap the child query to only work on the nested path type
             query = new XFilteredQuery(query, childFilter);
@@ -152,7 +152,7 @@ public class NestedQueryParser implements QueryParser {
                 //    // filter based on the type...
                 //    parentFilter = mapper.docMapper().typeFilter();
                 //}
-                parentFilter = parseContext.cacheFilter(parentFilter, null);
+                parentFilter = parseContext.fixedBitSetFilter(parentFilter);
             }
 
             ToParentBlockJoinQuery joinQuery = new ToParentBlockJoinQuery(query, parentFilter, scoreMode);
@@ -34,6 +34,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.filter.support.CacheKeyFilter;
+import org.elasticsearch.index.cache.fixedbitset.FixedBitSetFilter;
 import org.elasticsearch.index.engine.IndexEngine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.FieldMapper;
@@ -164,6 +165,10 @@ public class QueryParseContext {
         return indexQueryParser.indexCache.filter().cache(filter);
     }
 
+    public FixedBitSetFilter fixedBitSetFilter(Filter filter) {
+        return indexQueryParser.indexCache.fixedBitSetFilterCache().getFixedBitSetFilter(filter);
+    }
+
     public void addNamedFilter(String name, Filter filter) {
         namedFilters.put(name, filter);
     }
@@ -329,4 +334,14 @@ public class QueryParseContext {
         }
         return System.currentTimeMillis();
     }
+
+    /**
+     * Marks the results of the current search, if any, as not cacheable, see {@link SearchContext#markAsNotCacheable()}.
+     */
+    public void markAsNotCacheable() {
+        SearchContext current = SearchContext.current();
+        if (current != null) {
+            current.markAsNotCacheable();
+        }
+    }
 }
@@ -169,7 +169,8 @@ public class TermsFilterParser implements FilterParser {
                 return Queries.MATCH_NO_FILTER;
             }
 
-            // external lookup, use it
+            // external lookup, use it, matches depend on the looked up document
+            parseContext.markAsNotCacheable();
             TermsLookup termsLookup = new TermsLookup(fieldMapper, lookupIndex, lookupType, lookupId, lookupRouting, lookupPath, parseContext);
 
             Filter filter = termsFilterCache.termsFilter(termsLookup, lookupCache, cacheKey);
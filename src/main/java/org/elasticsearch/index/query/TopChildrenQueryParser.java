@@ -130,6 +130,8 @@ public class TopChildrenQueryParser implements QueryParser {
         if (searchContext == null) {
             throw new ElasticSearchIllegalStateException("[top_children] Can't execute, search context not set.");
         }
+        // matches depend on the documents of other segments
+        searchContext.markAsNotCacheable();
         TopChildrenQuery childQuery = new TopChildrenQuery(query, childType, parentType, scoreType, factor, incrementalFactor, parseContext.cacheRecycler());
         searchContext.addRewrite(childQuery);
         if (queryName != null) {
@@ -19,10 +19,11 @@
 
 package org.elasticsearch.index.search.child;
 
-import gnu.trove.map.hash.TObjectFloatHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import gnu.trove.map.hash.TIntIntHashMap;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.Bits;
@@ -32,15 +33,19 @@ import org.elasticsearch.ElasticSearchIllegalStateException;
 import org.elasticsearch.common.bytes.HashedBytesArray;
 import org.elasticsearch.common.lucene.docset.DocIdSets;
 import org.elasticsearch.common.lucene.search.ApplyAcceptedDocsFilter;
+import org.elasticsearch.common.lucene.search.NoopCollector;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.lucene.search.TermFilter;
 import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.index.cache.id.IdReaderCache;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
+import org.elasticsearch.index.cache.id.ParentOrdinals;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -48,11 +53,12 @@ import java.util.Set;
  * parent documents using the {@link IdReaderTypeCache}.
  * <p/>
  * This query is executed in two rounds. The first round resolves all the matching child documents and groups these
- * documents by parent uid value. Also the child scores are aggregated per parent uid value. During the second round
- * all parent documents having the same uid value that is collected in the first phase are emitted as hit including
- * a score based on the aggregated child scores and score type.
+ * documents by parent uid value. Also the child scores are aggregated per parent uid value, in maps that are keyed
+ * by the {@link ParentOrdinals shard level ordinal} of the parent uid. During the second round all parent documents
+ * having the same uid value that is collected in the first phase are emitted as hit including a score based on the
+ * aggregated child scores and score type.
  */
-// TODO We use a score of 0 to indicate a doc was not scored in uidToScore, this means score of 0 can be problematic, if we move to HPCC, we can use lset/...
+// TODO We use a score of 0 to indicate a doc was not scored in scores, this means score of 0 can be problematic
 public class ChildrenQuery extends Query implements SearchContext.Rewrite {
 
     private final SearchContext searchContext;
@@ -64,8 +70,11 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
     private final int shortCircuitParentDocSet;
 
     private Query rewrittenChildQuery;
-    private Recycler.V<TObjectFloatHashMap<HashedBytesArray>> uidToScore;
-    private Recycler.V<TObjectIntHashMap<HashedBytesArray>> uidToCount;
+    private ParentOrdinals parentOrdinals;
+    private Recycler.V<TIntFloatHashMap> scores;
+    private Recycler.V<TIntIntHashMap> counts;
+    private int numParents;
+    private Set<HashedBytesArray> parentIds;
 
     public ChildrenQuery(SearchContext searchContext, String parentType, String childType, Filter parentFilter, Query childQuery, ScoreType scoreType, int shortCircuitParentDocSet) {
         this.searchContext = searchContext;
@@ -128,16 +137,17 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
     @Override
     public void contextRewrite(SearchContext searchContext) throws Exception {
         searchContext.idCache().refresh(searchContext.searcher().getTopReaderContext().leaves());
+        parentOrdinals = searchContext.idCache().parentOrdinals(searchContext.searcher().getIndexReader(), parentType);
 
-        uidToScore = searchContext.cacheRecycler().objectFloatMap(-1);
-        Collector collector;
+        scores = searchContext.cacheRecycler().intFloatMap(-1);
+        ChildOrdCollector collector;
         switch (scoreType) {
             case AVG:
-                uidToCount = searchContext.cacheRecycler().objectIntMap(-1);
-                collector = new AvgChildUidCollector(scoreType, searchContext, parentType, uidToScore.v(), uidToCount.v());
+                counts = searchContext.cacheRecycler().intIntMap(-1);
+                collector = new AvgChildOrdCollector(scoreType, searchContext, parentType, parentOrdinals, scores.v(), counts.v(), shortCircuitParentDocSet);
                 break;
             default:
-                collector = new ChildUidCollector(scoreType, searchContext, parentType, uidToScore.v());
+                collector = new ChildOrdCollector(scoreType, searchContext, parentType, parentOrdinals, scores.v(), shortCircuitParentDocSet);
         }
         Query childQuery;
         if (rewrittenChildQuery == null) {
@@ -146,18 +156,22 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
             childQuery = rewrittenChildQuery;
         }
         searchContext.searcher().search(childQuery, collector);
+        numParents = collector.numParents;
+        parentIds = collector.parentIds;
     }
 
     @Override
     public void executionDone() {
-        if (uidToScore != null) {
-            uidToScore.release();
+        parentOrdinals = null;
+        if (scores != null) {
+            scores.release();
         }
-        uidToScore = null;
-        if (uidToCount != null) {
-            uidToCount.release();
+        scores = null;
+        if (counts != null) {
+            counts.release();
         }
-        uidToCount = null;
+        counts = null;
+        parentIds = null;
     }
 
     @Override
@@ -166,25 +180,24 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
 
     @Override
     public Weight createWeight(IndexSearcher searcher) throws IOException {
-        if (uidToScore == null) {
+        if (scores == null) {
             throw new ElasticSearchIllegalStateException("has_child query hasn't executed properly");
         }
 
-        int size = uidToScore.v().size();
-        if (size == 0) {
+        if (numParents == 0) {
             return Queries.NO_MATCH_QUERY.createWeight(searcher);
         }
 
         Filter parentFilter;
-        if (size == 1) {
-            BytesRef id = uidToScore.v().keySet().iterator().next().toBytesRef();
+        if (numParents == 1 && parentIds != null) {
+            BytesRef id = parentIds.iterator().next().toBytesRef();
             parentFilter = new TermFilter(new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(parentType, id)));
-        } else if (size <= shortCircuitParentDocSet) {
-            parentFilter = new ParentIdsFilter(parentType, uidToScore.v().keySet());
+        } else if (numParents <= shortCircuitParentDocSet) {
+            parentFilter = new ParentIdsFilter(parentType, parentIds);
         } else {
             parentFilter = this.parentFilter;
         }
-        return new ParentWeight(rewrittenChildQuery.createWeight(searcher), parentFilter, size);
+        return new ParentWeight(rewrittenChildQuery.createWeight(searcher), parentFilter, numParents);
     }
 
     final class ParentWeight extends Weight {
@@ -227,32 +240,43 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
                 return null;
             }
 
-            IdReaderTypeCache idTypeCache = searchContext.idCache().reader(context.reader()).type(parentType);
+            IdReaderCache idReaderCache = searchContext.idCache().reader(context.reader());
+            IdReaderTypeCache idTypeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
+            if (idTypeCache == null) {
+                return null;
+            }
+            // the shard level ordinals were built for the leaves of the searcher's reader
+            assert ReaderUtil.getTopLevelContext(context).reader() == searchContext.searcher().getIndexReader();
+
             DocIdSetIterator parentsIterator = parentsSet.iterator();
             switch (scoreType) {
                 case AVG:
-                    return new AvgParentScorer(this, idTypeCache, uidToScore.v(), uidToCount.v(), parentsIterator);
+                    return new AvgParentScorer(this, idTypeCache, context.ord, parentOrdinals, scores.v(), counts.v(), parentsIterator);
                 default:
-                    return new ParentScorer(this, idTypeCache, uidToScore.v(), parentsIterator);
+                    return new ParentScorer(this, idTypeCache, context.ord, parentOrdinals, scores.v(), parentsIterator);
             }
         }
 
         class ParentScorer extends Scorer {
 
-            final TObjectFloatHashMap<HashedBytesArray> uidToScore;
             final IdReaderTypeCache idTypeCache;
+            final int segment;
+            final ParentOrdinals parentOrdinals;
+            final TIntFloatHashMap scores;
             final DocIdSetIterator parentsIterator;
 
             int remaining;
             int currentDocId = -1;
             float currentScore;
 
-            ParentScorer(Weight weight, IdReaderTypeCache idTypeCache, TObjectFloatHashMap<HashedBytesArray> uidToScore, DocIdSetIterator parentsIterator) {
+            ParentScorer(Weight weight, IdReaderTypeCache idTypeCache, int segment, ParentOrdinals parentOrdinals, TIntFloatHashMap scores, DocIdSetIterator parentsIterator) {
                 super(weight);
                 this.idTypeCache = idTypeCache;
+                this.segment = segment;
+                this.parentOrdinals = parentOrdinals;
+                this.scores = scores;
                 this.parentsIterator = parentsIterator;
-                this.uidToScore = uidToScore;
-                this.remaining = uidToScore.size();
+                this.remaining = numParents;
             }
 
             @Override
@@ -284,9 +308,7 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
                         return currentDocId;
                     }
 
-                    HashedBytesArray uid = idTypeCache.idByDoc(currentDocId);
-                    currentScore = uidToScore.get(uid);
-                    if (currentScore != 0) {
+                    if (accept(parentOrdinals.shardOrd(segment, idTypeCache.idOrdByDoc(currentDocId)))) {
                         remaining--;
                         return currentDocId;
                     }
@@ -304,9 +326,7 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
                     return currentDocId;
                 }
 
-                HashedBytesArray uid = idTypeCache.idByDoc(currentDocId);
-                currentScore = uidToScore.get(uid);
-                if (currentScore != 0) {
+                if (accept(parentOrdinals.shardOrd(segment, idTypeCache.idOrdByDoc(currentDocId)))) {
                     remaining--;
                     return currentDocId;
                 } else {
@@ -314,6 +334,14 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
                 }
             }
 
+            /**
+             * Sets the score of the current doc and returns whether it has matching children.
+             */
+            boolean accept(int shardOrd) {
+                currentScore = scores.get(shardOrd);
+                return currentScore != 0;
+            }
+
             @Override
             public long cost() {
                 return parentsIterator.cost();
@@ -322,63 +350,51 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
 
         final class AvgParentScorer extends ParentScorer {
 
-            HashedBytesArray currentUid;
-            final TObjectIntHashMap<HashedBytesArray> uidToCount;
+            final TIntIntHashMap counts;
 
-            AvgParentScorer(Weight weight, IdReaderTypeCache idTypeCache, TObjectFloatHashMap<HashedBytesArray> uidToScore, TObjectIntHashMap<HashedBytesArray> uidToCount, DocIdSetIterator parentsIterator) {
-                super(weight, idTypeCache, uidToScore, parentsIterator);
-                this.uidToCount = uidToCount;
+            AvgParentScorer(Weight weight, IdReaderTypeCache idTypeCache, int segment, ParentOrdinals parentOrdinals, TIntFloatHashMap scores, TIntIntHashMap counts, DocIdSetIterator parentsIterator) {
+                super(weight, idTypeCache, segment, parentOrdinals, scores, parentsIterator);
+                this.counts = counts;
             }
 
             @Override
-            public int nextDoc() throws IOException {
-                while (true) {
-                    currentDocId = parentsIterator.nextDoc();
-                    if (currentDocId == DocIdSetIterator.NO_MORE_DOCS) {
-                        return currentDocId;
-                    }
-
-                    currentUid = idTypeCache.idByDoc(currentDocId);
-                    currentScore = uidToScore.get(currentUid);
-                    if (currentScore != 0) {
-                        remaining--;
-                        currentScore /= uidToCount.get(currentUid);
-                        return currentDocId;
-                    }
-                }
-            }
-
-            @Override
-            public int advance(int target) throws IOException {
-                currentDocId = parentsIterator.advance(target);
-                if (currentDocId == DocIdSetIterator.NO_MORE_DOCS) {
-                    return currentDocId;
-                }
-
-                HashedBytesArray uid = idTypeCache.idByDoc(currentDocId);
-                currentScore = uidToScore.get(uid);
-                if (currentScore != 0) {
-                    remaining--;
-                    currentScore /= uidToCount.get(currentUid);
-                    return currentDocId;
-                } else {
-                    return nextDoc();
+            boolean accept(int shardOrd) {
+                final int count = counts.get(shardOrd);
+                if (count == 0) {
+                    return false;
                 }
+                currentScore = scores.get(shardOrd) / count;
+                return true;
             }
         }
 
     }
 
-    static class ChildUidCollector extends ParentIdCollector {
+    static class ChildOrdCollector extends NoopCollector {
 
-        final TObjectFloatHashMap<HashedBytesArray> uidToScore;
         final ScoreType scoreType;
+        final SearchContext searchContext;
+        final String parentType;
+        final ParentOrdinals parentOrdinals;
+        final TIntFloatHashMap scores;
+        final int shortCircuitParentDocSet;
+        final BytesRef spare = new BytesRef();
+
+        // the ids of the collected parents, only kept as long as they can be used to short circuit the parent filter
+        Set<HashedBytesArray> parentIds = new HashSet<HashedBytesArray>();
+        int numParents;
+
+        IdReaderTypeCache typeCache;
+        int segment;
         Scorer scorer;
 
-        ChildUidCollector(ScoreType scoreType, SearchContext searchContext, String childType, TObjectFloatHashMap<HashedBytesArray> uidToScore) {
-            super(childType, searchContext);
-            this.uidToScore = uidToScore;
+        ChildOrdCollector(ScoreType scoreType, SearchContext searchContext, String parentType, ParentOrdinals parentOrdinals, TIntFloatHashMap scores, int shortCircuitParentDocSet) {
             this.scoreType = scoreType;
+            this.searchContext = searchContext;
+            this.parentType = parentType;
+            this.parentOrdinals = parentOrdinals;
+            this.scores = scores;
+            this.shortCircuitParentDocSet = shortCircuitParentDocSet;
         }
 
         @Override
@@ -387,19 +403,36 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
         }
 
         @Override
-        protected void collect(int doc, HashedBytesArray parentUid) throws IOException {
-            float previousScore = uidToScore.get(parentUid);
+        public void setNextReader(AtomicReaderContext readerContext) throws IOException {
+            IdReaderCache idReaderCache = searchContext.idCache().reader(readerContext.reader());
+            typeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
+            segment = readerContext.ord;
+        }
+
+        @Override
+        public final void collect(int doc) throws IOException {
+            if (typeCache != null) {
+                final int ord = typeCache.parentIdOrdByDoc(doc);
+                if (ord != 0) {
+                    collect(ord, parentOrdinals.shardOrd(segment, ord));
+                }
+            }
+        }
+
+        protected void collect(int ord, int shardOrd) throws IOException {
+            float previousScore = scores.get(shardOrd);
             float currentScore = scorer.score();
             if (previousScore == 0) {
-                uidToScore.put(parentUid, currentScore);
+                scores.put(shardOrd, currentScore);
+                onNewParent(ord);
             } else {
                 switch (scoreType) {
                     case SUM:
-                        uidToScore.adjustValue(parentUid, currentScore);
+                        scores.adjustValue(shardOrd, currentScore);
                         break;
                     case MAX:
                         if (currentScore > previousScore) {
-                            uidToScore.put(parentUid, currentScore);
+                            scores.put(shardOrd, currentScore);
                         }
                         break;
                     case AVG:
@@ -412,28 +445,35 @@ public class ChildrenQuery extends Query implements SearchContext.Rewrite {
             }
         }
 
+        protected final void onNewParent(int ord) {
+            if (++numParents > shortCircuitParentDocSet) {
+                parentIds = null;
+            } else {
+                BytesRef id = typeCache.idByOrd(ord, spare);
+                byte[] bytes = new byte[id.length];
+                System.arraycopy(id.bytes, id.offset, bytes, 0, id.length);
+                parentIds.add(new HashedBytesArray(bytes));
+            }
+        }
+
     }
 
-    final static class AvgChildUidCollector extends ChildUidCollector {
+    final static class AvgChildOrdCollector extends ChildOrdCollector {
 
-        final TObjectIntHashMap<HashedBytesArray> uidToCount;
+        final TIntIntHashMap counts;
 
-        AvgChildUidCollector(ScoreType scoreType, SearchContext searchContext, String childType, TObjectFloatHashMap<HashedBytesArray> uidToScore, TObjectIntHashMap<HashedBytesArray> uidToCount) {
-            super(scoreType, searchContext, childType, uidToScore);
-            this.uidToCount = uidToCount;
+        AvgChildOrdCollector(ScoreType scoreType, SearchContext searchContext, String parentType, ParentOrdinals parentOrdinals, TIntFloatHashMap scores, TIntIntHashMap counts, int shortCircuitParentDocSet) {
+            super(scoreType, searchContext, parentType, parentOrdinals, scores, shortCircuitParentDocSet);
+            this.counts = counts;
             assert scoreType == ScoreType.AVG;
         }
 
         @Override
-        protected void collect(int doc, HashedBytesArray parentUid) throws IOException {
-            float previousScore = uidToScore.get(parentUid);
+        protected void collect(int ord, int shardOrd) throws IOException {
             float currentScore = scorer.score();
-            if (previousScore == 0) {
-                uidToScore.put(parentUid, currentScore);
-                uidToCount.put(parentUid, 1);
-            } else {
-                uidToScore.adjustValue(parentUid, currentScore);
-                uidToCount.increment(parentUid);
+            scores.adjustOrPutValue(shardOrd, currentScore, currentScore);
+            if (counts.adjustOrPutValue(shardOrd, 1, 1) == 1) {
+                onNewParent(ord);
             }
         }
 
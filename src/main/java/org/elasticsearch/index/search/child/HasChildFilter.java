@@ -19,9 +19,10 @@
 
 package org.elasticsearch.index.search.child;
 
-import gnu.trove.set.hash.THashSet;
+import gnu.trove.set.hash.TIntHashSet;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Filter;
@@ -35,12 +36,16 @@ import org.elasticsearch.common.lucene.docset.MatchDocIdSet;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.lucene.search.TermFilter;
 import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.index.cache.id.IdReaderCache;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
+import org.elasticsearch.index.cache.id.ParentOrdinals;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  *
@@ -56,7 +61,8 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
 
     Filter shortCircuitFilter;
     int remaining;
-    Recycler.V<THashSet<HashedBytesArray>> collectedUids;
+    ParentOrdinals parentOrdinals;
+    Recycler.V<TIntHashSet> collectedOrds;
 
     public HasChildFilter(Query childQuery, String parentType, String childType, Filter parentFilter, SearchContext searchContext, int shortCircuitParentDocSet) {
         this.parentFilter = parentFilter;
@@ -101,7 +107,7 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
     }
 
     public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
-        if (collectedUids == null) {
+        if (collectedOrds == null) {
             throw new ElasticSearchIllegalStateException("has_child filter hasn't executed properly");
         }
         if (remaining == 0) {
@@ -117,9 +123,12 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
         }
 
         Bits parentsBits = DocIdSets.toSafeBits(context.reader(), parentDocIdSet);
-        IdReaderTypeCache idReaderTypeCache = searchContext.idCache().reader(context.reader()).type(parentType);
+        IdReaderCache idReaderCache = searchContext.idCache().reader(context.reader());
+        IdReaderTypeCache idReaderTypeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
         if (idReaderTypeCache != null) {
-            return new ParentDocSet(context.reader(), parentsBits, collectedUids.v(), idReaderTypeCache);
+            // the shard level ordinals were built for the leaves of the searcher's reader
+            assert ReaderUtil.getTopLevelContext(context).reader() == searchContext.searcher().getIndexReader();
+            return new ParentDocSet(context.reader(), parentsBits, collectedOrds.v(), parentOrdinals, context.ord, idReaderTypeCache);
         } else {
             return null;
         }
@@ -128,26 +137,28 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
     @Override
     public void contextRewrite(SearchContext searchContext) throws Exception {
         searchContext.idCache().refresh(searchContext.searcher().getTopReaderContext().leaves());
-        collectedUids = searchContext.cacheRecycler().hashSet(-1);
-        UidCollector collector = new UidCollector(parentType, searchContext, collectedUids.v());
+        parentOrdinals = searchContext.idCache().parentOrdinals(searchContext.searcher().getIndexReader(), parentType);
+        collectedOrds = searchContext.cacheRecycler().intSet(-1);
+        OrdCollector collector = new OrdCollector(parentType, searchContext, parentOrdinals, collectedOrds.v(), shortCircuitParentDocSet);
         searchContext.searcher().search(childQuery, collector);
-        remaining = collectedUids.v().size();
+        remaining = collectedOrds.v().size();
         if (remaining == 0) {
             shortCircuitFilter = Queries.MATCH_NO_FILTER;
-        } else if (remaining == 1) {
-            BytesRef id = collectedUids.v().iterator().next().toBytesRef();
+        } else if (remaining == 1 && collector.parentIds != null) {
+            BytesRef id = collector.parentIds.iterator().next().toBytesRef();
             shortCircuitFilter = new TermFilter(new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(parentType, id)));
         } else if (remaining <= shortCircuitParentDocSet) {
-            shortCircuitFilter = new ParentIdsFilter(parentType, collectedUids.v());
+            shortCircuitFilter = new ParentIdsFilter(parentType, collector.parentIds);
         }
     }
 
     @Override
     public void executionDone() {
-        if (collectedUids != null) {
-            collectedUids.release();
+        if (collectedOrds != null) {
+            collectedOrds.release();
         }
-        collectedUids = null;
+        collectedOrds = null;
+        parentOrdinals = null;
         shortCircuitFilter = null;
     }
 
@@ -158,13 +169,17 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
     final class ParentDocSet extends MatchDocIdSet {
 
         final IndexReader reader;
-        final THashSet<HashedBytesArray> parents;
+        final TIntHashSet parents;
+        final ParentOrdinals parentOrdinals;
+        final int segment;
         final IdReaderTypeCache typeCache;
 
-        ParentDocSet(IndexReader reader, Bits acceptDocs, THashSet<HashedBytesArray> parents, IdReaderTypeCache typeCache) {
+        ParentDocSet(IndexReader reader, Bits acceptDocs, TIntHashSet parents, ParentOrdinals parentOrdinals, int segment, IdReaderTypeCache typeCache) {
             super(reader.maxDoc(), acceptDocs);
             this.reader = reader;
             this.parents = parents;
+            this.parentOrdinals = parentOrdinals;
+            this.segment = segment;
             this.typeCache = typeCache;
         }
 
@@ -175,7 +190,8 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
                 return false;
             }
 
-            boolean match = parents.contains(typeCache.idByDoc(doc));
+            final int ord = typeCache.idOrdByDoc(doc);
+            boolean match = ord != 0 && parents.contains(parentOrdinals.shardOrd(segment, ord));
             if (match) {
                 remaining--;
             }
@@ -183,18 +199,34 @@ public class HasChildFilter extends Filter implements SearchContext.Rewrite {
         }
     }
 
-    final static class UidCollector extends ParentIdCollector {
+    final static class OrdCollector extends ParentIdCollector {
 
-        final THashSet<HashedBytesArray> collectedUids;
+        final TIntHashSet collectedOrds;
+        final int shortCircuitParentDocSet;
+        final BytesRef spare = new BytesRef();
 
-        UidCollector(String parentType, SearchContext context, THashSet<HashedBytesArray> collectedUids) {
-            super(parentType, context);
-            this.collectedUids = collectedUids;
+        // the ids of the collected parents, only kept as long as they can be used to short circuit the parent filter
+        Set<HashedBytesArray> parentIds = new HashSet<HashedBytesArray>();
+
+        OrdCollector(String parentType, SearchContext context, ParentOrdinals parentOrdinals, TIntHashSet collectedOrds, int shortCircuitParentDocSet) {
+            super(parentType, context, parentOrdinals);
+            this.collectedOrds = collectedOrds;
+            this.shortCircuitParentDocSet = shortCircuitParentDocSet;
         }
 
         @Override
-        public void collect(int doc, HashedBytesArray parentIdByDoc) {
-            collectedUids.add(parentIdByDoc);
+        public void collect(int doc, int ord, int shardOrd) {
+            if (!collectedOrds.add(shardOrd)) {
+                return;
+            }
+            if (collectedOrds.size() > shortCircuitParentDocSet) {
+                parentIds = null;
+            } else {
+                BytesRef id = typeCache.idByOrd(ord, spare);
+                byte[] bytes = new byte[id.length];
+                System.arraycopy(id.bytes, id.offset, bytes, 0, id.length);
+                parentIds.add(new HashedBytesArray(bytes));
+            }
         }
 
     }
@@ -19,20 +19,22 @@
 
 package org.elasticsearch.index.search.child;
 
-import gnu.trove.set.hash.THashSet;
+import gnu.trove.set.hash.TIntHashSet;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.Bits;
 import org.elasticsearch.ElasticSearchIllegalStateException;
-import org.elasticsearch.common.bytes.HashedBytesArray;
 import org.elasticsearch.common.lucene.docset.DocIdSets;
 import org.elasticsearch.common.lucene.docset.MatchDocIdSet;
 import org.elasticsearch.common.lucene.search.NoopCollector;
 import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.index.cache.id.IdReaderCache;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
+import org.elasticsearch.index.cache.id.ParentOrdinals;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -47,7 +49,8 @@ public class HasParentFilter extends Filter implements SearchContext.Rewrite {
     final SearchContext context;
     final Filter childrenFilter;
 
-    Recycler.V<THashSet<HashedBytesArray>> parents;
+    ParentOrdinals parentOrdinals;
+    Recycler.V<TIntHashSet> parents;
 
     public HasParentFilter(Query parentQuery, String parentType, SearchContext context, Filter childrenFilter) {
         this.parentQuery = parentQuery;
@@ -89,9 +92,12 @@ public class HasParentFilter extends Filter implements SearchContext.Rewrite {
         }
 
         Bits childrenBits = DocIdSets.toSafeBits(readerContext.reader(), childrenDocIdSet);
-        IdReaderTypeCache idReaderTypeCache = context.idCache().reader(readerContext.reader()).type(parentType);
+        IdReaderCache idReaderCache = context.idCache().reader(readerContext.reader());
+        IdReaderTypeCache idReaderTypeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
         if (idReaderTypeCache != null) {
-            return new ChildrenDocSet(readerContext.reader(), childrenBits, parents.v(), idReaderTypeCache);
+            // the shard level ordinals were built for the leaves of the searcher's reader
+            assert ReaderUtil.getTopLevelContext(readerContext).reader() == context.searcher().getIndexReader();
+            return new ChildrenDocSet(readerContext.reader(), childrenBits, parents.v(), parentOrdinals, readerContext.ord, idReaderTypeCache);
         } else {
             return null;
         }
@@ -100,8 +106,9 @@ public class HasParentFilter extends Filter implements SearchContext.Rewrite {
     @Override
     public void contextRewrite(SearchContext searchContext) throws Exception {
         searchContext.idCache().refresh(searchContext.searcher().getTopReaderContext().leaves());
-        parents = context.cacheRecycler().hashSet(-1);
-        ParentUidsCollector collector = new ParentUidsCollector(parents.v(), context, parentType);
+        parentOrdinals = searchContext.idCache().parentOrdinals(searchContext.searcher().getIndexReader(), parentType);
+        parents = context.cacheRecycler().intSet(-1);
+        ParentOrdsCollector collector = new ParentOrdsCollector(parents.v(), parentOrdinals, context, parentType);
         searchContext.searcher().search(parentQuery, collector);
     }
 
@@ -111,6 +118,7 @@ public class HasParentFilter extends Filter implements SearchContext.Rewrite {
             parents.release();
         }
         parents = null;
+        parentOrdinals = null;
     }
 
     @Override
@@ -120,33 +128,41 @@ public class HasParentFilter extends Filter implements SearchContext.Rewrite {
     final static class ChildrenDocSet extends MatchDocIdSet {
 
         final IndexReader reader;
-        final THashSet<HashedBytesArray> parents;
+        final TIntHashSet parents;
+        final ParentOrdinals parentOrdinals;
+        final int segment;
         final IdReaderTypeCache idReaderTypeCache;
 
-        ChildrenDocSet(IndexReader reader, Bits acceptDocs, THashSet<HashedBytesArray> parents, IdReaderTypeCache idReaderTypeCache) {
+        ChildrenDocSet(IndexReader reader, Bits acceptDocs, TIntHashSet parents, ParentOrdinals parentOrdinals, int segment, IdReaderTypeCache idReaderTypeCache) {
             super(reader.maxDoc(), acceptDocs);
             this.reader = reader;
             this.parents = parents;
+            this.parentOrdinals = parentOrdinals;
+            this.segment = segment;
             this.idReaderTypeCache = idReaderTypeCache;
         }
 
         @Override
         protected boolean matchDoc(int doc) {
-            return parents.contains(idReaderTypeCache.parentIdByDoc(doc));
+            final int ord = idReaderTypeCache.parentIdOrdByDoc(doc);
+            return ord != 0 && parents.contains(parentOrdinals.shardOrd(segment, ord));
         }
 
     }
 
-    final static class ParentUidsCollector extends NoopCollector {
+    final static class ParentOrdsCollector extends NoopCollector {
 
-        final THashSet<HashedBytesArray> collectedUids;
+        final TIntHashSet collectedOrds;
+        final ParentOrdinals parentOrdinals;
         final SearchContext context;
         final String parentType;
 
         IdReaderTypeCache typeCache;
+        int segment;
 
-        ParentUidsCollector(THashSet<HashedBytesArray> collectedUids, SearchContext context, String parentType) {
-            this.collectedUids = collectedUids;
+        ParentOrdsCollector(TIntHashSet collectedOrds, ParentOrdinals parentOrdinals, SearchContext context, String parentType) {
+            this.collectedOrds = collectedOrds;
+            this.parentOrdinals = parentOrdinals;
             this.context = context;
             this.parentType = parentType;
         }
@@ -154,13 +170,18 @@ public class HasParentFilter extends Filter implements SearchContext.Rewrite {
         public void collect(int doc) throws IOException {
             // It can happen that for particular segment no document exist for an specific type. This prevents NPE
             if (typeCache != null) {
-                collectedUids.add(typeCache.idByDoc(doc));
+                final int ord = typeCache.idOrdByDoc(doc);
+                if (ord != 0) {
+                    collectedOrds.add(parentOrdinals.shardOrd(segment, ord));
+                }
             }
         }
 
         @Override
         public void setNextReader(AtomicReaderContext readerContext) throws IOException {
-            typeCache = context.idCache().reader(readerContext.reader()).type(parentType);
+            IdReaderCache idReaderCache = context.idCache().reader(readerContext.reader());
+            typeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
+            segment = readerContext.ord;
         }
     }
 
@@ -18,42 +18,51 @@
  */
 package org.elasticsearch.index.search.child;
 
-import java.io.IOException;
-
 import org.apache.lucene.index.AtomicReaderContext;
-import org.elasticsearch.common.bytes.HashedBytesArray;
 import org.elasticsearch.common.lucene.search.NoopCollector;
+import org.elasticsearch.index.cache.id.IdReaderCache;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
+import org.elasticsearch.index.cache.id.ParentOrdinals;
 import org.elasticsearch.search.internal.SearchContext;
 
+import java.io.IOException;
+
 /**
- * A simple collector that only collects if the docs parent ID is not
- * <code>null</code>
+ * A simple collector that only collects if the doc has a parent id, by the ordinal of that id.
  */
 abstract class ParentIdCollector extends NoopCollector {
     protected final String type;
     protected final SearchContext context;
-    private IdReaderTypeCache typeCache;
+    protected final ParentOrdinals parentOrdinals;
+    protected IdReaderTypeCache typeCache;
+    private int segment;
 
-    protected ParentIdCollector(String parentType, SearchContext context) {
+    protected ParentIdCollector(String parentType, SearchContext context, ParentOrdinals parentOrdinals) {
         this.type = parentType;
         this.context = context;
+        this.parentOrdinals = parentOrdinals;
     }
 
     @Override
     public final void collect(int doc) throws IOException {
         if (typeCache != null) {
-            HashedBytesArray parentIdByDoc = typeCache.parentIdByDoc(doc);
-            if (parentIdByDoc != null) {
-               collect(doc, parentIdByDoc);
+            int ord = typeCache.parentIdOrdByDoc(doc);
+            if (ord != 0) {
+                collect(doc, ord, parentOrdinals.shardOrd(segment, ord));
             }
         }
     }
-    
-    protected abstract void collect(int doc, HashedBytesArray parentId) throws IOException;
+
+    /**
+     * @param ord      The segment level ordinal of the parent id, which can be resolved with {@link #typeCache}
+     * @param shardOrd The {@link ParentOrdinals shard level ordinal} of the parent id
+     */
+    protected abstract void collect(int doc, int ord, int shardOrd) throws IOException;
 
     @Override
     public void setNextReader(AtomicReaderContext readerContext) throws IOException {
-        typeCache = context.idCache().reader(readerContext.reader()).type(type);
+        IdReaderCache idReaderCache = context.idCache().reader(readerContext.reader());
+        typeCache = idReaderCache == null ? null : idReaderCache.type(type);
+        segment = readerContext.ord;
     }
 }
@@ -19,22 +19,23 @@
 
 package org.elasticsearch.index.search.child;
 
-import gnu.trove.map.hash.TObjectFloatHashMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.ToStringUtils;
 import org.elasticsearch.ElasticSearchIllegalStateException;
-import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.bytes.HashedBytesArray;
 import org.elasticsearch.common.lucene.docset.DocIdSets;
 import org.elasticsearch.common.lucene.search.ApplyAcceptedDocsFilter;
 import org.elasticsearch.common.lucene.search.NoopCollector;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.index.cache.id.IdReaderCache;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
+import org.elasticsearch.index.cache.id.ParentOrdinals;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -43,9 +44,10 @@ import java.util.Set;
 /**
  * A query implementation that executes the wrapped parent query and
  * connects the matching parent docs to the related child documents
- * using the {@link IdReaderTypeCache}.
+ * using the {@link IdReaderTypeCache}. The parent scores are kept in a map that is keyed by the
+ * {@link ParentOrdinals shard level ordinal} of the parent uid.
  */
-// TODO We use a score of 0 to indicate a doc was not scored in uidToScore, this means score of 0 can be problematic, if we move to HPCC, we can use lset/...
+// TODO We use a score of 0 to indicate a doc was not scored in scores, this means score of 0 can be problematic
 public class ParentQuery extends Query implements SearchContext.Rewrite {
 
     private final SearchContext searchContext;
@@ -54,7 +56,9 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
     private final Filter childrenFilter;
 
     private Query rewrittenParentQuery;
-    private Recycler.V<TObjectFloatHashMap<HashedBytesArray>> uidToScore;
+    private ParentOrdinals parentOrdinals;
+    private Recycler.V<TIntFloatHashMap> scores;
+    private int numParents;
 
     public ParentQuery(SearchContext searchContext, Query parentQuery, String parentType, Filter childrenFilter) {
         this.searchContext = searchContext;
@@ -66,8 +70,9 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
     @Override
     public void contextRewrite(SearchContext searchContext) throws Exception {
         searchContext.idCache().refresh(searchContext.searcher().getTopReaderContext().leaves());
-        uidToScore = searchContext.cacheRecycler().objectFloatMap(-1);
-        ParentUidCollector collector = new ParentUidCollector(uidToScore.v(), searchContext, parentType);
+        parentOrdinals = searchContext.idCache().parentOrdinals(searchContext.searcher().getIndexReader(), parentType);
+        scores = searchContext.cacheRecycler().intFloatMap(-1);
+        ParentOrdCollector collector = new ParentOrdCollector(parentOrdinals, scores.v(), searchContext, parentType);
         Query parentQuery;
         if (rewrittenParentQuery == null) {
             parentQuery = rewrittenParentQuery = searchContext.searcher().rewrite(originalParentQuery);
@@ -75,14 +80,16 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
             parentQuery = rewrittenParentQuery;
         }
         searchContext.searcher().search(parentQuery, collector);
+        numParents = scores.v().size();
     }
 
     @Override
     public void executionDone() {
-        if (uidToScore != null) {
-            uidToScore.release();
+        parentOrdinals = null;
+        if (scores != null) {
+            scores.release();
         }
-        uidToScore = null;
+        scores = null;
     }
 
     @Override
@@ -140,27 +147,30 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
 
     @Override
     public Weight createWeight(IndexSearcher searcher) throws IOException {
-        if (uidToScore == null) {
+        if (scores == null) {
             throw new ElasticSearchIllegalStateException("has_parent query hasn't executed properly");
         }
-        if (uidToScore.v().isEmpty()) {
+        if (numParents == 0) {
             return Queries.NO_MATCH_QUERY.createWeight(searcher);
         }
 
         return new ChildWeight(rewrittenParentQuery.createWeight(searcher));
     }
 
-    static class ParentUidCollector extends NoopCollector {
+    static class ParentOrdCollector extends NoopCollector {
 
-        final TObjectFloatHashMap<HashedBytesArray> uidToScore;
+        final ParentOrdinals parentOrdinals;
+        final TIntFloatHashMap scores;
         final SearchContext searchContext;
         final String parentType;
 
         Scorer scorer;
         IdReaderTypeCache typeCache;
+        int segment;
 
-        ParentUidCollector(TObjectFloatHashMap<HashedBytesArray> uidToScore, SearchContext searchContext, String parentType) {
-            this.uidToScore = uidToScore;
+        ParentOrdCollector(ParentOrdinals parentOrdinals, TIntFloatHashMap scores, SearchContext searchContext, String parentType) {
+            this.parentOrdinals = parentOrdinals;
+            this.scores = scores;
             this.searchContext = searchContext;
             this.parentType = parentType;
         }
@@ -171,8 +181,10 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
                 return;
             }
 
-            HashedBytesArray parentUid = typeCache.idByDoc(doc);
-            uidToScore.put(parentUid, scorer.score());
+            final int ord = typeCache.idOrdByDoc(doc);
+            if (ord != 0) {
+                scores.put(parentOrdinals.shardOrd(segment, ord), scorer.score());
+            }
         }
 
         @Override
@@ -182,7 +194,9 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
 
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
-            typeCache = searchContext.idCache().reader(context.reader()).type(parentType);
+            IdReaderCache idReaderCache = searchContext.idCache().reader(context.reader());
+            typeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
+            segment = context.ord;
         }
     }
 
@@ -221,27 +235,34 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
             if (DocIdSets.isEmpty(childrenDocSet)) {
                 return null;
             }
-            IdReaderTypeCache idTypeCache = searchContext.idCache().reader(context.reader()).type(parentType);
+            IdReaderCache idReaderCache = searchContext.idCache().reader(context.reader());
+            IdReaderTypeCache idTypeCache = idReaderCache == null ? null : idReaderCache.type(parentType);
             if (idTypeCache == null) {
                 return null;
             }
+            // the shard level ordinals were built for the leaves of the searcher's reader
+            assert ReaderUtil.getTopLevelContext(context).reader() == searchContext.searcher().getIndexReader();
 
-            return new ChildScorer(this, uidToScore.v(), childrenDocSet.iterator(), idTypeCache);
+            return new ChildScorer(this, parentOrdinals, context.ord, scores.v(), childrenDocSet.iterator(), idTypeCache);
         }
     }
 
     static class ChildScorer extends Scorer {
 
-        final TObjectFloatHashMap<HashedBytesArray> uidToScore;
+        final ParentOrdinals parentOrdinals;
+        final int segment;
+        final TIntFloatHashMap scores;
         final DocIdSetIterator childrenIterator;
         final IdReaderTypeCache typeCache;
 
         int currentChildDoc = -1;
         float currentScore;
 
-        ChildScorer(Weight weight, TObjectFloatHashMap<HashedBytesArray> uidToScore, DocIdSetIterator childrenIterator, IdReaderTypeCache typeCache) {
+        ChildScorer(Weight weight, ParentOrdinals parentOrdinals, int segment, TIntFloatHashMap scores, DocIdSetIterator childrenIterator, IdReaderTypeCache typeCache) {
             super(weight);
-            this.uidToScore = uidToScore;
+            this.parentOrdinals = parentOrdinals;
+            this.segment = segment;
+            this.scores = scores;
             this.childrenIterator = childrenIterator;
             this.typeCache = typeCache;
         }
@@ -271,12 +292,7 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
                     return currentChildDoc;
                 }
 
-                BytesReference uid = typeCache.parentIdByDoc(currentChildDoc);
-                if (uid == null) {
-                    continue;
-                }
-                currentScore = uidToScore.get(uid);
-                if (currentScore != 0) {
+                if (accept()) {
                     return currentChildDoc;
                 }
             }
@@ -288,17 +304,24 @@ public class ParentQuery extends Query implements SearchContext.Rewrite {
             if (currentChildDoc == DocIdSetIterator.NO_MORE_DOCS) {
                 return currentChildDoc;
             }
-            BytesReference uid = typeCache.idByDoc(currentChildDoc);
-            if (uid == null) {
-                return nextDoc();
-            }
-            currentScore = uidToScore.get(uid);
-            if (currentScore == 0) {
+            if (!accept()) {
                 return nextDoc();
             }
             return currentChildDoc;
         }
 
+        /**
+         * Sets the score of the current child doc and returns whether its parent matched.
+         */
+        private boolean accept() {
+            final int ord = typeCache.parentIdOrdByDoc(currentChildDoc);
+            if (ord == 0) {
+                return false;
+            }
+            currentScore = scores.get(parentOrdinals.shardOrd(segment, ord));
+            return currentScore != 0;
+        }
+
         @Override
         public long cost() {
             return childrenIterator.cost();
@@ -23,13 +23,15 @@ import gnu.trove.map.hash.TIntObjectHashMap;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.ToStringUtils;
 import org.elasticsearch.ElasticSearchIllegalStateException;
 import org.elasticsearch.cache.recycler.CacheRecycler;
-import org.elasticsearch.common.bytes.HashedBytesArray;
 import org.elasticsearch.common.lucene.search.EmptyScorer;
 import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.trove.ExtTHashMap;
+import org.elasticsearch.index.cache.id.IdReaderCache;
+import org.elasticsearch.index.cache.id.IdReaderTypeCache;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -146,6 +148,8 @@ public class TopChildrenQuery extends Query implements SearchContext.Rewrite {
 
     int resolveParentDocuments(TopDocs topDocs, SearchContext context) {
         int parentHitsResolved = 0;
+        final BytesRef idSpare = new BytesRef();
+        final BytesRef compareSpare = new BytesRef();
         Recycler.V<ExtTHashMap<Object, Recycler.V<TIntObjectHashMap<ParentDoc>>>> parentDocsPerReader = cacheRecycler.hashMap(context.searcher().getIndexReader().leaves().size());
         for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
             int readerIndex = ReaderUtil.subIndex(scoreDoc.doc, context.searcher().getIndexReader().leaves());
@@ -153,15 +157,18 @@ public class TopChildrenQuery extends Query implements SearchContext.Rewrite {
             int subDoc = scoreDoc.doc - subContext.docBase;
 
             // find the parent id
-            HashedBytesArray parentId = context.idCache().reader(subContext.reader()).parentIdByDoc(parentType, subDoc);
-            if (parentId == null) {
+            IdReaderTypeCache typeCache = typeCache(context, subContext.reader());
+            int parentOrd = typeCache == null ? 0 : typeCache.parentIdOrdByDoc(subDoc);
+            if (parentOrd == 0) {
                 // no parent found
                 continue;
             }
+            BytesRef parentId = typeCache.idByOrd(parentOrd, idSpare);
             // now go over and find the parent doc Id and reader tuple
             for (AtomicReaderContext atomicReaderContext : context.searcher().getIndexReader().leaves()) {
                 AtomicReader indexReader = atomicReaderContext.reader();
-                int parentDocId = context.idCache().reader(indexReader).docById(parentType, parentId);
+                IdReaderTypeCache parentTypeCache = typeCache(context, indexReader);
+                int parentDocId = parentTypeCache == null ? -1 : parentTypeCache.docById(parentId, compareSpare);
                 Bits liveDocs = indexReader.getLiveDocs();
                 if (parentDocId != -1 && (liveDocs == null || liveDocs.get(parentDocId))) {
                     // we found a match, add it and break
@@ -202,6 +209,11 @@ public class TopChildrenQuery extends Query implements SearchContext.Rewrite {
         return parentHitsResolved;
     }
 
+    private IdReaderTypeCache typeCache(SearchContext context, AtomicReader reader) {
+        IdReaderCache idReaderCache = context.idCache().reader(reader);
+        return idReaderCache == null ? null : idReaderCache.type(parentType);
+    }
+
     private static final ParentDocComparator PARENT_DOC_COMP = new ParentDocComparator();
 
     static class ParentDocComparator implements Comparator<ParentDoc> {
@@ -0,0 +1,194 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.search.geo;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.geo.GeoDistance;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The geohash cells covering the bounding box of a distance around a point. Cells whose corners are all
+ * within the distance are <i>inner</i> cells, all documents indexed in them match without computing
+ * their distance. Only the documents of the remaining <i>boundary</i> cells need to be checked.
+ * <p/>
+ * Documents are looked up through the geohash terms of the field, so the field needs to index geohashes,
+ * ideally with <tt>geohash_prefix</tt> enabled so that each cell is a single term.
+ */
+class GeoDistanceCells {
+
+    /**
+     * The maximum number of cells to cover the bounding box with, the finest level of geohashes which
+     * doesn't need more cells is used.
+     */
+    static final int MAX_CELLS = 64;
+
+    private final String fieldName;
+    private final boolean prefixTerms;
+    private final BytesRef[] innerCells;
+    private final BytesRef[] boundaryCells;
+
+    /**
+     * @param fixedSourceDistance the distance from the point, only used to find inner cells
+     * @param distance            documents with a distance strictly less than this match
+     * @param findInnerCells      whether to classify cells as inner cells, or to consider all cells as boundary cells
+     */
+    GeoDistanceCells(GeoDistance.DistanceBoundingCheck boundingCheck, GeoDistance geoDistance, GeoDistance.FixedSourceDistance fixedSourceDistance,
+                     double distance, boolean findInnerCells, GeoPointFieldMapper mapper) {
+        if (!mapper.isEnableGeohash()) {
+            throw new ElasticSearchIllegalArgumentException("geohash bounding box optimization requires geohash to be enabled on field [" + mapper.name() + "]");
+        }
+        this.fieldName = mapper.geoHashStringMapper().names().indexName();
+        this.prefixTerms = mapper.isEnableGeohashPrefix();
+
+        final GeoPoint topLeft = boundingCheck.topLeft();
+        final GeoPoint bottomRight = boundingCheck.bottomRight();
+        final double minLat = bottomRight.lat();
+        final double maxLat = topLeft.lat();
+        final double minLon = topLeft.lon();
+        double maxLon = bottomRight.lon();
+        if (maxLon < minLon) {
+            // crosses the 180 meridian
+            maxLon += 360;
+        }
+        // only compare corners if the distance along a cell edge can't have a maximum in the middle of the
+        // edge, which is the case as long as the box doesn't contain a pole. the factor distance is not
+        // a distance but a cosine, smaller values are further away
+        findInnerCells &= geoDistance != GeoDistance.FACTOR && maxLon - minLon < 180;
+
+        int level = Math.min(mapper.geoHashPrecision(), GeoHashUtils.PRECISION);
+        long minRow, maxRow, minCol, maxCol;
+        double cellWidth, cellHeight;
+        long numCols;
+        while (true) {
+            // geohashes interleave bits, starting with the longitude
+            final int lonBits = (5 * level + 1) / 2;
+            final int latBits = (5 * level) / 2;
+            numCols = 1L << lonBits;
+            cellWidth = 360d / numCols;
+            cellHeight = 180d / (1L << latBits);
+            minRow = Math.max(0, (long) Math.floor((minLat + 90) / cellHeight));
+            maxRow = Math.min((1L << latBits) - 1, (long) Math.floor((maxLat + 90) / cellHeight));
+            minCol = (long) Math.floor((minLon + 180) / cellWidth);
+            maxCol = Math.min(minCol + numCols - 1, (long) Math.floor((maxLon + 180) / cellWidth));
+            if (level == 1 || (maxRow - minRow + 1) * (maxCol - minCol + 1) <= MAX_CELLS) {
+                break;
+            }
+            level--;
+        }
+
+        final List<BytesRef> inner = new ArrayList<BytesRef>();
+        final List<BytesRef> boundary = new ArrayList<BytesRef>();
+        for (long row = minRow; row <= maxRow; row++) {
+            final double cellMinLat = -90 + row * cellHeight;
+            final double cellMaxLat = cellMinLat + cellHeight;
+            for (long col = minCol; col <= maxCol; col++) {
+                final double cellMinLon = -180 + (col % numCols) * cellWidth;
+                final double cellMaxLon = cellMinLon + cellWidth;
+                final BytesRef cell = new BytesRef(GeoHashUtils.encode(cellMinLat + cellHeight / 2, cellMinLon + cellWidth / 2, level));
+                if (findInnerCells
+                        && fixedSourceDistance.calculate(cellMinLat, cellMinLon) < distance
+                        && fixedSourceDistance.calculate(cellMinLat, cellMaxLon) < distance
+                        && fixedSourceDistance.calculate(cellMaxLat, cellMinLon) < distance
+                        && fixedSourceDistance.calculate(cellMaxLat, cellMaxLon) < distance) {
+                    inner.add(cell);
+                } else {
+                    boundary.add(cell);
+                }
+            }
+        }
+        this.innerCells = inner.toArray(new BytesRef[inner.size()]);
+        this.boundaryCells = boundary.toArray(new BytesRef[boundary.size()]);
+    }
+
+    /**
+     * Returns the documents of the inner cells, and the documents of the boundary cells that are
+     * accepted by <tt>exactMatch</tt>.
+     */
+    DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs, Bits exactMatch) throws IOException {
+        final AtomicReader reader = context.reader();
+        final Terms terms = reader.terms(fieldName);
+        if (terms == null) {
+            return null;
+        }
+        final TermsEnum termsEnum = terms.iterator(null);
+        final FixedBitSet result = new FixedBitSet(reader.maxDoc());
+        DocsEnum docsEnum = null;
+        for (BytesRef cell : innerCells) {
+            docsEnum = collect(termsEnum, cell, acceptDocs, docsEnum, result);
+        }
+        if (boundaryCells.length > 0) {
+            final FixedBitSet candidates = new FixedBitSet(reader.maxDoc());
+            for (BytesRef cell : boundaryCells) {
+                docsEnum = collect(termsEnum, cell, acceptDocs, docsEnum, candidates);
+            }
+            // documents with points in inner cells already match
+            candidates.andNot(result);
+            final DocIdSetIterator it = candidates.iterator();
+            for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+                if (exactMatch.get(doc)) {
+                    result.set(doc);
+                }
+            }
+        }
+        return result;
+    }
+
+    private DocsEnum collect(TermsEnum termsEnum, BytesRef cell, Bits acceptDocs, DocsEnum reuse, FixedBitSet bits) throws IOException {
+        if (prefixTerms) {
+            if (termsEnum.seekExact(cell, true)) {
+                reuse = termsEnum.docs(acceptDocs, reuse, DocsEnum.FLAG_NONE);
+                bits.or(reuse);
+            }
+        } else {
+            // only full geohashes are indexed, visit all of those that start with the cell
+            if (termsEnum.seekCeil(cell, true) == TermsEnum.SeekStatus.END) {
+                return reuse;
+            }
+            do {
+                if (!StringHelper.startsWith(termsEnum.term(), cell)) {
+                    break;
+                }
+                reuse = termsEnum.docs(acceptDocs, reuse, DocsEnum.FLAG_NONE);
+                bits.or(reuse);
+            } while (termsEnum.next() != null);
+        }
+        return reuse;
+    }
+
+    int numInnerCells() {
+        return innerCells.length;
+    }
+
+    int numBoundaryCells() {
+        return boundaryCells.length;
+    }
+}
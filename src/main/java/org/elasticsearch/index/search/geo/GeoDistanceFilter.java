@@ -54,6 +54,7 @@ public class GeoDistanceFilter extends Filter {
     private final GeoDistance.FixedSourceDistance fixedSourceDistance;
     private GeoDistance.DistanceBoundingCheck distanceBoundingCheck;
     private final Filter boundingBoxFilter;
+    private final GeoDistanceCells cells;
 
     public GeoDistanceFilter(double lat, double lon, double distance, GeoDistance geoDistance, IndexGeoPointFieldData indexFieldData, GeoPointFieldMapper mapper,
                              String optimizeBbox) {
@@ -68,15 +69,22 @@ public class GeoDistanceFilter extends Filter {
             distanceBoundingCheck = GeoDistance.distanceBoundingCheck(lat, lon, distance, DistanceUnit.MILES);
             if ("memory".equals(optimizeBbox)) {
                 boundingBoxFilter = null;
+                cells = null;
             } else if ("indexed".equals(optimizeBbox)) {
                 boundingBoxFilter = IndexedGeoBoundingBoxFilter.create(distanceBoundingCheck.topLeft(), distanceBoundingCheck.bottomRight(), mapper);
                 distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE; // fine, we do the bounding box check using the filter
+                cells = null;
+            } else if ("geohash".equals(optimizeBbox)) {
+                boundingBoxFilter = null;
+                cells = new GeoDistanceCells(distanceBoundingCheck, geoDistance, fixedSourceDistance, distance, true, mapper);
+                distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE; // fine, the cells cover the bounding box
             } else {
                 throw new ElasticSearchIllegalArgumentException("type [" + optimizeBbox + "] for bounding box optimization not supported");
             }
         } else {
             distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE;
             boundingBoxFilter = null;
+            cells = null;
         }
     }
 
@@ -102,6 +110,11 @@ public class GeoDistanceFilter extends Filter {
 
     @Override
     public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
+        if (cells != null) {
+            final GeoPointValues values = indexFieldData.load(context).getGeoPointValues();
+            // accepted docs are applied when reading the postings of the cells
+            return cells.getDocIdSet(context, acceptedDocs, new GeoDistanceDocSet(context.reader().maxDoc(), null, values, fixedSourceDistance, distanceBoundingCheck, distance));
+        }
         DocIdSet boundingBoxDocSet = null;
         if (boundingBoxFilter != null) {
             boundingBoxDocSet = boundingBoxFilter.getDocIdSet(context, acceptedDocs);
@@ -53,6 +53,7 @@ public class GeoDistanceRangeFilter extends Filter {
     private final GeoDistance.FixedSourceDistance fixedSourceDistance;
     private GeoDistance.DistanceBoundingCheck distanceBoundingCheck;
     private final Filter boundingBoxFilter;
+    private final GeoDistanceCells cells;
 
     private final IndexGeoPointFieldData indexFieldData;
 
@@ -88,15 +89,23 @@ public class GeoDistanceRangeFilter extends Filter {
             distanceBoundingCheck = GeoDistance.distanceBoundingCheck(lat, lon, inclusiveUpperPoint, DistanceUnit.MILES);
             if ("memory".equals(optimizeBbox)) {
                 boundingBoxFilter = null;
+                cells = null;
             } else if ("indexed".equals(optimizeBbox)) {
                 boundingBoxFilter = IndexedGeoBoundingBoxFilter.create(distanceBoundingCheck.topLeft(), distanceBoundingCheck.bottomRight(), mapper);
                 distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE; // fine, we do the bounding box check using the filter
+                cells = null;
+            } else if ("geohash".equals(optimizeBbox)) {
+                boundingBoxFilter = null;
+                // cells within the upper distance only match without a lower bound
+                cells = new GeoDistanceCells(distanceBoundingCheck, geoDistance, fixedSourceDistance, inclusiveUpperPoint, inclusiveLowerPoint <= 0, mapper);
+                distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE; // fine, the cells cover the bounding box
             } else {
                 throw new ElasticSearchIllegalArgumentException("type [" + optimizeBbox + "] for bounding box optimization not supported");
             }
         } else {
             distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE;
             boundingBoxFilter = null;
+            cells = null;
         }
     }
 
@@ -114,6 +123,11 @@ public class GeoDistanceRangeFilter extends Filter {
 
     @Override
     public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
+        if (cells != null) {
+            GeoPointValues values = indexFieldData.load(context).getGeoPointValues();
+            // accepted docs are applied when reading the postings of the cells
+            return cells.getDocIdSet(context, acceptedDocs, new GeoDistanceRangeDocSet(context.reader().maxDoc(), null, values, fixedSourceDistance, distanceBoundingCheck, inclusiveLowerPoint, inclusiveUpperPoint));
+        }
         DocIdSet boundingBoxDocSet = null;
         if (boundingBoxFilter != null) {
             boundingBoxDocSet = boundingBoxFilter.getDocIdSet(context, acceptedDocs);
@@ -33,6 +33,7 @@ import org.elasticsearch.index.*;
 import org.elasticsearch.index.aliases.IndexAliasesService;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.IndexCache;
+import org.elasticsearch.index.cache.facet.ShardFacetCacheModule;
 import org.elasticsearch.index.cache.filter.ShardFilterCacheModule;
 import org.elasticsearch.index.cache.id.ShardIdCacheModule;
 import org.elasticsearch.index.deletionpolicy.DeletionPolicyModule;
@@ -153,6 +154,7 @@ public class InternalIndexService extends AbstractIndexComponent implements Inde
         // inject workarounds for cyclic dep
         indexCache.filter().setIndexService(this);
         indexCache.idCache().setIndexService(this);
+        indexCache.fixedBitSetFilterCache().setIndexService(this);
         indexFieldData.setIndexService(this);
     }
 
@@ -322,6 +324,7 @@ public class InternalIndexService extends AbstractIndexComponent implements Inde
         modules.add(new MergePolicyModule(indexSettings));
         modules.add(new MergeSchedulerModule(indexSettings));
         modules.add(new ShardFilterCacheModule());
+        modules.add(new ShardFacetCacheModule());
         modules.add(new ShardFieldDataModule());
         modules.add(new ShardIdCacheModule());
         modules.add(new TranslogModule(indexSettings));
@@ -23,6 +23,8 @@ import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.cache.facet.FacetCacheStats;
+import org.elasticsearch.index.cache.facet.ShardFacetCache;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.filter.ShardFilterCache;
 import org.elasticsearch.index.cache.id.IdCacheStats;
@@ -68,6 +70,8 @@ public interface IndexShard extends IndexShardComponent {
 
     ShardFilterCache filterCache();
 
+    ShardFacetCache facetCache();
+
     ShardIdCache idCache();
 
     ShardFieldData fieldData();
@@ -94,6 +98,8 @@ public interface IndexShard extends IndexShardComponent {
 
     FilterCacheStats filterCacheStats();
 
+    FacetCacheStats facetCacheStats();
+
     IdCacheStats idCacheStats();
 
     FieldDataStats fieldDataStats(String... fields);
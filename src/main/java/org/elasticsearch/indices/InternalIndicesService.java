@@ -39,6 +39,7 @@ import org.elasticsearch.index.analysis.AnalysisModule;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.IndexCacheModule;
+import org.elasticsearch.index.cache.facet.FacetCacheStats;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.id.IdCacheStats;
 import org.elasticsearch.index.codec.CodecModule;
@@ -246,6 +247,9 @@ public class InternalIndicesService extends AbstractLifecycleComponent<IndicesSe
                 case Completion:
                     stats.completion = new CompletionStats();
                     break;
+                case FacetCache:
+                    stats.facetCache = new FacetCacheStats();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown Flag: " + flag);
             }
@@ -298,6 +302,9 @@ public class InternalIndicesService extends AbstractLifecycleComponent<IndicesSe
                         case Completion:
                             stats.completion.add(indexShard.completionStats(flags.completionDataFields()));
                             break;
+                        case FacetCache:
+                            stats.facetCache.add(indexShard.facetCacheStats());
+                            break;
                         default:
                             throw new IllegalStateException("Unknown Flag: " + flag);
                     }
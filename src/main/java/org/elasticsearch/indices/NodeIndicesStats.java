@@ -27,6 +27,7 @@ import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.index.cache.facet.FacetCacheStats;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.id.IdCacheStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
@@ -112,6 +113,11 @@ public class NodeIndicesStats implements Streamable, Serializable, ToXContent {
         return stats.getFilterCache();
     }
 
+    @Nullable
+    public FacetCacheStats getFacetCache() {
+        return stats.getFacetCache();
+    }
+
     @Nullable
     public IdCacheStats getIdCache() {
         return stats.getIdCache();
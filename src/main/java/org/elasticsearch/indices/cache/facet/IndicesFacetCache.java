@@ -0,0 +1,273 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.cache.facet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentReader;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.cache.facet.ShardFacetCache;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.search.facet.InternalFacet;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node level cache of facet results, either computed on a single segment (and reduced with the
+ * results of the other segments of the shard), or on a whole shard reader. Entries are keyed by the
+ * reader and a request key, and are cleaned once the reader they were computed on is closed. Facets
+ * are held in their serialized form, so reusing them never shares state between requests.
+ */
+public class IndicesFacetCache extends AbstractComponent implements RemovalListener<IndicesFacetCache.Key, BytesReference>, SegmentReader.CoreClosedListener, IndexReader.ReaderClosedListener {
+
+    private final ThreadPool threadPool;
+
+    private final Cache<Key, BytesReference> cache;
+
+    private final String size;
+    private final long sizeInBytes;
+    private final TimeValue expire;
+    private final TimeValue cleanInterval;
+
+    private final Set<Object> registeredReadersKeys = ConcurrentCollections.newConcurrentSet();
+    private final Set<Object> readersKeysToClean = ConcurrentCollections.newConcurrentSet();
+
+    private volatile boolean closed;
+
+    @Inject
+    public IndicesFacetCache(Settings settings, ThreadPool threadPool) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.size = componentSettings.get("size", "1%");
+        this.expire = componentSettings.getAsTime("expire", null);
+        this.cleanInterval = componentSettings.getAsTime("clean_interval", TimeValue.timeValueSeconds(60));
+        if (size.endsWith("%")) {
+            double percent = Double.parseDouble(size.substring(0, size.length() - 1));
+            sizeInBytes = (long) ((percent / 100) * JvmInfo.jvmInfo().getMem().getHeapMax().bytes());
+        } else {
+            sizeInBytes = ByteSizeValue.parseBytesSizeValue(size).bytes();
+        }
+
+        CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.newBuilder()
+                .removalListener(this)
+                .maximumWeight(sizeInBytes).weigher(new FacetWeigher());
+        // defaults to 4, but this is a busy map for all indices, increase it a bit
+        cacheBuilder.concurrencyLevel(16);
+        if (expire != null) {
+            cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
+        }
+        cache = cacheBuilder.build();
+        logger.debug("using facet cache with size [{}], actual_size [{}], expire [{}], clean_interval [{}]",
+                size, new ByteSizeValue(sizeInBytes), expire, cleanInterval);
+
+        threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, new ReaderCleaner());
+    }
+
+    public void close() {
+        closed = true;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the facet cached for the given reader, or <tt>null</tt> if there is none.
+     */
+    public InternalFacet get(IndexReader reader, BytesReference requestKey) {
+        BytesReference bytes = cache.getIfPresent(new Key(reader.getCoreCacheKey(), reader.numDeletedDocs(), requestKey));
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            StreamInput in = bytes.streamInput();
+            return (InternalFacet) InternalFacet.Streams.stream(in.readBytesReference()).readFacet(in);
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to read cached facet", e);
+        }
+    }
+
+    /**
+     * Caches the facet computed on the given reader. Only segment readers and top level readers
+     * can be cached on since entries are cleaned up when the reader is closed.
+     */
+    public void put(IndexReader reader, BytesReference requestKey, InternalFacet facet, ShardFacetCache shardFacetCache) {
+        Object ownerKey = reader.getCoreCacheKey();
+        if (registeredReadersKeys.add(ownerKey)) {
+            if (reader instanceof SegmentReader) {
+                ((SegmentReader) reader).addCoreClosedListener(this);
+            } else {
+                reader.addReaderClosedListener(this);
+            }
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        try {
+            out.writeBytesReference(facet.streamType());
+            facet.writeTo(out);
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to write facet to cache", e);
+        }
+        BytesReference bytes = out.bytes();
+        Key key = new Key(ownerKey, reader.numDeletedDocs(), requestKey);
+        key.listener = shardFacetCache;
+        shardFacetCache.onCached(key.sizeInBytes() + bytes.length());
+        cache.put(key, bytes);
+    }
+
+    @Override
+    public void onClose(SegmentReader owner) {
+        onClose(owner.getCoreCacheKey());
+    }
+
+    @Override
+    public void onClose(IndexReader reader) {
+        onClose(reader.getCoreCacheKey());
+    }
+
+    private void onClose(Object ownerKey) {
+        registeredReadersKeys.remove(ownerKey);
+        readersKeysToClean.add(ownerKey);
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
+        Key key = notification.getKey();
+        if (key == null || key.listener == null) {
+            return;
+        }
+        long sizeInBytes = key.sizeInBytes();
+        if (notification.getValue() != null) {
+            sizeInBytes += notification.getValue().length();
+        }
+        key.listener.onRemoval(sizeInBytes, notification.wasEvicted());
+    }
+
+    public static class FacetWeigher implements Weigher<Key, BytesReference> {
+
+        @Override
+        public int weigh(Key key, BytesReference value) {
+            return (int) Math.min(key.sizeInBytes() + value.length(), Integer.MAX_VALUE);
+        }
+    }
+
+    public static class Key {
+        final Object ownerKey;
+        // deletes only accumulate on a segment, so their count identifies the live docs of its core
+        final int numDeletedDocs;
+        final BytesReference requestKey;
+        final int hashCode;
+
+        ShardFacetCache listener; // optional stats listener
+
+        Key(Object ownerKey, int numDeletedDocs, BytesReference requestKey) {
+            this.ownerKey = ownerKey;
+            this.numDeletedDocs = numDeletedDocs;
+            this.requestKey = requestKey;
+            int result = ownerKey.hashCode();
+            result = 31 * result + numDeletedDocs;
+            result = 31 * result + BytesReference.Helper.bytesHashCode(requestKey);
+            this.hashCode = result;
+        }
+
+        long sizeInBytes() {
+            return requestKey.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            Key key = (Key) o;
+            if (ownerKey != key.ownerKey) return false;
+            if (numDeletedDocs != key.numDeletedDocs) return false;
+            return BytesReference.Helper.bytesEqual(requestKey, key.requestKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Cleans the entries of closed readers in bulk, see the filter cache for why this is not done
+     * when each reader is closed.
+     */
+    class ReaderCleaner implements Runnable {
+
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            if (readersKeysToClean.isEmpty()) {
+                schedule();
+                return;
+            }
+            try {
+                threadPool.executor(ThreadPool.Names.GENERIC).execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Set<Object> keys = new HashSet<Object>();
+                        for (Iterator<Object> it = readersKeysToClean.iterator(); it.hasNext(); ) {
+                            keys.add(it.next());
+                            it.remove();
+                        }
+                        cache.cleanUp();
+                        if (!keys.isEmpty()) {
+                            for (Iterator<Key> it = cache.asMap().keySet().iterator(); it.hasNext(); ) {
+                                if (keys.contains(it.next().ownerKey)) {
+                                    // same as invalidate
+                                    it.remove();
+                                }
+                            }
+                        }
+                        schedule();
+                    }
+                });
+            } catch (EsRejectedExecutionException ex) {
+                logger.debug("Can not run ReaderCleaner - execution rejected", ex);
+            }
+        }
+
+        private void schedule() {
+            try {
+                threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, this);
+            } catch (EsRejectedExecutionException ex) {
+                logger.debug("Can not schedule ReaderCleaner - execution rejected", ex);
+            }
+        }
+    }
+}
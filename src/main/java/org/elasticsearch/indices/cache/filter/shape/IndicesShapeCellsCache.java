@@ -0,0 +1,199 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.indices.cache.filter.shape;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.spatial4j.core.shape.Shape;
+import org.apache.lucene.queries.TermsFilter;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.spatial.prefix.PrefixTreeStrategy;
+import org.apache.lucene.spatial.prefix.tree.Node;
+import org.apache.lucene.spatial.prefix.tree.SpatialPrefixTree;
+import org.apache.lucene.spatial.query.SpatialArgs;
+import org.apache.lucene.spatial.query.SpatialOperation;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the prefix tree cells of query shapes, so that filtering repeatedly with the same shape, like
+ * geofences or pre-indexed shapes, doesn't need to compute the cells of the shape again. The filters only
+ * depend on the shape, the prefix tree, the precision and the field, which are the key of the cache.
+ */
+public class IndicesShapeCellsCache extends AbstractComponent {
+
+    private final Cache<Key, CellsFilterValue> cache;
+
+    @Inject
+    public IndicesShapeCellsCache(Settings settings) {
+        super(settings);
+
+        ByteSizeValue size = componentSettings.getAsBytesSize("size", new ByteSizeValue(10, ByteSizeUnit.MB));
+        TimeValue expireAfterWrite = componentSettings.getAsTime("expire_after_write", null);
+        TimeValue expireAfterAccess = componentSettings.getAsTime("expire_after_access", null);
+
+        CacheBuilder<Key, CellsFilterValue> builder = CacheBuilder.newBuilder()
+                .maximumWeight(size.bytes())
+                .weigher(new CellsFilterValueWeigher())
+                .recordStats();
+
+        if (expireAfterAccess != null) {
+            builder.expireAfterAccess(expireAfterAccess.millis(), TimeUnit.MILLISECONDS);
+        }
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite.millis(), TimeUnit.MILLISECONDS);
+        }
+
+        this.cache = builder.build();
+    }
+
+    /**
+     * Returns a filter for the documents indexed with <tt>strategy</tt> whose shape intersects <tt>shape</tt>.
+     */
+    public Filter intersectsFilter(final PrefixTreeStrategy strategy, final Shape shape) throws RuntimeException {
+        final SpatialArgs args = new SpatialArgs(SpatialOperation.Intersects, shape);
+        final SpatialPrefixTree grid = strategy.getGrid();
+        final int detailLevel = grid.getLevelForDistance(args.resolveDistErr(strategy.getSpatialContext(), strategy.getDistErrPct()));
+        final Key key = new Key(strategy.getFieldName(), grid.getClass(), grid.getMaxLevels(), detailLevel, shape);
+        try {
+            return cache.get(key, new Callable<CellsFilterValue>() {
+                @Override
+                public CellsFilterValue call() throws Exception {
+                    return buildCellsFilterValue(strategy.getFieldName(), grid, shape, detailLevel);
+                }
+            }).filter;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ElasticSearchException(e.getMessage(), e.getCause());
+        }
+    }
+
+    static CellsFilterValue buildCellsFilterValue(String fieldName, SpatialPrefixTree grid, Shape shape, int detailLevel) {
+        final List<Node> cells = grid.getNodes(shape, detailLevel, false, true);
+        final Set<String> tokens = new HashSet<String>();
+        for (Node cell : cells) {
+            final String token = cell.getTokenString();
+            // indexed shapes within the cell: their cells have the cell as a parent
+            tokens.add(token);
+            tokens.add(token + (char) Node.LEAF_BYTE);
+            // indexed shapes that contain the cell: one of their leaf cells is an ancestor of the cell
+            for (int i = 1; i < token.length(); i++) {
+                tokens.add(token.substring(0, i) + (char) Node.LEAF_BYTE);
+            }
+        }
+        final List<BytesRef> terms = new ArrayList<BytesRef>(tokens.size());
+        long sizeInBytes = 8;
+        for (String token : tokens) {
+            final BytesRef term = new BytesRef(token);
+            terms.add(term);
+            sizeInBytes += term.length;
+        }
+        if (terms.isEmpty()) {
+            return new CellsFilterValue(sizeInBytes, Queries.MATCH_NO_FILTER);
+        }
+        return new CellsFilterValue(sizeInBytes, new TermsFilter(fieldName, terms));
+    }
+
+    public void clear(String reason) {
+        cache.invalidateAll();
+    }
+
+    /**
+     * The number of shapes whose cells are cached.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * The hits and misses of the cache, a miss meaning that the cells of a shape had to be computed.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    static class Key {
+        private final String fieldName;
+        private final Class<?> gridType;
+        private final int maxLevels;
+        private final int detailLevel;
+        private final Shape shape;
+
+        Key(String fieldName, Class<?> gridType, int maxLevels, int detailLevel, Shape shape) {
+            this.fieldName = fieldName;
+            this.gridType = gridType;
+            this.maxLevels = maxLevels;
+            this.detailLevel = detailLevel;
+            this.shape = shape;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return maxLevels == key.maxLevels && detailLevel == key.detailLevel && fieldName.equals(key.fieldName)
+                    && gridType.equals(key.gridType) && shape.equals(key.shape);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fieldName.hashCode();
+            result = 31 * result + gridType.hashCode();
+            result = 31 * result + maxLevels;
+            result = 31 * result + detailLevel;
+            result = 31 * result + shape.hashCode();
+            return result;
+        }
+    }
+
+    static class CellsFilterValueWeigher implements Weigher<Key, CellsFilterValue> {
+
+        @Override
+        public int weigh(Key key, CellsFilterValue value) {
+            return (int) Math.min(Integer.MAX_VALUE, value.sizeInBytes);
+        }
+    }
+
+    static class CellsFilterValue {
+        public final long sizeInBytes;
+        public final Filter filter;
+
+        CellsFilterValue(long sizeInBytes, Filter filter) {
+            this.sizeInBytes = sizeInBytes;
+            this.filter = filter;
+        }
+    }
+}
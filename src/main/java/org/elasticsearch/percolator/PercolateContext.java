@@ -36,6 +36,7 @@ import org.elasticsearch.common.text.StringText;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.docset.DocSetCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
+import org.elasticsearch.index.cache.fixedbitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.id.IdCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
@@ -58,6 +59,7 @@ import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.facet.SearchContextFacets;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.fetch.fielddata.FieldDataFieldsContext;
 import org.elasticsearch.search.fetch.partial.PartialFieldsContext;
 import org.elasticsearch.search.fetch.script.ScriptFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
@@ -73,7 +75,6 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  */
@@ -90,7 +91,7 @@ public class PercolateContext extends SearchContext {
     private final IndexService indexService;
     private final IndexFieldDataService fieldDataService;
     private final IndexShard indexShard;
-    private final ConcurrentMap<HashedBytesRef, Query> percolateQueries;
+    private Map<HashedBytesRef, Query> percolateQueries;
     private String[] types;
 
     private Engine.Searcher docEngineSearcher;
@@ -162,10 +163,14 @@ public class PercolateContext extends SearchContext {
         return indexService;
     }
 
-    public ConcurrentMap<HashedBytesRef, Query> percolateQueries() {
+    public Map<HashedBytesRef, Query> percolateQueries() {
         return percolateQueries;
     }
 
+    public void percolateQueries(Map<HashedBytesRef, Query> percolateQueries) {
+        this.percolateQueries = percolateQueries;
+    }
+
     public Query percolateQuery() {
         return percolateQuery;
     }
@@ -319,6 +324,21 @@ public class PercolateContext extends SearchContext {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean nowInMillisUsed() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void markAsNotCacheable() {
+        // percolate results are never cached
+    }
+
+    @Override
+    public boolean cacheable() {
+        return false;
+    }
+
     @Override
     public Scroll scroll() {
         throw new UnsupportedOperationException();
@@ -379,6 +399,16 @@ public class PercolateContext extends SearchContext {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean hasFieldDataFields() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FieldDataFieldsContext fieldDataFields() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public boolean sourceRequested() {
         throw new UnsupportedOperationException();
@@ -439,6 +469,11 @@ public class PercolateContext extends SearchContext {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public FixedBitSetFilterCache fixedBitSetFilterCache() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public IdCache idCache() {
         throw new UnsupportedOperationException();
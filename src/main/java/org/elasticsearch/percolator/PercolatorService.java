@@ -20,13 +20,15 @@ package org.elasticsearch.percolator;
 
 import com.google.common.collect.ImmutableMap;
 import gnu.trove.map.hash.TByteObjectHashMap;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.index.AtomicReaderContext;
-import org.apache.lucene.index.IndexableField;
-import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.index.*;
 import org.apache.lucene.index.memory.ExtendedMemoryIndex;
 import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.queries.FilterClause;
 import org.apache.lucene.search.*;
+import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
 import org.elasticsearch.ElasticSearchException;
@@ -43,7 +45,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.HashedBytesRef;
 import org.elasticsearch.common.lucene.Lucene;
-import org.elasticsearch.common.lucene.search.XConstantScoreQuery;
+import org.elasticsearch.common.lucene.search.*;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.BytesText;
@@ -65,6 +67,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.internal.IdFieldMapper;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.percolator.PercolatorQueriesRegistry;
 import org.elasticsearch.index.percolator.stats.ShardPercolateService;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.service.IndexService;
@@ -75,11 +78,20 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.highlight.HighlightField;
 import org.elasticsearch.search.highlight.HighlightPhase;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.elasticsearch.index.mapper.SourceToParse.source;
 import static org.elasticsearch.percolator.QueryCollector.*;
@@ -98,12 +110,23 @@ public class PercolatorService extends AbstractComponent {
 
     private final HighlightPhase highlightPhase;
 
+    private final boolean batchMultiPercolate;
+
+    private final int parallelThreads;
+    private final int parallelSliceSize;
+    private final ThreadPool threadPool;
+
     @Inject
-    public PercolatorService(Settings settings, IndicesService indicesService, HighlightPhase highlightPhase, ClusterService clusterService) {
+    public PercolatorService(Settings settings, IndicesService indicesService, HighlightPhase highlightPhase, ClusterService clusterService,
+                             ThreadPool threadPool) {
         super(settings);
         this.indicesService = indicesService;
+        this.threadPool = threadPool;
         this.clusterService = clusterService;
         this.highlightPhase = highlightPhase;
+        this.batchMultiPercolate = settings.getAsBoolean("percolator.multi_percolate.batch", true);
+        this.parallelThreads = settings.getAsInt("percolator.parallel.threads", 0);
+        this.parallelSliceSize = Math.max(1, settings.getAsInt("percolator.parallel.slice_size", 10000));
 
         final long maxReuseBytes = settings.getAsBytesSize("indices.memory.memory_index.size_per_thread", new ByteSizeValue(1, ByteSizeUnit.MB)).bytes();
         cache = new CloseableThreadLocal<MemoryIndex>() {
@@ -137,84 +160,409 @@ public class PercolatorService extends AbstractComponent {
         long startTime = System.nanoTime();
 
         try {
-            SearchShardTarget searchShardTarget = new SearchShardTarget(clusterService.localNode().id(), request.index(), request.shardId());
-            final PercolateContext context = new PercolateContext(
-                    request, searchShardTarget, indexShard, percolateIndexService
-            );
-
-            ParsedDocument parsedDocument = parseRequest(percolateIndexService, request, context);
-            if (context.percolateQueries().isEmpty()) {
+            final PercolateContext context = createContext(request, indexShard, percolateIndexService);
+            ParsedDocument parsedDocument = prepare(request, context, percolateIndexService);
+            if (parsedDocument == null) {
                 return new PercolateShardResponse(context, request.index(), request.shardId());
             }
+            return percolate(request, context, parsedDocument);
+        } finally {
+            shardPercolateService.postPercolate(System.nanoTime() - startTime);
+        }
+    }
 
-            if (request.docSource() != null && request.docSource().length() != 0) {
-                parsedDocument = parseFetchedDoc(request.docSource(), percolateIndexService, request.documentType());
-            } else if (parsedDocument == null) {
-                throw new ElasticSearchIllegalArgumentException("Nothing to percolate");
+    /**
+     * Percolates the documents of several requests that all target the provided shard. The documents that are
+     * percolated without a query, sorting, scoring or highlighting and that have no nested documents are indexed
+     * together into one in-memory index and each candidate query is executed only once against all of them.
+     * <p/>
+     * Returns a result for each request, in the same order as the requests.
+     */
+    public ShardResult[] percolate(String index, int shardId, List<PercolateShardRequest> requests) {
+        ShardResult[] responses = new ShardResult[requests.size()];
+        if (!batchMultiPercolate || requests.size() < 2) {
+            for (int i = 0; i < requests.size(); i++) {
+                try {
+                    responses[i] = new ShardResult(percolate(requests.get(i)));
+                } catch (Throwable e) {
+                    responses[i] = new ShardResult(e);
+                }
             }
+            return responses;
+        }
 
-            if (context.percolateQuery() == null && (context.score || context.sort)) {
-                throw new ElasticSearchIllegalArgumentException("Can't sort or score if query isn't specified");
+        IndexService percolateIndexService = indicesService.indexServiceSafe(index);
+        IndexShard indexShard = percolateIndexService.shardSafe(shardId);
+        ShardPercolateService shardPercolateService = indexShard.shardPercolateService();
+
+        List<BatchItem> batch = new ArrayList<BatchItem>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            PercolateShardRequest request = requests.get(i);
+            shardPercolateService.prePercolate();
+            long startTime = System.nanoTime();
+            boolean batched = false;
+            try {
+                PercolateContext context = createContext(request, indexShard, percolateIndexService);
+                ParsedDocument parsedDocument = prepare(request, context, percolateIndexService);
+                if (parsedDocument == null) {
+                    responses[i] = new ShardResult(new PercolateShardResponse(context, request.index(), request.shardId()));
+                } else if (context.percolateQuery() == null && context.highlight() == null && parsedDocument.docs().size() == 1) {
+                    // documents with nested docs are percolated on their own, the same way as by the percolate api
+                    batch.add(new BatchItem(i, request, context, parsedDocument, System.nanoTime() - startTime));
+                    batched = true;
+                } else {
+                    responses[i] = new ShardResult(percolate(request, context, parsedDocument));
+                }
+            } catch (Throwable e) {
+                responses[i] = new ShardResult(e);
+            } finally {
+                if (!batched) {
+                    shardPercolateService.postPercolate(System.nanoTime() - startTime);
+                }
             }
+        }
 
-            if (context.sort && !context.limit) {
-                throw new ElasticSearchIllegalArgumentException("Can't sort if size isn't specified");
+        if (batch.isEmpty()) {
+            return responses;
+        }
+        long startTime = System.nanoTime();
+        try {
+            if (batch.size() > 1) {
+                percolateBatch(batch, indexShard, percolateIndexService, responses);
+            } else {
+                percolateIndividually(batch, responses);
             }
+        } catch (Throwable e) {
+            logger.debug("[{}][{}] failed to percolate documents as a batch, percolating them one by one", e, index, shardId);
+            percolateIndividually(batch, responses);
+        } finally {
+            long tookPerItem = (System.nanoTime() - startTime) / batch.size();
+            for (BatchItem item : batch) {
+                shardPercolateService.postPercolate(item.prepareTime + tookPerItem);
+            }
+        }
+        return responses;
+    }
+
+    private PercolateContext createContext(PercolateShardRequest request, IndexShard indexShard, IndexService percolateIndexService) {
+        SearchShardTarget searchShardTarget = new SearchShardTarget(clusterService.localNode().id(), request.index(), request.shardId());
+        return new PercolateContext(request, searchShardTarget, indexShard, percolateIndexService);
+    }
+
+    /**
+     * Parses and validates the request, returns the document to percolate or <tt>null</tt> if there are no
+     * queries to percolate it against.
+     */
+    private ParsedDocument prepare(PercolateShardRequest request, PercolateContext context, IndexService percolateIndexService) {
+        ParsedDocument parsedDocument = parseRequest(percolateIndexService, request, context);
+        if (context.percolateQueries().isEmpty()) {
+            return null;
+        }
+
+        if (request.docSource() != null && request.docSource().length() != 0) {
+            parsedDocument = parseFetchedDoc(request.docSource(), percolateIndexService, request.documentType());
+        } else if (parsedDocument == null) {
+            throw new ElasticSearchIllegalArgumentException("Nothing to percolate");
+        }
+
+        if (context.percolateQuery() == null && (context.score || context.sort)) {
+            throw new ElasticSearchIllegalArgumentException("Can't sort or score if query isn't specified");
+        }
+
+        if (context.sort && !context.limit) {
+            throw new ElasticSearchIllegalArgumentException("Can't sort if size isn't specified");
+        }
+
+        if (context.highlight() != null && !context.limit) {
+            throw new ElasticSearchIllegalArgumentException("Can't highlight if size isn't specified");
+        }
 
-            if (context.highlight() != null && !context.limit) {
-                throw new ElasticSearchIllegalArgumentException("Can't highlight if size isn't specified");
+        if (context.size < 0) {
+            context.size = 0;
+        }
+        return parsedDocument;
+    }
+
+    private PercolateShardResponse percolate(PercolateShardRequest request, PercolateContext context, ParsedDocument parsedDocument) {
+        // first, parse the source doc into a MemoryIndex
+        final MemoryIndex memoryIndex = cache.get();
+        try {
+            addToMemoryIndex(memoryIndex, parsedDocument);
+
+            PercolatorType action;
+            if (request.onlyCount()) {
+                action = context.percolateQuery() != null ? queryCountPercolator : countPercolator;
+            } else {
+                if (context.sort) {
+                    action = topMatchingPercolator;
+                } else if (context.percolateQuery() != null) {
+                    action = context.score ? scoringPercolator : queryPercolator;
+                } else {
+                    action = matchPercolator;
+                }
             }
+            context.percolatorTypeId = action.id();
 
-            if (context.size < 0) {
-                context.size = 0;
+            context.initialize(memoryIndex, parsedDocument);
+            selectCandidateQueries(context);
+            PercolateShardResponse response = action.doPercolate(request, context);
+            context.indexShard().shardPercolateService().onCandidates(context.percolateQueries().size(), response.count());
+            return response;
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Adds the root document of the percolated document to the memory index. Nested documents are not indexed,
+     * their fields can only be matched when they are included in the root document.
+     */
+    private static void addToMemoryIndex(MemoryIndex memoryIndex, ParsedDocument parsedDocument) {
+        for (IndexableField field : percolateFields(parsedDocument)) {
+            TokenStream tokenStream;
+            try {
+                tokenStream = field.tokenStream(null);
+                if (tokenStream != null) {
+                    memoryIndex.addField(field.name(), tokenStream, field.boost());
+                }
+            } catch (IOException e) {
+                throw new ElasticSearchException("Failed to create token stream", e);
             }
+        }
+    }
 
-            // first, parse the source doc into a MemoryIndex
-            final MemoryIndex memoryIndex = cache.get();
+    private void percolateIndividually(List<BatchItem> batch, ShardResult[] responses) {
+        for (BatchItem item : batch) {
             try {
-                // TODO: This means percolation does not support nested docs...
-                // So look into: ByteBufferDirectory
-                for (IndexableField field : parsedDocument.rootDoc().getFields()) {
-                    if (!field.fieldType().indexed()) {
-                        continue;
-                    }
-                    // no need to index the UID field
-                    if (field.name().equals(UidFieldMapper.NAME)) {
-                        continue;
+                responses[item.slot] = new ShardResult(percolate(item.request, item.context, item.parsedDocument));
+            } catch (Throwable e) {
+                responses[item.slot] = new ShardResult(e);
+            }
+        }
+    }
+
+    /**
+     * Indexes all documents of the batch into a single in-memory index and runs every candidate query once
+     * against it. The documents are indexed with the same fields as a document that is percolated on its own,
+     * so that a query matches a percolated document the same way whichever way it is percolated.
+     * <p/>
+     * Queries that may match differently depending on the index statistics, e.g. a common terms query with a
+     * cutoff frequency or a fuzzy query that is rewritten to its top terms, can't be executed against all documents
+     * at once: these are executed against a memory index per document instead, the same way as by the percolate api.
+     */
+    private void percolateBatch(List<BatchItem> batch, IndexShard indexShard, IndexService percolateIndexService, ShardResult[] responses) throws IOException {
+        RAMDirectory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        try {
+            // the doc id of each document is its index in the batch
+            for (int i = 0; i < batch.size(); i++) {
+                writer.addDocument(percolateFields(batch.get(i).parsedDocument));
+            }
+        } finally {
+            writer.close();
+        }
+
+        DirectoryReader reader = DirectoryReader.open(directory);
+        try {
+            PercolatorQueriesRegistry registry = indexShard.percolateRegistry();
+            Map<HashedBytesRef, Query> queries = registry.percolateQueries();
+            Set<HashedBytesRef> candidates = registry.candidateQueries(reader);
+            if (candidates != null) {
+                Map<HashedBytesRef, Query> candidateQueries = new HashMap<HashedBytesRef, Query>(candidates.size());
+                for (HashedBytesRef candidate : candidates) {
+                    Query query = queries.get(candidate);
+                    if (query != null) {
+                        candidateQueries.put(candidate, query);
                     }
-                    TokenStream tokenStream;
+                }
+                queries = candidateQueries;
+            }
+
+            IndexSearcher searcher = new IndexSearcher(reader);
+            BatchCollector collector = new BatchCollector(batch.size());
+            long[] counts = new long[batch.size()];
+            List<List<BytesRef>> matches = new ArrayList<List<BytesRef>>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                matches.add(new ArrayList<BytesRef>());
+            }
+            Map<HashedBytesRef, Query> perDocQueries = new HashMap<HashedBytesRef, Query>();
+            long totalMatches = 0;
+            for (Map.Entry<HashedBytesRef, Query> entry : queries.entrySet()) {
+                if (!matchesIndependentlyOfStats(entry.getValue())) {
+                    perDocQueries.put(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                collector.reset();
+                try {
+                    searcher.search(entry.getValue(), collector);
+                } catch (Throwable e) {
+                    logger.warn("[" + entry.getKey() + "] failed to execute query", e);
+                    continue;
+                }
+                for (int i = 0; i < collector.numMatches; i++) {
+                    int item = collector.matches[i];
+                    addBatchMatch(batch.get(item).context, entry.getKey(), matches.get(item), counts, item);
+                }
+                totalMatches += collector.numMatches;
+            }
+
+            if (!perDocQueries.isEmpty()) {
+                MemoryIndex memoryIndex = cache.get();
+                BatchCollector docCollector = new BatchCollector(1);
+                for (int i = 0; i < batch.size(); i++) {
+                    BatchItem item = batch.get(i);
+                    addToMemoryIndex(memoryIndex, item.parsedDocument);
+                    IndexSearcher docSearcher = memoryIndex.createSearcher();
                     try {
-                        tokenStream = field.tokenStream(parsedDocument.analyzer());
-                        if (tokenStream != null) {
-                            memoryIndex.addField(field.name(), tokenStream, field.boost());
+                        for (Map.Entry<HashedBytesRef, Query> entry : perDocQueries.entrySet()) {
+                            docCollector.reset();
+                            try {
+                                docSearcher.search(entry.getValue(), docCollector);
+                            } catch (Throwable e) {
+                                logger.warn("[" + entry.getKey() + "] failed to execute query", e);
+                                continue;
+                            }
+                            if (docCollector.numMatches > 0) {
+                                addBatchMatch(item.context, entry.getKey(), matches.get(i), counts, i);
+                                totalMatches++;
+                            }
                         }
-                    } catch (IOException e) {
-                        throw new ElasticSearchException("Failed to create token stream", e);
+                    } finally {
+                        docSearcher.getIndexReader().close();
+                        memoryIndex.reset();
                     }
                 }
+            }
+            indexShard.shardPercolateService().onCandidates(queries.size(), totalMatches);
 
-                PercolatorType action;
+            for (int i = 0; i < batch.size(); i++) {
+                BatchItem item = batch.get(i);
+                PercolateShardRequest request = item.request;
                 if (request.onlyCount()) {
-                    action = context.percolateQuery() != null ? queryCountPercolator : countPercolator;
+                    item.context.percolatorTypeId = countPercolator.id();
+                    responses[item.slot] = new ShardResult(new PercolateShardResponse(counts[i], item.context, request.index(), request.shardId()));
                 } else {
-                    if (context.sort) {
-                        action = topMatchingPercolator;
-                    } else if (context.percolateQuery() != null) {
-                        action = context.score ? scoringPercolator : queryPercolator;
-                    } else {
-                        action = matchPercolator;
-                    }
+                    item.context.percolatorTypeId = matchPercolator.id();
+                    List<BytesRef> itemMatches = matches.get(i);
+                    responses[item.slot] = new ShardResult(new PercolateShardResponse(
+                            itemMatches.toArray(new BytesRef[itemMatches.size()]), new ArrayList<Map<String, HighlightField>>(),
+                            counts[i], item.context, request.index(), request.shardId()
+                    ));
                 }
-                context.percolatorTypeId = action.id();
-
-                context.initialize(memoryIndex, parsedDocument);
-                return action.doPercolate(request, context);
-            } finally {
-                context.release();
             }
         } finally {
-            shardPercolateService.postPercolate(System.nanoTime() - startTime);
+            for (AtomicReaderContext leaf : reader.leaves()) {
+                percolateIndexService.fieldData().clear(leaf.reader());
+                percolateIndexService.cache().clear(leaf.reader());
+            }
+            reader.close();
+        }
+    }
+
+    private static void addBatchMatch(PercolateContext context, HashedBytesRef id, List<BytesRef> matches, long[] counts, int item) {
+        if (!context.limit || counts[item] < context.size) {
+            matches.add(id.bytes);
         }
+        counts[item]++;
+    }
+
+    /**
+     * Returns whether the documents a query matches only depend on their own content, and not on index statistics
+     * like the document frequency of terms or the terms of other documents. Such a query matches a document of a
+     * batch the same way as it matches the document on its own. Unknown queries are assumed to depend on them.
+     */
+    static boolean matchesIndependentlyOfStats(Query query) {
+        if (query instanceof TermQuery || query instanceof PhraseQuery || query instanceof MultiPhraseQuery
+                || query instanceof MatchAllDocsQuery) {
+            return true;
+        } else if (query instanceof MultiTermQuery) {
+            // top terms rewrites only keep the terms with the highest document frequencies or boosts
+            return !(((MultiTermQuery) query).getRewriteMethod() instanceof TopTermsRewrite);
+        } else if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                if (!matchesIndependentlyOfStats(clause.getQuery())) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (query instanceof DisjunctionMaxQuery) {
+            for (Query disjunct : ((DisjunctionMaxQuery) query).getDisjuncts()) {
+                if (!matchesIndependentlyOfStats(disjunct)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (query instanceof ConstantScoreQuery) {
+            ConstantScoreQuery constantScoreQuery = (ConstantScoreQuery) query;
+            if (constantScoreQuery.getQuery() != null) {
+                return matchesIndependentlyOfStats(constantScoreQuery.getQuery());
+            }
+            return matchesIndependentlyOfStats(constantScoreQuery.getFilter());
+        } else if (query instanceof XFilteredQuery) {
+            XFilteredQuery filteredQuery = (XFilteredQuery) query;
+            return matchesIndependentlyOfStats(filteredQuery.getQuery()) && matchesIndependentlyOfStats(filteredQuery.getFilter());
+        } else if (query instanceof FilteredQuery) {
+            FilteredQuery filteredQuery = (FilteredQuery) query;
+            return matchesIndependentlyOfStats(filteredQuery.getQuery()) && matchesIndependentlyOfStats(filteredQuery.getFilter());
+        }
+        return false;
+    }
+
+    /**
+     * Filters match documents on their own content, unless they wrap a query.
+     */
+    private static boolean matchesIndependentlyOfStats(Filter filter) {
+        if (filter instanceof QueryWrapperFilter) {
+            return matchesIndependentlyOfStats(((QueryWrapperFilter) filter).getQuery());
+        } else if (filter instanceof XBooleanFilter) {
+            for (FilterClause clause : ((XBooleanFilter) filter).clauses()) {
+                if (!matchesIndependentlyOfStats(clause.getFilter())) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (filter instanceof AndFilter) {
+            return matchesIndependentlyOfStats(((AndFilter) filter).filters());
+        } else if (filter instanceof OrFilter) {
+            return matchesIndependentlyOfStats(((OrFilter) filter).filters());
+        } else if (filter instanceof NotFilter) {
+            return matchesIndependentlyOfStats(((NotFilter) filter).filter());
+        }
+        return true;
+    }
+
+    private static boolean matchesIndependentlyOfStats(List<? extends Filter> filters) {
+        for (Filter filter : filters) {
+            if (!matchesIndependentlyOfStats(filter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Narrows down the queries to percolate to the ones that may match the document, based on the terms
+     * that were extracted from them when they were registered.
+     */
+    private void selectCandidateQueries(PercolateContext context) {
+        Set<HashedBytesRef> candidates;
+        try {
+            candidates = context.indexShard().percolateRegistry().candidateQueries(context.docSearcher().getIndexReader());
+        } catch (IOException e) {
+            throw new PercolateException(context.indexShard().shardId(), "failed to select candidate queries", e);
+        }
+        if (candidates == null) {
+            return;
+        }
+        Map<HashedBytesRef, Query> percolateQueries = context.percolateQueries();
+        Map<HashedBytesRef, Query> candidateQueries = new HashMap<HashedBytesRef, Query>(candidates.size());
+        for (HashedBytesRef candidate : candidates) {
+            Query query = percolateQueries.get(candidate);
+            if (query != null) {
+                candidateQueries.put(candidate, query);
+            }
+        }
+        context.percolateQueries(candidateQueries);
     }
 
     private ParsedDocument parseRequest(IndexService documentIndexService, PercolateShardRequest request, PercolateContext context) throws ElasticSearchException {
@@ -382,6 +730,10 @@ public class PercolatorService extends AbstractComponent {
 
         @Override
         public PercolateShardResponse doPercolate(PercolateShardRequest request, PercolateContext context) {
+            if (percolateInParallel(context)) {
+                long count = parallelMatches(context).size();
+                return new PercolateShardResponse(count, context, request.index(), request.shardId());
+            }
             long count = 0;
             Lucene.ExistsCollector collector = new Lucene.ExistsCollector();
             for (Map.Entry<HashedBytesRef, Query> entry : context.percolateQueries().entrySet()) {
@@ -467,6 +819,15 @@ public class PercolatorService extends AbstractComponent {
 
         @Override
         public PercolateShardResponse doPercolate(PercolateShardRequest request, PercolateContext context) {
+            if (percolateInParallel(context)) {
+                List<BytesRef> matches = parallelMatches(context);
+                long count = matches.size();
+                if (context.limit && matches.size() > context.size) {
+                    matches = matches.subList(0, context.size);
+                }
+                BytesRef[] finalMatches = matches.toArray(new BytesRef[matches.size()]);
+                return new PercolateShardResponse(finalMatches, new ArrayList<Map<String, HighlightField>>(), count, context, request.index(), request.shardId());
+            }
             long count = 0;
             List<BytesRef> matches = new ArrayList<BytesRef>();
             List<Map<String, HighlightField>> hls = new ArrayList<Map<String, HighlightField>>();
@@ -707,6 +1068,267 @@ public class PercolatorService extends AbstractComponent {
 
     };
 
+    /**
+     * Whether the queries of the context can be split in slices that are percolated in parallel. This is only the
+     * case if there are enough queries, and if the matches don't need to be highlighted since highlighting
+     * shares state with the context.
+     */
+    private boolean percolateInParallel(PercolateContext context) {
+        return parallelThreads > 0 && context.highlight() == null && context.percolateQueries().size() > parallelSliceSize;
+    }
+
+    /**
+     * Splits the queries of the context in slices of <tt>percolator.parallel.slice_size</tt> queries and runs them
+     * against the percolated document on the percolate slice pool, with the calling thread taking part. Since a
+     * slice is only run by whoever claims it first, a busy pool only means fewer slices run in parallel.
+     * Returns the ids of the matching queries, only once no other thread uses the context anymore.
+     */
+    private List<BytesRef> parallelMatches(final PercolateContext context) {
+        final List<Map.Entry<HashedBytesRef, Query>> entries = new ArrayList<Map.Entry<HashedBytesRef, Query>>(context.percolateQueries().entrySet());
+        final int numSlices = (entries.size() + parallelSliceSize - 1) / parallelSliceSize;
+        final AtomicReferenceArray<List<BytesRef>> sliceMatches = new AtomicReferenceArray<List<BytesRef>>(numSlices);
+        final AtomicInteger nextSlice = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(numSlices);
+        final IndexSearcher docSearcher = context.docSearcher();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                Lucene.ExistsCollector collector = new Lucene.ExistsCollector();
+                int slice;
+                while ((slice = nextSlice.getAndIncrement()) < numSlices) {
+                    try {
+                        List<BytesRef> matches = new ArrayList<BytesRef>();
+                        int end = Math.min(entries.size(), (slice + 1) * parallelSliceSize);
+                        for (int i = slice * parallelSliceSize; i < end; i++) {
+                            Map.Entry<HashedBytesRef, Query> entry = entries.get(i);
+                            collector.reset();
+                            try {
+                                docSearcher.search(entry.getValue(), collector);
+                            } catch (Throwable e) {
+                                logger.warn("[" + entry.getKey() + "] failed to execute query", e);
+                            }
+                            if (collector.exists()) {
+                                matches.add(entry.getKey().bytes);
+                            }
+                        }
+                        sliceMatches.set(slice, matches);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }
+        };
+        ExecutorService executor = threadPool.executor(ThreadPool.Names.PERCOLATE_SLICE);
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = Math.min(numSlices - 1, parallelThreads); i > 0; i--) {
+            workers.add(executor.submit(worker));
+        }
+        worker.run();
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            // the caller releases the context once we return, so stop handing out slices, drop the workers that
+            // didn't start yet and wait for the slices that are being run to complete
+            for (Future<?> future : workers) {
+                future.cancel(false);
+            }
+            for (int slice = Math.min(numSlices, nextSlice.getAndSet(numSlices)); slice < numSlices; slice++) {
+                latch.countDown();
+            }
+            awaitUninterruptibly(latch);
+            Thread.currentThread().interrupt();
+            throw new PercolateException(context.indexShard().shardId(), "interrupted while waiting for parallel percolation", e);
+        }
+
+        List<BytesRef> matches = new ArrayList<BytesRef>();
+        for (int i = 0; i < numSlices; i++) {
+            List<BytesRef> slice = sliceMatches.get(i);
+            if (slice != null) {
+                matches.addAll(slice);
+            }
+        }
+        return matches;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // the interrupt is restored by the caller
+            }
+        }
+    }
+
+    /**
+     * The result of percolating one of the requests of a multi percolate shard operation: either the response
+     * of the request or the failure it failed with.
+     */
+    public static final class ShardResult {
+
+        private final PercolateShardResponse response;
+        private final Throwable failure;
+
+        ShardResult(PercolateShardResponse response) {
+            this.response = response;
+            this.failure = null;
+        }
+
+        ShardResult(Throwable failure) {
+            this.response = null;
+            this.failure = failure;
+        }
+
+        /**
+         * The response of the request, <tt>null</tt> if it failed.
+         */
+        public PercolateShardResponse response() {
+            return response;
+        }
+
+        /**
+         * The failure of the request, <tt>null</tt> if it succeeded.
+         */
+        public Throwable failure() {
+            return failure;
+        }
+    }
+
+    private static final class BatchItem {
+
+        final int slot;
+        final PercolateShardRequest request;
+        final PercolateContext context;
+        final ParsedDocument parsedDocument;
+        final long prepareTime;
+
+        BatchItem(int slot, PercolateShardRequest request, PercolateContext context, ParsedDocument parsedDocument, long prepareTime) {
+            this.slot = slot;
+            this.request = request;
+            this.context = context;
+            this.parsedDocument = parsedDocument;
+            this.prepareTime = prepareTime;
+        }
+    }
+
+    /**
+     * Returns the fields of the root document of a percolated document as they are indexed into the in-memory
+     * index: every indexed field but the uid, with positions and offsets whatever their index options are.
+     * Token streams are created by the document analyzer when the fields are consumed.
+     */
+    private static List<IndexableField> percolateFields(ParsedDocument parsedDocument) {
+        List<IndexableField> fields = new ArrayList<IndexableField>();
+        for (IndexableField field : parsedDocument.rootDoc().getFields()) {
+            if (!field.fieldType().indexed()) {
+                continue;
+            }
+            // no need to index the UID field
+            if (field.name().equals(UidFieldMapper.NAME)) {
+                continue;
+            }
+            fields.add(new PercolateField(field, parsedDocument.analyzer()));
+        }
+        return fields;
+    }
+
+    private static final class PercolateField implements IndexableField {
+
+        private static final FieldType FIELD_TYPE = new FieldType();
+
+        static {
+            FIELD_TYPE.setIndexed(true);
+            FIELD_TYPE.setTokenized(true);
+            FIELD_TYPE.setIndexOptions(FieldInfo.IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+            FIELD_TYPE.freeze();
+        }
+
+        private final IndexableField field;
+        private final Analyzer analyzer;
+
+        PercolateField(IndexableField field, Analyzer analyzer) {
+            this.field = field;
+            this.analyzer = analyzer;
+        }
+
+        @Override
+        public String name() {
+            return field.name();
+        }
+
+        @Override
+        public IndexableFieldType fieldType() {
+            return FIELD_TYPE;
+        }
+
+        @Override
+        public float boost() {
+            return field.boost();
+        }
+
+        @Override
+        public BytesRef binaryValue() {
+            return null;
+        }
+
+        @Override
+        public String stringValue() {
+            return null;
+        }
+
+        @Override
+        public Reader readerValue() {
+            return null;
+        }
+
+        @Override
+        public Number numericValue() {
+            return null;
+        }
+
+        @Override
+        public TokenStream tokenStream(Analyzer analyzer) throws IOException {
+            return field.tokenStream(this.analyzer);
+        }
+    }
+
+    /**
+     * Collects the index in the batch of the documents that match a query.
+     */
+    private static final class BatchCollector extends Collector {
+
+        final int[] matches;
+        int numMatches;
+        private int docBase;
+
+        BatchCollector(int numDocs) {
+            this.matches = new int[numDocs];
+        }
+
+        void reset() {
+            numMatches = 0;
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            matches[numMatches++] = docBase + doc;
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            docBase = context.docBase;
+        }
+
+        @Override
+        public boolean acceptsDocsOutOfOrder() {
+            return true;
+        }
+    }
+
     private static void queryBasedPercolating(Engine.Searcher percolatorSearcher, PercolateContext context, Collector collector) throws IOException {
         Filter percolatorTypeFilter = context.indexService().mapperService().documentMapper(Constants.TYPE_NAME).typeFilter();
         percolatorTypeFilter = context.indexService().cache().filter().cache(percolatorTypeFilter);
@@ -41,7 +41,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  */
@@ -49,7 +48,7 @@ abstract class QueryCollector extends Collector {
 
     final IndexFieldData idFieldData;
     final IndexSearcher searcher;
-    final ConcurrentMap<HashedBytesRef, Query> queries;
+    final Map<HashedBytesRef, Query> queries;
     final ESLogger logger;
 
     final Lucene.ExistsCollector collector = new Lucene.ExistsCollector();
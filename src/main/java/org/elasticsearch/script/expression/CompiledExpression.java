@@ -0,0 +1,75 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+/**
+ * The result of compiling an expression: the generated {@link Expression} along with the fields
+ * and parameters it needs to be bound to.
+ */
+public class CompiledExpression {
+
+    private final String source;
+    private final Expression expression;
+    private final String[] fields;
+    private final String[] params;
+    private final boolean needsScores;
+
+    CompiledExpression(String source, Expression expression, String[] fields, String[] params, boolean needsScores) {
+        this.source = source;
+        this.expression = expression;
+        this.fields = fields;
+        this.params = params;
+        this.needsScores = needsScores;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public Expression expression() {
+        return expression;
+    }
+
+    /**
+     * The names of the fields the expression refers to, indexed by their slot.
+     */
+    public String[] fields() {
+        return fields;
+    }
+
+    /**
+     * The names of the parameters the expression refers to, indexed by their slot.
+     */
+    public String[] params() {
+        return params;
+    }
+
+    /**
+     * Whether the expression uses the score of the document.
+     */
+    public boolean needsScores() {
+        return needsScores;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.index.fielddata.DoubleValues;
+
+/**
+ * Base class of the classes generated by {@link ExpressionCompiler}. The generated
+ * {@link #evaluate(int, double, DoubleValues[], double[])} reads field values and parameters straight
+ * from the provided arrays, using the slots assigned at compilation time.
+ */
+public abstract class Expression {
+
+    /**
+     * Evaluates the expression for a document.
+     *
+     * @param doc    the segment level document id
+     * @param score  the score of the document, only meaningful if the expression uses <tt>_score</tt>
+     * @param fields the values of the fields the expression refers to, in the order of {@link CompiledExpression#fields()}
+     * @param params the parameters the expression refers to, in the order of {@link CompiledExpression#params()}
+     */
+    public abstract double evaluate(int doc, double score, DoubleValues[] fields, double[] params);
+}
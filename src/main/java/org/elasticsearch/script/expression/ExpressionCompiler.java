@@ -0,0 +1,95 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.elasticsearch.script.ScriptException;
+import org.mvel2.asm.ClassWriter;
+import org.mvel2.asm.MethodVisitor;
+import org.mvel2.asm.Opcodes;
+import org.mvel2.asm.Type;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles expressions to subclasses of {@link Expression}, so that evaluating them doesn't involve
+ * any interpretation, boxing or map lookups. Each expression is defined in its own class loader so
+ * that it can be garbage collected once the compiled script is not referenced anymore.
+ */
+public class ExpressionCompiler implements Opcodes {
+
+    private static final String EXPRESSION = Type.getInternalName(Expression.class);
+    private static final String EVALUATE_DESCRIPTOR = "(ID[" + Type.getDescriptor(DoubleValues.class) + "[D)D";
+    private static final String CLASS_NAME_PREFIX = EXPRESSION + "$Compiled";
+
+    private static final AtomicLong counter = new AtomicLong();
+
+    private ExpressionCompiler() {
+    }
+
+    public static CompiledExpression compile(String source) {
+        ExpressionParser parser = new ExpressionParser(source);
+        ExpressionNode root = parser.parse();
+
+        String className = CLASS_NAME_PREFIX + counter.incrementAndGet();
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_6, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, EXPRESSION, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, EXPRESSION, "<init>", "()V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "evaluate", EVALUATE_DESCRIPTOR, null, null);
+        mv.visitCode();
+        root.emit(mv);
+        mv.visitInsn(DRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+
+        byte[] bytes = cw.toByteArray();
+        Expression expression;
+        try {
+            Class<?> clazz = new Loader(Expression.class.getClassLoader()).define(className.replace('/', '.'), bytes);
+            expression = (Expression) clazz.newInstance();
+        } catch (Throwable t) {
+            throw new ScriptException("Failed to compile expression [" + source + "]", t);
+        }
+        return new CompiledExpression(source, expression,
+                parser.fields.toArray(new String[parser.fields.size()]),
+                parser.params.toArray(new String[parser.params.size()]),
+                parser.needsScores);
+    }
+
+    private static final class Loader extends ClassLoader {
+
+        Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.mvel2.asm.Label;
+import org.mvel2.asm.MethodVisitor;
+import org.mvel2.asm.Opcodes;
+import org.mvel2.asm.Type;
+
+/**
+ * A node of a parsed expression, which knows how to emit the bytecode that leaves its value as a
+ * <tt>double</tt> on top of the operand stack. Booleans are represented as <tt>1</tt> and <tt>0</tt>,
+ * any value other than <tt>0</tt> being considered as <tt>true</tt>.
+ */
+abstract class ExpressionNode implements Opcodes {
+
+    static final int DOC_SLOT = 1;
+    static final int SCORE_SLOT = 2;
+    static final int FIELDS_SLOT = 4;
+    static final int PARAMS_SLOT = 5;
+
+    private static final String DOUBLE_VALUES = Type.getInternalName(DoubleValues.class);
+
+    abstract void emit(MethodVisitor mv);
+
+    static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    /**
+     * Emits a jump to <tt>target</tt> if the value on top of the stack is <tt>0</tt> (<tt>jumpIfTrue == false</tt>)
+     * or anything else (<tt>jumpIfTrue == true</tt>).
+     */
+    static void emitTest(MethodVisitor mv, boolean jumpIfTrue, Label target) {
+        mv.visitInsn(DCONST_0);
+        mv.visitInsn(DCMPL);
+        mv.visitJumpInsn(jumpIfTrue ? IFNE : IFEQ, target);
+    }
+
+    /**
+     * Pushes <tt>1</tt> if the previously emitted jumps didn't branch to <tt>whenJumped</tt>, and <tt>0</tt>
+     * if they did, or the other way around if <tt>inverse</tt> is set.
+     */
+    static void emitBoolean(MethodVisitor mv, Label whenJumped, boolean inverse) {
+        Label end = new Label();
+        mv.visitInsn(inverse ? DCONST_0 : DCONST_1);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(whenJumped);
+        mv.visitInsn(inverse ? DCONST_1 : DCONST_0);
+        mv.visitLabel(end);
+    }
+
+    static class Constant extends ExpressionNode {
+
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            if (value == 0d && Double.doubleToRawLongBits(value) == 0L) {
+                mv.visitInsn(DCONST_0);
+            } else if (value == 1d) {
+                mv.visitInsn(DCONST_1);
+            } else {
+                mv.visitLdcInsn(value);
+            }
+        }
+    }
+
+    static class Score extends ExpressionNode {
+
+        @Override
+        void emit(MethodVisitor mv) {
+            mv.visitVarInsn(DLOAD, SCORE_SLOT);
+        }
+    }
+
+    static class Param extends ExpressionNode {
+
+        private final int slot;
+
+        Param(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            mv.visitVarInsn(ALOAD, PARAMS_SLOT);
+            pushInt(mv, slot);
+            mv.visitInsn(DALOAD);
+        }
+    }
+
+    /**
+     * The value of a field, <tt>0</tt> for documents without value.
+     */
+    static class Field extends ExpressionNode {
+
+        private final int slot;
+
+        Field(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            mv.visitVarInsn(ALOAD, FIELDS_SLOT);
+            pushInt(mv, slot);
+            mv.visitInsn(AALOAD);
+            mv.visitVarInsn(ILOAD, DOC_SLOT);
+            mv.visitInsn(DCONST_0);
+            mv.visitMethodInsn(INVOKEVIRTUAL, DOUBLE_VALUES, "getValueMissing", "(ID)D");
+        }
+    }
+
+    /**
+     * Whether a field has no value, as <tt>1</tt> or <tt>0</tt>.
+     */
+    static class FieldEmpty extends ExpressionNode {
+
+        private final int slot;
+
+        FieldEmpty(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            Label hasValue = new Label();
+            mv.visitVarInsn(ALOAD, FIELDS_SLOT);
+            pushInt(mv, slot);
+            mv.visitInsn(AALOAD);
+            mv.visitVarInsn(ILOAD, DOC_SLOT);
+            mv.visitMethodInsn(INVOKEVIRTUAL, DOUBLE_VALUES, "hasValue", "(I)Z");
+            mv.visitJumpInsn(IFNE, hasValue);
+            emitBoolean(mv, hasValue, false);
+        }
+    }
+
+    static class Negate extends ExpressionNode {
+
+        private final ExpressionNode operand;
+
+        Negate(ExpressionNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            operand.emit(mv);
+            mv.visitInsn(DNEG);
+        }
+    }
+
+    static class Not extends ExpressionNode {
+
+        private final ExpressionNode operand;
+
+        Not(ExpressionNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            Label isTrue = new Label();
+            operand.emit(mv);
+            emitTest(mv, true, isTrue);
+            emitBoolean(mv, isTrue, false);
+        }
+    }
+
+    /**
+     * Arithmetic operators, mapped to a single instruction.
+     */
+    static class Arithmetic extends ExpressionNode {
+
+        private final int opcode;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Arithmetic(int opcode, ExpressionNode left, ExpressionNode right) {
+            this.opcode = opcode;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            left.emit(mv);
+            right.emit(mv);
+            mv.visitInsn(opcode);
+        }
+    }
+
+    /**
+     * Comparison operators. Like in Java, any comparison involving <tt>NaN</tt> is false, except <tt>!=</tt>.
+     */
+    static class Comparison extends ExpressionNode {
+
+        private final String operator;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Comparison(String operator, ExpressionNode left, ExpressionNode right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            Label isFalse = new Label();
+            left.emit(mv);
+            right.emit(mv);
+            if ("<".equals(operator)) {
+                mv.visitInsn(DCMPG);
+                mv.visitJumpInsn(IFGE, isFalse);
+            } else if ("<=".equals(operator)) {
+                mv.visitInsn(DCMPG);
+                mv.visitJumpInsn(IFGT, isFalse);
+            } else if (">".equals(operator)) {
+                mv.visitInsn(DCMPL);
+                mv.visitJumpInsn(IFLE, isFalse);
+            } else if (">=".equals(operator)) {
+                mv.visitInsn(DCMPL);
+                mv.visitJumpInsn(IFLT, isFalse);
+            } else if ("==".equals(operator)) {
+                mv.visitInsn(DCMPL);
+                mv.visitJumpInsn(IFNE, isFalse);
+            } else if ("!=".equals(operator)) {
+                mv.visitInsn(DCMPL);
+                mv.visitJumpInsn(IFEQ, isFalse);
+            } else {
+                throw new IllegalStateException("unknown comparison operator [" + operator + "]");
+            }
+            emitBoolean(mv, isFalse, false);
+        }
+    }
+
+    static class And extends ExpressionNode {
+
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        And(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            Label isFalse = new Label();
+            left.emit(mv);
+            emitTest(mv, false, isFalse);
+            right.emit(mv);
+            emitTest(mv, false, isFalse);
+            emitBoolean(mv, isFalse, false);
+        }
+    }
+
+    static class Or extends ExpressionNode {
+
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Or(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            Label isTrue = new Label();
+            left.emit(mv);
+            emitTest(mv, true, isTrue);
+            right.emit(mv);
+            emitTest(mv, true, isTrue);
+            emitBoolean(mv, isTrue, true);
+        }
+    }
+
+    static class Conditional extends ExpressionNode {
+
+        private final ExpressionNode condition;
+        private final ExpressionNode whenTrue;
+        private final ExpressionNode whenFalse;
+
+        Conditional(ExpressionNode condition, ExpressionNode whenTrue, ExpressionNode whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            Label isFalse = new Label();
+            Label end = new Label();
+            condition.emit(mv);
+            emitTest(mv, false, isFalse);
+            whenTrue.emit(mv);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(isFalse);
+            whenFalse.emit(mv);
+            mv.visitLabel(end);
+        }
+    }
+
+    /**
+     * A call to a static method of {@link Math} taking and returning <tt>double</tt>s.
+     */
+    static class Function extends ExpressionNode {
+
+        private final String name;
+        private final ExpressionNode[] arguments;
+
+        Function(String name, ExpressionNode[] arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        void emit(MethodVisitor mv) {
+            StringBuilder descriptor = new StringBuilder("(");
+            for (ExpressionNode argument : arguments) {
+                argument.emit(mv);
+                descriptor.append('D');
+            }
+            descriptor.append(")D");
+            mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(Math.class), name, descriptor.toString());
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.mvel2.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recursive descent parser of the expression language. It supports numbers, parameters, <tt>_score</tt>,
+ * <tt>doc['field'].value</tt> and <tt>doc['field'].empty</tt>, the arithmetic, comparison, logical and
+ * conditional operators with their Java precedence, and the <tt>double</tt> functions of {@link Math}.
+ */
+class ExpressionParser {
+
+    /**
+     * The supported functions and their number of arguments.
+     */
+    static final ImmutableMap<String, Integer> FUNCTIONS = ImmutableMap.<String, Integer>builder()
+            .put("abs", 1).put("sqrt", 1).put("cbrt", 1).put("exp", 1).put("expm1", 1)
+            .put("log", 1).put("log10", 1).put("log1p", 1).put("floor", 1).put("ceil", 1)
+            .put("rint", 1).put("signum", 1).put("sin", 1).put("cos", 1).put("tan", 1)
+            .put("asin", 1).put("acos", 1).put("atan", 1).put("sinh", 1).put("cosh", 1)
+            .put("tanh", 1).put("toRadians", 1).put("toDegrees", 1)
+            .put("min", 2).put("max", 2).put("pow", 2).put("atan2", 2).put("hypot", 2)
+            .build();
+
+    private final String source;
+    private int pos;
+
+    final List<String> fields = new ArrayList<String>();
+    final List<String> params = new ArrayList<String>();
+    boolean needsScores;
+
+    ExpressionParser(String source) {
+        this.source = source;
+    }
+
+    ExpressionNode parse() {
+        ExpressionNode node = parseConditional();
+        skipWhitespace();
+        if (pos < source.length()) {
+            throw error("unexpected character [" + source.charAt(pos) + "]");
+        }
+        return node;
+    }
+
+    private ExpressionNode parseConditional() {
+        ExpressionNode condition = parseOr();
+        if (consume("?")) {
+            ExpressionNode whenTrue = parseConditional();
+            expect(":");
+            ExpressionNode whenFalse = parseConditional();
+            return new ExpressionNode.Conditional(condition, whenTrue, whenFalse);
+        }
+        return condition;
+    }
+
+    private ExpressionNode parseOr() {
+        ExpressionNode node = parseAnd();
+        while (consume("||")) {
+            node = new ExpressionNode.Or(node, parseAnd());
+        }
+        return node;
+    }
+
+    private ExpressionNode parseAnd() {
+        ExpressionNode node = parseEquality();
+        while (consume("&&")) {
+            node = new ExpressionNode.And(node, parseEquality());
+        }
+        return node;
+    }
+
+    private ExpressionNode parseEquality() {
+        ExpressionNode node = parseRelational();
+        while (true) {
+            if (consume("==")) {
+                node = new ExpressionNode.Comparison("==", node, parseRelational());
+            } else if (consume("!=")) {
+                node = new ExpressionNode.Comparison("!=", node, parseRelational());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseRelational() {
+        ExpressionNode node = parseAdditive();
+        while (true) {
+            if (consume("<=")) {
+                node = new ExpressionNode.Comparison("<=", node, parseAdditive());
+            } else if (consume(">=")) {
+                node = new ExpressionNode.Comparison(">=", node, parseAdditive());
+            } else if (consume("<")) {
+                node = new ExpressionNode.Comparison("<", node, parseAdditive());
+            } else if (consume(">")) {
+                node = new ExpressionNode.Comparison(">", node, parseAdditive());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseAdditive() {
+        ExpressionNode node = parseMultiplicative();
+        while (true) {
+            if (consume("+")) {
+                node = new ExpressionNode.Arithmetic(Opcodes.DADD, node, parseMultiplicative());
+            } else if (consume("-")) {
+                node = new ExpressionNode.Arithmetic(Opcodes.DSUB, node, parseMultiplicative());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseMultiplicative() {
+        ExpressionNode node = parseUnary();
+        while (true) {
+            if (consume("*")) {
+                node = new ExpressionNode.Arithmetic(Opcodes.DMUL, node, parseUnary());
+            } else if (consume("/")) {
+                node = new ExpressionNode.Arithmetic(Opcodes.DDIV, node, parseUnary());
+            } else if (consume("%")) {
+                node = new ExpressionNode.Arithmetic(Opcodes.DREM, node, parseUnary());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseUnary() {
+        if (consume("-")) {
+            return new ExpressionNode.Negate(parseUnary());
+        } else if (consume("+")) {
+            return parseUnary();
+        } else if (peek() == '!' && !lookingAt("!=")) {
+            pos++;
+            return new ExpressionNode.Not(parseUnary());
+        }
+        return parsePrimary();
+    }
+
+    private ExpressionNode parsePrimary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("unexpected end of expression");
+        }
+        char c = source.charAt(pos);
+        if (consume("(")) {
+            ExpressionNode node = parseConditional();
+            expect(")");
+            return node;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            String identifier = parseIdentifier();
+            if ("doc".equals(identifier) && lookingAt("[")) {
+                return parseField();
+            }
+            if ("_score".equals(identifier)) {
+                needsScores = true;
+                return new ExpressionNode.Score();
+            }
+            if (consume("(")) {
+                return parseFunction(identifier);
+            }
+            return new ExpressionNode.Param(slot(params, identifier));
+        }
+        throw error("unexpected character [" + c + "]");
+    }
+
+    private ExpressionNode parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+        }
+        String number = source.substring(start, pos);
+        try {
+            return new ExpressionNode.Constant(Double.parseDouble(number));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("invalid number [" + number + "]");
+        }
+    }
+
+    private ExpressionNode parseField() {
+        expect("[");
+        skipWhitespace();
+        if (pos >= source.length() || (source.charAt(pos) != '\'' && source.charAt(pos) != '"')) {
+            throw error("expected a quoted field name");
+        }
+        char quote = source.charAt(pos++);
+        int end = source.indexOf(quote, pos);
+        if (end < 0) {
+            throw error("unterminated field name");
+        }
+        String field = source.substring(pos, end);
+        pos = end + 1;
+        expect("]");
+        expect(".");
+        skipWhitespace();
+        int start = pos;
+        String accessor = pos < source.length() && Character.isJavaIdentifierStart(source.charAt(pos)) ? parseIdentifier() : "";
+        if ("value".equals(accessor)) {
+            return new ExpressionNode.Field(slot(fields, field));
+        } else if ("empty".equals(accessor)) {
+            return new ExpressionNode.FieldEmpty(slot(fields, field));
+        }
+        pos = start;
+        throw error("expected [value] or [empty] after doc['" + field + "']");
+    }
+
+    private ExpressionNode parseFunction(String name) {
+        Integer arity = FUNCTIONS.get(name);
+        if (arity == null) {
+            throw error("unknown function [" + name + "]");
+        }
+        List<ExpressionNode> arguments = new ArrayList<ExpressionNode>(arity);
+        if (!consume(")")) {
+            do {
+                arguments.add(parseConditional());
+            } while (consume(","));
+            expect(")");
+        }
+        if (arguments.size() != arity) {
+            throw error("function [" + name + "] expects " + arity + " argument(s), got " + arguments.size());
+        }
+        return new ExpressionNode.Function(name, arguments.toArray(new ExpressionNode[arguments.size()]));
+    }
+
+    private String parseIdentifier() {
+        int start = pos++;
+        while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private static int slot(List<String> names, String name) {
+        int slot = names.indexOf(name);
+        if (slot < 0) {
+            slot = names.size();
+            names.add(name);
+        }
+        return slot;
+    }
+
+    private char peek() {
+        skipWhitespace();
+        return pos < source.length() ? source.charAt(pos) : 0;
+    }
+
+    private boolean lookingAt(String token) {
+        skipWhitespace();
+        return source.startsWith(token, pos);
+    }
+
+    private boolean consume(String token) {
+        if (lookingAt(token)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!consume(token)) {
+            throw error("expected [" + token + "]");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private ElasticSearchIllegalArgumentException error(String message) {
+        return new ElasticSearchIllegalArgumentException("Failed to parse expression [" + source + "] at position " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.ScriptEngineService;
+import org.elasticsearch.script.SearchScript;
+import org.elasticsearch.search.lookup.SearchLookup;
+
+import java.util.Map;
+
+/**
+ * A script engine for a restricted numeric expression language, compiled to bytecode. Expressions
+ * can refer to numeric fields using <tt>doc['field'].value</tt>, to the score of the document using
+ * <tt>_score</tt>, and to numeric parameters by name, e.g. <tt>log(1 + doc['popularity'].value) * factor + _score</tt>.
+ */
+public class ExpressionScriptEngineService extends AbstractComponent implements ScriptEngineService {
+
+    @Inject
+    public ExpressionScriptEngineService(Settings settings) {
+        super(settings);
+    }
+
+    @Override
+    public String[] types() {
+        return new String[]{"expression"};
+    }
+
+    @Override
+    public String[] extensions() {
+        return new String[]{"expression"};
+    }
+
+    @Override
+    public Object compile(String script) {
+        return ExpressionCompiler.compile(script);
+    }
+
+    @Override
+    public ExecutableScript executable(Object compiledScript, @Nullable Map<String, Object> vars) {
+        return new ExpressionSearchScript((CompiledExpression) compiledScript, null, vars);
+    }
+
+    @Override
+    public SearchScript search(Object compiledScript, SearchLookup lookup, @Nullable Map<String, Object> vars) {
+        return new ExpressionSearchScript((CompiledExpression) compiledScript, lookup.doc(), vars);
+    }
+
+    @Override
+    public Object execute(Object compiledScript, Map<String, Object> vars) {
+        return executable(compiledScript, vars).run();
+    }
+
+    @Override
+    public Object unwrap(Object value) {
+        return value;
+    }
+
+    @Override
+    public void close() {
+    }
+}
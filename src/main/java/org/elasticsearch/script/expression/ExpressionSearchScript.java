@@ -0,0 +1,178 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.Scorer;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.script.ScriptException;
+import org.elasticsearch.script.SearchScript;
+import org.elasticsearch.search.lookup.DocLookup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A {@link SearchScript} evaluating a {@link CompiledExpression}. Fields are resolved to numeric field data
+ * once, and their {@link DoubleValues} are loaded once per segment, so that evaluating the expression for a
+ * document doesn't go through the {@link DocLookup}.
+ */
+public class ExpressionSearchScript implements SearchScript {
+
+    private final CompiledExpression compiled;
+    private final Expression expression;
+    private final IndexNumericFieldData<?>[] fieldData;
+    private final DoubleValues[] values;
+    private final double[] params;
+
+    private Scorer scorer;
+    private int doc = -1;
+    private float score;
+    private int scoreDoc = -1;
+
+    /**
+     * Creates a script for the provided compiled expression. The lookup may only be <tt>null</tt> if the
+     * expression doesn't refer to any field.
+     */
+    public ExpressionSearchScript(CompiledExpression compiled, @Nullable DocLookup lookup, @Nullable Map<String, Object> vars) {
+        this.compiled = compiled;
+        this.expression = compiled.expression();
+        final String[] fields = compiled.fields();
+        this.fieldData = new IndexNumericFieldData[fields.length];
+        this.values = new DoubleValues[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (lookup == null) {
+                throw new ElasticSearchIllegalArgumentException("Expression [" + compiled.source() + "] can't access field [" + fields[i] + "] outside of a search");
+            }
+            FieldMapper mapper = lookup.mapperService().smartNameFieldMapper(fields[i], lookup.types());
+            if (mapper == null) {
+                throw new ElasticSearchIllegalArgumentException("No field found for [" + fields[i] + "] in mapping with types " + Arrays.toString(lookup.types()));
+            }
+            IndexFieldData indexFieldData = lookup.fieldDataService().getForField(mapper);
+            if (!(indexFieldData instanceof IndexNumericFieldData)) {
+                throw new ElasticSearchIllegalArgumentException("Expression [" + compiled.source() + "] can only access numeric fields, but [" + fields[i] + "] is not");
+            }
+            fieldData[i] = (IndexNumericFieldData<?>) indexFieldData;
+            values[i] = DoubleValues.EMPTY;
+        }
+        final String[] paramNames = compiled.params();
+        this.params = new double[paramNames.length];
+        for (int i = 0; i < paramNames.length; i++) {
+            final Object value = vars == null ? null : vars.get(paramNames[i]);
+            if (value == null) {
+                throw new ElasticSearchIllegalArgumentException("Missing parameter [" + paramNames[i] + "] for expression [" + compiled.source() + "]");
+            }
+            params[i] = toDouble(paramNames[i], value);
+        }
+    }
+
+    private double toDouble(String name, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            throw new ElasticSearchIllegalArgumentException("Parameter [" + name + "] of expression [" + compiled.source() + "] must be a number, got [" + value + "]");
+        }
+    }
+
+    @Override
+    public void setScorer(Scorer scorer) {
+        this.scorer = scorer;
+    }
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) {
+        for (int i = 0; i < fieldData.length; i++) {
+            values[i] = fieldData[i].load(context).getDoubleValues();
+        }
+        doc = -1;
+        scoreDoc = -1;
+    }
+
+    @Override
+    public void setNextDocId(int doc) {
+        this.doc = doc;
+    }
+
+    @Override
+    public void setNextSource(Map<String, Object> source) {
+        // expressions only work on field data
+    }
+
+    @Override
+    public void setNextScore(float score) {
+        this.score = score;
+        this.scoreDoc = doc;
+    }
+
+    @Override
+    public void setNextVar(String name, Object value) {
+        final String[] paramNames = compiled.params();
+        for (int i = 0; i < paramNames.length; i++) {
+            if (paramNames[i].equals(name)) {
+                params[i] = toDouble(name, value);
+            }
+        }
+    }
+
+    @Override
+    public double runAsDouble() {
+        return expression.evaluate(doc, compiled.needsScores() ? score() : 0d, values, params);
+    }
+
+    private double score() {
+        if (scorer == null || scoreDoc == doc) {
+            return score;
+        }
+        try {
+            return scorer.score();
+        } catch (IOException e) {
+            throw new ScriptException("Failed to compute the score of expression [" + compiled.source() + "]", e);
+        }
+    }
+
+    @Override
+    public float runAsFloat() {
+        return (float) runAsDouble();
+    }
+
+    @Override
+    public long runAsLong() {
+        return (long) runAsDouble();
+    }
+
+    @Override
+    public Object run() {
+        return runAsDouble();
+    }
+
+    @Override
+    public Object unwrap(Object value) {
+        return value;
+    }
+}
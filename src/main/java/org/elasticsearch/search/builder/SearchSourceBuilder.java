@@ -100,6 +100,7 @@ public class SearchSourceBuilder implements ToXContent {
     private List<String> fieldNames;
     private List<ScriptField> scriptFields;
     private List<PartialField> partialFields;
+    private List<String> fieldDataFields;
     private FetchSourceContext fetchSourceContext;
 
     private List<FacetBuilder> facets;
@@ -512,6 +513,18 @@ public class SearchSourceBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * Adds a field to load from field data and return as part of the search request. Such fields don't
+     * need to be stored, and don't require the source of the hits to be loaded.
+     */
+    public SearchSourceBuilder fieldDataField(String name) {
+        if (fieldDataFields == null) {
+            fieldDataFields = new ArrayList<String>();
+        }
+        fieldDataFields.add(name);
+        return this;
+    }
+
     /**
      * Adds a script field under the given name with the provided script.
      *
@@ -706,6 +719,14 @@ public class SearchSourceBuilder implements ToXContent {
             }
         }
 
+        if (fieldDataFields != null) {
+            builder.startArray("fielddata_fields");
+            for (String fieldName : fieldDataFields) {
+                builder.value(fieldName);
+            }
+            builder.endArray();
+        }
+
         if (partialFields != null) {
             builder.startObject("partial_fields");
             for (PartialField partialField : partialFields) {
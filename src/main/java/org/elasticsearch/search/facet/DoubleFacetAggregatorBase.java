@@ -25,9 +25,20 @@ import org.elasticsearch.index.fielddata.DoubleValues.Iter;
  * Simple Facet aggregator base class for {@link DoubleValues}
  */
 public abstract class DoubleFacetAggregatorBase {
+
+    /**
+     * The number of docs buffered by {@link #onDocBuffered(int, DoubleValues)} before their values are read.
+     */
+    public static final int BLOCK_SIZE = 1024;
+
     private int total;
     private int missing;
 
+    private int[] docBuffer;
+    private double[] valueBuffer;
+    private int numBufferedDocs;
+    private DoubleValues bufferedValues;
+
     public void onDoc(int docId, DoubleValues values) {
         if (values.hasValue(docId)) {
             final Iter iter = values.getIter(docId);
@@ -40,8 +51,56 @@ public abstract class DoubleFacetAggregatorBase {
         }
     }
 
+    /**
+     * Same as {@link #onDoc(int, DoubleValues)}, except that docs of single valued values are buffered to read
+     * their values in blocks and pass them to {@link #onValues(int[], double[], int)}. {@link #flush()}
+     * must be called before moving to the values of another segment, and once collection is done.
+     */
+    public final void onDocBuffered(int docId, DoubleValues values) {
+        if (values.isMultiValued()) {
+            onDoc(docId, values);
+            return;
+        }
+        if (values != bufferedValues) {
+            flush();
+            bufferedValues = values;
+            if (docBuffer == null) {
+                docBuffer = new int[BLOCK_SIZE];
+                valueBuffer = new double[BLOCK_SIZE];
+            }
+        }
+        docBuffer[numBufferedDocs++] = docId;
+        if (numBufferedDocs == BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Processes the docs buffered by {@link #onDocBuffered(int, DoubleValues)}.
+     */
+    public final void flush() {
+        if (numBufferedDocs == 0) {
+            return;
+        }
+        final int numValues = bufferedValues.getValues(docBuffer, numBufferedDocs, valueBuffer);
+        total += numValues;
+        missing += numBufferedDocs - numValues;
+        numBufferedDocs = 0;
+        onValues(docBuffer, valueBuffer, numValues);
+    }
+
     protected abstract void onValue(int docId, double next);
 
+    /**
+     * Called with blocks of single values, <tt>docs[i]</tt> being the doc of <tt>values[i]</tt>. Override to
+     * process the values in a tight loop.
+     */
+    protected void onValues(int[] docs, double[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            onValue(docs[i], values[i]);
+        }
+    }
+
     public final int total() {
         return total;
     }
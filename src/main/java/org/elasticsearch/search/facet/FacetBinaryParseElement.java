@@ -22,6 +22,7 @@ package org.elasticsearch.search.facet;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.indices.cache.facet.IndicesFacetCache;
 import org.elasticsearch.search.internal.SearchContext;
 
 /**
@@ -30,8 +31,8 @@ import org.elasticsearch.search.internal.SearchContext;
 public class FacetBinaryParseElement extends FacetParseElement {
 
     @Inject
-    public FacetBinaryParseElement(FacetParsers facetParsers) {
-        super(facetParsers);
+    public FacetBinaryParseElement(FacetParsers facetParsers, IndicesFacetCache facetCache) {
+        super(facetParsers, facetCache);
     }
 
     @Override
@@ -52,6 +52,7 @@ public abstract class FacetBuilder implements ToXContent {
     protected Boolean global;
     protected String nested;
     protected Mode mode;
+    protected Boolean cache;
 
     protected FacetBuilder(String name) {
         this.name = name;
@@ -84,6 +85,15 @@ public abstract class FacetBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * Should the facet results be cached per segment, and reused by later executions of the same request.
+     * Defaults to <tt>false</tt>.
+     */
+    public FacetBuilder cache(boolean cache) {
+        this.cache = cache;
+        return this;
+    }
+
     protected void addFilterFacetAndGlobal(XContentBuilder builder, Params params) throws IOException {
         if (facetFilter != null) {
             builder.field("facet_filter");
@@ -98,5 +108,8 @@ public abstract class FacetBuilder implements ToXContent {
         if (mode != null) {
             builder.field("mode", mode.toString());
         }
+        if (cache != null) {
+            builder.field("cache", cache);
+        }
     }
 }
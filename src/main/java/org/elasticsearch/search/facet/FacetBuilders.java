@@ -24,11 +24,13 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.facet.datehistogram.DateHistogramFacetBuilder;
 import org.elasticsearch.search.facet.filter.FilterFacetBuilder;
 import org.elasticsearch.search.facet.geodistance.GeoDistanceFacetBuilder;
+import org.elasticsearch.search.facet.geohashgrid.GeoHashGridFacetBuilder;
 import org.elasticsearch.search.facet.histogram.HistogramFacetBuilder;
 import org.elasticsearch.search.facet.histogram.HistogramScriptFacetBuilder;
 import org.elasticsearch.search.facet.query.QueryFacetBuilder;
 import org.elasticsearch.search.facet.range.RangeFacetBuilder;
 import org.elasticsearch.search.facet.range.RangeScriptFacetBuilder;
+import org.elasticsearch.search.facet.significantterms.SignificantTermsFacetBuilder;
 import org.elasticsearch.search.facet.statistical.StatisticalFacetBuilder;
 import org.elasticsearch.search.facet.statistical.StatisticalScriptFacetBuilder;
 import org.elasticsearch.search.facet.terms.TermsFacetBuilder;
@@ -63,6 +65,10 @@ public class FacetBuilders {
         return new TermsStatsFacetBuilder(facetName);
     }
 
+    public static SignificantTermsFacetBuilder significantTermsFacet(String facetName) {
+        return new SignificantTermsFacetBuilder(facetName);
+    }
+
     public static StatisticalFacetBuilder statisticalFacet(String facetName) {
         return new StatisticalFacetBuilder(facetName);
     }
@@ -94,4 +100,8 @@ public class FacetBuilders {
     public static GeoDistanceFacetBuilder geoDistanceFacet(String facetName) {
         return new GeoDistanceFacetBuilder(facetName);
     }
+
+    public static GeoHashGridFacetBuilder geoHashGridFacet(String facetName) {
+        return new GeoHashGridFacetBuilder(facetName);
+    }
 }
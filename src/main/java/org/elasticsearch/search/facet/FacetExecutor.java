@@ -148,6 +148,14 @@ public abstract class FacetExecutor {
      */
     public abstract Collector collector();
 
+    /**
+     * Returns <tt>true</tt> if reducing the facets built on disjoint sets of docs yields exactly the facet
+     * built on all of them at once, which allows to build (and cache) the facet for each segment separately.
+     */
+    public boolean isReduceExact() {
+        return false;
+    }
+
     /**
      * A post based facet that executes the facet using the aggregated docs. By default
      * uses the {@link Post.Collector} based implementation.
@@ -25,9 +25,11 @@ import org.elasticsearch.common.inject.multibindings.Multibinder;
 import org.elasticsearch.search.facet.datehistogram.DateHistogramFacetParser;
 import org.elasticsearch.search.facet.filter.FilterFacetParser;
 import org.elasticsearch.search.facet.geodistance.GeoDistanceFacetParser;
+import org.elasticsearch.search.facet.geohashgrid.GeoHashGridFacetParser;
 import org.elasticsearch.search.facet.histogram.HistogramFacetParser;
 import org.elasticsearch.search.facet.query.QueryFacetParser;
 import org.elasticsearch.search.facet.range.RangeFacetParser;
+import org.elasticsearch.search.facet.significantterms.SignificantTermsFacetParser;
 import org.elasticsearch.search.facet.statistical.StatisticalFacetParser;
 import org.elasticsearch.search.facet.terms.TermsFacetParser;
 import org.elasticsearch.search.facet.termsstats.TermsStatsFacetParser;
@@ -51,6 +53,8 @@ public class FacetModule extends AbstractModule {
         processors.add(StatisticalFacetParser.class);
         processors.add(TermsFacetParser.class);
         processors.add(TermsStatsFacetParser.class);
+        processors.add(SignificantTermsFacetParser.class);
+        processors.add(GeoHashGridFacetParser.class);
     }
 
     public void addFacetProcessor(Class<? extends FacetParser> facetProcessor) {
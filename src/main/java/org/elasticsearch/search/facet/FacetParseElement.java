@@ -21,10 +21,15 @@ package org.elasticsearch.search.facet;
 
 import org.apache.lucene.search.Filter;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.indices.cache.facet.IndicesFacetCache;
+import org.elasticsearch.percolator.PercolateContext;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.facet.cache.CachingFacetExecutor;
 import org.elasticsearch.search.facet.nested.NestedFacetExecutor;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -39,6 +44,7 @@ import java.util.List;
  *      global : false
  *  },
  *  facet2: {
+ *      cache : true,
  *      terms : {
  *          name : "myfield",
  *          size : 12
@@ -52,9 +58,12 @@ public class FacetParseElement implements SearchParseElement {
 
     private final FacetParsers facetParsers;
 
+    private final IndicesFacetCache facetCache;
+
     @Inject
-    public FacetParseElement(FacetParsers facetParsers) {
+    public FacetParseElement(FacetParsers facetParsers, IndicesFacetCache facetCache) {
         this.facetParsers = facetParsers;
+        this.facetCache = facetCache;
     }
 
     @Override
@@ -76,6 +85,9 @@ public class FacetParseElement implements SearchParseElement {
                 Filter filter = null;
                 boolean cacheFilter = false;
                 String nestedPath = null;
+                Boolean cache = null;
+                FacetParser cacheFacetParser = null;
+                BytesReference cacheFacetSource = null;
 
                 String fieldName = null;
                 while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
@@ -89,7 +101,21 @@ public class FacetParseElement implements SearchParseElement {
                             if (facetParser == null) {
                                 throw new SearchParseException(context, "No facet type found for [" + fieldName + "]");
                             }
-                            facetExecutor = facetParser.parse(facetName, parser, context);
+                            if (cache != Boolean.FALSE && !(context instanceof PercolateContext)) {
+                                // keep the facet source around, cached facets are parsed again for each segment, and
+                                // [cache] may still follow the facet type
+                                cacheFacetParser = facetParser;
+                                cacheFacetSource = XContentFactory.contentBuilder(parser.contentType()).copyCurrentStructure(parser).bytes();
+                                XContentParser facetSourceParser = XContentFactory.xContent(cacheFacetSource).createParser(cacheFacetSource);
+                                try {
+                                    facetSourceParser.nextToken(); // move past the first START_OBJECT
+                                    facetExecutor = facetParser.parse(facetName, facetSourceParser, context);
+                                } finally {
+                                    facetSourceParser.close();
+                                }
+                            } else {
+                                facetExecutor = facetParser.parse(facetName, parser, context);
+                            }
                             defaultMainMode = facetParser.defaultMainMode();
                             defaultGlobalMode = facetParser.defaultGlobalMode();
                         }
@@ -111,6 +137,8 @@ public class FacetParseElement implements SearchParseElement {
                             cacheFilter = parser.booleanValue();
                         } else if ("nested".equals(fieldName)) {
                             nestedPath = parser.text();
+                        } else if ("cache".equals(fieldName)) {
+                            cache = parser.booleanValue();
                         }
                     }
                 }
@@ -127,6 +155,9 @@ public class FacetParseElement implements SearchParseElement {
 
                 if (nestedPath != null) {
                     facetExecutor = new NestedFacetExecutor(facetExecutor, context, nestedPath);
+                } else if (cache == Boolean.TRUE && cacheFacetSource != null && facetExecutor.isReduceExact()) {
+                    // facets that can't be reduced exactly are silently executed without the cache
+                    facetExecutor = new CachingFacetExecutor(facetName, cacheFacetParser, cacheFacetSource, facetExecutor, context, facetCache);
                 }
 
                 if (mode == null) {
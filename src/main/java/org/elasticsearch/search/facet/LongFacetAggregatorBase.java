@@ -25,9 +25,20 @@ import org.elasticsearch.index.fielddata.LongValues.Iter;
  * Simple Facet aggregator base class for {@link LongValues}
  */
 public abstract class LongFacetAggregatorBase {
+
+    /**
+     * The number of docs buffered by {@link #onDocBuffered(int, LongValues)} before their values are read.
+     */
+    public static final int BLOCK_SIZE = 1024;
+
     private int total;
     private int missing;
 
+    private int[] docBuffer;
+    private long[] valueBuffer;
+    private int numBufferedDocs;
+    private LongValues bufferedValues;
+
     public void onDoc(int docId, LongValues values) {
         if (values.hasValue(docId)) {
             final Iter iter = values.getIter(docId);
@@ -40,8 +51,56 @@ public abstract class LongFacetAggregatorBase {
         }
     }
 
+    /**
+     * Same as {@link #onDoc(int, LongValues)}, except that docs of single valued values are buffered to read
+     * their values in blocks and pass them to {@link #onValues(int[], long[], int)}. {@link #flush()}
+     * must be called before moving to the values of another segment, and once collection is done.
+     */
+    public final void onDocBuffered(int docId, LongValues values) {
+        if (values.isMultiValued()) {
+            onDoc(docId, values);
+            return;
+        }
+        if (values != bufferedValues) {
+            flush();
+            bufferedValues = values;
+            if (docBuffer == null) {
+                docBuffer = new int[BLOCK_SIZE];
+                valueBuffer = new long[BLOCK_SIZE];
+            }
+        }
+        docBuffer[numBufferedDocs++] = docId;
+        if (numBufferedDocs == BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Processes the docs buffered by {@link #onDocBuffered(int, LongValues)}.
+     */
+    public final void flush() {
+        if (numBufferedDocs == 0) {
+            return;
+        }
+        final int numValues = bufferedValues.getValues(docBuffer, numBufferedDocs, valueBuffer);
+        total += numValues;
+        missing += numBufferedDocs - numValues;
+        numBufferedDocs = 0;
+        onValues(docBuffer, valueBuffer, numValues);
+    }
+
     protected abstract void onValue(int docId, long next);
 
+    /**
+     * Called with blocks of single values, <tt>docs[i]</tt> being the doc of <tt>values[i]</tt>. Override to
+     * process the values in a tight loop.
+     */
+    protected void onValues(int[] docs, long[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            onValue(docs[i], values[i]);
+        }
+    }
+
     public final int total() {
         return total;
     }
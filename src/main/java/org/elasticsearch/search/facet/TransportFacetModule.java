@@ -23,9 +23,11 @@ import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.search.facet.datehistogram.InternalDateHistogramFacet;
 import org.elasticsearch.search.facet.filter.InternalFilterFacet;
 import org.elasticsearch.search.facet.geodistance.InternalGeoDistanceFacet;
+import org.elasticsearch.search.facet.geohashgrid.InternalGeoHashGridFacet;
 import org.elasticsearch.search.facet.histogram.InternalHistogramFacet;
 import org.elasticsearch.search.facet.query.InternalQueryFacet;
 import org.elasticsearch.search.facet.range.InternalRangeFacet;
+import org.elasticsearch.search.facet.significantterms.InternalSignificantTermsFacet;
 import org.elasticsearch.search.facet.statistical.InternalStatisticalFacet;
 import org.elasticsearch.search.facet.terms.InternalTermsFacet;
 import org.elasticsearch.search.facet.termsstats.InternalTermsStatsFacet;
@@ -46,5 +48,7 @@ public class TransportFacetModule extends AbstractModule {
         InternalStatisticalFacet.registerStreams();
         InternalTermsFacet.registerStreams();
         InternalTermsStatsFacet.registerStreams();
+        InternalSignificantTermsFacet.registerStreams();
+        InternalGeoHashGridFacet.registerStreams();
     }
 }
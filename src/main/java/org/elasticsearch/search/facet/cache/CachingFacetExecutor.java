@@ -0,0 +1,252 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.cache;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.search.Scorer;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.cache.facet.ShardFacetCache;
+import org.elasticsearch.indices.cache.facet.IndicesFacetCache;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.FacetParser;
+import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.facet.InternalFacet;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A facet executor that reuses the facets cached for the shard reader, or for each of its segments, by
+ * previous executions of the same request. Only the segments that were not cached are collected, each
+ * into its own executor, and the facets of all the segments are reduced into the shard facet.
+ * <p/>
+ * Requests whose results depend on the time they are executed at, or on documents other than the ones of
+ * the reader they are computed on (see {@link SearchContext#markAsNotCacheable()}), are not cached.
+ */
+public class CachingFacetExecutor extends FacetExecutor {
+
+    private final String facetName;
+    private final FacetParser facetParser;
+    private final BytesReference facetSource;
+    private final FacetExecutor facetExecutor;
+    private final SearchContext context;
+    private final IndicesFacetCache indicesFacetCache;
+    private final ShardFacetCache shardFacetCache;
+    private final BytesReference requestKey;
+
+    private boolean cached;
+    private boolean facetExecutorUsed;
+    private InternalFacet shardFacet;
+    private final List<Facet> segmentFacets = new ArrayList<Facet>();
+    private final List<AtomicReader> segmentReadersToCache = new ArrayList<AtomicReader>();
+    private final List<InternalFacet> segmentFacetsToCache = new ArrayList<InternalFacet>();
+
+    public CachingFacetExecutor(String facetName, FacetParser facetParser, BytesReference facetSource, FacetExecutor facetExecutor,
+                                SearchContext context, IndicesFacetCache indicesFacetCache) throws IOException {
+        this.facetName = facetName;
+        this.facetParser = facetParser;
+        this.facetSource = facetSource;
+        this.facetExecutor = facetExecutor;
+        this.context = context;
+        this.indicesFacetCache = indicesFacetCache;
+        this.shardFacetCache = context.indexShard().facetCache();
+
+        // the request source holds both the query and the facet definition
+        ShardSearchRequest request = context.request();
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeString(facetName);
+        out.writeBytesReference(request.source());
+        out.writeBytesReference(request.extraSource());
+        out.writeStringArray(request.types());
+        out.writeStringArrayNullable(request.filteringAliases());
+        this.requestKey = out.bytes();
+    }
+
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
+    @Override
+    public Collector collector() {
+        cached = !context.nowInMillisUsed() && context.cacheable() && context.searchType() != SearchType.SCAN;
+        if (!cached) {
+            facetExecutorUsed = true;
+            return facetExecutor.collector();
+        }
+        shardFacet = indicesFacetCache.get(context.searcher().getIndexReader(), requestKey);
+        if (shardFacet != null) {
+            shardFacetCache.onHit();
+            return new NoopCollector();
+        }
+        shardFacetCache.onMiss();
+        return new SegmentsCollector();
+    }
+
+    @Override
+    public InternalFacet buildFacet(String facetName) {
+        if (!cached) {
+            return facetExecutor.buildFacet(facetName);
+        }
+        if (!facetExecutorUsed) {
+            // releases its resources, and is the facet to return if no segment was collected at all
+            InternalFacet emptyFacet = facetExecutor.buildFacet(facetName);
+            if (shardFacet == null && segmentFacets.isEmpty()) {
+                segmentFacets.add(emptyFacet);
+            }
+        }
+        if (shardFacet != null) {
+            return shardFacet;
+        }
+
+        // a search that timed out did not collect all the docs of the segments
+        final boolean complete = !context.queryResult().searchTimedOut();
+        if (complete) {
+            // cache the segment facets before reducing them, since reducing may reuse them
+            for (int i = 0; i < segmentFacetsToCache.size(); i++) {
+                indicesFacetCache.put(segmentReadersToCache.get(i), requestKey, segmentFacetsToCache.get(i), shardFacetCache);
+            }
+        }
+        InternalFacet facet;
+        if (segmentFacets.size() == 1) {
+            facet = (InternalFacet) segmentFacets.get(0);
+        } else {
+            InternalFacet first = (InternalFacet) segmentFacets.get(0);
+            facet = (InternalFacet) first.reduce(new InternalFacet.ReduceContext(context.cacheRecycler(), segmentFacets));
+        }
+        if (complete) {
+            indicesFacetCache.put(context.searcher().getIndexReader(), requestKey, facet, shardFacetCache);
+        }
+        return facet;
+    }
+
+    /**
+     * Returns the executor to collect the next segment with, reusing the executor the request was parsed
+     * into for the first one.
+     */
+    private FacetExecutor segmentExecutor() {
+        if (!facetExecutorUsed) {
+            facetExecutorUsed = true;
+            return facetExecutor;
+        }
+        try {
+            XContentParser parser = XContentFactory.xContent(facetSource).createParser(facetSource);
+            try {
+                parser.nextToken(); // move past the first START_OBJECT
+                return facetParser.parse(facetName, parser, context);
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            throw new FacetPhaseExecutionException(facetName, "failed to parse facet for segment", e);
+        }
+    }
+
+    class SegmentsCollector extends FacetExecutor.Collector {
+
+        private Scorer scorer;
+        private FacetExecutor segmentExecutor;
+        private FacetExecutor.Collector segmentCollector;
+        private AtomicReader segmentReader;
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+            this.scorer = scorer;
+            if (segmentCollector != null) {
+                segmentCollector.setScorer(scorer);
+            }
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            finishSegment();
+            AtomicReader reader = context.reader();
+            // entries of segment readers can be cleaned once they are closed
+            segmentReader = reader instanceof SegmentReader ? reader : null;
+            if (segmentReader != null) {
+                InternalFacet facet = indicesFacetCache.get(segmentReader, requestKey);
+                if (facet != null) {
+                    shardFacetCache.onHit();
+                    segmentFacets.add(facet);
+                    return;
+                }
+                shardFacetCache.onMiss();
+            }
+            segmentExecutor = segmentExecutor();
+            segmentCollector = segmentExecutor.collector();
+            if (scorer != null) {
+                segmentCollector.setScorer(scorer);
+            }
+            segmentCollector.setNextReader(context);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (segmentCollector != null) {
+                segmentCollector.collect(doc);
+            }
+        }
+
+        @Override
+        public void postCollection() {
+            finishSegment();
+        }
+
+        private void finishSegment() {
+            if (segmentCollector == null) {
+                return;
+            }
+            segmentCollector.postCollection();
+            InternalFacet facet = segmentExecutor.buildFacet(facetName);
+            segmentFacets.add(facet);
+            if (segmentReader != null) {
+                segmentReadersToCache.add(segmentReader);
+                segmentFacetsToCache.add(facet);
+            }
+            segmentCollector = null;
+            segmentExecutor = null;
+        }
+    }
+
+    static class NoopCollector extends FacetExecutor.Collector {
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+        }
+
+        @Override
+        public void postCollection() {
+        }
+    }
+}
@@ -25,13 +25,16 @@ import org.apache.lucene.index.AtomicReaderContext;
 import org.elasticsearch.cache.recycler.CacheRecycler;
 import org.elasticsearch.common.joda.TimeZoneRounding;
 import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.index.fielddata.AtomicNumericFieldData;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.LongValues;
+import org.elasticsearch.index.fielddata.plain.PackedArrayAtomicFieldData;
 import org.elasticsearch.search.facet.FacetExecutor;
 import org.elasticsearch.search.facet.InternalFacet;
 import org.elasticsearch.search.facet.LongFacetAggregatorBase;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * A date histogram facet collector that uses the same field as the key as well as the
@@ -39,6 +42,13 @@ import java.io.IOException;
  */
 public class CountDateHistogramFacetExecutor extends FacetExecutor {
 
+    /**
+     * A segment is counted into a dense array of buckets if its range of values spans at most as
+     * many buckets as it has unique values (and at most this many), otherwise the rounded values
+     * are hashed.
+     */
+    static final int MAX_DENSE_BUCKETS = 1 << 16;
+
     private final TimeZoneRounding tzRounding;
     private final IndexNumericFieldData indexFieldData;
     final DateHistogramFacet.ComparatorType comparatorType;
@@ -58,6 +68,11 @@ public class CountDateHistogramFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         InternalCountDateHistogramFacet.CountEntry[] entries = new InternalCountDateHistogramFacet.CountEntry[counts.v().size()];
@@ -81,17 +96,35 @@ public class CountDateHistogramFacetExecutor extends FacetExecutor {
 
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
-            values = indexFieldData.load(context).getLongValues();
+            histoProc.flush();
+            AtomicNumericFieldData fieldData = indexFieldData.load(context);
+            values = fieldData.getLongValues();
+            histoProc.setNextTable(roundingTable(fieldData));
         }
 
         @Override
         public void collect(int doc) throws IOException {
-            histoProc.onDoc(doc, values);
+            histoProc.onDocBuffered(doc, values);
         }
 
         @Override
         public void postCollection() {
+            histoProc.flush();
+            histoProc.setNextTable(null);
+        }
+    }
+
+    /**
+     * Precomputes the buckets for the range of values of the segment, unless the range is sparse
+     * compared to the number of unique values, in which case hashing the rounded values is cheaper.
+     */
+    private RoundingTable roundingTable(AtomicNumericFieldData fieldData) {
+        if (!(fieldData instanceof PackedArrayAtomicFieldData) || fieldData.getNumberUniqueValues() == 0) {
+            return null;
         }
+        PackedArrayAtomicFieldData packedFieldData = (PackedArrayAtomicFieldData) fieldData;
+        final int maxBuckets = (int) Math.min(MAX_DENSE_BUCKETS, fieldData.getNumberUniqueValues());
+        return RoundingTable.build(tzRounding, packedFieldData.getMinValue(), packedFieldData.getMaxValue(), maxBuckets);
     }
 
     public static class DateHistogramProc extends LongFacetAggregatorBase {
@@ -99,18 +132,61 @@ public class CountDateHistogramFacetExecutor extends FacetExecutor {
         private final TLongLongHashMap counts;
         private final TimeZoneRounding tzRounding;
 
+        private RoundingTable table;
+        private long[] bucketCounts = new long[0];
+
         public DateHistogramProc(TLongLongHashMap counts, TimeZoneRounding tzRounding) {
             this.counts = counts;
             this.tzRounding = tzRounding;
         }
 
+        /**
+         * Sets the precomputed buckets for the next segment, or <tt>null</tt> to round each value,
+         * flushing the dense counts gathered for the previous segment.
+         */
+        void setNextTable(RoundingTable table) {
+            if (this.table != null) {
+                for (int i = 0; i < this.table.size(); i++) {
+                    final long count = bucketCounts[i];
+                    if (count != 0) {
+                        counts.adjustOrPutValue(this.table.key(i), count, count);
+                    }
+                }
+            }
+            this.table = table;
+            if (table != null) {
+                if (bucketCounts.length < table.size()) {
+                    bucketCounts = new long[table.size()];
+                } else {
+                    Arrays.fill(bucketCounts, 0, table.size(), 0);
+                }
+            }
+        }
+
         @Override
         public void onValue(int docId, long value) {
-            counts.adjustOrPutValue(tzRounding.calc(value), 1, 1);
+            if (table != null) {
+                bucketCounts[table.bucket(value)]++;
+            } else {
+                counts.adjustOrPutValue(tzRounding.calc(value), 1, 1);
+            }
+        }
+
+        @Override
+        protected void onValues(int[] docs, long[] values, int count) {
+            if (table == null) {
+                super.onValues(docs, values, count);
+                return;
+            }
+            final RoundingTable table = this.table;
+            final long[] bucketCounts = this.bucketCounts;
+            for (int i = 0; i < count; i++) {
+                bucketCounts[table.bucket(values[i])]++;
+            }
         }
 
         public TLongLongHashMap counts() {
             return counts;
         }
     }
-}
\ No newline at end of file
+}
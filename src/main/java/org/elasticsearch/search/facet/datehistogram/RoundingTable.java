@@ -0,0 +1,178 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.datehistogram;
+
+import org.elasticsearch.common.joda.TimeZoneRounding;
+
+import java.util.Arrays;
+
+/**
+ * Bucket boundaries of a {@link TimeZoneRounding} precomputed for a range of values, so that
+ * values can be mapped to a dense bucket index without rounding each of them.
+ */
+abstract class RoundingTable {
+
+    /**
+     * Builds a table covering all values in <tt>[min, max]</tt>, or returns <tt>null</tt> if the
+     * rounding can't be tabulated or the range spans more than <tt>maxBuckets</tt> buckets.
+     */
+    static RoundingTable build(TimeZoneRounding tzRounding, long min, long max, int maxBuckets) {
+        if (min > max || !tzRounding.isMonotonic()) {
+            return null;
+        }
+        final long interval = tzRounding.fixedInterval();
+        if (interval > 0) {
+            final long minQuotient = min / interval;
+            final long size = max / interval - minQuotient + 1;
+            if (size <= 0 || size > maxBuckets) {
+                return null;
+            }
+            return new Interval(interval, minQuotient, (int) size);
+        }
+
+        long[] starts = new long[16];
+        long[] keys = new long[16];
+        int size = 0;
+        long start = min;
+        long key = tzRounding.calc(start);
+        long step = 1;
+        while (true) {
+            if (size > 0 && key <= keys[size - 1]) {
+                // not strictly increasing, the rounding is not tabulated correctly
+                return null;
+            }
+            if (size == maxBuckets) {
+                return null;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size << 1);
+                keys = Arrays.copyOf(keys, size << 1);
+            }
+            starts[size] = start;
+            keys[size] = key;
+            size++;
+
+            // gallop until we find a value that falls into another bucket, starting with the
+            // width of the previous bucket since consecutive buckets usually have similar sizes
+            long lo = start;
+            long hi = max;
+            boolean last = false;
+            while (true) {
+                final long probe = max - lo <= step ? max : lo + step;
+                if (tzRounding.calc(probe) != key) {
+                    hi = probe;
+                    break;
+                }
+                if (probe == max) {
+                    last = true;
+                    break;
+                }
+                lo = probe;
+                step <<= 1;
+            }
+            if (last) {
+                break;
+            }
+            // binary search the first value of the next bucket in (lo, hi]
+            while (hi - lo > 1) {
+                final long mid = lo + ((hi - lo) >>> 1);
+                if (tzRounding.calc(mid) == key) {
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            step = Math.max(1, hi - start);
+            start = hi;
+            key = tzRounding.calc(start);
+        }
+        return new Boundaries(Arrays.copyOf(starts, size), Arrays.copyOf(keys, size));
+    }
+
+    /**
+     * The number of buckets in this table.
+     */
+    abstract int size();
+
+    /**
+     * The bucket index of a value within the range this table was built for.
+     */
+    abstract int bucket(long value);
+
+    /**
+     * The rounded value of the bucket at the provided index.
+     */
+    abstract long key(int bucket);
+
+    static class Interval extends RoundingTable {
+
+        private final long interval;
+        private final long minQuotient;
+        private final int size;
+
+        Interval(long interval, long minQuotient, int size) {
+            this.interval = interval;
+            this.minQuotient = minQuotient;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int bucket(long value) {
+            return (int) (value / interval - minQuotient);
+        }
+
+        @Override
+        long key(int bucket) {
+            return (minQuotient + bucket) * interval;
+        }
+    }
+
+    static class Boundaries extends RoundingTable {
+
+        private final long[] starts;
+        private final long[] keys;
+
+        Boundaries(long[] starts, long[] keys) {
+            this.starts = starts;
+            this.keys = keys;
+        }
+
+        @Override
+        int size() {
+            return starts.length;
+        }
+
+        @Override
+        int bucket(long value) {
+            final int index = Arrays.binarySearch(starts, value);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        @Override
+        long key(int bucket) {
+            return keys[bucket];
+        }
+    }
+}
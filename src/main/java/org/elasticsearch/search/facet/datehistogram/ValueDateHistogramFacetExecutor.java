@@ -61,6 +61,11 @@ public class ValueDateHistogramFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         ArrayList<InternalFullDateHistogramFacet.FullEntry> entries1 = new ArrayList<InternalFullDateHistogramFacet.FullEntry>(entries.v().valueCollection());
@@ -51,6 +51,11 @@ public class FilterFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public Post post() {
         return new Post();
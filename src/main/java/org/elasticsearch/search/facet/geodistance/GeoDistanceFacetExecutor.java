@@ -62,6 +62,11 @@ public class GeoDistanceFacetExecutor extends FacetExecutor {
         return new Collector(new Aggregator(fixedSourceDistance, entries));
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         return new InternalGeoDistanceFacet(facetName, entries);
@@ -0,0 +1,64 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.geohashgrid;
+
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.search.facet.Facet;
+
+import java.util.List;
+
+/**
+ * Counts the docs with a point in each geohash cell of a given precision, returning the cells with
+ * the highest counts.
+ */
+public interface GeoHashGridFacet extends Facet, Iterable<GeoHashGridFacet.Entry> {
+
+    /**
+     * The type of the geohash grid facet.
+     */
+    public static final String TYPE = "geohash_grid";
+
+    public interface Entry {
+
+        /**
+         * The geohash of the cell.
+         */
+        String getGeohash();
+
+        /**
+         * The center of the cell.
+         */
+        GeoPoint getCenter();
+
+        /**
+         * The number of docs with a point in the cell.
+         */
+        long getCount();
+    }
+
+    /**
+     * The geohash precision (length) of the cells.
+     */
+    int getPrecision();
+
+    /**
+     * The cells, ordered by (higher) count.
+     */
+    List<? extends GeoHashGridFacet.Entry> getEntries();
+}
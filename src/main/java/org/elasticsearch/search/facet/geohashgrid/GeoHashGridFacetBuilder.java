@@ -0,0 +1,155 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.geohashgrid;
+
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilderException;
+import org.elasticsearch.search.facet.FacetBuilder;
+
+import java.io.IOException;
+
+/**
+ * A geohash grid facet counts the docs with a point in each geohash cell of a given precision.
+ */
+public class GeoHashGridFacetBuilder extends FacetBuilder {
+
+    private String fieldName;
+    private int precision = -1;
+    private int size = -1;
+    private int shardSize = -1;
+    private GeoPoint topLeft;
+    private GeoPoint bottomRight;
+
+    /**
+     * Construct a new geohash grid facet with the provided facet name.
+     *
+     * @param name The facet name.
+     */
+    public GeoHashGridFacetBuilder(String name) {
+        super(name);
+    }
+
+    /**
+     * The geo point field the cells will be computed from.
+     */
+    public GeoHashGridFacetBuilder field(String fieldName) {
+        this.fieldName = fieldName;
+        return this;
+    }
+
+    /**
+     * The length of the geohash of the cells, between 1 and 12. Defaults to 5.
+     */
+    public GeoHashGridFacetBuilder precision(int precision) {
+        this.precision = precision;
+        return this;
+    }
+
+    /**
+     * The number of cells to return. Defaults to 10000.
+     */
+    public GeoHashGridFacetBuilder size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * The number of cells each shard returns to be merged. Defaults to the size.
+     */
+    public GeoHashGridFacetBuilder shardSize(int shardSize) {
+        this.shardSize = shardSize;
+        return this;
+    }
+
+    /**
+     * Only counts the points within the provided bounding box, typically the tile being drawn.
+     */
+    public GeoHashGridFacetBuilder boundingBox(GeoPoint topLeft, GeoPoint bottomRight) {
+        this.topLeft = topLeft;
+        this.bottomRight = bottomRight;
+        return this;
+    }
+
+    /**
+     * Only counts the points within the provided bounding box, typically the tile being drawn.
+     */
+    public GeoHashGridFacetBuilder boundingBox(double top, double left, double bottom, double right) {
+        return boundingBox(new GeoPoint(top, left), new GeoPoint(bottom, right));
+    }
+
+    /**
+     * Should the facet run in global mode (not bounded by the search query) or not. Defaults
+     * to <tt>false</tt>.
+     */
+    public GeoHashGridFacetBuilder global(boolean global) {
+        super.global(global);
+        return this;
+    }
+
+    /**
+     * An additional filter used to further filter down the set of documents the facet will run on.
+     */
+    public GeoHashGridFacetBuilder facetFilter(FilterBuilder filter) {
+        this.facetFilter = filter;
+        return this;
+    }
+
+    /**
+     * Sets the nested path the facet will execute on. A match (root object) will then cause all the
+     * nested objects matching the path to be computed into the facet.
+     */
+    public GeoHashGridFacetBuilder nested(String nested) {
+        this.nested = nested;
+        return this;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        if (fieldName == null) {
+            throw new SearchSourceBuilderException("field must be set on geohash_grid facet for facet [" + name + "]");
+        }
+        builder.startObject(name);
+
+        builder.startObject(GeoHashGridFacet.TYPE);
+        builder.field("field", fieldName);
+        if (precision != -1) {
+            builder.field("precision", precision);
+        }
+        if (size != -1) {
+            builder.field("size", size);
+        }
+        if (shardSize != -1) {
+            builder.field("shard_size", shardSize);
+        }
+        if (topLeft != null) {
+            builder.startObject("bounding_box");
+            builder.startArray("top_left").value(topLeft.lon()).value(topLeft.lat()).endArray();
+            builder.startArray("bottom_right").value(bottomRight.lon()).value(bottomRight.lat()).endArray();
+            builder.endObject();
+        }
+        builder.endObject();
+
+        addFilterFacetAndGlobal(builder, params);
+
+        builder.endObject();
+        return builder;
+    }
+}
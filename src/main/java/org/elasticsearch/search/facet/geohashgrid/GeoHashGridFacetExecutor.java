@@ -0,0 +1,161 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.geohashgrid;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.Filter;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.index.fielddata.GeoPointValues;
+import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
+import org.elasticsearch.index.search.geo.IndexedGeoBoundingBoxFilter;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.InternalFacet;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts docs per geohash cell, keyed by the geohash packed in a long. When a bounding box is set,
+ * points outside of it are skipped before being encoded, and in post mode docs can be pre-filtered
+ * with the indexed lat/lon fields.
+ */
+public class GeoHashGridFacetExecutor extends FacetExecutor {
+
+    private final IndexGeoPointFieldData indexFieldData;
+    private final int precision;
+    private final int size;
+    private final int shardSize;
+    private final GeoPoint topLeft;
+    private final GeoPoint bottomRight;
+    private final GeoPointFieldMapper geoMapper;
+
+    final Recycler.V<TLongLongHashMap> counts;
+
+    /**
+     * @param topLeft           the top left corner of the bounding box, or <tt>null</tt> for the whole world
+     * @param bottomRight       the bottom right corner of the bounding box, or <tt>null</tt> for the whole world
+     * @param geoMapper         the geo point mapper to pre-filter docs on the bounding box with in post mode,
+     *                          or <tt>null</tt> if its lat/lon fields are not indexed
+     */
+    public GeoHashGridFacetExecutor(IndexGeoPointFieldData indexFieldData, int precision, int size, int shardSize,
+                                    GeoPoint topLeft, GeoPoint bottomRight, @Nullable GeoPointFieldMapper geoMapper, SearchContext context) {
+        this.indexFieldData = indexFieldData;
+        this.precision = precision;
+        this.size = size;
+        this.shardSize = shardSize;
+        this.topLeft = topLeft;
+        this.bottomRight = bottomRight;
+        this.geoMapper = geoMapper;
+        this.counts = context.cacheRecycler().longLongMap(-1);
+    }
+
+    @Override
+    public Collector collector() {
+        // every point is checked against the bounding box anyway, so the filter is only used to skip docs in post mode
+        return new Collector();
+    }
+
+    @Override
+    public Post post() {
+        if (geoMapper == null) {
+            return super.post();
+        }
+        // let the filter skip over the docs outside of the bounding box
+        Filter boundingBoxFilter = IndexedGeoBoundingBoxFilter.create(topLeft, bottomRight, geoMapper);
+        return new Post.Filtered(new Post.Collector(new Collector()), boundingBoxFilter);
+    }
+
+    @Override
+    public InternalFacet buildFacet(String facetName) {
+        InternalGeoHashGridFacet facet = new InternalGeoHashGridFacet(facetName, precision, size,
+                InternalGeoHashGridFacet.topCells(counts.v(), shardSize));
+        counts.release();
+        return facet;
+    }
+
+    class Collector extends FacetExecutor.Collector {
+
+        private final TLongLongHashMap counts = GeoHashGridFacetExecutor.this.counts.v();
+        private final boolean crossesDateLine = topLeft != null && topLeft.lon() > bottomRight.lon();
+        private long[] docCells = new long[4];
+        private GeoPointValues values;
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            values = indexFieldData.load(context).getGeoPointValues();
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (!values.isMultiValued()) {
+                if (values.hasValue(doc)) {
+                    GeoPoint point = values.getValue(doc);
+                    if (inBoundingBox(point)) {
+                        counts.adjustOrPutValue(GeoHashUtils.encodeAsLong(point.lat(), point.lon(), precision), 1, 1);
+                    }
+                }
+                return;
+            }
+            // count each doc once per cell, even if several of its points fall into it
+            int numDocCells = 0;
+            GeoPointValues.Iter iter = values.getIter(doc);
+            outer:
+            while (iter.hasNext()) {
+                GeoPoint point = iter.next();
+                if (!inBoundingBox(point)) {
+                    continue;
+                }
+                long cell = GeoHashUtils.encodeAsLong(point.lat(), point.lon(), precision);
+                for (int i = 0; i < numDocCells; i++) {
+                    if (docCells[i] == cell) {
+                        continue outer;
+                    }
+                }
+                if (numDocCells == docCells.length) {
+                    docCells = Arrays.copyOf(docCells, numDocCells << 1);
+                }
+                docCells[numDocCells++] = cell;
+                counts.adjustOrPutValue(cell, 1, 1);
+            }
+        }
+
+        private boolean inBoundingBox(GeoPoint point) {
+            if (topLeft == null) {
+                return true;
+            }
+            if (point.lat() > topLeft.lat() || point.lat() < bottomRight.lat()) {
+                return false;
+            }
+            if (crossesDateLine) {
+                return point.lon() >= topLeft.lon() || point.lon() <= bottomRight.lon();
+            }
+            return point.lon() >= topLeft.lon() && point.lon() <= bottomRight.lon();
+        }
+
+        @Override
+        public void postCollection() {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.geohashgrid;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.geo.GeoUtils;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.FacetParser;
+import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * <pre>
+ * geohash_grid : {
+ *     field : "location",
+ *     precision : 5,
+ *     size : 10000,
+ *     bounding_box : {
+ *         top_left : [-74.1, 40.73],
+ *         bottom_right : [-71.12, 40.01]
+ *     }
+ * }
+ * </pre>
+ */
+public class GeoHashGridFacetParser extends AbstractComponent implements FacetParser {
+
+    @Inject
+    public GeoHashGridFacetParser(Settings settings) {
+        super(settings);
+        InternalGeoHashGridFacet.registerStreams();
+    }
+
+    @Override
+    public String[] types() {
+        return new String[]{GeoHashGridFacet.TYPE, "geohashGrid"};
+    }
+
+    @Override
+    public FacetExecutor.Mode defaultMainMode() {
+        return FacetExecutor.Mode.COLLECTOR;
+    }
+
+    @Override
+    public FacetExecutor.Mode defaultGlobalMode() {
+        return FacetExecutor.Mode.COLLECTOR;
+    }
+
+    @Override
+    public FacetExecutor parse(String facetName, XContentParser parser, SearchContext context) throws IOException {
+        String fieldName = null;
+        int precision = 5;
+        int size = 10000;
+        int shardSize = -1;
+        GeoPoint topLeft = null;
+        GeoPoint bottomRight = null;
+
+        String currentName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentName = parser.currentName();
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if ("bounding_box".equals(currentName) || "boundingBox".equals(currentName)) {
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                        if (token == XContentParser.Token.FIELD_NAME) {
+                            currentName = parser.currentName();
+                            parser.nextToken();
+                            if ("top_left".equals(currentName) || "topLeft".equals(currentName)) {
+                                topLeft = GeoPoint.parse(parser);
+                            } else if ("bottom_right".equals(currentName) || "bottomRight".equals(currentName)) {
+                                bottomRight = GeoPoint.parse(parser);
+                            } else {
+                                throw new FacetPhaseExecutionException(facetName, "unexpected field [" + currentName + "] in bounding_box");
+                            }
+                        }
+                    }
+                }
+            } else if (token.isValue()) {
+                if ("field".equals(currentName)) {
+                    fieldName = parser.text();
+                } else if ("precision".equals(currentName)) {
+                    precision = parser.intValue();
+                } else if ("size".equals(currentName)) {
+                    size = parser.intValue();
+                } else if ("shard_size".equals(currentName) || "shardSize".equals(currentName)) {
+                    shardSize = parser.intValue();
+                }
+            }
+        }
+
+        if (fieldName == null) {
+            throw new FacetPhaseExecutionException(facetName, "field must be set on geohash_grid facet");
+        }
+        if (precision < 1 || precision > GeoHashUtils.PRECISION) {
+            throw new FacetPhaseExecutionException(facetName, "precision must be between 1 and " + GeoHashUtils.PRECISION + ", got [" + precision + "]");
+        }
+        if (size < 1) {
+            throw new FacetPhaseExecutionException(facetName, "size must be greater than 0");
+        }
+        if (shardSize < size) {
+            shardSize = size;
+        }
+        if ((topLeft == null) != (bottomRight == null)) {
+            throw new FacetPhaseExecutionException(facetName, "bounding_box requires both top_left and bottom_right");
+        }
+
+        FieldMapper fieldMapper = context.smartNameFieldMapper(fieldName);
+        if (fieldMapper == null) {
+            throw new FacetPhaseExecutionException(facetName, "failed to find mapping for [" + fieldName + "]");
+        }
+        if (!(fieldMapper instanceof GeoPointFieldMapper.GeoStringFieldMapper)) {
+            throw new FacetPhaseExecutionException(facetName, "field [" + fieldName + "] is not a geo_point field");
+        }
+        IndexGeoPointFieldData indexFieldData = context.fieldData().getForField(fieldMapper);
+
+        GeoPointFieldMapper geoMapper = null;
+        if (topLeft != null) {
+            GeoUtils.normalizePoint(topLeft);
+            GeoUtils.normalizePoint(bottomRight);
+            geoMapper = ((GeoPointFieldMapper.GeoStringFieldMapper) fieldMapper).geoMapper();
+            if (!geoMapper.isEnableLatLon()) {
+                // points are checked against the bounding box anyway, only pre-filter when the lat/lon
+                // fields are indexed so that the docs outside of the box are skipped without loading their points
+                geoMapper = null;
+            }
+        }
+
+        return new GeoHashGridFacetExecutor(indexFieldData, precision, size, shardSize, topLeft, bottomRight, geoMapper, context);
+    }
+}
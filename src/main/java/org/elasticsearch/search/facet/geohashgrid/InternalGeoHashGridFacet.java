@@ -0,0 +1,243 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.geohashgrid;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedLongs;
+import gnu.trove.iterator.TLongLongIterator;
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.HashedBytesArray;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.InternalFacet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ *
+ */
+public class InternalGeoHashGridFacet extends InternalFacet implements GeoHashGridFacet {
+
+    private static final BytesReference STREAM_TYPE = new HashedBytesArray(Strings.toUTF8Bytes("geohashGrid"));
+
+    public static void registerStreams() {
+        Streams.registerStream(STREAM, STREAM_TYPE);
+    }
+
+    static Stream STREAM = new Stream() {
+        @Override
+        public Facet readFacet(StreamInput in) throws IOException {
+            return readGeoHashGridFacet(in);
+        }
+    };
+
+    @Override
+    public BytesReference streamType() {
+        return STREAM_TYPE;
+    }
+
+    public static class CellEntry implements Entry {
+
+        final long geohashAsLong;
+        final long count;
+
+        public CellEntry(long geohashAsLong, long count) {
+            this.geohashAsLong = geohashAsLong;
+            this.count = count;
+        }
+
+        @Override
+        public String getGeohash() {
+            return GeoHashUtils.toString(geohashAsLong);
+        }
+
+        @Override
+        public GeoPoint getCenter() {
+            return GeoHashUtils.decode(getGeohash());
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+    }
+
+    int precision;
+    int requiredSize;
+    List<CellEntry> entries = ImmutableList.of();
+
+    InternalGeoHashGridFacet() {
+    }
+
+    public InternalGeoHashGridFacet(String name, int precision, int requiredSize, List<CellEntry> entries) {
+        super(name);
+        this.precision = precision;
+        this.requiredSize = requiredSize;
+        this.entries = entries;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public List<CellEntry> getEntries() {
+        return entries;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    @Override
+    public Iterator<Entry> iterator() {
+        return (Iterator) entries.iterator();
+    }
+
+    @Override
+    public Facet reduce(ReduceContext context) {
+        List<Facet> facets = context.facets();
+        if (facets.size() == 1) {
+            InternalGeoHashGridFacet facet = (InternalGeoHashGridFacet) facets.get(0);
+            if (facet.entries.size() > facet.requiredSize) {
+                // shards may return more cells than required
+                facet.entries = facet.entries.subList(0, facet.requiredSize);
+            }
+            return facet;
+        }
+
+        InternalGeoHashGridFacet first = (InternalGeoHashGridFacet) facets.get(0);
+        Recycler.V<TLongLongHashMap> counts = context.cacheRecycler().longLongMap(-1);
+        for (Facet facet : facets) {
+            for (CellEntry entry : ((InternalGeoHashGridFacet) facet).entries) {
+                counts.v().adjustOrPutValue(entry.geohashAsLong, entry.count, entry.count);
+            }
+        }
+        first.entries = topCells(counts.v(), first.requiredSize);
+        counts.release();
+        return first;
+    }
+
+    /**
+     * Returns the <tt>size</tt> cells with the highest counts, ordered by count.
+     */
+    static List<CellEntry> topCells(TLongLongHashMap counts, int size) {
+        CellPriorityQueue queue = new CellPriorityQueue(Math.min(size, counts.size()));
+        for (TLongLongIterator it = counts.iterator(); it.hasNext(); ) {
+            it.advance();
+            if (queue.size() < size) {
+                queue.add(new CellEntry(it.key(), it.value()));
+            } else if (it.value() > queue.top().count || (it.value() == queue.top().count && UnsignedLongs.compare(it.key(), queue.top().geohashAsLong) < 0)) {
+                queue.insertWithOverflow(new CellEntry(it.key(), it.value()));
+            }
+        }
+        CellEntry[] list = new CellEntry[queue.size()];
+        for (int i = queue.size() - 1; i >= 0; i--) {
+            list[i] = queue.pop();
+        }
+        return new ArrayList<CellEntry>(Arrays.asList(list));
+    }
+
+    static class CellPriorityQueue extends PriorityQueue<CellEntry> {
+
+        CellPriorityQueue(int size) {
+            super(size);
+        }
+
+        @Override
+        protected boolean lessThan(CellEntry a, CellEntry b) {
+            if (a.count != b.count) {
+                return a.count < b.count;
+            }
+            // at precision 12 the packed geohash uses the sign bit
+            return UnsignedLongs.compare(a.geohashAsLong, b.geohashAsLong) > 0;
+        }
+    }
+
+    static final class Fields {
+        static final XContentBuilderString _TYPE = new XContentBuilderString("_type");
+        static final XContentBuilderString PRECISION = new XContentBuilderString("precision");
+        static final XContentBuilderString CELLS = new XContentBuilderString("cells");
+        static final XContentBuilderString GEOHASH = new XContentBuilderString("geohash");
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(getName());
+        builder.field(Fields._TYPE, GeoHashGridFacet.TYPE);
+        builder.field(Fields.PRECISION, precision);
+        builder.startArray(Fields.CELLS);
+        for (CellEntry entry : entries) {
+            builder.startObject();
+            builder.field(Fields.GEOHASH, entry.getGeohash());
+            builder.field(Fields.COUNT, entry.getCount());
+            builder.endObject();
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+
+    public static InternalGeoHashGridFacet readGeoHashGridFacet(StreamInput in) throws IOException {
+        InternalGeoHashGridFacet facet = new InternalGeoHashGridFacet();
+        facet.readFrom(in);
+        return facet;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        precision = in.readVInt();
+        requiredSize = in.readVInt();
+        int size = in.readVInt();
+        entries = new ArrayList<CellEntry>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new CellEntry(in.readLong(), in.readVLong()));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(precision);
+        out.writeVInt(requiredSize);
+        out.writeVInt(entries.size());
+        for (CellEntry entry : entries) {
+            out.writeLong(entry.geohashAsLong);
+            out.writeVLong(entry.count);
+        }
+    }
+}
@@ -57,6 +57,11 @@ public class CountHistogramFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         InternalCountHistogramFacet.CountEntry[] entries = new InternalCountHistogramFacet.CountEntry[counts.v().size()];
@@ -84,16 +89,18 @@ public class CountHistogramFacetExecutor extends FacetExecutor {
 
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
+            histoProc.flush();
             values = indexFieldData.load(context).getDoubleValues();
         }
 
         @Override
         public void collect(int doc) throws IOException {
-            histoProc.onDoc(doc, values);
+            histoProc.onDocBuffered(doc, values);
         }
 
         @Override
         public void postCollection() {
+            histoProc.flush();
         }
     }
 
@@ -101,6 +108,7 @@ public class CountHistogramFacetExecutor extends FacetExecutor {
 
         private final long interval;
         private final TLongLongHashMap counts;
+        private long[] buckets;
 
         public HistogramProc(long interval, TLongLongHashMap counts) {
             this.interval = interval;
@@ -113,6 +121,28 @@ public class CountHistogramFacetExecutor extends FacetExecutor {
             counts.adjustOrPutValue(bucket, 1, 1);
         }
 
+        @Override
+        protected void onValues(int[] docs, double[] values, int count) {
+            if (buckets == null) {
+                buckets = new long[BLOCK_SIZE];
+            }
+            final long[] buckets = this.buckets;
+            for (int i = 0; i < count; i++) {
+                buckets[i] = ((long) (values[i] / interval)) * interval;
+            }
+            // consecutive values often fall into the same bucket, count them at once
+            int i = 0;
+            while (i < count) {
+                final long bucket = buckets[i];
+                int end = i + 1;
+                while (end < count && buckets[end] == bucket) {
+                    end++;
+                }
+                counts.adjustOrPutValue(bucket, end - i, end - i);
+                i = end;
+            }
+        }
+
         public TLongLongHashMap counts() {
             return counts;
         }
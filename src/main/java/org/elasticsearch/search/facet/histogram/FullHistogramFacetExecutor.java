@@ -58,6 +58,11 @@ public class FullHistogramFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         List<InternalFullHistogramFacet.FullEntry> entries1 = new ArrayList<InternalFullHistogramFacet.FullEntry>(entries.v().valueCollection());
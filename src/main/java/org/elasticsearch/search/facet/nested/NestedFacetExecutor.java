@@ -63,8 +63,8 @@ public class NestedFacetExecutor extends FacetExecutor {
         if (!objectMapper.nested().isNested()) {
             throw new SearchParseException(context, "facet nested path [" + nestedPath + "] is not nested");
         }
-        parentFilter = context.filterCache().cache(NonNestedDocsFilter.INSTANCE);
-        childFilter = context.filterCache().cache(objectMapper.nestedTypeFilter());
+        parentFilter = context.fixedBitSetFilterCache().getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE);
+        childFilter = context.fixedBitSetFilterCache().getFixedBitSetFilter(objectMapper.nestedTypeFilter());
     }
 
     @Override
@@ -60,6 +60,11 @@ public class QueryFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public Post post() {
         return new Post();
@@ -50,6 +50,11 @@ public class KeyValueRangeFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         return new InternalRangeFacet(facetName, entries);
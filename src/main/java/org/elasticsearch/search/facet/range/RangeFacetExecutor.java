@@ -48,6 +48,11 @@ public class RangeFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         return new InternalRangeFacet(facetName, entries);
@@ -0,0 +1,258 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.significantterms;
+
+import com.google.common.collect.ImmutableList;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.HashedBytesArray;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.InternalFacet;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ *
+ */
+public class InternalSignificantTermsFacet extends InternalFacet implements SignificantTermsFacet {
+
+    private static final BytesReference STREAM_TYPE = new HashedBytesArray(Strings.toUTF8Bytes("sigTerms"));
+
+    public static void registerStreams() {
+        Streams.registerStream(STREAM, STREAM_TYPE);
+    }
+
+    static Stream STREAM = new Stream() {
+        @Override
+        public Facet readFacet(StreamInput in) throws IOException {
+            return readSignificantTermsFacet(in);
+        }
+    };
+
+    @Override
+    public BytesReference streamType() {
+        return STREAM_TYPE;
+    }
+
+    public static class TermEntry implements Entry {
+
+        private final Text term;
+        private long subsetDf;
+        private long supersetDf;
+        private double score;
+
+        public TermEntry(Text term, long subsetDf, long supersetDf, double score) {
+            this.term = term;
+            this.subsetDf = subsetDf;
+            this.supersetDf = supersetDf;
+            this.score = score;
+        }
+
+        @Override
+        public Text getTerm() {
+            return term;
+        }
+
+        @Override
+        public long getSubsetDf() {
+            return subsetDf;
+        }
+
+        @Override
+        public long getSupersetDf() {
+            return supersetDf;
+        }
+
+        @Override
+        public double getScore() {
+            return score;
+        }
+    }
+
+    SignificanceHeuristic heuristic;
+    int requiredSize;
+    long minDocCount;
+    long subsetSize;
+    long supersetSize;
+    List<TermEntry> entries = ImmutableList.of();
+
+    InternalSignificantTermsFacet() {
+    }
+
+    public InternalSignificantTermsFacet(String name, SignificanceHeuristic heuristic, int requiredSize, long minDocCount,
+                                         List<TermEntry> entries, long subsetSize, long supersetSize) {
+        super(name);
+        this.heuristic = heuristic;
+        this.requiredSize = requiredSize;
+        this.minDocCount = minDocCount;
+        this.entries = entries;
+        this.subsetSize = subsetSize;
+        this.supersetSize = supersetSize;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public List<TermEntry> getEntries() {
+        return entries;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    @Override
+    public Iterator<Entry> iterator() {
+        return (Iterator) entries.iterator();
+    }
+
+    @Override
+    public long getSubsetSize() {
+        return subsetSize;
+    }
+
+    @Override
+    public long getSupersetSize() {
+        return supersetSize;
+    }
+
+    /**
+     * Sums the sizes and the frequencies of the shard facets, and scores the terms again using the
+     * frequencies of the whole index. Terms that were not returned by a shard are missing its counts,
+     * which is what the shard size over-request is meant to limit.
+     */
+    @Override
+    public Facet reduce(ReduceContext context) {
+        List<Facet> facets = context.facets();
+        InternalSignificantTermsFacet first = (InternalSignificantTermsFacet) facets.get(0);
+
+        long subsetSize = 0;
+        long supersetSize = 0;
+        Map<Text, TermEntry> aggregated = new HashMap<Text, TermEntry>();
+        for (Facet facet : facets) {
+            InternalSignificantTermsFacet sigFacet = (InternalSignificantTermsFacet) facet;
+            subsetSize += sigFacet.subsetSize;
+            supersetSize += sigFacet.supersetSize;
+            for (TermEntry entry : sigFacet.entries) {
+                TermEntry existing = aggregated.get(entry.getTerm());
+                if (existing == null) {
+                    aggregated.put(entry.getTerm(), new TermEntry(entry.getTerm(), entry.getSubsetDf(), entry.getSupersetDf(), 0));
+                } else {
+                    existing.subsetDf += entry.getSubsetDf();
+                    existing.supersetDf += entry.getSupersetDf();
+                }
+            }
+        }
+
+        List<TermEntry> ordered = new ArrayList<TermEntry>(aggregated.size());
+        for (TermEntry entry : aggregated.values()) {
+            if (entry.subsetDf < first.minDocCount) {
+                continue;
+            }
+            entry.score = first.heuristic.score(entry.subsetDf, subsetSize, entry.supersetDf, supersetSize);
+            if (entry.score > 0) {
+                ordered.add(entry);
+            }
+        }
+        Collections.sort(ordered, SCORE_COMPARATOR);
+        if (ordered.size() > first.requiredSize) {
+            ordered = ordered.subList(0, first.requiredSize);
+        }
+
+        return new InternalSignificantTermsFacet(first.getName(), first.heuristic, first.requiredSize, first.minDocCount,
+                ordered, subsetSize, supersetSize);
+    }
+
+    static final class Fields {
+        static final XContentBuilderString _TYPE = new XContentBuilderString("_type");
+        static final XContentBuilderString SUBSET_SIZE = new XContentBuilderString("subset_size");
+        static final XContentBuilderString SUPERSET_SIZE = new XContentBuilderString("superset_size");
+        static final XContentBuilderString TERMS = new XContentBuilderString("terms");
+        static final XContentBuilderString TERM = new XContentBuilderString("term");
+        static final XContentBuilderString SCORE = new XContentBuilderString("score");
+        static final XContentBuilderString SUBSET_DF = new XContentBuilderString("subset_df");
+        static final XContentBuilderString SUPERSET_DF = new XContentBuilderString("superset_df");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(getName());
+        builder.field(Fields._TYPE, SignificantTermsFacet.TYPE);
+        builder.field(Fields.SUBSET_SIZE, subsetSize);
+        builder.field(Fields.SUPERSET_SIZE, supersetSize);
+        builder.startArray(Fields.TERMS);
+        for (Entry entry : entries) {
+            builder.startObject();
+            builder.field(Fields.TERM, entry.getTerm());
+            builder.field(Fields.SCORE, entry.getScore());
+            builder.field(Fields.SUBSET_DF, entry.getSubsetDf());
+            builder.field(Fields.SUPERSET_DF, entry.getSupersetDf());
+            builder.endObject();
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+
+    public static InternalSignificantTermsFacet readSignificantTermsFacet(StreamInput in) throws IOException {
+        InternalSignificantTermsFacet facet = new InternalSignificantTermsFacet();
+        facet.readFrom(in);
+        return facet;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        heuristic = SignificanceHeuristic.fromId(in.readByte());
+        requiredSize = in.readVInt();
+        minDocCount = in.readVLong();
+        subsetSize = in.readVLong();
+        supersetSize = in.readVLong();
+
+        int size = in.readVInt();
+        entries = new ArrayList<TermEntry>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new TermEntry(in.readText(), in.readVLong(), in.readVLong(), in.readDouble()));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeByte(heuristic.id());
+        out.writeVInt(requiredSize);
+        out.writeVLong(minDocCount);
+        out.writeVLong(subsetSize);
+        out.writeVLong(supersetSize);
+
+        out.writeVInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeText(entry.getTerm());
+            out.writeVLong(entry.getSubsetDf());
+            out.writeVLong(entry.getSupersetDf());
+            out.writeDouble(entry.getScore());
+        }
+    }
+}
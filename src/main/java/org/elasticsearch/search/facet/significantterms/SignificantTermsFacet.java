@@ -0,0 +1,184 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.significantterms;
+
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.facet.Facet;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Terms that are more frequent in the docs matching the search (the subset) than in all the docs of
+ * the index (the superset), ordered by how significant that difference is.
+ */
+public interface SignificantTermsFacet extends Facet, Iterable<SignificantTermsFacet.Entry> {
+
+    /**
+     * The type of the significant terms facet.
+     */
+    public static final String TYPE = "significant_terms";
+
+    public interface Entry {
+
+        Text getTerm();
+
+        /**
+         * The number of docs of the subset that have the term.
+         */
+        long getSubsetDf();
+
+        /**
+         * The number of docs of the superset that have the term.
+         */
+        long getSupersetDf();
+
+        /**
+         * The significance score of the term.
+         */
+        double getScore();
+    }
+
+    /**
+     * Orders entries by (higher) score first, and then by term.
+     */
+    static final Comparator<Entry> SCORE_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            int i = Double.compare(o2.getScore(), o1.getScore());
+            if (i == 0) {
+                i = o1.getTerm().compareTo(o2.getTerm());
+            }
+            return i;
+        }
+    };
+
+    /**
+     * Scores how significant the frequency of a term in the subset is compared to its frequency
+     * in the superset. Terms that are not more frequent in the subset score <tt>0</tt>.
+     */
+    public static enum SignificanceHeuristic {
+        /**
+         * The absolute change in popularity multiplied by the relative change, which favors terms
+         * that are both common in the subset and rare in the superset.
+         */
+        JLH((byte) 0) {
+            @Override
+            public double score(long subsetDf, long subsetSize, long supersetDf, long supersetSize) {
+                if (subsetSize == 0 || supersetSize == 0 || supersetDf == 0) {
+                    return 0;
+                }
+                double subsetProbability = (double) subsetDf / subsetSize;
+                double supersetProbability = (double) supersetDf / supersetSize;
+                if (subsetProbability <= supersetProbability) {
+                    return 0;
+                }
+                return (subsetProbability - supersetProbability) * (subsetProbability / supersetProbability);
+            }
+        },
+        /**
+         * The fraction of the docs that have the term in the superset that are also in the subset.
+         */
+        PERCENTAGE((byte) 1) {
+            @Override
+            public double score(long subsetDf, long subsetSize, long supersetDf, long supersetSize) {
+                if (supersetDf == 0) {
+                    return 0;
+                }
+                return (double) subsetDf / supersetDf;
+            }
+        },
+        /**
+         * Pearson's chi-square test of independence between having the term and being in the subset,
+         * only counting positive correlations.
+         */
+        CHI_SQUARE((byte) 2) {
+            @Override
+            public double score(long subsetDf, long subsetSize, long supersetDf, long supersetSize) {
+                // the subset is part of the superset, split the superset into docs in and out of the subset
+                double inSubsetWithTerm = subsetDf;
+                double inSubsetWithoutTerm = subsetSize - subsetDf;
+                double outSubsetWithTerm = Math.max(0, supersetDf - subsetDf);
+                double outSubsetWithoutTerm = Math.max(0, supersetSize - subsetSize - outSubsetWithTerm);
+                double withTerm = inSubsetWithTerm + outSubsetWithTerm;
+                double withoutTerm = inSubsetWithoutTerm + outSubsetWithoutTerm;
+                double inSubset = inSubsetWithTerm + inSubsetWithoutTerm;
+                double outSubset = outSubsetWithTerm + outSubsetWithoutTerm;
+                if (withTerm == 0 || withoutTerm == 0 || inSubset == 0 || outSubset == 0) {
+                    return 0;
+                }
+                if (inSubsetWithTerm / inSubset <= outSubsetWithTerm / outSubset) {
+                    return 0;
+                }
+                double delta = inSubsetWithTerm * outSubsetWithoutTerm - outSubsetWithTerm * inSubsetWithoutTerm;
+                return (inSubset + outSubset) * (delta / withTerm) * (delta / withoutTerm) / inSubset / outSubset;
+            }
+        };
+
+        private final byte id;
+
+        SignificanceHeuristic(byte id) {
+            this.id = id;
+        }
+
+        public byte id() {
+            return id;
+        }
+
+        public abstract double score(long subsetDf, long subsetSize, long supersetDf, long supersetSize);
+
+        public static SignificanceHeuristic fromId(byte id) {
+            if (id == JLH.id()) {
+                return JLH;
+            } else if (id == PERCENTAGE.id()) {
+                return PERCENTAGE;
+            } else if (id == CHI_SQUARE.id()) {
+                return CHI_SQUARE;
+            }
+            throw new ElasticSearchIllegalArgumentException("No significance heuristic match for id [" + id + "]");
+        }
+
+        public static SignificanceHeuristic fromString(String heuristic) {
+            if ("jlh".equals(heuristic)) {
+                return JLH;
+            } else if ("percentage".equals(heuristic)) {
+                return PERCENTAGE;
+            } else if ("chi_square".equals(heuristic) || "chiSquare".equals(heuristic)) {
+                return CHI_SQUARE;
+            }
+            throw new ElasticSearchIllegalArgumentException("No significance heuristic match for [" + heuristic + "]");
+        }
+    }
+
+    /**
+     * The number of docs in the subset.
+     */
+    long getSubsetSize();
+
+    /**
+     * The number of docs in the superset.
+     */
+    long getSupersetSize();
+
+    /**
+     * The significant terms, ordered by score.
+     */
+    List<? extends SignificantTermsFacet.Entry> getEntries();
+}
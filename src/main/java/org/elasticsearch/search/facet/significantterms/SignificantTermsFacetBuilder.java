@@ -0,0 +1,136 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.significantterms;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilderException;
+import org.elasticsearch.search.facet.FacetBuilder;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Significant terms facets find the terms of a field that are unusually frequent in the docs matching
+ * the search compared to all the docs of the index.
+ */
+public class SignificantTermsFacetBuilder extends FacetBuilder {
+    private String fieldName;
+    private int size = -1;
+    private int shardSize = -1;
+    private long minDocCount = -1;
+    private SignificantTermsFacet.SignificanceHeuristic heuristic;
+
+    /**
+     * Construct a new significant terms facet with the provided facet name.
+     *
+     * @param name The facet name.
+     */
+    public SignificantTermsFacetBuilder(String name) {
+        super(name);
+    }
+
+    /**
+     * Should the fact run in global mode (not bounded by the search query) or not. Defaults
+     * to <tt>false</tt>.
+     */
+    public SignificantTermsFacetBuilder global(boolean global) {
+        super.global(global);
+        return this;
+    }
+
+    /**
+     * An additional facet filter that will further filter the documents the facet will be
+     * executed on.
+     */
+    public SignificantTermsFacetBuilder facetFilter(FilterBuilder filter) {
+        this.facetFilter = filter;
+        return this;
+    }
+
+    /**
+     * The field the terms will be collected from.
+     */
+    public SignificantTermsFacetBuilder field(String field) {
+        this.fieldName = field;
+        return this;
+    }
+
+    /**
+     * The number of terms to return. Defaults to 10.
+     */
+    public SignificantTermsFacetBuilder size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * The number of terms each shard returns to be merged. Defaults to a multiple of the size,
+     * higher values give more accurate results at the cost of more traffic.
+     */
+    public SignificantTermsFacetBuilder shardSize(int shardSize) {
+        this.shardSize = shardSize;
+        return this;
+    }
+
+    /**
+     * The minimum number of docs of the subset a term must appear in to be returned. Defaults to 3.
+     */
+    public SignificantTermsFacetBuilder minDocCount(long minDocCount) {
+        this.minDocCount = minDocCount;
+        return this;
+    }
+
+    /**
+     * The heuristic used to score terms. Defaults to {@link SignificantTermsFacet.SignificanceHeuristic#JLH}.
+     */
+    public SignificantTermsFacetBuilder heuristic(SignificantTermsFacet.SignificanceHeuristic heuristic) {
+        this.heuristic = heuristic;
+        return this;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        if (fieldName == null) {
+            throw new SearchSourceBuilderException("field must be set on significant terms facet for facet [" + name + "]");
+        }
+        builder.startObject(name);
+
+        builder.startObject(SignificantTermsFacet.TYPE);
+        builder.field("field", fieldName);
+        if (size != -1) {
+            builder.field("size", size);
+        }
+        if (shardSize != -1) {
+            builder.field("shard_size", shardSize);
+        }
+        if (minDocCount != -1) {
+            builder.field("min_doc_count", minDocCount);
+        }
+        if (heuristic != null) {
+            builder.field("heuristic", heuristic.name().toLowerCase(Locale.ROOT));
+        }
+        builder.endObject();
+
+        addFilterFacetAndGlobal(builder, params);
+
+        builder.endObject();
+        return builder;
+    }
+}
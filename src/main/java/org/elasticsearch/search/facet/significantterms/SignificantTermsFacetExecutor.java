@@ -0,0 +1,244 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.significantterms;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.BytesText;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.IntArrays;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.facet.InternalFacet;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts the docs of each term of the subset using the field data ordinals of each segment, and looks
+ * up the superset frequency of the terms from the terms dictionary of the shard. Only the
+ * <tt>shardSize</tt> most significant terms of the shard are returned, to be scored again on reduce.
+ */
+public class SignificantTermsFacetExecutor extends FacetExecutor {
+
+    private final IndexFieldData.WithOrdinals indexFieldData;
+    private final String indexFieldName;
+    private final SignificantTermsFacet.SignificanceHeuristic heuristic;
+    private final int size;
+    private final int shardSize;
+    private final long minDocCount;
+    private final IndexReader indexReader;
+
+    final List<ReaderAggregator> aggregators;
+    long subsetSize;
+
+    public SignificantTermsFacetExecutor(IndexFieldData.WithOrdinals indexFieldData, String indexFieldName, SignificantTermsFacet.SignificanceHeuristic heuristic,
+                                         int size, int shardSize, long minDocCount, SearchContext context) {
+        this.indexFieldData = indexFieldData;
+        this.indexFieldName = indexFieldName;
+        this.heuristic = heuristic;
+        this.size = size;
+        this.shardSize = shardSize;
+        this.minDocCount = minDocCount;
+        this.indexReader = context.searcher().getIndexReader();
+        this.aggregators = new ArrayList<ReaderAggregator>(indexReader.leaves().size());
+    }
+
+    @Override
+    public Collector collector() {
+        return new Collector();
+    }
+
+    @Override
+    public InternalFacet buildFacet(String facetName) {
+        final long supersetSize = indexReader.numDocs();
+        if (indexFieldData == null) {
+            return new InternalSignificantTermsFacet(facetName, heuristic, size, minDocCount,
+                    new ArrayList<InternalSignificantTermsFacet.TermEntry>(), subsetSize, supersetSize);
+        }
+
+        final List<TermsEnum> termsEnums = new ArrayList<TermsEnum>(indexReader.leaves().size());
+        try {
+            for (AtomicReaderContext context : indexReader.leaves()) {
+                Terms terms = context.reader().terms(indexFieldName);
+                if (terms != null) {
+                    termsEnums.add(terms.iterator(null));
+                }
+            }
+        } catch (IOException e) {
+            throw new FacetPhaseExecutionException(facetName, "failed to load terms of field [" + indexFieldName + "]", e);
+        }
+
+        AggregatorPriorityQueue queue = new AggregatorPriorityQueue(aggregators.size());
+        for (ReaderAggregator aggregator : aggregators) {
+            if (aggregator.nextPosition()) {
+                queue.add(aggregator);
+            }
+        }
+
+        EntryPriorityQueue ordered = new EntryPriorityQueue(shardSize);
+        while (queue.size() > 0) {
+            ReaderAggregator agg = queue.top();
+            BytesRef value = agg.values.makeSafe(agg.current); // we need to makeSafe it, since we end up pushing it...
+            long subsetDf = 0;
+            do {
+                subsetDf += agg.counts.get(agg.position);
+                if (agg.nextPosition()) {
+                    agg = queue.updateTop();
+                } else {
+                    // we are done with this reader
+                    queue.pop();
+                    agg = queue.top();
+                }
+            } while (agg != null && value.equals(agg.current));
+
+            if (subsetDf == 0) {
+                continue;
+            }
+            long supersetDf = 0;
+            try {
+                for (int i = 0; i < termsEnums.size(); i++) {
+                    TermsEnum termsEnum = termsEnums.get(i);
+                    if (termsEnum.seekExact(value, false)) {
+                        supersetDf += termsEnum.docFreq();
+                    }
+                }
+            } catch (IOException e) {
+                throw new FacetPhaseExecutionException(facetName, "failed to load superset frequency of term [" + value.utf8ToString() + "]", e);
+            }
+            // docFreq doesn't take deletes into account, but the subset should never look more frequent than the superset
+            supersetDf = Math.max(supersetDf, subsetDf);
+            double score = heuristic.score(subsetDf, subsetSize, supersetDf, supersetSize);
+            if (score > 0) {
+                ordered.insertWithOverflow(new InternalSignificantTermsFacet.TermEntry(new BytesText(new BytesArray(value)), subsetDf, supersetDf, score));
+            }
+        }
+
+        InternalSignificantTermsFacet.TermEntry[] list = new InternalSignificantTermsFacet.TermEntry[ordered.size()];
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            list[i] = ordered.pop();
+        }
+        return new InternalSignificantTermsFacet(facetName, heuristic, size, minDocCount, Arrays.asList(list), subsetSize, supersetSize);
+    }
+
+    class Collector extends FacetExecutor.Collector {
+
+        private long subsetSize;
+        private ReaderAggregator current;
+        private Ordinals.Docs ordinals;
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            if (indexFieldData == null) {
+                return;
+            }
+            addCurrent();
+            BytesValues.WithOrdinals values = indexFieldData.load(context).getBytesValues();
+            current = new ReaderAggregator(values);
+            ordinals = values.ordinals();
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            subsetSize++;
+            if (ordinals == null) {
+                return;
+            }
+            Ordinals.Docs.Iter iter = ordinals.getIter(doc);
+            long ord;
+            while ((ord = iter.next()) != 0) {
+                current.counts.increment(ord, 1);
+            }
+        }
+
+        @Override
+        public void postCollection() {
+            addCurrent();
+            SignificantTermsFacetExecutor.this.subsetSize = subsetSize;
+        }
+
+        private void addCurrent() {
+            // if we have values for this one, add it
+            if (current != null && current.values.ordinals().getNumOrds() > 0) {
+                aggregators.add(current);
+            }
+            current = null;
+        }
+    }
+
+    static final class ReaderAggregator {
+
+        final BytesValues.WithOrdinals values;
+        final IntArray counts;
+        private final long maxOrd;
+
+        long position = 0;
+        BytesRef current;
+
+        ReaderAggregator(BytesValues.WithOrdinals values) {
+            this.values = values;
+            this.maxOrd = values.ordinals().getMaxOrd();
+            this.counts = IntArrays.allocate(maxOrd);
+        }
+
+        boolean nextPosition() {
+            if (++position >= maxOrd) {
+                return false;
+            }
+            current = values.getValueByOrd(position);
+            return true;
+        }
+    }
+
+    static class AggregatorPriorityQueue extends PriorityQueue<ReaderAggregator> {
+
+        AggregatorPriorityQueue(int size) {
+            super(size);
+        }
+
+        @Override
+        protected boolean lessThan(ReaderAggregator a, ReaderAggregator b) {
+            return a.current.compareTo(b.current) < 0;
+        }
+    }
+
+    static class EntryPriorityQueue extends PriorityQueue<InternalSignificantTermsFacet.TermEntry> {
+
+        EntryPriorityQueue(int size) {
+            super(size);
+        }
+
+        @Override
+        protected boolean lessThan(InternalSignificantTermsFacet.TermEntry a, InternalSignificantTermsFacet.TermEntry b) {
+            // the least significant entry is at the top of the queue, to be dropped first
+            return SignificantTermsFacet.SCORE_COMPARATOR.compare(a, b) > 0;
+        }
+    }
+}
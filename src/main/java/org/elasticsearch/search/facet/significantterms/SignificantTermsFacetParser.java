@@ -0,0 +1,108 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.facet.significantterms;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.FacetParser;
+import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ *
+ */
+public class SignificantTermsFacetParser extends AbstractComponent implements FacetParser {
+
+    @Inject
+    public SignificantTermsFacetParser(Settings settings) {
+        super(settings);
+        InternalSignificantTermsFacet.registerStreams();
+    }
+
+    @Override
+    public String[] types() {
+        return new String[]{SignificantTermsFacet.TYPE, "significantTerms"};
+    }
+
+    @Override
+    public FacetExecutor.Mode defaultMainMode() {
+        return FacetExecutor.Mode.COLLECTOR;
+    }
+
+    @Override
+    public FacetExecutor.Mode defaultGlobalMode() {
+        return FacetExecutor.Mode.COLLECTOR;
+    }
+
+    @Override
+    public FacetExecutor parse(String facetName, XContentParser parser, SearchContext context) throws IOException {
+        String field = null;
+        int size = 10;
+        int shardSize = -1;
+        long minDocCount = 3;
+        SignificantTermsFacet.SignificanceHeuristic heuristic = SignificantTermsFacet.SignificanceHeuristic.JLH;
+
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if ("field".equals(currentFieldName)) {
+                    field = parser.text();
+                } else if ("size".equals(currentFieldName)) {
+                    size = parser.intValue();
+                } else if ("shard_size".equals(currentFieldName) || "shardSize".equals(currentFieldName)) {
+                    shardSize = parser.intValue();
+                } else if ("min_doc_count".equals(currentFieldName) || "minDocCount".equals(currentFieldName)) {
+                    minDocCount = parser.longValue();
+                } else if ("heuristic".equals(currentFieldName)) {
+                    heuristic = SignificantTermsFacet.SignificanceHeuristic.fromString(parser.text());
+                }
+            }
+        }
+
+        if (field == null) {
+            throw new FacetPhaseExecutionException(facetName, "field must be set on significant terms facet");
+        }
+        if (shardSize < size) {
+            // over-request, the most significant terms of the index are not necessarily the most significant of each shard
+            shardSize = Math.max(size, (int) (size * 1.5 + 10));
+        }
+
+        FieldMapper fieldMapper = context.smartNameFieldMapper(field);
+        if (fieldMapper == null) {
+            return new SignificantTermsFacetExecutor(null, field, heuristic, size, shardSize, minDocCount, context);
+        }
+        IndexFieldData indexFieldData = context.fieldData().getForField(fieldMapper);
+        if (indexFieldData instanceof IndexNumericFieldData || !(indexFieldData instanceof IndexFieldData.WithOrdinals)) {
+            throw new FacetPhaseExecutionException(facetName, "significant terms facet requires a string field with ordinals field data, field [" + field + "] is not supported");
+        }
+        return new SignificantTermsFacetExecutor((IndexFieldData.WithOrdinals) indexFieldData, fieldMapper.names().indexName(),
+                heuristic, size, shardSize, minDocCount, context);
+    }
+}
@@ -52,6 +52,11 @@ public class StatisticalFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         return new InternalStatisticalFacet(facetName, min, max, total, sumOfSquares, count);
@@ -64,16 +69,18 @@ public class StatisticalFacetExecutor extends FacetExecutor {
 
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
+            statsProc.flush();
             values = indexFieldData.load(context).getDoubleValues();
         }
 
         @Override
         public void collect(int doc) throws IOException {
-            statsProc.onDoc(doc, values);
+            statsProc.onDocBuffered(doc, values);
         }
 
         @Override
         public void postCollection() {
+            statsProc.flush();
             StatisticalFacetExecutor.this.min = statsProc.min;
             StatisticalFacetExecutor.this.max = statsProc.max;
             StatisticalFacetExecutor.this.total = statsProc.total;
@@ -105,6 +112,26 @@ public class StatisticalFacetExecutor extends FacetExecutor {
             count++;
         }
 
+        @Override
+        protected void onValues(int[] docs, double[] values, int count) {
+            double min = this.min;
+            double max = this.max;
+            double total = 0;
+            double sumOfSquares = 0;
+            for (int i = 0; i < count; i++) {
+                final double value = values[i];
+                min = value < min ? value : min;
+                max = value > max ? value : max;
+                sumOfSquares += value * value;
+                total += value;
+            }
+            this.min = min;
+            this.max = max;
+            this.total += total;
+            this.sumOfSquares += sumOfSquares;
+            this.count += count;
+        }
+
         public final double min() {
             return min;
         }
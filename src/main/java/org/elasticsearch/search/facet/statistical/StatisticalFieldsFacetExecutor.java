@@ -52,6 +52,11 @@ public class StatisticalFieldsFacetExecutor extends FacetExecutor {
         return new Collector();
     }
 
+    @Override
+    public boolean isReduceExact() {
+        return true;
+    }
+
     @Override
     public InternalFacet buildFacet(String facetName) {
         return new InternalStatisticalFacet(facetName, min, max, total, sumOfSquares, count);
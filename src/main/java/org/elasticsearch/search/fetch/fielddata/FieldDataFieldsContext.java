@@ -0,0 +1,43 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch.fielddata;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * The fields to load from field data and return with each hit, without loading the stored fields or the source.
+ */
+public class FieldDataFieldsContext {
+
+    private final List<String> fields = Lists.newArrayList();
+
+    public FieldDataFieldsContext() {
+    }
+
+    public void add(String field) {
+        fields.add(field);
+    }
+
+    public List<String> fields() {
+        return this.fields;
+    }
+}
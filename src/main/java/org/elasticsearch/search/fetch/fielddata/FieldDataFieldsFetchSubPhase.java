@@ -0,0 +1,105 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch.fielddata;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.SearchParseElement;
+import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.internal.InternalSearchHit;
+import org.elasticsearch.search.internal.InternalSearchHitField;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Returns the values of fields as they are held in field data, which doesn't require the fields
+ * to be stored nor the source of the hits to be loaded.
+ */
+public class FieldDataFieldsFetchSubPhase implements FetchSubPhase {
+
+    @Inject
+    public FieldDataFieldsFetchSubPhase() {
+    }
+
+    @Override
+    public Map<String, ? extends SearchParseElement> parseElements() {
+        ImmutableMap.Builder<String, SearchParseElement> parseElements = ImmutableMap.builder();
+        parseElements.put("fielddata_fields", new FieldDataFieldsParseElement())
+                .put("fielddataFields", new FieldDataFieldsParseElement());
+        return parseElements.build();
+    }
+
+    @Override
+    public boolean hitsExecutionNeeded(SearchContext context) {
+        return false;
+    }
+
+    @Override
+    public void hitsExecute(SearchContext context, InternalSearchHit[] hits) throws ElasticSearchException {
+    }
+
+    @Override
+    public boolean hitExecutionNeeded(SearchContext context) {
+        return context.hasFieldDataFields();
+    }
+
+    @Override
+    public void hitExecute(SearchContext context, HitContext hitContext) throws ElasticSearchException {
+        for (String field : context.fieldDataFields().fields()) {
+            FieldMapper mapper = context.smartNameFieldMapper(field);
+            if (mapper == null) {
+                continue;
+            }
+            ScriptDocValues values = context.fieldData().getForField(mapper).load(hitContext.readerContext()).getScriptValues();
+            values.setNextDocId(hitContext.docId());
+            List<?> docValues = values.getValues();
+            if (docValues.isEmpty()) {
+                continue;
+            }
+
+            if (hitContext.hit().fieldsOrNull() == null) {
+                hitContext.hit().fields(new HashMap<String, SearchHitField>(2));
+            }
+
+            SearchHitField hitField = hitContext.hit().fields().get(field);
+            if (hitField == null) {
+                hitField = new InternalSearchHitField(field, new ArrayList<Object>(docValues.size()));
+                hitContext.hit().fields().put(field, hitField);
+            }
+            for (Object value : docValues) {
+                if (value instanceof GeoPoint) {
+                    // points are reused by field data, and returned in the lat,lon format
+                    GeoPoint point = (GeoPoint) value;
+                    value = point.lat() + "," + point.lon();
+                }
+                hitField.values().add(value);
+            }
+        }
+    }
+}
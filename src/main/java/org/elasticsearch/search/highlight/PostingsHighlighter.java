@@ -0,0 +1,397 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.highlight;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.lucene.index.*;
+import org.apache.lucene.index.FieldInfo.IndexOptions;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.highlight.DefaultEncoder;
+import org.apache.lucene.search.highlight.Encoder;
+import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.CollectionUtil;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.text.StringText;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.search.fetch.FetchPhaseExecutionException;
+import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.lookup.SearchLookup;
+
+import java.io.IOException;
+import java.text.BreakIterator;
+import java.util.*;
+
+/**
+ * A highlighter that reads the offsets of the query terms from the postings list instead of
+ * re-analyzing the text or reading term vectors, in the spirit of Lucene's
+ * <tt>PostingsHighlighter</tt>. The text is split into sentences which are scored with BM25,
+ * so fields need to be indexed with <tt>index_options</tt> set to <tt>offsets</tt>.
+ */
+public class PostingsHighlighter implements Highlighter {
+
+    private static final String CACHE_KEY = "highlight-postings";
+
+    // BM25 parameters, the pivot is the average length of a sentence in characters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PIVOT = 87f;
+
+    @Override
+    public String[] names() {
+        return new String[]{"postings", "postings-highlighter"};
+    }
+
+    @Override
+    public HighlightField highlight(HighlighterContext highlighterContext) {
+        SearchContextHighlight.Field field = highlighterContext.field;
+        SearchContext context = highlighterContext.context;
+        FetchSubPhase.HitContext hitContext = highlighterContext.hitContext;
+        FieldMapper<?> mapper = highlighterContext.mapper;
+
+        if (mapper.fieldType().indexOptions() != IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS) {
+            throw new ElasticSearchIllegalArgumentException("the field [" + field.field() + "] should be indexed with positions and offsets in the postings list to be used with postings highlighter");
+        }
+
+        Encoder encoder = field.encoder().equals("html") ? Encoders.HTML : Encoders.DEFAULT;
+
+        // the query terms and their weights are the same for all hits, so they are cached for the whole request
+        Map<String, Object> requestCache = context.highlight().cache();
+        if (!requestCache.containsKey(CACHE_KEY)) {
+            Map<FieldMapper<?>, MapperHighlighterEntry> mappers = Maps.newHashMap();
+            requestCache.put(CACHE_KEY, mappers);
+        }
+        Map<FieldMapper<?>, MapperHighlighterEntry> cache = (Map<FieldMapper<?>, MapperHighlighterEntry>) requestCache.get(CACHE_KEY);
+
+        String indexName = mapper.names().indexName();
+        try {
+            Query query = context.parsedQuery().query();
+            MapperHighlighterEntry entry = cache.get(mapper);
+            // the percolator highlights the document once per matching query, each time with a different query
+            if (entry == null || entry.query != query || entry.reader != context.searcher().getIndexReader()) {
+                entry = new MapperHighlighterEntry(context.searcher(), query, indexName, field.requireFieldMatch());
+                cache.put(mapper, entry);
+            }
+            if (entry.terms.length == 0) {
+                return null;
+            }
+
+            List<Match> matches = matches(entry, hitContext.reader(), hitContext.docId(), indexName);
+            if (matches.isEmpty()) {
+                return null;
+            }
+
+            List<Object> textsToHighlight = loadFieldValues(context, hitContext, mapper);
+            int offsetGap = context.mapperService().documentMapper(hitContext.hit().type()).mappers().indexAnalyzer().getOffsetGap(indexName);
+            List<Passage> passages = passages(entry, matches, textsToHighlight, offsetGap, field.numberOfFragments());
+            if (passages.isEmpty()) {
+                return null;
+            }
+
+            if (field.scoreOrdered()) {
+                CollectionUtil.introSort(passages, new Comparator<Passage>() {
+                    @Override
+                    public int compare(Passage o1, Passage o2) {
+                        return Float.compare(o2.score, o1.score);
+                    }
+                });
+            }
+            String[] fragments = new String[passages.size()];
+            for (int i = 0; i < fragments.length; i++) {
+                fragments[i] = passages.get(i).format(field.preTags()[0], field.postTags()[0], encoder);
+            }
+            return new HighlightField(highlighterContext.fieldName, StringText.convertFromStringArray(fragments));
+        } catch (IOException e) {
+            throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + highlighterContext.fieldName + "]", e);
+        }
+    }
+
+    /**
+     * Reads the offsets of the query terms in the document from the postings, sorted by start offset.
+     */
+    private static List<Match> matches(MapperHighlighterEntry entry, AtomicReader reader, int docId, String indexName) throws IOException {
+        List<Match> matches = Lists.newArrayList();
+        Terms terms = reader.terms(indexName);
+        if (terms == null) {
+            return matches;
+        }
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsAndPositionsEnum postings = null;
+        for (int i = 0; i < entry.terms.length; i++) {
+            if (!termsEnum.seekExact(entry.terms[i], false)) {
+                continue;
+            }
+            postings = termsEnum.docsAndPositions(null, postings, DocsAndPositionsEnum.FLAG_OFFSETS);
+            if (postings == null) {
+                throw new ElasticSearchIllegalArgumentException("field [" + indexName + "] was indexed without positions, cannot highlight with postings highlighter");
+            }
+            if (postings.advance(docId) != docId) {
+                continue;
+            }
+            for (int freq = postings.freq(); freq > 0; freq--) {
+                postings.nextPosition();
+                if (postings.startOffset() == -1) {
+                    throw new ElasticSearchIllegalArgumentException("field [" + indexName + "] was indexed without offsets, cannot highlight with postings highlighter");
+                }
+                matches.add(new Match(postings.startOffset(), postings.endOffset(), i));
+            }
+        }
+        CollectionUtil.introSort(matches);
+        return matches;
+    }
+
+    /**
+     * Groups the matches into the sentences of the values they occur in and returns the best
+     * <tt>numberOfFragments</tt> ones in document order. If <tt>numberOfFragments</tt> is
+     * <tt>0</tt>, every value that has matches is returned as a whole instead.
+     */
+    private static List<Passage> passages(MapperHighlighterEntry entry, List<Match> matches, List<Object> values, int offsetGap, int numberOfFragments) {
+        final List<Passage> passages = Lists.newArrayList();
+        final PassageQueue queue = numberOfFragments > 0 ? new PassageQueue(numberOfFragments) : null;
+        final BreakIterator breakIterator = BreakIterator.getSentenceInstance(Locale.ROOT);
+        int m = 0;
+        int valueStart = 0;
+        int numPassages = 0;
+        for (Object value : values) {
+            if (m == matches.size()) {
+                break;
+            }
+            final String text = value.toString();
+            final int valueEnd = valueStart + text.length();
+            if (numberOfFragments > 0) {
+                breakIterator.setText(text);
+            }
+            Passage current = null;
+            for (; m < matches.size() && matches.get(m).start < valueEnd; m++) {
+                final Match match = matches.get(m);
+                final int start = match.start - valueStart;
+                final int end = Math.min(match.end - valueStart, text.length());
+                if (start < 0 || end <= start) {
+                    // the offsets don't line up with the value, eg. due to a char filter
+                    continue;
+                }
+                if (current == null || start >= current.end) {
+                    if (current != null) {
+                        collect(current, entry, passages, queue);
+                    }
+                    current = new Passage(text, numPassages++, entry.terms.length);
+                    if (numberOfFragments > 0) {
+                        current.start = breakIterator.preceding(start + 1);
+                        current.end = breakIterator.following(start);
+                    } else {
+                        current.start = 0;
+                        current.end = text.length();
+                    }
+                }
+                if (end > current.end) {
+                    current.end = breakIterator.following(end - 1);
+                }
+                current.addMatch(start, end, match.term);
+            }
+            if (current != null) {
+                collect(current, entry, passages, queue);
+            }
+            valueStart = valueEnd + offsetGap;
+        }
+        if (queue != null) {
+            for (int i = queue.size(); i > 0; i--) {
+                passages.add(queue.pop());
+            }
+            CollectionUtil.introSort(passages, new Comparator<Passage>() {
+                @Override
+                public int compare(Passage o1, Passage o2) {
+                    return o1.order - o2.order;
+                }
+            });
+        }
+        return passages;
+    }
+
+    private static void collect(Passage passage, MapperHighlighterEntry entry, List<Passage> passages, PassageQueue queue) {
+        passage.score(entry.weights);
+        if (queue == null) {
+            passages.add(passage);
+        } else {
+            queue.insertWithOverflow(passage);
+        }
+    }
+
+    private static List<Object> loadFieldValues(SearchContext context, FetchSubPhase.HitContext hitContext, FieldMapper<?> mapper) throws IOException {
+        List<Object> textsToHighlight;
+        if (mapper.fieldType().stored()) {
+            CustomFieldsVisitor fieldVisitor = new CustomFieldsVisitor(ImmutableSet.of(mapper.names().indexName()), false);
+            hitContext.reader().document(hitContext.docId(), fieldVisitor);
+            textsToHighlight = fieldVisitor.fields().get(mapper.names().indexName());
+            if (textsToHighlight == null) {
+                // Can happen if the document doesn't have the field to highlight
+                textsToHighlight = ImmutableList.of();
+            }
+        } else {
+            SearchLookup lookup = context.lookup();
+            lookup.setNextReader(hitContext.readerContext());
+            lookup.setNextDocId(hitContext.docId());
+            textsToHighlight = lookup.source().extractRawValues(mapper.names().sourcePath());
+        }
+        assert textsToHighlight != null;
+        return textsToHighlight;
+    }
+
+    /**
+     * The query terms to highlight in a field, along with their BM25 weights. Computed once per
+     * request since they only depend on the query and the top level reader.
+     */
+    private static class MapperHighlighterEntry {
+
+        final Query query;
+        final IndexReader reader;
+        final BytesRef[] terms;
+        final float[] weights;
+
+        MapperHighlighterEntry(IndexSearcher searcher, Query query, String indexName, boolean requireFieldMatch) throws IOException {
+            this.query = query;
+            this.reader = searcher.getIndexReader();
+            // rewrite the original query against the top level reader so that multi term queries
+            // expose the terms they match
+            Set<Term> queryTerms = new HashSet<Term>();
+            searcher.rewrite(query).extractTerms(queryTerms);
+            SortedSet<BytesRef> fieldTerms = new TreeSet<BytesRef>();
+            for (Term term : queryTerms) {
+                if (!requireFieldMatch || term.field().equals(indexName)) {
+                    fieldTerms.add(term.bytes());
+                }
+            }
+            this.terms = fieldTerms.toArray(new BytesRef[fieldTerms.size()]);
+            this.weights = new float[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                int docFreq = reader.docFreq(new Term(indexName, terms[i]));
+                weights[i] = (K1 + 1) * (float) Math.log(1 + (reader.maxDoc() - docFreq + 0.5d) / (docFreq + 0.5d));
+            }
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+
+        final int start;
+        final int end;
+        final int term;
+
+        Match(int start, int end, int term) {
+            this.start = start;
+            this.end = end;
+            this.term = term;
+        }
+
+        @Override
+        public int compareTo(Match o) {
+            return start != o.start ? start - o.start : end - o.end;
+        }
+    }
+
+    private static final class Passage {
+
+        final String text;
+        final int order;
+        final int[] termFreqs;
+        int start;
+        int end;
+        float score;
+        int numMatches;
+        int[] matchStarts = new int[8];
+        int[] matchEnds = new int[8];
+
+        Passage(String text, int order, int numTerms) {
+            this.text = text;
+            this.order = order;
+            this.termFreqs = new int[numTerms];
+        }
+
+        void addMatch(int start, int end, int term) {
+            if (numMatches == matchStarts.length) {
+                matchStarts = Arrays.copyOf(matchStarts, numMatches << 1);
+                matchEnds = Arrays.copyOf(matchEnds, numMatches << 1);
+            }
+            matchStarts[numMatches] = start;
+            matchEnds[numMatches] = end;
+            numMatches++;
+            termFreqs[term]++;
+        }
+
+        void score(float[] weights) {
+            final float lengthNorm = K1 * (1 - B + B * ((end - start) / PIVOT));
+            float sum = 0;
+            for (int i = 0; i < termFreqs.length; i++) {
+                if (termFreqs[i] > 0) {
+                    sum += weights[i] * termFreqs[i] / (termFreqs[i] + lengthNorm);
+                }
+            }
+            // sentences at the beginning of the text are slightly preferred
+            score = sum * (1 + 1 / (float) Math.log(PIVOT + start));
+        }
+
+        String format(String preTag, String postTag, Encoder encoder) {
+            int from = start;
+            int to = end;
+            while (from < to && Character.isWhitespace(text.charAt(from))) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+                to--;
+            }
+            StringBuilder sb = new StringBuilder(to - from + numMatches * (preTag.length() + postTag.length()));
+            int pos = from;
+            for (int i = 0; i < numMatches; i++) {
+                if (matchStarts[i] < pos) {
+                    // overlapping tokens, eg. synonyms, are highlighted once
+                    continue;
+                }
+                sb.append(encoder.encodeText(text.substring(pos, matchStarts[i])));
+                sb.append(preTag).append(encoder.encodeText(text.substring(matchStarts[i], matchEnds[i]))).append(postTag);
+                pos = matchEnds[i];
+            }
+            if (pos < to) {
+                sb.append(encoder.encodeText(text.substring(pos, to)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class PassageQueue extends PriorityQueue<Passage> {
+
+        PassageQueue(int size) {
+            super(size);
+        }
+
+        @Override
+        protected boolean lessThan(Passage a, Passage b) {
+            return a.score < b.score || (a.score == b.score && a.order > b.order);
+        }
+    }
+
+    private static class Encoders {
+        public static Encoder DEFAULT = new DefaultEncoder();
+        public static Encoder HTML = new SimpleHTMLEncoder();
+    }
+}
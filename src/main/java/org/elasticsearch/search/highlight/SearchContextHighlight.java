@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.highlight;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +30,8 @@ public class SearchContextHighlight {
 
     private final List<Field> fields;
 
+    private final Map<String, Object> cache = new HashMap<String, Object>();
+
     public SearchContextHighlight(List<Field> fields) {
         this.fields = fields;
     }
@@ -37,6 +40,14 @@ public class SearchContextHighlight {
         return fields;
     }
 
+    /**
+     * A cache that highlighters can use to share state between all the hits of a request, unlike the
+     * cache of the hit context which only lives as long as a single hit.
+     */
+    public Map<String, Object> cache() {
+        return cache;
+    }
+
     public static class Field {
 
         private final String field;
@@ -37,6 +37,7 @@ import org.elasticsearch.common.lucene.search.function.FunctionScoreQuery;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.docset.DocSetCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
+import org.elasticsearch.index.cache.fixedbitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.id.IdCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
@@ -55,6 +56,7 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.facet.SearchContextFacets;
 import org.elasticsearch.search.fetch.FetchSearchResult;
+import org.elasticsearch.search.fetch.fielddata.FieldDataFieldsContext;
 import org.elasticsearch.search.fetch.partial.PartialFieldsContext;
 import org.elasticsearch.search.fetch.script.ScriptFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
@@ -104,6 +106,10 @@ public class DefaultSearchContext extends SearchContext {
 
     private float queryBoost = 1.0f;
 
+    private boolean nowInMillisUsed;
+
+    private boolean notCacheable;
+
     // timeout in millis
     private long timeoutInMillis = -1;
 
@@ -119,6 +125,8 @@ public class DefaultSearchContext extends SearchContext {
     private List<String> fieldNames;
     private ScriptFieldsContext scriptFields;
     private PartialFieldsContext partialFields;
+
+    private FieldDataFieldsContext fieldDataFields;
     private FetchSourceContext fetchSourceContext;
 
     private int from = -1;
@@ -280,9 +288,22 @@ public class DefaultSearchContext extends SearchContext {
     }
 
     public long nowInMillis() {
+        nowInMillisUsed = true;
         return request.nowInMillis();
     }
 
+    public boolean nowInMillisUsed() {
+        return nowInMillisUsed;
+    }
+
+    public void markAsNotCacheable() {
+        notCacheable = true;
+    }
+
+    public boolean cacheable() {
+        return !notCacheable;
+    }
+
     public Scroll scroll() {
         return this.scroll;
     }
@@ -347,6 +368,17 @@ public class DefaultSearchContext extends SearchContext {
         return this.partialFields;
     }
 
+    public boolean hasFieldDataFields() {
+        return fieldDataFields != null;
+    }
+
+    public FieldDataFieldsContext fieldDataFields() {
+        if (fieldDataFields == null) {
+            fieldDataFields = new FieldDataFieldsContext();
+        }
+        return this.fieldDataFields;
+    }
+
     /**
      * A shortcut function to see whether there is a fetchSourceContext and it says the source is requested.
      *
@@ -409,6 +441,10 @@ public class DefaultSearchContext extends SearchContext {
         return indexService.cache().docSet();
     }
 
+    public FixedBitSetFilterCache fixedBitSetFilterCache() {
+        return indexService.cache().fixedBitSetFilterCache();
+    }
+
     public IndexFieldDataService fieldData() {
         return indexService.fieldData();
     }
@@ -28,6 +28,7 @@ import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.docset.DocSetCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
+import org.elasticsearch.index.cache.fixedbitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.id.IdCache;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.FieldMapper;
@@ -45,6 +46,7 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.facet.SearchContextFacets;
 import org.elasticsearch.search.fetch.FetchSearchResult;
+import org.elasticsearch.search.fetch.fielddata.FieldDataFieldsContext;
 import org.elasticsearch.search.fetch.partial.PartialFieldsContext;
 import org.elasticsearch.search.fetch.script.ScriptFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
@@ -115,6 +117,22 @@ public abstract class SearchContext implements Releasable {
 
     public abstract long nowInMillis();
 
+    /**
+     * Has {@link #nowInMillis()} been used so far, making the results of this request depend on the time it was executed.
+     */
+    public abstract boolean nowInMillisUsed();
+
+    /**
+     * Marks the results of this request as depending on documents other than the ones they are computed on, e.g.
+     * the documents of other segments (parent/child queries) or a looked up document (terms lookups).
+     */
+    public abstract void markAsNotCacheable();
+
+    /**
+     * Can the results of this request be cached per reader, see {@link #markAsNotCacheable()}.
+     */
+    public abstract boolean cacheable();
+
     public abstract Scroll scroll();
 
     public abstract SearchContext scroll(Scroll scroll);
@@ -143,6 +161,10 @@ public abstract class SearchContext implements Releasable {
 
     public abstract PartialFieldsContext partialFields();
 
+    public abstract boolean hasFieldDataFields();
+
+    public abstract FieldDataFieldsContext fieldDataFields();
+
     /**
      * A shortcut function to see whether there is a fetchSourceContext and it says the source is requested.
      *
@@ -176,6 +198,8 @@ public abstract class SearchContext implements Releasable {
 
     public abstract DocSetCache docSetCache();
 
+    public abstract FixedBitSetFilterCache fixedBitSetFilterCache();
+
     public abstract IndexFieldDataService fieldData();
 
     public abstract IdCache idCache();
@@ -64,6 +64,15 @@ public class DocLookup implements Map {
         return this.mapperService;
     }
 
+    public IndexFieldDataService fieldDataService() {
+        return this.fieldDataService;
+    }
+
+    @Nullable
+    public String[] types() {
+        return this.types;
+    }
+
     public void setNextReader(AtomicReaderContext context) {
         if (this.reader == context) { // if we are called with the same reader, don't invalidate source
             return;
@@ -20,16 +20,19 @@
 package org.elasticsearch.search.lookup;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.elasticsearch.ElasticSearchParseException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fieldvisitor.JustSourceFieldsVisitor;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +43,12 @@ import java.util.Set;
  */
 public class SourceLookup implements Map {
 
+    /**
+     * The number of extractions that pull values from the source bytes of a document before falling back
+     * to parsing it into a map, since each of them scans the source again.
+     */
+    static final int MAX_STREAMED_EXTRACTIONS = 3;
+
     private AtomicReader reader;
 
     private int docId = -1;
@@ -48,6 +57,10 @@ public class SourceLookup implements Map {
     private Map<String, Object> source;
     private XContentType sourceContentType;
 
+    private Map<String, Object> extractedValues;
+    private Map<String, List<Object>> extractedRawValues;
+    private int streamedExtractions;
+
     public Map<String, Object> source() {
         return source;
     }
@@ -84,6 +97,41 @@ public class SourceLookup implements Map {
         return this.source;
     }
 
+    /**
+     * Loads the source bytes of the current document if needed, returns <tt>null</tt> if the values should
+     * rather be extracted from the source map.
+     */
+    private BytesReference loadSourceBytesIfNeeded() {
+        if (source != null || streamedExtractions >= MAX_STREAMED_EXTRACTIONS) {
+            return null;
+        }
+        if (sourceAsBytes == null) {
+            if (reader == null) {
+                return null;
+            }
+            try {
+                JustSourceFieldsVisitor sourceFieldVisitor = new JustSourceFieldsVisitor();
+                reader.document(docId, sourceFieldVisitor);
+                sourceAsBytes = sourceFieldVisitor.source();
+            } catch (Exception e) {
+                throw new ElasticSearchParseException("failed to parse / load source", e);
+            }
+            if (sourceAsBytes == null) {
+                this.source = ImmutableMap.of();
+                this.sourceContentType = null;
+                return null;
+            }
+        }
+        streamedExtractions++;
+        return sourceAsBytes;
+    }
+
+    private void clearExtractedValues() {
+        extractedValues = null;
+        extractedRawValues = null;
+        streamedExtractions = 0;
+    }
+
     public static Tuple<XContentType, Map<String, Object>> sourceAsMapAndType(BytesReference source) throws ElasticSearchParseException {
         return XContentHelper.convertToMap(source, false);
     }
@@ -108,6 +156,7 @@ public class SourceLookup implements Map {
         this.source = null;
         this.sourceAsBytes = null;
         this.docId = -1;
+        clearExtractedValues();
     }
 
     public void setNextDocId(int docId) {
@@ -117,14 +166,17 @@ public class SourceLookup implements Map {
         this.docId = docId;
         this.sourceAsBytes = null;
         this.source = null;
+        clearExtractedValues();
     }
 
     public void setNextSource(BytesReference source) {
         this.sourceAsBytes = source;
+        clearExtractedValues();
     }
 
     public void setNextSource(Map<String, Object> source) {
         this.source = source;
+        clearExtractedValues();
     }
 
     /**
@@ -139,19 +191,76 @@ public class SourceLookup implements Map {
      * handle path expression where an array/list is navigated within.
      */
     public List<Object> extractRawValues(String path) {
-        return XContentMapValues.extractRawValues(path, loadSourceIfNeeded());
+        if (extractedRawValues != null) {
+            List<Object> values = extractedRawValues.get(path);
+            if (values != null) {
+                return values;
+            }
+        }
+        BytesReference bytes = loadSourceBytesIfNeeded();
+        if (bytes == null) {
+            return XContentMapValues.extractRawValues(path, loadSourceIfNeeded());
+        }
+        XContentParser parser = null;
+        try {
+            parser = XContentHelper.createParser(bytes);
+            List<Object> values = XContentMapValues.extractRawValues(path, parser);
+            if (extractedRawValues == null) {
+                extractedRawValues = Maps.newHashMapWithExpectedSize(2);
+            }
+            extractedRawValues.put(path, values);
+            return values;
+        } catch (IOException e) {
+            throw new ElasticSearchParseException("failed to parse / load source", e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
     }
 
     public Object filter(String[] includes, String[] excludes) {
         return XContentMapValues.filter(loadSourceIfNeeded(), includes, excludes);
     }
 
+    /**
+     * Returns the value associated with the path. Unless the source has already been parsed into a map,
+     * the value is pulled from the source bytes without parsing the rest of the source, and cached until
+     * the next document.
+     */
     public Object extractValue(String path) {
-        return XContentMapValues.extractValue(path, loadSourceIfNeeded());
+        if (extractedValues != null && extractedValues.containsKey(path)) {
+            return extractedValues.get(path);
+        }
+        BytesReference bytes = loadSourceBytesIfNeeded();
+        if (bytes == null) {
+            return XContentMapValues.extractValue(path, loadSourceIfNeeded());
+        }
+        XContentParser parser = null;
+        try {
+            parser = XContentHelper.createParser(bytes);
+            Object value = XContentMapValues.extractValue(path, parser);
+            if (extractedValues == null) {
+                extractedValues = Maps.newHashMapWithExpectedSize(2);
+            }
+            extractedValues.put(path, value);
+            return value;
+        } catch (IOException e) {
+            throw new ElasticSearchParseException("failed to parse / load source", e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
     }
 
     @Override
     public Object get(Object key) {
+        // a path without dots can only match the key itself, which allows to skip building the map
+        String path = key.toString();
+        if (path.length() > 0 && path.indexOf('.') < 0) {
+            return extractValue(path);
+        }
         return loadSourceIfNeeded().get(key);
     }
 
@@ -136,12 +136,12 @@ public class GeoDistanceSortParser implements SortParser {
             objectMapper = context.mapperService().resolveClosestNestedObjectMapper(fieldName);
         }
         if (objectMapper != null && objectMapper.nested().isNested()) {
-            Filter rootDocumentsFilter = context.filterCache().cache(NonNestedDocsFilter.INSTANCE);
+            Filter rootDocumentsFilter = context.fixedBitSetFilterCache().getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE);
             Filter innerDocumentsFilter;
             if (nestedFilter != null) {
                 innerDocumentsFilter = context.filterCache().cache(nestedFilter);
             } else {
-                innerDocumentsFilter = context.filterCache().cache(objectMapper.nestedTypeFilter());
+                innerDocumentsFilter = context.fixedBitSetFilterCache().getFixedBitSetFilter(objectMapper.nestedTypeFilter());
             }
             geoDistanceComparatorSource = new NestedFieldComparatorSource(
                 sortMode, geoDistanceComparatorSource, rootDocumentsFilter, innerDocumentsFilter
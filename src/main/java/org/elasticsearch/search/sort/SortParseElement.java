@@ -229,12 +229,12 @@ public class SortParseElement implements SearchParseElement {
                 objectMapper = context.mapperService().resolveClosestNestedObjectMapper(fieldName);
             }
             if (objectMapper != null && objectMapper.nested().isNested()) {
-                Filter rootDocumentsFilter = context.filterCache().cache(NonNestedDocsFilter.INSTANCE);
+                Filter rootDocumentsFilter = context.fixedBitSetFilterCache().getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE);
                 Filter innerDocumentsFilter;
                 if (nestedFilter != null) {
                     innerDocumentsFilter = context.filterCache().cache(nestedFilter);
                 } else {
-                    innerDocumentsFilter = context.filterCache().cache(objectMapper.nestedTypeFilter());
+                    innerDocumentsFilter = context.fixedBitSetFilterCache().getFixedBitSetFilter(objectMapper.nestedTypeFilter());
                 }
                 fieldComparatorSource = new NestedFieldComparatorSource(sortMode, fieldComparatorSource, rootDocumentsFilter, innerDocumentsFilter);
             }
@@ -22,12 +22,17 @@ package org.elasticsearch.search.suggest.completion;
 import gnu.trove.map.hash.TObjectLongHashMap;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.codecs.*;
+import org.apache.lucene.index.DocsAndPositionsEnum;
 import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.suggest.Lookup;
 import org.apache.lucene.search.suggest.analyzing.XAnalyzingSuggester;
 import org.apache.lucene.search.suggest.analyzing.XFuzzySuggester;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.IntsRef;
@@ -36,10 +41,14 @@ import org.apache.lucene.util.fst.FST;
 import org.apache.lucene.util.fst.PairOutputs;
 import org.apache.lucene.util.fst.PairOutputs.Pair;
 import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.core.CompletionFieldMapper;
 import org.elasticsearch.search.suggest.completion.Completion090PostingsFormat.CompletionLookupProvider;
 import org.elasticsearch.search.suggest.completion.Completion090PostingsFormat.LookupFactory;
+import org.elasticsearch.search.suggest.context.ContextMapping;
 
 import java.io.IOException;
 import java.util.*;
@@ -231,6 +240,24 @@ public class AnalyzingCompletionLookupProvider extends CompletionLookupProvider
         return new LookupFactory() {
             @Override
             public Lookup getLookup(FieldMapper<?> mapper, CompletionSuggestionContext suggestionContext) {
+                return getSuggester(mapper, suggestionContext);
+            }
+
+            @Override
+            public Lookup getLookup(FieldMapper<?> mapper, CompletionSuggestionContext suggestionContext, Terms terms, Bits liveDocs) {
+                XAnalyzingSuggester suggester = getSuggester(mapper, suggestionContext);
+                if (suggester != null) {
+                    try {
+                        suggester.setResultFilter(new LiveDocsResultFilter(terms.iterator(null), liveDocs,
+                                lookupMap.get(mapper.names().indexName()).hasPayloads));
+                    } catch (IOException e) {
+                        throw new ElasticSearchException("failed to load terms of completion field [" + mapper.names().fullName() + "]", e);
+                    }
+                }
+                return suggester;
+            }
+
+            private XAnalyzingSuggester getSuggester(FieldMapper<?> mapper, CompletionSuggestionContext suggestionContext) {
                 AnalyzingSuggestHolder analyzingSuggestHolder = lookupMap.get(mapper.names().indexName());
                 if (analyzingSuggestHolder == null) {
                     return null;
@@ -253,6 +280,11 @@ public class AnalyzingCompletionLookupProvider extends CompletionLookupProvider
                             analyzingSuggestHolder.maxAnalyzedPathsForOneInput);
                 }
                 suggester.setPreservePositionIncrements(analyzingSuggestHolder.preservePositionIncrements);
+                if (mapper instanceof CompletionFieldMapper && ((CompletionFieldMapper) mapper).requiresContext()) {
+                    // all analyzed forms start with the context values, only traverse the requested ones
+                    suggester.setQueryPrefix(ContextMapping.toAutomaton(((CompletionFieldMapper) mapper).getContextMapping(),
+                            suggestionContext.getContextQueries()));
+                }
                 return suggester;
             }
 
@@ -283,6 +315,75 @@ public class AnalyzingCompletionLookupProvider extends CompletionLookupProvider
         };
     }
 
+    /**
+     * The FST keeps the suggestions of deleted documents until the segment is merged away. This
+     * filter only accepts suggestions whose analyzed form is still indexed for a live document with
+     * the same surface form, payload and weight, so that updated and deleted suggestions are
+     * reflected as soon as the deletions are visible.
+     */
+    private final class LiveDocsResultFilter implements XAnalyzingSuggester.ResultFilter {
+        private final TermsEnum termsEnum;
+        private final Bits liveDocs;
+        private final boolean hasPayloads;
+        private final BytesRef analyzedBytes = new BytesRef();
+        private final SuggestPayload spare = new SuggestPayload();
+        private DocsAndPositionsEnum positions;
+
+        LiveDocsResultFilter(TermsEnum termsEnum, Bits liveDocs, boolean hasPayloads) {
+            this.termsEnum = termsEnum;
+            this.liveDocs = liveDocs;
+            this.hasPayloads = hasPayloads;
+        }
+
+        @Override
+        public boolean accept(IntsRef analyzed, long cost, BytesRef output) throws IOException {
+            Util.toBytesRef(analyzed, analyzedBytes);
+            if (!termsEnum.seekExact(analyzedBytes, false)) {
+                return false;
+            }
+            positions = termsEnum.docsAndPositions(liveDocs, positions, DocsAndPositionsEnum.FLAG_PAYLOADS);
+            final long weight = XAnalyzingSuggester.decodeWeight(cost);
+            while (positions.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                for (int i = 0; i < positions.freq(); i++) {
+                    positions.nextPosition();
+                    BytesRef payload = positions.getPayload();
+                    if (payload == null) {
+                        continue;
+                    }
+                    parsePayload(payload, spare);
+                    // without a weight the FST falls back to the document frequency, which includes deleted documents
+                    if ((spare.weight == -1 || spare.weight == weight) && sameOutput(output)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean sameOutput(BytesRef output) {
+            BytesRef surfaceForm = spare.surfaceForm;
+            int length = hasPayloads ? surfaceForm.length + 1 + spare.payload.length : surfaceForm.length;
+            if (output.length != length) {
+                return false;
+            }
+            for (int i = 0; i < surfaceForm.length; i++) {
+                if (output.bytes[output.offset + i] != surfaceForm.bytes[surfaceForm.offset + i]) {
+                    return false;
+                }
+            }
+            if (hasPayloads) {
+                BytesRef payload = spare.payload;
+                int offset = output.offset + surfaceForm.length + 1;
+                for (int i = 0; i < payload.length; i++) {
+                    if (output.bytes[offset + i] != payload.bytes[payload.offset + i]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
     static class AnalyzingSuggestHolder {
         final boolean preserveSep;
         final boolean preservePositionIncrements;
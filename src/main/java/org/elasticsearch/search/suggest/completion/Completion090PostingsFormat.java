@@ -29,6 +29,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.InputStreamDataInput;
 import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ElasticSearchIllegalStateException;
@@ -281,6 +282,16 @@ public class Completion090PostingsFormat extends PostingsFormat {
             return lookup.getLookup(mapper, suggestionContext);
         }
 
+        /**
+         * Returns a lookup that skips the suggestions of documents that are not live anymore.
+         */
+        public Lookup getLookup(FieldMapper<?> mapper, CompletionSuggestionContext suggestionContext, Bits liveDocs) {
+            if (liveDocs == null) {
+                return lookup.getLookup(mapper, suggestionContext);
+            }
+            return lookup.getLookup(mapper, suggestionContext, this, liveDocs);
+        }
+
         public CompletionStats stats(String ... fields) {
             return lookup.stats(fields);
         }
@@ -358,6 +369,15 @@ public class Completion090PostingsFormat extends PostingsFormat {
 
     public static abstract class LookupFactory {
         public abstract Lookup getLookup(FieldMapper<?> mapper, CompletionSuggestionContext suggestionContext);
+
+        /**
+         * Returns a lookup that only returns suggestions which are still indexed in <tt>terms</tt>
+         * for one of the <tt>liveDocs</tt>. Defaults to ignoring deletions.
+         */
+        public Lookup getLookup(FieldMapper<?> mapper, CompletionSuggestionContext suggestionContext, Terms terms, Bits liveDocs) {
+            return getLookup(mapper, suggestionContext);
+        }
+
         public abstract CompletionStats stats(String ... fields);
     }
 }
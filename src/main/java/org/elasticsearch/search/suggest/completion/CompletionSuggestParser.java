@@ -20,11 +20,15 @@ package org.elasticsearch.search.suggest.completion;
 
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.core.CompletionFieldMapper;
 import org.elasticsearch.search.suggest.SuggestContextParser;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
+import org.elasticsearch.search.suggest.context.ContextMapping;
 
 import java.io.IOException;
+import java.util.Map;
 
 import static org.elasticsearch.search.suggest.SuggestUtils.parseSuggestContext;
 
@@ -44,6 +48,7 @@ public class CompletionSuggestParser implements SuggestContextParser {
         XContentParser.Token token;
         String fieldName = null;
         CompletionSuggestionContext suggestion = new CompletionSuggestionContext(completionSuggester);
+        Map<String, Object> contextQueries = null;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.FIELD_NAME) {
                 fieldName = parser.currentName();
@@ -71,11 +76,21 @@ public class CompletionSuggestParser implements SuggestContextParser {
                         }
                     }
                 }
+            } else if (token == XContentParser.Token.START_OBJECT && "context".equals(fieldName)) {
+                // the context can only be resolved once we know the field
+                contextQueries = parser.map();
             } else {
                 throw new ElasticSearchIllegalArgumentException("suggester[completion]  doesn't support field [" + fieldName + "]");
             }
         }
-        suggestion.mapper(mapperService.smartNameFieldMapper(suggestion.getField()));
+        FieldMapper<?> mapper = mapperService.smartNameFieldMapper(suggestion.getField());
+        suggestion.mapper(mapper);
+        if (contextQueries != null) {
+            if (!(mapper instanceof CompletionFieldMapper) || !((CompletionFieldMapper) mapper).requiresContext()) {
+                throw new ElasticSearchIllegalArgumentException("suggester[completion] field [" + suggestion.getField() + "] has no context mapped");
+            }
+            suggestion.setContextQueries(ContextMapping.parseContexts(((CompletionFieldMapper) mapper).getContextMapping(), contextQueries));
+        }
 
         return suggestion;
     }
@@ -18,24 +18,58 @@
  */
 package org.elasticsearch.search.suggest.completion;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.lucene.search.suggest.analyzing.XFuzzySuggester;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  *
  */
 public class CompletionSuggestionBuilder extends SuggestBuilder.SuggestionBuilder<CompletionSuggestionBuilder> {
 
+    private final Map<String, List<String>> contexts = Maps.newLinkedHashMap();
+
     public CompletionSuggestionBuilder(String name) {
         super(name, "completion");
     }
 
+    /**
+     * Restricts the suggestions to inputs indexed with one of the given values of a category context.
+     */
+    public CompletionSuggestionBuilder addCategory(String name, String... values) {
+        List<String> contextValues = contexts.get(name);
+        if (contextValues == null) {
+            contextValues = Lists.newArrayList();
+            contexts.put(name, contextValues);
+        }
+        Collections.addAll(contextValues, values);
+        return this;
+    }
+
+    /**
+     * Restricts the suggestions to inputs indexed with a location close to the given one.
+     */
+    public CompletionSuggestionBuilder addGeoLocation(String name, double lat, double lon) {
+        return addCategory(name, lat + "," + lon);
+    }
+
     @Override
     protected XContentBuilder innerToXContent(XContentBuilder builder, Params params) throws IOException {
+        if (!contexts.isEmpty()) {
+            builder.startObject("context");
+            for (Map.Entry<String, List<String>> entry : contexts.entrySet()) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+            builder.endObject();
+        }
         return builder;
     }
 }
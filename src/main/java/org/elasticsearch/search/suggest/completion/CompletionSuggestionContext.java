@@ -23,6 +23,10 @@ import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.search.suggest.Suggester;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
 /**
  *
  */
@@ -34,6 +38,7 @@ public class CompletionSuggestionContext extends SuggestionSearchContext.Suggest
     private int fuzzyMinLength = XFuzzySuggester.DEFAULT_MIN_FUZZY_LENGTH;
     private int fuzzyPrefixLength = XFuzzySuggester.DEFAULT_NON_FUZZY_PREFIX;
     private boolean fuzzy = false;
+    private Map<String, Set<String>> contextQueries = Collections.emptyMap();
 
     public CompletionSuggestionContext(Suggester suggester) {
         super(suggester);
@@ -86,4 +91,15 @@ public class CompletionSuggestionContext extends SuggestionSearchContext.Suggest
     public boolean isFuzzy() {
         return fuzzy;
     }
+
+    /**
+     * The context values to restrict the suggestions to, keyed by context name.
+     */
+    public void setContextQueries(Map<String, Set<String>> contextQueries) {
+        this.contextQueries = contextQueries;
+    }
+
+    public Map<String, Set<String>> getContextQueries() {
+        return contextQueries;
+    }
 }
@@ -18,12 +18,17 @@
  */
 package org.elasticsearch.search.suggest.completion;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.lucene.search.suggest.analyzing.XFuzzySuggester;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -38,6 +43,7 @@ public class CompletionSuggestionFuzzyBuilder extends SuggestBuilder.SuggestionB
     private boolean fuzzyTranspositions = XFuzzySuggester.DEFAULT_TRANSPOSITIONS;
     private int fuzzyMinLength = XFuzzySuggester.DEFAULT_MIN_FUZZY_LENGTH;
     private int fuzzyPrefixLength = XFuzzySuggester.DEFAULT_NON_FUZZY_PREFIX;
+    private final Map<String, List<String>> contexts = Maps.newLinkedHashMap();
 
     public int getFuzzyEditDistance() {
         return fuzzyEditDistance;
@@ -75,6 +81,26 @@ public class CompletionSuggestionFuzzyBuilder extends SuggestBuilder.SuggestionB
         return this;
     }
 
+    /**
+     * Restricts the suggestions to inputs indexed with one of the given values of a category context.
+     */
+    public CompletionSuggestionFuzzyBuilder addCategory(String name, String... values) {
+        List<String> contextValues = contexts.get(name);
+        if (contextValues == null) {
+            contextValues = Lists.newArrayList();
+            contexts.put(name, contextValues);
+        }
+        Collections.addAll(contextValues, values);
+        return this;
+    }
+
+    /**
+     * Restricts the suggestions to inputs indexed with a location close to the given one.
+     */
+    public CompletionSuggestionFuzzyBuilder addGeoLocation(String name, double lat, double lon) {
+        return addCategory(name, lat + "," + lon);
+    }
+
     @Override
     protected XContentBuilder innerToXContent(XContentBuilder builder, ToXContent.Params params) throws IOException {
         builder.startObject("fuzzy");
@@ -93,6 +119,13 @@ public class CompletionSuggestionFuzzyBuilder extends SuggestBuilder.SuggestionB
         }
 
         builder.endObject();
+        if (!contexts.isEmpty()) {
+            builder.startObject("context");
+            for (Map.Entry<String, List<String>> entry : contexts.entrySet()) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+            builder.endObject();
+        }
         return builder;
     }
 }
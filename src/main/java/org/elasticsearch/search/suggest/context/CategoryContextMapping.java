@@ -0,0 +1,104 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.suggest.context;
+
+import com.google.common.collect.ImmutableSortedSet;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.mapper.MapperParsingException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A context whose values are arbitrary strings, eg. the category of a product.
+ */
+public class CategoryContextMapping extends ContextMapping {
+
+    public static final String TYPE = "category";
+
+    private final Set<String> defaultValues;
+
+    public CategoryContextMapping(String name, Set<String> defaultValues) {
+        super(name, TYPE);
+        this.defaultValues = ImmutableSortedSet.copyOf(defaultValues);
+    }
+
+    static CategoryContextMapping parse(String name, Map<String, Object> config) throws MapperParsingException {
+        Set<String> defaultValues = Collections.emptySet();
+        for (Map.Entry<String, Object> entry : config.entrySet()) {
+            if (entry.getKey().equals(FIELD_TYPE)) {
+                continue;
+            }
+            if (entry.getKey().equals(FIELD_DEFAULT)) {
+                try {
+                    defaultValues = parseValues(name, entry.getValue());
+                } catch (ElasticSearchIllegalArgumentException e) {
+                    throw new MapperParsingException("failed to parse default of context [" + name + "]", e);
+                }
+            } else {
+                throw new MapperParsingException("unknown field [" + entry.getKey() + "] for context [" + name + "]");
+            }
+        }
+        return new CategoryContextMapping(name, defaultValues);
+    }
+
+    @Override
+    public Set<String> parseContext(Object value) throws ElasticSearchIllegalArgumentException {
+        return parseValues(name, value);
+    }
+
+    @Override
+    public Set<String> defaultValues() {
+        return defaultValues;
+    }
+
+    @Override
+    protected XContentBuilder innerToXContent(XContentBuilder builder, Params params) throws IOException {
+        if (!defaultValues.isEmpty()) {
+            builder.field(FIELD_DEFAULT, defaultValues);
+        }
+        return builder;
+    }
+
+    private static Set<String> parseValues(String name, Object value) {
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        ImmutableSortedSet.Builder<String> values = ImmutableSortedSet.naturalOrder();
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (element instanceof Map || element instanceof List) {
+                    throw new ElasticSearchIllegalArgumentException("context [" + name + "] only supports string values");
+                }
+                if (element != null) {
+                    values.add(checkValue(name, element.toString()));
+                }
+            }
+        } else if (value instanceof Map) {
+            throw new ElasticSearchIllegalArgumentException("context [" + name + "] only supports string values");
+        } else {
+            values.add(checkValue(name, value.toString()));
+        }
+        return values.build();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.suggest.context;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.BasicAutomata;
+import org.apache.lucene.util.automaton.BasicOperations;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.mapper.MapperParsingException;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A named context of a completion field. Every input of a completion field is indexed
+ * with the values of all its contexts prepended to its analyzed form, so that a lookup
+ * restricted to some context values only traverses the matching part of the FST.
+ * <p/>
+ * The analyzed form of an input with the contexts <tt>c1 .. cn</tt> (in name order) is
+ * <tt>value(c1) SEPARATOR .. value(cn) SEPARATOR analyzed</tt>.
+ */
+public abstract class ContextMapping implements ToXContent {
+
+    /**
+     * Terminates the value of a context in the analyzed form.
+     */
+    public static final char SEPARATOR = '\u001D';
+
+    public static final String FIELD_TYPE = "type";
+    public static final String FIELD_DEFAULT = "default";
+
+    protected final String name;
+    protected final String type;
+
+    protected ContextMapping(String name, String type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    /**
+     * Parses the context values of an input or a query, as returned by
+     * {@link org.elasticsearch.common.xcontent.XContentParser#map()}.
+     */
+    public abstract Set<String> parseContext(Object value) throws ElasticSearchIllegalArgumentException;
+
+    /**
+     * The values to index if an input doesn't provide values for this context.
+     */
+    public abstract Set<String> defaultValues();
+
+    /**
+     * The values to look up for the values of a query. Defaults to the query values.
+     */
+    public Set<String> queryValues(Set<String> values) {
+        return values;
+    }
+
+    protected abstract XContentBuilder innerToXContent(XContentBuilder builder, Params params) throws IOException;
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(name);
+        builder.field(FIELD_TYPE, type);
+        innerToXContent(builder, params);
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ContextMapping that = (ContextMapping) o;
+        return name.equals(that.name) && defaultValues().equals(that.defaultValues());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + defaultValues().hashCode();
+    }
+
+    /**
+     * Parses the <tt>context</tt> section of a completion field mapping.
+     */
+    public static SortedMap<String, ContextMapping> parseMappings(Object node) throws MapperParsingException {
+        if (!(node instanceof Map)) {
+            throw new MapperParsingException("context mapping must be an object");
+        }
+        ImmutableSortedMap.Builder<String, ContextMapping> mappings = ImmutableSortedMap.naturalOrder();
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) node).entrySet()) {
+            if (!(entry.getValue() instanceof Map)) {
+                throw new MapperParsingException("context [" + entry.getKey() + "] must be an object");
+            }
+            Map<String, Object> config = (Map<String, Object>) entry.getValue();
+            Object type = config.get(FIELD_TYPE);
+            if (CategoryContextMapping.TYPE.equals(type)) {
+                mappings.put(entry.getKey(), CategoryContextMapping.parse(entry.getKey(), config));
+            } else if (GeolocationContextMapping.TYPE.equals(type)) {
+                mappings.put(entry.getKey(), GeolocationContextMapping.parse(entry.getKey(), config));
+            } else {
+                throw new MapperParsingException("unknown type [" + type + "] for context [" + entry.getKey() + "]");
+            }
+        }
+        return mappings.build();
+    }
+
+    /**
+     * Resolves the values of an input or a query for all contexts, keyed by context name.
+     * Contexts which are not mentioned are missing from the returned map.
+     */
+    public static Map<String, Set<String>> parseContexts(SortedMap<String, ContextMapping> mappings, Map<String, Object> contexts) {
+        Map<String, Set<String>> values = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Object> entry : contexts.entrySet()) {
+            ContextMapping mapping = mappings.get(entry.getKey());
+            if (mapping == null) {
+                throw new ElasticSearchIllegalArgumentException("unknown context [" + entry.getKey() + "]");
+            }
+            values.put(entry.getKey(), mapping.parseContext(entry.getValue()));
+        }
+        return values;
+    }
+
+    /**
+     * Builds the prefixes an input is indexed with: one per combination of its context values.
+     * Contexts without a value use their defaults, or an empty value if they have none.
+     */
+    public static List<BytesRef> toPrefixes(SortedMap<String, ContextMapping> mappings, Map<String, Set<String>> values) {
+        List<BytesRef> prefixes = Lists.newArrayList(new BytesRef());
+        for (ContextMapping mapping : mappings.values()) {
+            Set<String> contextValues = values.get(mapping.name());
+            if (contextValues == null || contextValues.isEmpty()) {
+                contextValues = mapping.defaultValues();
+            }
+            if (contextValues.isEmpty()) {
+                contextValues = Collections.singleton("");
+            }
+            List<BytesRef> next = new ArrayList<BytesRef>(prefixes.size() * contextValues.size());
+            for (BytesRef prefix : prefixes) {
+                for (String value : contextValues) {
+                    BytesRef bytes = new BytesRef(value);
+                    BytesRef extended = new BytesRef(prefix.length + bytes.length + 1);
+                    extended.append(prefix);
+                    extended.append(bytes);
+                    extended.bytes[extended.length++] = (byte) SEPARATOR;
+                    next.add(extended);
+                }
+            }
+            prefixes = next;
+        }
+        return prefixes;
+    }
+
+    /**
+     * Builds the automaton a lookup is prefixed with. Contexts without query values match
+     * any of their values.
+     */
+    public static Automaton toAutomaton(SortedMap<String, ContextMapping> mappings, Map<String, Set<String>> values) {
+        List<Automaton> automata = new ArrayList<Automaton>(mappings.size());
+        for (ContextMapping mapping : mappings.values()) {
+            Set<String> contextValues = values.get(mapping.name());
+            Automaton automaton;
+            if (contextValues == null || contextValues.isEmpty()) {
+                automaton = BasicOperations.repeat(BasicOperations.union(
+                        BasicAutomata.makeCharRange(0x01, SEPARATOR - 1),
+                        BasicAutomata.makeCharRange(SEPARATOR + 1, 0xFE)));
+            } else {
+                List<Automaton> alternatives = new ArrayList<Automaton>();
+                for (String value : mapping.queryValues(contextValues)) {
+                    alternatives.add(makeBytes(new BytesRef(value)));
+                }
+                automaton = BasicOperations.union(alternatives);
+            }
+            automata.add(automaton);
+            automata.add(BasicAutomata.makeChar(SEPARATOR));
+        }
+        Automaton automaton = BasicOperations.concatenate(automata);
+        BasicOperations.determinize(automaton);
+        return automaton;
+    }
+
+    /**
+     * Validates a context value, which must not contain the separator or the end label.
+     */
+    protected static String checkValue(String context, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == 0x00) {
+                throw new ElasticSearchIllegalArgumentException("Illegal value [" + value + "] for context [" + context
+                        + "]: UTF-16 codepoint [0x" + Integer.toHexString(c).toUpperCase(Locale.ROOT) + "] at position " + i + " is a reserved character");
+            }
+        }
+        return value;
+    }
+
+    private static Automaton makeBytes(BytesRef bytes) {
+        int[] labels = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            labels[i] = bytes.bytes[bytes.offset + i] & 0xFF;
+        }
+        return BasicAutomata.makeString(labels, 0, labels.length);
+    }
+}
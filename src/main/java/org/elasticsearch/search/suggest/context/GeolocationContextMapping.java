@@ -0,0 +1,196 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.suggest.context;
+
+import com.google.common.collect.ImmutableSortedSet;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.geo.GeoUtils;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.mapper.MapperParsingException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A context whose values are locations. Locations are indexed as the geohash of the cell
+ * they fall into at the configured precision, and a query location matches its own cell
+ * and, unless disabled, the eight cells around it.
+ */
+public class GeolocationContextMapping extends ContextMapping {
+
+    public static final String TYPE = "geo";
+
+    public static final String FIELD_PRECISION = "precision";
+    public static final String FIELD_NEIGHBORS = "neighbors";
+
+    public static final int DEFAULT_PRECISION = 6;
+    public static final boolean DEFAULT_NEIGHBORS = true;
+
+    private final int precision;
+    private final boolean neighbors;
+    private final Set<String> defaultValues;
+
+    public GeolocationContextMapping(String name, int precision, boolean neighbors, Set<String> defaultValues) {
+        super(name, TYPE);
+        if (precision < 1 || precision > GeoHashUtils.PRECISION) {
+            throw new ElasticSearchIllegalArgumentException("precision of context [" + name + "] must be in [1.." + GeoHashUtils.PRECISION
+                    + "] but was [" + precision + "]");
+        }
+        this.precision = precision;
+        this.neighbors = neighbors;
+        this.defaultValues = ImmutableSortedSet.copyOf(defaultValues);
+    }
+
+    static GeolocationContextMapping parse(String name, Map<String, Object> config) throws MapperParsingException {
+        int precision = DEFAULT_PRECISION;
+        boolean neighbors = DEFAULT_NEIGHBORS;
+        Object defaultValue = null;
+        for (Map.Entry<String, Object> entry : config.entrySet()) {
+            String fieldName = entry.getKey();
+            Object fieldNode = entry.getValue();
+            if (fieldName.equals(FIELD_TYPE)) {
+                continue;
+            }
+            if (fieldName.equals(FIELD_PRECISION)) {
+                if (fieldNode instanceof Number) {
+                    precision = ((Number) fieldNode).intValue();
+                } else {
+                    precision = Math.min(GeoHashUtils.PRECISION, GeoUtils.geoHashLevelsForPrecision(fieldNode.toString()));
+                }
+            } else if (fieldName.equals(FIELD_NEIGHBORS)) {
+                neighbors = XContentMapValues.nodeBooleanValue(fieldNode);
+            } else if (fieldName.equals(FIELD_DEFAULT)) {
+                defaultValue = fieldNode;
+            } else {
+                throw new MapperParsingException("unknown field [" + fieldName + "] for context [" + name + "]");
+            }
+        }
+        try {
+            return new GeolocationContextMapping(name, precision, neighbors, parseValues(name, precision, defaultValue));
+        } catch (ElasticSearchIllegalArgumentException e) {
+            throw new MapperParsingException("failed to parse context [" + name + "]", e);
+        }
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public boolean neighbors() {
+        return neighbors;
+    }
+
+    @Override
+    public Set<String> parseContext(Object value) throws ElasticSearchIllegalArgumentException {
+        return parseValues(name, precision, value);
+    }
+
+    @Override
+    public Set<String> defaultValues() {
+        return defaultValues;
+    }
+
+    @Override
+    public Set<String> queryValues(Set<String> values) {
+        if (!neighbors) {
+            return values;
+        }
+        ImmutableSortedSet.Builder<String> cells = ImmutableSortedSet.naturalOrder();
+        for (String geohash : values) {
+            cells.add(geohash);
+            cells.addAll(GeoHashUtils.neighbors(geohash));
+        }
+        return cells.build();
+    }
+
+    @Override
+    protected XContentBuilder innerToXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(FIELD_PRECISION, precision);
+        builder.field(FIELD_NEIGHBORS, neighbors);
+        if (!defaultValues.isEmpty()) {
+            builder.field(FIELD_DEFAULT, defaultValues);
+        }
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && precision == ((GeolocationContextMapping) o).precision
+                && neighbors == ((GeolocationContextMapping) o).neighbors;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * super.hashCode() + precision) + (neighbors ? 1 : 0);
+    }
+
+    /**
+     * Parses a location, given as an object with <tt>lat</tt> and <tt>lon</tt>, an array
+     * <tt>[lon, lat]</tt>, a <tt>"lat,lon"</tt> string or a geohash, or a list of locations.
+     */
+    private static Set<String> parseValues(String name, int precision, Object value) {
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        ImmutableSortedSet.Builder<String> values = ImmutableSortedSet.naturalOrder();
+        if (value instanceof List && !isLonLat((List<?>) value)) {
+            for (Object element : (List<?>) value) {
+                values.add(toGeohash(name, precision, element));
+            }
+        } else {
+            values.add(toGeohash(name, precision, value));
+        }
+        return values.build();
+    }
+
+    private static boolean isLonLat(List<?> value) {
+        return value.size() == 2 && value.get(0) instanceof Number && value.get(1) instanceof Number;
+    }
+
+    private static String toGeohash(String name, int precision, Object value) {
+        GeoPoint point = new GeoPoint();
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Object lat = map.get("lat");
+            Object lon = map.get("lon");
+            if (lat == null || lon == null) {
+                throw new ElasticSearchIllegalArgumentException("location of context [" + name + "] requires [lat] and [lon]");
+            }
+            point.reset(XContentMapValues.nodeDoubleValue(lat), XContentMapValues.nodeDoubleValue(lon));
+        } else if (value instanceof List && isLonLat((List<?>) value)) {
+            List<?> lonLat = (List<?>) value;
+            point.reset(((Number) lonLat.get(1)).doubleValue(), ((Number) lonLat.get(0)).doubleValue());
+        } else if (value instanceof String) {
+            try {
+                point.resetFromString((String) value);
+            } catch (RuntimeException e) {
+                throw new ElasticSearchIllegalArgumentException("failed to parse location [" + value + "] of context [" + name + "]", e);
+            }
+        } else {
+            throw new ElasticSearchIllegalArgumentException("failed to parse location [" + value + "] of context [" + name + "]");
+        }
+        return GeoHashUtils.encode(point.lat(), point.lon(), precision);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.suggest.phrase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.spell.DirectSpellChecker;
+import org.apache.lucene.search.spell.StringDistance;
+import org.apache.lucene.search.spell.SuggestMode;
+import org.apache.lucene.search.spell.SuggestWord;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the candidates a {@link DirectSpellChecker} draws for a term. Candidates depend on the
+ * terms of a shard, so they are cached per top level reader in a LRU cache that is dropped as soon
+ * as the reader is closed, ie. once the shard is refreshed.
+ */
+final class CandidateCache implements IndexReader.ReaderClosedListener {
+
+    private final ConcurrentMap<Object, Cache<Key, SuggestWord[]>> readerCaches = ConcurrentCollections.newConcurrentMap();
+    private final int size;
+
+    /**
+     * @param size the maximum number of terms to cache candidates for per reader, <tt>0</tt> disables caching
+     */
+    CandidateCache(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Same as {@link DirectSpellChecker#suggestSimilar(Term, int, IndexReader, SuggestMode)}, but
+     * reuses the candidates drawn by an earlier request with the same settings. The returned
+     * words must not be modified.
+     */
+    SuggestWord[] suggestSimilar(DirectSpellChecker spellChecker, Term term, int numSug, IndexReader reader, SuggestMode suggestMode) throws IOException {
+        if (size <= 0) {
+            return spellChecker.suggestSimilar(term, numSug, reader, suggestMode);
+        }
+        final Cache<Key, SuggestWord[]> cache = readerCache(reader);
+        final Key key = new Key(spellChecker, term, numSug, suggestMode);
+        SuggestWord[] words = cache.getIfPresent(key);
+        if (words == null) {
+            words = spellChecker.suggestSimilar(term, numSug, reader, suggestMode);
+            cache.put(key, words);
+        }
+        return words;
+    }
+
+    private Cache<Key, SuggestWord[]> readerCache(IndexReader reader) {
+        final Object readerKey = reader.getCoreCacheKey();
+        Cache<Key, SuggestWord[]> cache = readerCaches.get(readerKey);
+        if (cache == null) {
+            cache = CacheBuilder.newBuilder().maximumSize(size).build();
+            Cache<Key, SuggestWord[]> existing = readerCaches.putIfAbsent(readerKey, cache);
+            if (existing != null) {
+                return existing;
+            }
+            reader.addReaderClosedListener(this);
+        }
+        return cache;
+    }
+
+    @Override
+    public void onClose(IndexReader reader) {
+        readerCaches.remove(reader.getCoreCacheKey());
+    }
+
+    /**
+     * The number of readers candidates are currently cached for.
+     */
+    int numReaders() {
+        return readerCaches.size();
+    }
+
+    private static final class Key {
+        private final String field;
+        private final BytesRef term;
+        private final int numSug;
+        private final SuggestMode suggestMode;
+        private final float accuracy;
+        private final int maxEdits;
+        private final int maxInspections;
+        private final float maxQueryFrequency;
+        private final int minPrefix;
+        private final int minQueryLength;
+        private final float thresholdFrequency;
+        private final boolean lowerCaseTerms;
+        private final Comparator<SuggestWord> comparator;
+        private final StringDistance distance;
+        private final int hashCode;
+
+        Key(DirectSpellChecker spellChecker, Term term, int numSug, SuggestMode suggestMode) {
+            this.field = term.field();
+            this.term = BytesRef.deepCopyOf(term.bytes());
+            this.numSug = numSug;
+            this.suggestMode = suggestMode;
+            this.accuracy = spellChecker.getAccuracy();
+            this.maxEdits = spellChecker.getMaxEdits();
+            this.maxInspections = spellChecker.getMaxInspections();
+            this.maxQueryFrequency = spellChecker.getMaxQueryFrequency();
+            this.minPrefix = spellChecker.getMinPrefix();
+            this.minQueryLength = spellChecker.getMinQueryLength();
+            this.thresholdFrequency = spellChecker.getThresholdFrequency();
+            this.lowerCaseTerms = spellChecker.getLowerCaseTerms();
+            this.comparator = spellChecker.getComparator();
+            this.distance = spellChecker.getDistance();
+            int result = field.hashCode();
+            result = 31 * result + this.term.hashCode();
+            result = 31 * result + numSug;
+            result = 31 * result + suggestMode.hashCode();
+            result = 31 * result + Float.floatToIntBits(thresholdFrequency);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hashCode == other.hashCode && field.equals(other.field) && term.bytesEquals(other.term) && numSug == other.numSug
+                    && suggestMode == other.suggestMode && accuracy == other.accuracy && maxEdits == other.maxEdits
+                    && maxInspections == other.maxInspections && maxQueryFrequency == other.maxQueryFrequency
+                    && minPrefix == other.minPrefix && minQueryLength == other.minQueryLength
+                    && thresholdFrequency == other.thresholdFrequency && lowerCaseTerms == other.lowerCaseTerms
+                    && comparator.equals(other.comparator) && distance.equals(other.distance);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
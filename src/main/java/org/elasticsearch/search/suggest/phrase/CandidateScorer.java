@@ -51,7 +51,10 @@ final class CandidateScorer {
         } else {
             numMissspellings = Math.round(errorFraction * sets.length);
         }
-        findCandidates(sets, new Candidate[sets.length], 0, Math.max(1, numMissspellings), corrections, cutoffScore, 0.0);
+        numMissspellings = Math.max(1, numMissspellings);
+        // with a single misspelling there are few enough paths to score them all
+        final double[] maxRemainingScores = numMissspellings > 1 ? maxRemainingScores(sets) : null;
+        findCandidates(sets, new Candidate[sets.length], 0, numMissspellings, corrections, cutoffScore, 0.0, maxRemainingScores);
         Correction[] result = new Correction[corrections.size()];
         for (int i = result.length - 1; i >= 0; i--) {
             result[i] = corrections.pop();
@@ -61,8 +64,47 @@ final class CandidateScorer {
 
     }
 
+    /**
+     * Computes for every position an upper bound of the score the words from this position on can
+     * add to a path. The score of a word only depends on the <tt>gramSize - 1</tt> words before it,
+     * so the bound is the best score of any word of a position among all combinations of the words
+     * before it, summed up over the remaining positions.
+     */
+    private double[] maxRemainingScores(CandidateSet[] sets) throws IOException {
+        final double[] maxRemainingScores = new double[sets.length + 1];
+        final Candidate[] path = new Candidate[sets.length];
+        for (int ord = sets.length - 1; ord >= 0; ord--) {
+            final int from = ord - Math.min(ord, gramSize - 1);
+            maxRemainingScores[ord] = maxScore(sets, path, from, ord) + maxRemainingScores[ord + 1];
+        }
+        return maxRemainingScores;
+    }
+
+    private double maxScore(CandidateSet[] sets, Candidate[] path, int from, int ord) throws IOException {
+        final CandidateSet set = sets[from];
+        path[from] = set.originalTerm;
+        double max = from == ord ? scorer.score(path, sets, ord, gramSize) : maxScore(sets, path, from + 1, ord);
+        for (int i = 0; i < set.candidates.length; i++) {
+            path[from] = set.candidates[i];
+            max = Math.max(max, from == ord ? scorer.score(path, sets, ord, gramSize) : maxScore(sets, path, from + 1, ord));
+        }
+        return max;
+    }
+
     public void findCandidates(CandidateSet[] candidates, Candidate[] path, int ord, int numMissspellingsLeft,
             PriorityQueue<Correction> corrections, double cutoffScore, final double pathScore) throws IOException {
+        findCandidates(candidates, path, ord, numMissspellingsLeft, corrections, cutoffScore, pathScore, null);
+    }
+
+    private void findCandidates(CandidateSet[] candidates, Candidate[] path, int ord, int numMissspellingsLeft,
+            PriorityQueue<Correction> corrections, double cutoffScore, final double pathScore, final double[] maxRemainingScores) throws IOException {
+        if (maxRemainingScores != null) {
+            // skip paths that can't make it into the top corrections, allowing for rounding errors of the bound
+            final double maxScore = Math.exp(pathScore + maxRemainingScores[ord] + 1e-9);
+            if (maxScore <= cutoffScore || (corrections.size() == maxNumCorrections && maxScore <= corrections.top().score)) {
+                return;
+            }
+        }
         CandidateSet current = candidates[ord];
         if (ord == candidates.length - 1) {
             path[ord] = current.originalTerm;
@@ -76,14 +118,14 @@ final class CandidateScorer {
         } else {
             if (numMissspellingsLeft > 0) {
                 path[ord] = current.originalTerm;
-                findCandidates(candidates, path, ord + 1, numMissspellingsLeft, corrections, cutoffScore, pathScore + scorer.score(path, candidates, ord, gramSize));
+                findCandidates(candidates, path, ord + 1, numMissspellingsLeft, corrections, cutoffScore, pathScore + scorer.score(path, candidates, ord, gramSize), maxRemainingScores);
                 for (int i = 0; i < current.candidates.length; i++) {
                     path[ord] = current.candidates[i];
-                    findCandidates(candidates, path, ord + 1, numMissspellingsLeft - 1, corrections, cutoffScore, pathScore + scorer.score(path, candidates, ord, gramSize));
+                    findCandidates(candidates, path, ord + 1, numMissspellingsLeft - 1, corrections, cutoffScore, pathScore + scorer.score(path, candidates, ord, gramSize), maxRemainingScores);
                 }
             } else {
                 path[ord] = current.originalTerm;
-                findCandidates(candidates, path, ord + 1, 0, corrections, cutoffScore, pathScore + scorer.score(path, candidates, ord, gramSize));
+                findCandidates(candidates, path, ord + 1, 0, corrections, cutoffScore, pathScore + scorer.score(path, candidates, ord, gramSize), maxRemainingScores);
             }
         }
 
@@ -52,6 +52,7 @@ public final class DirectCandidateGenerator extends CandidateGenerator {
     private final CharsRef spare = new CharsRef();
     private final BytesRef byteSpare = new BytesRef();
     private final int numCandidates;
+    private final CandidateCache candidateCache;
     
     public DirectCandidateGenerator(DirectSpellChecker spellchecker, String field, SuggestMode suggestMode, IndexReader reader, double nonErrorLikelihood, int numCandidates) throws IOException {
         this(spellchecker, field, suggestMode, reader,  nonErrorLikelihood, numCandidates, null, null, MultiFields.getTerms(reader, field));
@@ -59,6 +60,10 @@ public final class DirectCandidateGenerator extends CandidateGenerator {
 
 
     public DirectCandidateGenerator(DirectSpellChecker spellchecker, String field, SuggestMode suggestMode, IndexReader reader, double nonErrorLikelihood,  int numCandidates, Analyzer preFilter, Analyzer postFilter, Terms terms) throws IOException {
+        this(spellchecker, field, suggestMode, reader, nonErrorLikelihood, numCandidates, preFilter, postFilter, terms, null);
+    }
+
+    DirectCandidateGenerator(DirectSpellChecker spellchecker, String field, SuggestMode suggestMode, IndexReader reader, double nonErrorLikelihood,  int numCandidates, Analyzer preFilter, Analyzer postFilter, Terms terms, CandidateCache candidateCache) throws IOException {
         if (terms == null) {
             throw new ElasticSearchIllegalArgumentException("generator field [" + field + "] doesn't exist");
         }
@@ -73,6 +78,7 @@ public final class DirectCandidateGenerator extends CandidateGenerator {
         this.preFilter = preFilter;
         this.postFilter = postFilter;
         this.nonErrorLikelihood = nonErrorLikelihood;
+        this.candidateCache = candidateCache;
         float thresholdFrequency = spellchecker.getThresholdFrequency();
         this.frequencyPlateau = thresholdFrequency >= 1.0f ? (int) thresholdFrequency: (int)(dictSize * thresholdFrequency);
         termsEnum = terms.iterator(null);
@@ -116,7 +122,12 @@ public final class DirectCandidateGenerator extends CandidateGenerator {
         BytesRef term = preFilter(original.term, spare, byteSpare);
         final long frequency = original.frequency;
         spellchecker.setThresholdFrequency(this.suggestMode == SuggestMode.SUGGEST_ALWAYS ? 0 : thresholdFrequency(frequency, dictSize));
-        SuggestWord[] suggestSimilar = spellchecker.suggestSimilar(new Term(field, term), numCandidates, reader, this.suggestMode);
+        SuggestWord[] suggestSimilar;
+        if (candidateCache == null) {
+            suggestSimilar = spellchecker.suggestSimilar(new Term(field, term), numCandidates, reader, this.suggestMode);
+        } else {
+            suggestSimilar = candidateCache.suggestSimilar(spellchecker, new Term(field, term), numCandidates, reader, this.suggestMode);
+        }
         List<Candidate> candidates = new ArrayList<Candidate>(suggestSimilar.length);
         for (int i = 0; i < suggestSimilar.length; i++) {
             SuggestWord suggestWord = suggestSimilar[i];
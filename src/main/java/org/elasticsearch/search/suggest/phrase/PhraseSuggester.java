@@ -27,6 +27,9 @@ import org.apache.lucene.search.spell.DirectSpellChecker;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CharsRef;
 import org.apache.lucene.util.UnicodeUtil;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.StringText;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.search.suggest.Suggest.Suggestion;
@@ -41,6 +44,18 @@ import java.util.List;
 
 public final class PhraseSuggester extends Suggester<PhraseSuggestionContext> {
     private final BytesRef SEPARATOR = new BytesRef(" ");
+
+    private final CandidateCache candidateCache;
+
+    public PhraseSuggester() {
+        this(ImmutableSettings.Builder.EMPTY_SETTINGS);
+    }
+
+    @Inject
+    public PhraseSuggester(Settings settings) {
+        // the number of terms per shard to cache the candidates of
+        this.candidateCache = new CandidateCache(settings.getAsInt("search.suggest.phrase.candidate_cache.size", 1000));
+    }
     
     /*
      * More Ideas:
@@ -65,7 +80,7 @@ public final class PhraseSuggester extends Suggester<PhraseSuggestionContext> {
             Terms terms = MultiFields.getTerms(indexReader, generator.field());
             if (terms !=  null) {
                 gens.add(new DirectCandidateGenerator(directSpellChecker, generator.field(), generator.suggestMode(), 
-                        indexReader, realWordErrorLikelihood, generator.size(), generator.preFilter(), generator.postFilter(), terms));    
+                        indexReader, realWordErrorLikelihood, generator.size(), generator.preFilter(), generator.postFilter(), terms, candidateCache));
             }
         }
         final String suggestField = suggestion.getField();
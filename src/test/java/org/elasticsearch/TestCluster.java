@@ -321,6 +321,18 @@ public class TestCluster {
         return ((InternalNode) getOneNode()).injector().getInstance(ClusterService.class);
     }
 
+    /**
+     * Returns the instance of the given class bound in each node of the cluster.
+     */
+    public <T> List<T> getInstances(Class<T> clazz) {
+        ensureOpen();
+        List<T> instances = new ArrayList<T>(nodes.size());
+        for (NodeAndClient nodeAndClient : nodes.values()) {
+            instances.add(((InternalNode) nodeAndClient.node).injector().getInstance(clazz));
+        }
+        return instances;
+    }
+
     public int numNodes() {
         return this.nodes.size();
     }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.analysis;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.AnalysisService;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.internal.InternalNode;
+
+import java.util.Random;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Reports the tokens per second of several analysis chains, both through the <tt>_analyze</tt> API
+ * and by consuming the token streams of the index analyzers directly, together with how many
+ * times the token stream components of each analyzer got created.
+ */
+public class AnalyzeBenchmark {
+
+    private static final String[] ANALYZERS = {"standard", "whitespace", "english", "custom_stemmed", "custom_ngram"};
+
+    public static void main(String[] args) throws Exception {
+        int apiIterations = Integer.parseInt(System.getProperty("es.api_iterations", "10000"));
+        int directIterations = Integer.parseInt(System.getProperty("es.direct_iterations", "200000"));
+
+        Settings settings = settingsBuilder()
+                .put("gateway.type", "none")
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        Node node = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node1")).node();
+        Client client = node.client();
+
+        client.admin().indices().prepareCreate("test").setSettings(settingsBuilder().put(settings)
+                .put("index.analysis.analyzer.custom_stemmed.tokenizer", "standard")
+                .putArray("index.analysis.analyzer.custom_stemmed.filter", "lowercase", "stop", "kstem")
+                .putArray("index.analysis.analyzer.custom_stemmed.char_filter", "html_strip")
+                .put("index.analysis.analyzer.custom_ngram.tokenizer", "whitespace")
+                .putArray("index.analysis.analyzer.custom_ngram.filter", "lowercase", "ngram_filter")
+                .put("index.analysis.filter.ngram_filter.type", "nGram")
+                .put("index.analysis.filter.ngram_filter.min_gram", 2)
+                .put("index.analysis.filter.ngram_filter.max_gram", 3)
+        ).execute().actionGet();
+        client.admin().cluster().prepareHealth("test").setWaitForGreenStatus().execute().actionGet();
+
+        String[] texts = new String[100];
+        Random random = new Random(0);
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = text(random);
+        }
+
+        AnalysisService analysisService = ((InternalNode) node).injector().getInstance(IndicesService.class).indexServiceSafe("test").analysisService();
+
+        System.out.println("--> running [" + apiIterations + "] _analyze requests, and [" + directIterations + "] direct iterations per analyzer");
+        for (String analyzerName : ANALYZERS) {
+            NamedAnalyzer analyzer = analysisService.analyzer(analyzerName);
+
+            // warmup
+            for (int i = 0; i < 1000; i++) {
+                client.admin().indices().prepareAnalyze("test", texts[i % texts.length]).setAnalyzer(analyzerName).execute().actionGet();
+                consume(analyzer, texts[i % texts.length]);
+            }
+
+            long tokens = 0;
+            StopWatch stopWatch = new StopWatch().start();
+            for (int i = 0; i < apiIterations; i++) {
+                tokens += client.admin().indices().prepareAnalyze("test", texts[i % texts.length]).setAnalyzer(analyzerName).execute().actionGet().getTokens().size();
+            }
+            stopWatch.stop();
+            System.out.println("--> [" + analyzerName + "] _analyze: " + tokens + " tokens in " + stopWatch.totalTime() + ", " + (long) (tokens / stopWatch.totalTime().secondsFrac()) + " tokens/sec");
+
+            tokens = 0;
+            stopWatch = new StopWatch().start();
+            for (int i = 0; i < directIterations; i++) {
+                tokens += consume(analyzer, texts[i % texts.length]);
+            }
+            stopWatch.stop();
+            System.out.println("--> [" + analyzerName + "] direct: " + tokens + " tokens in " + stopWatch.totalTime() + ", " + (long) (tokens / stopWatch.totalTime().secondsFrac()) + " tokens/sec, components created [" + analyzer.componentsCreated() + "]");
+        }
+
+        client.close();
+        node.close();
+    }
+
+    private static int consume(NamedAnalyzer analyzer, String text) throws Exception {
+        TokenStream stream = analyzer.tokenStream("field", text);
+        int tokens = 0;
+        try {
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens++;
+            }
+            stream.end();
+        } finally {
+            stream.close();
+        }
+        return tokens;
+    }
+
+    private static String text(Random random) {
+        String[] words = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "<b>running</b>", "Elasticsearch", "indexing", "analyzers"};
+        StringBuilder sb = new StringBuilder();
+        int length = 20 + random.nextInt(80);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(words[random.nextInt(words.length)]);
+        }
+        return sb.toString();
+    }
+}
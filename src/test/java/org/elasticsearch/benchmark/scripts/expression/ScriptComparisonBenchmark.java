@@ -0,0 +1,144 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.scripts.expression;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.NodeBuilder;
+import org.elasticsearch.script.AbstractDoubleSearchScript;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.NativeScriptFactory;
+
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.customScoreQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+
+/**
+ * Compares the cost of scoring all documents of an index with the same formula written as an
+ * expression, as an MVEL script and as a native script.
+ */
+public class ScriptComparisonBenchmark {
+
+    private static final String EXPRESSION = "log(1 + doc['num'].value) * factor";
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = ImmutableSettings.settingsBuilder()
+                .put("script.native.log_factor.type", LogFactorScriptFactory.class.getName())
+                .build();
+        Node node = NodeBuilder.nodeBuilder().settings(settings).node();
+        Client client = node.client();
+
+        ClusterHealthResponse clusterHealthResponse = client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+        if (clusterHealthResponse.isTimedOut()) {
+            System.err.println("Failed to wait for green status, bailing");
+            System.exit(1);
+        }
+
+        final long NUM_DOCS = SizeValue.parseSizeValue("1m").singles();
+        final int BATCH = 1000;
+        final long NUM_WARM = 20;
+        final long NUM_RUNS = 50;
+
+        if (client.admin().indices().prepareExists("test").execute().actionGet().isExists()) {
+            System.out.println("Found an index, count: " + client.prepareCount("test").setQuery(QueryBuilders.matchAllQuery()).execute().actionGet().getCount());
+        } else {
+            client.admin().indices().prepareCreate("test")
+                    .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                    .execute().actionGet();
+
+            System.err.println("--> Indexing [" + NUM_DOCS + "]");
+            for (long i = 0; i < NUM_DOCS; ) {
+                BulkRequestBuilder request = client.prepareBulk();
+                for (int j = 0; j < BATCH && i < NUM_DOCS; j++, i++) {
+                    request.add(client.prepareIndex("test", "type1", Long.toString(i))
+                            .setSource(jsonBuilder().startObject().field("num", i % 1000).endObject()));
+                }
+                request.execute().actionGet();
+                if ((i % 100000) == 0) {
+                    System.err.println("--> indexed " + i);
+                }
+            }
+            System.err.println("Done indexed");
+            client.admin().indices().prepareFlush("test").execute().actionGet();
+            client.admin().indices().prepareRefresh().execute().actionGet();
+        }
+
+        for (String lang : new String[]{"expression", "mvel", "native"}) {
+            final String script = "native".equals(lang) ? "log_factor" : EXPRESSION;
+            System.err.println("--> Warming up (" + lang + ")");
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < NUM_WARM; i++) {
+                run(client, lang, script);
+            }
+            long totalTime = System.currentTimeMillis() - start;
+            System.err.println("--> Warmup (" + lang + ") " + (totalTime / NUM_WARM) + "ms");
+
+            start = System.currentTimeMillis();
+            for (int i = 0; i < NUM_RUNS; i++) {
+                run(client, lang, script);
+            }
+            totalTime = System.currentTimeMillis() - start;
+            System.err.println("--> Perf (" + lang + ") " + (totalTime / NUM_RUNS) + "ms");
+        }
+
+        node.close();
+    }
+
+    private static void run(Client client, String lang, String script) {
+        SearchResponse response = client.prepareSearch()
+                .setQuery(customScoreQuery(matchAllQuery()).lang(lang).script(script).param("factor", 1.5))
+                .execute().actionGet();
+        if (response.getFailedShards() > 0) {
+            System.err.println("--> Failures " + response.getShardFailures()[0].reason());
+        }
+    }
+
+    public static class LogFactorScriptFactory implements NativeScriptFactory {
+
+        @Override
+        public ExecutableScript newScript(@Nullable Map<String, Object> params) {
+            return new LogFactorScript(((Number) params.get("factor")).doubleValue());
+        }
+    }
+
+    static class LogFactorScript extends AbstractDoubleSearchScript {
+
+        private final double factor;
+
+        LogFactorScript(double factor) {
+            this.factor = factor;
+        }
+
+        @Override
+        public double runAsDouble() {
+            return Math.log(1 + docFieldLongs("num").getValue()) * factor;
+        }
+    }
+}
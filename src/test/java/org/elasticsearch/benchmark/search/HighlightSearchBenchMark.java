@@ -0,0 +1,178 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.node.Node;
+
+import java.util.Random;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Compares the plain, fast vector and postings highlighters on fields of a few KB. The same text
+ * is indexed into a field per highlighter, mapped with what the highlighter needs.
+ */
+public class HighlightSearchBenchMark {
+
+    private static final String[] HIGHLIGHTERS = {"plain", "fvh", "postings"};
+
+    public static void main(String[] args) throws Exception {
+        int SEARCH_ITERS = 500;
+        int TEXT_SIZE = 8 * 1024;
+        int WORDS = 10000;
+
+        Settings settings = settingsBuilder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        Node[] nodes = new Node[1];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node" + i)).node();
+        }
+
+        Client client = nodes[0].client();
+        try {
+            client.admin().indices().prepareCreate("test").setSettings(settings).addMapping("type1", XContentFactory.jsonBuilder().startObject().startObject("type1")
+                    .startObject("_all").field("enabled", false).endObject()
+                    .startObject("properties")
+                    .startObject("plain").field("type", "string").endObject()
+                    .startObject("fvh").field("type", "string").field("term_vector", "with_positions_offsets").endObject()
+                    .startObject("postings").field("type", "string").field("index_options", "offsets").endObject()
+                    .endObject()
+                    .endObject().endObject()).execute().actionGet();
+            ClusterHealthResponse clusterHealthResponse = client.admin().cluster().prepareHealth("test").setWaitForGreenStatus().execute().actionGet();
+            if (clusterHealthResponse.isTimedOut()) {
+                System.err.println("--> Timed out waiting for cluster health");
+            }
+
+            StopWatch stopWatch = new StopWatch().start();
+            long COUNT = SizeValue.parseSizeValue("100k").singles();
+            int BATCH = 100;
+            System.out.println("Indexing [" + COUNT + "] documents with [" + TEXT_SIZE + "] chars per field ...");
+            Random random = new Random(0);
+            int idCounter = 0;
+            for (long i = 0; i < COUNT / BATCH; i++) {
+                BulkRequestBuilder request = client.prepareBulk();
+                for (int j = 0; j < BATCH; j++) {
+                    String text = text(random, TEXT_SIZE, WORDS);
+                    request.add(Requests.indexRequest("test").type("type1").id(Integer.toString(idCounter++)).source(jsonBuilder().startObject()
+                            .field("plain", text)
+                            .field("fvh", text)
+                            .field("postings", text)
+                            .endObject()));
+                }
+                BulkResponse response = request.execute().actionGet();
+                if (response.hasFailures()) {
+                    System.err.println("failures...");
+                }
+            }
+            System.out.println("Indexing took " + stopWatch.totalTime());
+
+            client.admin().indices().prepareRefresh().execute().actionGet();
+            System.out.println("Count: " + client.prepareCount().setQuery(matchAllQuery()).execute().actionGet().getCount());
+        } catch (Exception e) {
+            System.out.println("--> Index already exists, ignoring indexing phase, waiting for green");
+            ClusterHealthResponse clusterHealthResponse = client.admin().cluster().prepareHealth().setWaitForGreenStatus().setTimeout("10m").execute().actionGet();
+            if (clusterHealthResponse.isTimedOut()) {
+                System.err.println("--> Timed out waiting for cluster health");
+            }
+            client.admin().indices().prepareRefresh().execute().actionGet();
+            System.out.println("Count: " + client.prepareCount().setQuery(matchAllQuery()).execute().actionGet().getCount());
+        }
+
+        System.out.println("Warming up...");
+        for (String highlighter : HIGHLIGHTERS) {
+            for (int i = 0; i < 50; i++) {
+                search(client, highlighter, word(i % WORDS));
+            }
+        }
+
+        System.out.println("Starting benchmarking highlighters.");
+        for (String highlighter : HIGHLIGHTERS) {
+            long timeTaken = 0;
+            long numHighlights = 0;
+            for (int i = 0; i < SEARCH_ITERS; i++) {
+                SearchResponse response = search(client, highlighter, word((i * 31) % WORDS));
+                timeTaken += response.getTookInMillis();
+                for (int j = 0; j < response.getHits().hits().length; j++) {
+                    if (response.getHits().getAt(j).highlightFields().containsKey(highlighter)) {
+                        numHighlights++;
+                    }
+                }
+            }
+            System.out.println("Avg time taken with [" + highlighter + "] highlighter " + (timeTaken / SEARCH_ITERS) + "ms, highlighted [" + numHighlights + "] hits");
+        }
+
+        client.close();
+        for (Node node : nodes) {
+            node.close();
+        }
+    }
+
+    private static SearchResponse search(Client client, String highlighter, String word) {
+        return client.prepareSearch()
+                .setQuery(termQuery(highlighter, word))
+                .setSize(50)
+                .addHighlightedField(highlighter, 100, 3)
+                .setHighlighterType(highlighter)
+                .execute().actionGet();
+    }
+
+    private static String text(Random random, int size, int words) {
+        StringBuilder sb = new StringBuilder(size + 32);
+        int sentenceLength = 0;
+        while (sb.length() < size) {
+            String word = word(random.nextInt(words));
+            if (sentenceLength == 0) {
+                // sentences have to start with an upper case letter to be detected as such
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sb.append(word);
+            }
+            if (++sentenceLength == 5 + random.nextInt(15)) {
+                sb.append(". ");
+                sentenceLength = 0;
+            } else {
+                sb.append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String word(int i) {
+        return "word" + Integer.toString(i, 36);
+    }
+}
@@ -28,11 +28,13 @@ import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.search.suggest.Suggest.Suggestion.Entry.Option;
 import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.search.suggest.completion.CompletionSuggestionBuilder;
 
 import java.io.IOException;
 import java.util.List;
@@ -151,12 +153,83 @@ public class SuggestSearchBenchMark {
 
         System.out.println("Avg time taken without filter " + (timeTaken / SEARCH_ITERS));
 
+        benchmarkCompletionContext(client, SEARCH_ITERS);
+
         client.close();
         for (Node node : nodes) {
             node.close();
         }
     }
 
+    /**
+     * Compares completion lookups over all inputs with lookups restricted to a category context,
+     * which only traverse the part of the FST that is prefixed with the requested category.
+     */
+    private static void benchmarkCompletionContext(Client client, int searchIters) throws IOException {
+        int CATEGORIES = 100;
+        long COUNT = SizeValue.parseSizeValue("1m").singles();
+        int BATCH = 1000;
+        try {
+            client.admin().indices().prepareCreate("test_completion").addMapping("type1", XContentFactory.jsonBuilder().startObject().startObject("type1")
+                    .startObject("_source").field("enabled", false).endObject()
+                    .startObject("properties")
+                    .startObject("suggest").field("type", "completion")
+                    .startObject("context").startObject("category").field("type", "category").endObject().endObject()
+                    .endObject()
+                    .endObject()
+                    .endObject().endObject()).execute().actionGet();
+            client.admin().cluster().prepareHealth("test_completion").setWaitForGreenStatus().execute().actionGet();
+
+            StopWatch stopWatch = new StopWatch().start();
+            System.out.println("Indexing [" + COUNT + "] completion inputs in [" + CATEGORIES + "] categories ...");
+            int idCounter = 0;
+            for (long i = 0; i < COUNT / BATCH; i++) {
+                BulkRequestBuilder request = client.prepareBulk();
+                for (int j = 0; j < BATCH; j++) {
+                    int id = idCounter++;
+                    request.add(Requests.indexRequest("test_completion").type("type1").id(Integer.toString(id)).source(jsonBuilder().startObject()
+                            .startObject("suggest")
+                            .field("input", "prefix" + (char) ('a' + id % 26) + id)
+                            .field("weight", id % 1000)
+                            .startObject("context").field("category", "category" + (id % CATEGORIES)).endObject()
+                            .endObject()
+                            .endObject()));
+                }
+                BulkResponse response = request.execute().actionGet();
+                if (response.hasFailures()) {
+                    System.err.println("failures...");
+                }
+            }
+            System.out.println("Indexing took " + stopWatch.totalTime());
+        } catch (Exception e) {
+            System.out.println("--> Completion index already exists, ignoring indexing phase");
+        }
+        client.admin().indices().prepareRefresh("test_completion").execute().actionGet();
+
+        for (int run = 0; run < 2; run++) { // first run warms up
+            long withoutContext = 0;
+            long withContext = 0;
+            for (int i = 0; i < searchIters; i++) {
+                String term = "prefix" + (char) ('a' + i % 26);
+                long start = System.nanoTime();
+                client.prepareSuggest("test_completion")
+                        .addSuggestion(new CompletionSuggestionBuilder("suggest").field("suggest").text(term).size(10))
+                        .execute().actionGet();
+                withoutContext += System.nanoTime() - start;
+                start = System.nanoTime();
+                client.prepareSuggest("test_completion")
+                        .addSuggestion(new CompletionSuggestionBuilder("suggest").field("suggest").text(term).size(10)
+                                .addCategory("category", "category" + (i % CATEGORIES)))
+                        .execute().actionGet();
+                withContext += System.nanoTime() - start;
+            }
+            if (run == 1) {
+                System.out.println("Avg completion time taken without context " + TimeValue.timeValueNanos(withoutContext / searchIters));
+                System.out.println("Avg completion time taken with context " + TimeValue.timeValueNanos(withContext / searchIters));
+            }
+        }
+    }
+
     private static XContentBuilder source(String nameValue) throws IOException {
         return jsonBuilder().startObject()
                 .field("field", nameValue)
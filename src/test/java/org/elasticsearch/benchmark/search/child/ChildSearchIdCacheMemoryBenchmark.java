@@ -0,0 +1,170 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.child;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.node.Node;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.elasticsearch.client.Requests.createIndexRequest;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.*;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Reports the memory used by the id cache per parent/child document, and the heap used while running parent/child
+ * queries, for uuid-like ids spread over many segments.
+ */
+public class ChildSearchIdCacheMemoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = settingsBuilder()
+                .put("index.engine.robin.refreshInterval", "-1")
+                .put("gateway.type", "local")
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        Node node1 = nodeBuilder().clusterName("bench1").settings(settingsBuilder().put(settings).put("name", "node1")).node();
+        Client client = node1.client();
+
+        long PARENT_COUNT = SizeValue.parseSizeValue("1M").singles();
+        int CHILDREN_PER_PARENT = 5;
+        int BATCH = 100;
+        // refresh regularly so that the ids are spread over many segments
+        int REFRESH_EVERY = 100000;
+        int QUERY_WARMUP = 10;
+        int QUERY_COUNT = 20;
+        String indexName = "test";
+
+        client.admin().cluster().prepareHealth(indexName).setWaitForGreenStatus().setTimeout("10s").execute().actionGet();
+        try {
+            client.admin().indices().create(createIndexRequest(indexName)).actionGet();
+            client.admin().indices().preparePutMapping(indexName).setType("child").setSource(XContentFactory.jsonBuilder().startObject().startObject("child")
+                    .startObject("_parent").field("type", "parent").endObject()
+                    .endObject().endObject()).execute().actionGet();
+            Thread.sleep(5000);
+
+            StopWatch stopWatch = new StopWatch().start();
+
+            System.out.println("--> Indexing [" + PARENT_COUNT + "] parent documents with [" + CHILDREN_PER_PARENT + "] child documents each");
+            long ITERS = PARENT_COUNT / BATCH;
+            int childId = 0;
+            for (int i = 1; i <= ITERS; i++) {
+                BulkRequestBuilder request = client.prepareBulk();
+                for (int j = 0; j < BATCH; j++) {
+                    String parentId = UUID.randomUUID().toString();
+                    request.add(Requests.indexRequest(indexName).type("parent").id(parentId).source(parentSource(parentId)));
+                    for (int k = 0; k < CHILDREN_PER_PARENT; k++) {
+                        request.add(Requests.indexRequest(indexName).type("child").id(Integer.toString(childId++)).parent(parentId)
+                                .source(childSource(k)));
+                    }
+                }
+                BulkResponse response = request.execute().actionGet();
+                if (response.hasFailures()) {
+                    System.err.println("--> failures...");
+                }
+                if (((i * BATCH) % REFRESH_EVERY) == 0) {
+                    client.admin().indices().prepareRefresh(indexName).execute().actionGet();
+                    System.out.println("--> Indexed " + (i * BATCH) + " parent docs; took " + stopWatch.stop().lastTaskTime());
+                    stopWatch.start();
+                }
+            }
+            System.out.println("--> Indexing took " + stopWatch.totalTime());
+        } catch (Exception e) {
+            System.out.println("--> Index already exists, ignoring indexing phase, waiting for green");
+            ClusterHealthResponse clusterHealthResponse = client.admin().cluster().prepareHealth(indexName).setWaitForGreenStatus().setTimeout("10m").execute().actionGet();
+            if (clusterHealthResponse.isTimedOut()) {
+                System.err.println("--> Timed out waiting for cluster health");
+            }
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        long docCount = client.prepareCount(indexName).setQuery(matchAllQuery()).execute().actionGet().getCount();
+        System.out.println("--> Number of docs in index: " + docCount);
+        System.out.println("--> Number of segments: " + client.admin().indices().prepareSegments(indexName).execute().actionGet()
+                .getIndices().get(indexName).getShards().values().iterator().next().getShards()[0].getSegments().size());
+
+        client.admin().indices().prepareClearCache(indexName).setIdCache(true).execute().actionGet();
+        System.gc();
+        printStats(client, "before loading", docCount);
+
+        for (String scoreType : new String[]{"max", "sum", "avg"}) {
+            runQueries(client, indexName, "has_child [" + scoreType + "]", QUERY_WARMUP, QUERY_COUNT,
+                    hasChildQuery("child", termQuery("field2", "1")).scoreType(scoreType));
+            printStats(client, "after has_child [" + scoreType + "]", docCount);
+        }
+        runQueries(client, indexName, "has_parent [score]", QUERY_WARMUP, QUERY_COUNT,
+                hasParentQuery("parent", matchAllQuery()).scoreType("score"));
+        printStats(client, "after has_parent", docCount);
+
+        client.close();
+        node1.close();
+    }
+
+    private static void runQueries(Client client, String indexName, String name, int warmup, int count, QueryBuilder query) {
+        for (int j = 0; j < warmup; j++) {
+            SearchResponse searchResponse = client.prepareSearch(indexName).setQuery(query).execute().actionGet();
+            if (searchResponse.getFailedShards() > 0) {
+                System.err.println("Search Failures " + Arrays.toString(searchResponse.getShardFailures()));
+            }
+        }
+        long totalQueryTime = 0;
+        for (int j = 0; j < count; j++) {
+            SearchResponse searchResponse = client.prepareSearch(indexName).setQuery(query).execute().actionGet();
+            totalQueryTime += searchResponse.getTookInMillis();
+        }
+        System.out.println("--> " + name + " Avg: " + (totalQueryTime / count) + "ms");
+    }
+
+    private static void printStats(Client client, String phase, long docCount) {
+        NodesStatsResponse statsResponse = client.admin().cluster().prepareNodesStats()
+                .setJvm(true).setIndices(true).execute().actionGet();
+        ByteSizeValue idCacheSize = statsResponse.getNodes()[0].getIndices().getIdCache().getMemorySize();
+        System.out.println("--> Id cache size " + phase + ": " + idCacheSize + " (" + (idCacheSize.bytes() / Math.max(1, docCount)) + " bytes per doc)");
+        System.out.println("--> Used heap size " + phase + ": " + statsResponse.getNodes()[0].getJvm().getMem().getHeapUsed());
+    }
+
+    private static XContentBuilder parentSource(String id) throws IOException {
+        return jsonBuilder().startObject().field("field1", id).endObject();
+    }
+
+    private static XContentBuilder childSource(int val) throws IOException {
+        return jsonBuilder().startObject().field("field2", Integer.toString(val)).endObject();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.facet;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.util.BigDoubleArrayList;
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.elasticsearch.index.fielddata.plain.DoubleArrayAtomicFieldData;
+import org.elasticsearch.index.fielddata.plain.PackedArrayAtomicFieldData;
+import org.elasticsearch.search.facet.DoubleFacetAggregatorBase;
+import org.elasticsearch.search.facet.histogram.CountHistogramFacetExecutor;
+import org.elasticsearch.search.facet.statistical.StatisticalFacetExecutor;
+
+import java.util.Random;
+
+/**
+ * Compares collecting numeric facets one doc at a time with collecting them in blocks of
+ * {@link DoubleFacetAggregatorBase#BLOCK_SIZE} docs, for all docs and for a sparse subset of the docs.
+ */
+public class BlockFacetCollectionBenchmark {
+
+    static final int NUM_DOCS = 5000000;
+    static final int ITERS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(0);
+
+        PackedInts.Mutable packed = PackedInts.getMutable(NUM_DOCS, PackedInts.bitsRequired(100000), PackedInts.COMPACT);
+        BigDoubleArrayList doubles = new BigDoubleArrayList(NUM_DOCS);
+        for (int i = 0; i < NUM_DOCS; i++) {
+            long value = random.nextInt(100000);
+            packed.set(i, value);
+            doubles.add(value);
+        }
+        DoubleValues packedValues = new PackedArrayAtomicFieldData.Single(packed, 0, 100000, NUM_DOCS, 100000).getDoubleValues();
+        DoubleValues doubleValues = new DoubleArrayAtomicFieldData.Single(doubles, NUM_DOCS, 100000).getDoubleValues();
+
+        int[] allDocs = new int[NUM_DOCS];
+        for (int i = 0; i < NUM_DOCS; i++) {
+            allDocs[i] = i;
+        }
+        int numSparseDocs = 0;
+        int[] sparseDocs = new int[NUM_DOCS];
+        for (int i = 0; i < NUM_DOCS; i++) {
+            if (random.nextInt(10) == 0) {
+                sparseDocs[numSparseDocs++] = i;
+            }
+        }
+
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up the JIT
+            System.out.println("--> round " + round);
+            run("packed, all docs", packedValues, allDocs, NUM_DOCS);
+            run("packed, 10% docs", packedValues, sparseDocs, numSparseDocs);
+            run("double, all docs", doubleValues, allDocs, NUM_DOCS);
+            run("double, 10% docs", doubleValues, sparseDocs, numSparseDocs);
+        }
+    }
+
+    static void run(String name, DoubleValues values, int[] docs, int numDocs) {
+        for (boolean buffered : new boolean[]{false, true}) {
+            StopWatch stopWatch = new StopWatch().start();
+            long check = 0;
+            for (int iter = 0; iter < ITERS; iter++) {
+                check += (long) collect(new StatisticalFacetExecutor.StatsProc(), values, docs, numDocs, buffered).max();
+            }
+            System.out.println("--> [" + name + "] statistical " + (buffered ? "buffered" : "per doc") + ": " + (stopWatch.stop().totalTime().millis() / ITERS) + "ms (" + check + ")");
+
+            stopWatch = new StopWatch().start();
+            check = 0;
+            for (int iter = 0; iter < ITERS; iter++) {
+                check += collect(new CountHistogramFacetExecutor.HistogramProc(1000, new TLongLongHashMap()), values, docs, numDocs, buffered).counts().size();
+            }
+            System.out.println("--> [" + name + "] histogram " + (buffered ? "buffered" : "per doc") + ": " + (stopWatch.stop().totalTime().millis() / ITERS) + "ms (" + check + ")");
+        }
+    }
+
+    static <T extends DoubleFacetAggregatorBase> T collect(T proc, DoubleValues values, int[] docs, int numDocs, boolean buffered) {
+        if (buffered) {
+            for (int i = 0; i < numDocs; i++) {
+                proc.onDocBuffered(docs[i], values);
+            }
+            proc.flush();
+        } else {
+            for (int i = 0; i < numDocs; i++) {
+                proc.onDoc(docs[i], values);
+            }
+        }
+        return proc;
+    }
+}
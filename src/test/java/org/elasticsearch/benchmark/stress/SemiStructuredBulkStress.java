@@ -0,0 +1,138 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.stress;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.node.Node;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Indexes log like documents that carry large unmapped payloads next to a few mapped fields, in
+ * order to measure the document parsing overhead of content that is not indexed. Set
+ * <tt>es.dynamic</tt> to <tt>true</tt> to compare with indexing the payloads dynamically.
+ */
+public class SemiStructuredBulkStress {
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(0);
+
+        int shardsCount = Integer.parseInt(System.getProperty("es.shards", "1"));
+        int replicaCount = Integer.parseInt(System.getProperty("es.replica", "0"));
+        String dynamic = System.getProperty("es.dynamic", "false");
+
+        Settings settings = settingsBuilder()
+                .put("index.refresh_interval", "1s")
+                .put("index.merge.async", true)
+                .put("index.translog.flush_threshold_ops", 5000)
+                .put("gateway.type", "none")
+                .put(SETTING_NUMBER_OF_SHARDS, shardsCount)
+                .put(SETTING_NUMBER_OF_REPLICAS, replicaCount)
+                .build();
+
+        Node[] nodes = new Node[1];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node" + i)).node();
+        }
+
+        Node client = nodes[0];
+
+        Client client1 = client.client();
+
+        Thread.sleep(1000);
+        client1.admin().indices().prepareCreate("test").setSettings(settings).addMapping("type1", XContentFactory.jsonBuilder().startObject().startObject("type1")
+                .field("dynamic", dynamic)
+                .startObject("_all").field("enabled", false).endObject()
+                .startObject("properties")
+                .startObject("timestamp").field("type", "date").endObject()
+                .startObject("level").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("message").field("type", "string").endObject()
+                .endObject()
+                .endObject().endObject()).execute().actionGet();
+        Thread.sleep(5000);
+
+        StopWatch stopWatch = new StopWatch().start();
+        long COUNT = SizeValue.parseSizeValue("1m").singles();
+        int BATCH = 500;
+        System.out.println("Indexing [" + COUNT + "] with dynamic [" + dynamic + "] ...");
+        long ITERS = COUNT / BATCH;
+        long i = 1;
+        int counter = 0;
+        for (; i <= ITERS; i++) {
+            BulkRequestBuilder request = client1.prepareBulk();
+            for (int j = 0; j < BATCH; j++) {
+                counter++;
+                request.add(Requests.indexRequest("test").type("type1").id(Integer.toString(counter)).source(source(random, counter)));
+            }
+            BulkResponse response = request.execute().actionGet();
+            if (response.hasFailures()) {
+                System.err.println("failures...");
+            }
+            if (((i * BATCH) % 10000) == 0) {
+                System.out.println("Indexed " + (i * BATCH) + " took " + stopWatch.stop().lastTaskTime());
+                stopWatch.start();
+            }
+        }
+        System.out.println("Indexing took " + stopWatch.totalTime() + ", TPS " + (((double) COUNT) / stopWatch.totalTime().secondsFrac()));
+
+        client.client().admin().indices().prepareRefresh().execute().actionGet();
+        System.out.println("Count: " + client.client().prepareCount().setQuery(matchAllQuery()).execute().actionGet().getCount());
+
+        client.close();
+
+        for (Node node : nodes) {
+            node.close();
+        }
+    }
+
+    private static XContentBuilder source(Random random, int counter) throws IOException {
+        XContentBuilder builder = jsonBuilder().startObject()
+                .field("timestamp", System.currentTimeMillis())
+                .field("level", random.nextInt(10) == 0 ? "ERROR" : "INFO")
+                .field("message", "request " + counter + " handled");
+        // the unmapped payload, the same fields in every document so a dynamic mapping settles quickly
+        builder.startArray("headers");
+        for (int i = 0; i < 20; i++) {
+            builder.startObject().field("name", "header" + i).field("value", random.nextInt()).endObject();
+        }
+        builder.endArray();
+        builder.startArray("timings");
+        for (int i = 0; i < 50; i++) {
+            builder.value(random.nextInt(1000));
+        }
+        builder.endArray();
+        return builder.endObject();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.action.index;
+
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.ElasticsearchTestCase;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.compress.CompressedString;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.transport.local.LocalTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class MappingUpdatedActionTests extends ElasticsearchTestCase {
+
+    private ThreadPool threadPool;
+    private TransportService transportService;
+    private RecordingMappingUpdatedAction action;
+
+    @Before
+    public void createAction() {
+        threadPool = new ThreadPool();
+        transportService = new TransportService(new LocalTransport(ImmutableSettings.EMPTY, threadPool, Version.CURRENT), threadPool);
+        action = new RecordingMappingUpdatedAction(transportService, threadPool);
+    }
+
+    @After
+    public void closeAction() {
+        transportService.close();
+        threadPool.shutdown();
+    }
+
+    @Test
+    public void testConcurrentIdenticalUpdatesAreSentOnce() throws Exception {
+        final CompressedString mapping = new CompressedString("{\"type\":{\"properties\":{\"field\":{\"type\":\"string\"}}}}");
+        RecordingListener[] listeners = updateConcurrently(mapping, 2);
+        assertThat(action.sent.size(), equalTo(1));
+
+        action.sent.get(0).onResponse(new MappingUpdatedAction.MappingUpdatedResponse());
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.responses.get(), equalTo(1));
+            assertThat(listener.failure.get(), nullValue());
+        }
+
+        // the update is not pending anymore, the same mapping is sent again
+        RecordingListener listener = new RecordingListener();
+        action.updateMappingOnMaster("test", "type", mapping, listener);
+        assertThat(action.sent.size(), equalTo(2));
+    }
+
+    @Test
+    public void testConcurrentIdenticalUpdatesAllFail() throws Exception {
+        final CompressedString mapping = new CompressedString("{\"type\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}");
+        RecordingListener[] listeners = updateConcurrently(mapping, 2);
+        assertThat(action.sent.size(), equalTo(1));
+
+        ElasticSearchException failure = new ElasticSearchException("failed to update the mapping");
+        action.sent.get(0).onFailure(failure);
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.responses.get(), equalTo(0));
+            assertThat(listener.failure.get(), sameInstance((Throwable) failure));
+        }
+    }
+
+    @Test
+    public void testDifferentUpdatesAreSentSeparately() throws Exception {
+        RecordingListener first = new RecordingListener();
+        action.updateMappingOnMaster("test", "type", new CompressedString("{\"type\":{\"properties\":{\"a\":{\"type\":\"string\"}}}}"), first);
+        RecordingListener second = new RecordingListener();
+        action.updateMappingOnMaster("test", "type", new CompressedString("{\"type\":{\"properties\":{\"b\":{\"type\":\"string\"}}}}"), second);
+        RecordingListener otherType = new RecordingListener();
+        action.updateMappingOnMaster("test", "other", new CompressedString("{\"other\":{\"properties\":{\"b\":{\"type\":\"string\"}}}}"), otherType);
+        assertThat(action.sent.size(), equalTo(3));
+
+        // completing the first update doesn't complete the newer pending update of the same type
+        action.sent.get(0).onResponse(new MappingUpdatedAction.MappingUpdatedResponse());
+        assertThat(first.responses.get(), equalTo(1));
+        assertThat(second.responses.get(), equalTo(0));
+        RecordingListener third = new RecordingListener();
+        action.updateMappingOnMaster("test", "type", new CompressedString("{\"type\":{\"properties\":{\"b\":{\"type\":\"string\"}}}}"), third);
+        assertThat(action.sent.size(), equalTo(3));
+
+        action.sent.get(1).onResponse(new MappingUpdatedAction.MappingUpdatedResponse());
+        assertThat(second.responses.get(), equalTo(1));
+        assertThat(third.responses.get(), equalTo(1));
+        assertThat(otherType.responses.get(), equalTo(0));
+    }
+
+    private RecordingListener[] updateConcurrently(final CompressedString mapping, int numShards) throws Exception {
+        final RecordingListener[] listeners = new RecordingListener[numShards];
+        final CyclicBarrier barrier = new CyclicBarrier(numShards);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[numShards];
+        for (int i = 0; i < numShards; i++) {
+            final RecordingListener listener = listeners[i] = new RecordingListener();
+            // each shard parses its own copy of the mapping source
+            final CompressedString shardMapping = new CompressedString(mapping.string());
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        action.updateMappingOnMaster("test", "type", shardMapping, listener);
+                    } catch (Throwable t) {
+                        error.set(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(error.get(), nullValue());
+        return listeners;
+    }
+
+    static class RecordingMappingUpdatedAction extends MappingUpdatedAction {
+
+        final List<ActionListener<MappingUpdatedResponse>> sent = new CopyOnWriteArrayList<ActionListener<MappingUpdatedResponse>>();
+
+        RecordingMappingUpdatedAction(TransportService transportService, ThreadPool threadPool) {
+            super(ImmutableSettings.EMPTY, transportService, null, threadPool, null);
+        }
+
+        @Override
+        public void execute(MappingUpdatedRequest request, ActionListener<MappingUpdatedResponse> listener) {
+            // instead of sending the request to the master
+            sent.add(listener);
+        }
+    }
+
+    static class RecordingListener implements ActionListener<MappingUpdatedAction.MappingUpdatedResponse> {
+
+        final AtomicInteger responses = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        @Override
+        public void onResponse(MappingUpdatedAction.MappingUpdatedResponse response) {
+            responses.incrementAndGet();
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            failure.set(e);
+        }
+    }
+}
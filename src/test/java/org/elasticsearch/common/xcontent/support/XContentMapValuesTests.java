@@ -199,6 +199,39 @@ public class XContentMapValuesTests {
         assertThat(XContentMapValues.extractRawValues("path1.xxx.path2.yyy.test", map).get(0).toString(), equalTo("value"));
     }
 
+    @Test
+    public void testExtractFromParser() throws Exception {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+                .field("test", "value")
+                .nullField("empty")
+                .field("number", 5)
+                .startObject("path1").startObject("path2").field("test", "value").field("other", 1.5).endObject().endObject()
+                .startObject("path1.xxx").startObject("path2.yyy").field("test", "value").endObject().endObject()
+                .field("path3.test", "dotted")
+                .startObject("path3").field("test", "nested").endObject()
+                .startObject("path4").field("list", "value1", "value2").endObject()
+                .startArray("path5")
+                .startObject().field("test", "value1").startArray("inner").value(1).nullValue().value(2).endArray().endObject()
+                .nullValue()
+                .startObject().field("test", "value2").endObject()
+                .startArray().startObject().field("test", "value3").endObject().endArray()
+                .value("scalar")
+                .endArray()
+                .startObject("last").field("test", "value").endObject()
+                .endObject();
+
+        Map<String, Object> map = XContentFactory.xContent(XContentType.JSON).createParser(builder.string()).mapAndClose();
+        String[] paths = new String[]{"test", "test.me", "empty", "empty.test", "number", "path1", "path1.path2", "path1.path2.test",
+                "path1.path2.other", "path1.non_path2.test", "path1.xxx.path2.yyy.test", "path1.xxx.path2", "path3.test", "path4.list",
+                "path5", "path5.test", "path5.inner", "path5.missing", "last.test", "missing", "something.else.2"};
+        for (String path : paths) {
+            assertThat(path, XContentMapValues.extractValue(path, XContentFactory.xContent(XContentType.JSON).createParser(builder.string())),
+                    equalTo(XContentMapValues.extractValue(path, map)));
+            assertThat(path, XContentMapValues.extractRawValues(path, XContentFactory.xContent(XContentType.JSON).createParser(builder.string())),
+                    equalTo(XContentMapValues.extractRawValues(path, map)));
+        }
+    }
+
     @Test
     public void testThatFilteringWithNestedArrayAndExclusionWorks() throws Exception {
         XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
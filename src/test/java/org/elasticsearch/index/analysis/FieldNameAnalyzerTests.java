@@ -0,0 +1,66 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.analysis;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.elasticsearch.ElasticSearchTokenStreamTestCase;
+import org.elasticsearch.common.lucene.Lucene;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class FieldNameAnalyzerTests extends ElasticSearchTokenStreamTestCase {
+
+    @Test
+    public void testComponentsAreReusedAcrossInstances() throws Exception {
+        NamedAnalyzer standard = new NamedAnalyzer("standard", new StandardAnalyzer(Lucene.ANALYZER_VERSION));
+        NamedAnalyzer keyword = new NamedAnalyzer("keyword", new KeywordAnalyzer());
+        ImmutableMap<String, Analyzer> analyzers = ImmutableMap.<String, Analyzer>of("field1", keyword, "field2", standard);
+
+        for (int i = 0; i < 3; i++) {
+            // a new instance per document, like when the analyzer is resolved from a path
+            FieldNameAnalyzer fieldNameAnalyzer = new FieldNameAnalyzer(analyzers, standard);
+            assertTokenStreamContents(fieldNameAnalyzer.tokenStream("field1", "Quick Fox"), new String[]{"Quick Fox"});
+            assertTokenStreamContents(fieldNameAnalyzer.tokenStream("field2", "Quick Fox"), new String[]{"quick", "fox"});
+            assertTokenStreamContents(fieldNameAnalyzer.tokenStream("field3", "Lazy Dog"), new String[]{"lazy", "dog"});
+        }
+        assertTokenStreamContents(standard.tokenStream("field2", "Brown"), new String[]{"brown"});
+
+        assertThat(keyword.componentsCreated(), equalTo(1l));
+        assertThat(standard.componentsCreated(), equalTo(1l));
+    }
+
+    @Test
+    public void testPerFieldReuseOfUnnamedAnalyzers() throws Exception {
+        ImmutableMap<String, Analyzer> analyzers = ImmutableMap.<String, Analyzer>of("field1", new WhitespaceAnalyzer(Lucene.ANALYZER_VERSION));
+        FieldNameAnalyzer fieldNameAnalyzer = new FieldNameAnalyzer(analyzers, new KeywordAnalyzer());
+        for (int i = 0; i < 2; i++) {
+            assertTokenStreamContents(fieldNameAnalyzer.tokenStream("field1", "Quick Fox"), new String[]{"Quick", "Fox"});
+            assertTokenStreamContents(fieldNameAnalyzer.tokenStream("field2", "Quick Fox"), new String[]{"Quick Fox"});
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.fixedbitset;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.ElasticsearchTestCase;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.mapper.internal.TypeFieldMapper;
+import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class FixedBitSetFilterCacheTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testCachedPerSegmentUntilClosed() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION)));
+        // a block of two nested docs followed by their root doc, and a root doc without nested docs
+        writer.addDocuments(Arrays.asList(doc("__comments"), doc("__comments"), doc("post")));
+        writer.addDocument(doc("post"));
+        writer.close();
+
+        DirectoryReader reader = DirectoryReader.open(writer.getDirectory());
+        AtomicReaderContext context = reader.leaves().get(0);
+
+        FixedBitSetFilterCache cache = new FixedBitSetFilterCache(new Index("test"), ImmutableSettings.EMPTY);
+        FixedBitSetFilter parentFilter = cache.getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE);
+        FixedBitSet parentDocs = parentFilter.getDocIdSet(context, null);
+        assertThat(parentDocs.cardinality(), equalTo(2));
+        assertThat(parentDocs.get(2), equalTo(true));
+        assertThat(parentDocs.get(3), equalTo(true));
+
+        // the same bit set is returned, also through another wrapper of the same filter
+        assertThat(parentFilter.getDocIdSet(context, null), sameInstance(parentDocs));
+        assertThat(cache.getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE).getDocIdSet(context, null), sameInstance(parentDocs));
+        assertThat(cache.getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE), equalTo(parentFilter));
+
+        // the bit set is dropped once the segment is closed
+        assertThat(cache.loadedFilters.size(), equalTo(1));
+        reader.close();
+        assertThat(cache.loadedFilters.size(), equalTo(0));
+    }
+
+    private Document doc(String type) {
+        Document document = new Document();
+        document.add(new StringField(TypeFieldMapper.NAME, type, Field.Store.NO));
+        return document;
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.*;
 import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.HashedBytesArray;
@@ -64,6 +65,7 @@ import java.util.Locale;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  */
@@ -220,6 +222,53 @@ public class SimpleIdCacheTests {
         assertThat(typeCache.docById(new HashedBytesArray(Strings.toUTF8Bytes("8"))), equalTo(4));
     }
 
+    @Test
+    public void testParentOrdinals() throws Exception {
+        SimpleIdCache idCache = createSimpleIdCache(Tuple.tuple("child", "parent"));
+        IndexWriter writer = createIndexWriter();
+        writer.addDocument(doc("parent", "1"));
+        writer.addDocument(childDoc("child", "1", "parent", "1"));
+        writer.addDocument(childDoc("child", "2", "parent", "3"));
+        writer.commit();
+
+        writer.addDocument(doc("parent", "2"));
+        writer.addDocument(doc("parent", "3"));
+        writer.addDocument(childDoc("child", "3", "parent", "1"));
+        writer.commit();
+
+        writer.close();
+        DirectoryReader topLevelReader = DirectoryReader.open(writer.getDirectory());
+        List<AtomicReaderContext> leaves = topLevelReader.getContext().leaves();
+        idCache.refresh(leaves);
+        assertThat(leaves.size(), equalTo(2));
+
+        // Segment ordinals are shared by parent and child docs, 0 stands for no id
+        IdReaderTypeCache typeCache = idCache.reader(leaves.get(0).reader()).type("parent");
+        assertThat(typeCache.numOrds(), equalTo(3));
+        assertThat(typeCache.idOrdByDoc(0), equalTo(1));
+        assertThat(typeCache.idOrdByDoc(1), equalTo(0));
+        assertThat(typeCache.parentIdOrdByDoc(0), equalTo(0));
+        assertThat(typeCache.parentIdOrdByDoc(1), equalTo(1));
+        assertThat(typeCache.parentIdOrdByDoc(2), equalTo(2));
+        assertThat(typeCache.idByOrd(2, new BytesRef()).utf8ToString(), equalTo("3"));
+        assertThat(typeCache.docById(new HashedBytesArray(Strings.toUTF8Bytes("3"))), equalTo(-1));
+
+        ParentOrdinals ordinals = idCache.parentOrdinals(topLevelReader, "parent");
+        assertThat(ordinals.numOrds(), equalTo(4));
+        assertThat(ordinals.shardOrd(0, 0), equalTo(0));
+        assertThat(ordinals.shardOrd(0, typeCache.idOrdByDoc(0)), equalTo(1));
+        assertThat(ordinals.shardOrd(0, typeCache.parentIdOrdByDoc(2)), equalTo(3));
+
+        typeCache = idCache.reader(leaves.get(1).reader()).type("parent");
+        assertThat(typeCache.numOrds(), equalTo(4));
+        assertThat(ordinals.shardOrd(1, typeCache.idOrdByDoc(0)), equalTo(2));
+        assertThat(ordinals.shardOrd(1, typeCache.idOrdByDoc(1)), equalTo(3));
+        assertThat(ordinals.shardOrd(1, typeCache.parentIdOrdByDoc(2)), equalTo(1));
+
+        assertThat(idCache.parentOrdinals(topLevelReader, "parent"), sameInstance(ordinals));
+        topLevelReader.close();
+    }
+
     @Test(expected = AssertionError.class)
     public void testRefresh_tripAssert() throws Exception {
         SimpleIdCache idCache = createSimpleIdCache(Tuple.tuple("child", "parent"));
@@ -74,6 +74,13 @@ public abstract class AbstractNumericFieldDataTests extends AbstractFieldDataImp
         assertThat(longValuesIter.next(), equalTo(3l));
         assertThat(longValuesIter.hasNext(), equalTo(false));
 
+        int[] docs = new int[]{0, 1, 2};
+        long[] longs = new long[3];
+        assertThat(longValues.getValues(docs, 3, longs), equalTo(3));
+        assertThat(longs[0], equalTo(2l));
+        assertThat(longs[1], equalTo(1l));
+        assertThat(longs[2], equalTo(3l));
+
         DoubleValues doubleValues = fieldData.getDoubleValues();
 
         assertThat(doubleValues.isMultiValued(), equalTo(false));
@@ -105,6 +112,13 @@ public abstract class AbstractNumericFieldDataTests extends AbstractFieldDataImp
         assertThat(doubleValuesIter.next(), equalTo(3d));
         assertThat(doubleValuesIter.hasNext(), equalTo(false));
 
+        docs = new int[]{0, 1, 2};
+        double[] doubles = new double[3];
+        assertThat(doubleValues.getValues(docs, 3, doubles), equalTo(3));
+        assertThat(doubles[0], equalTo(2d));
+        assertThat(doubles[1], equalTo(1d));
+        assertThat(doubles[2], equalTo(3d));
+
         IndexSearcher searcher = new IndexSearcher(readerContext.reader());
         TopFieldDocs topDocs;
 
@@ -159,6 +173,14 @@ public abstract class AbstractNumericFieldDataTests extends AbstractFieldDataImp
         assertThat(longValuesIter.next(), equalTo(3l));
         assertThat(longValuesIter.hasNext(), equalTo(false));
 
+        int[] docs = new int[]{0, 1, 2};
+        long[] longs = new long[3];
+        assertThat(longValues.getValues(docs, 3, longs), equalTo(2));
+        assertThat(docs[0], equalTo(0));
+        assertThat(docs[1], equalTo(2));
+        assertThat(longs[0], equalTo(2l));
+        assertThat(longs[1], equalTo(3l));
+
         DoubleValues doubleValues = fieldData.getDoubleValues();
 
         assertThat(doubleValues.isMultiValued(), equalTo(false));
@@ -187,6 +209,14 @@ public abstract class AbstractNumericFieldDataTests extends AbstractFieldDataImp
         assertThat(doubleValuesIter.next(), equalTo(3d));
         assertThat(doubleValuesIter.hasNext(), equalTo(false));
 
+        docs = new int[]{0, 1, 2};
+        double[] doubles = new double[3];
+        assertThat(doubleValues.getValues(docs, 3, doubles), equalTo(2));
+        assertThat(docs[0], equalTo(0));
+        assertThat(docs[1], equalTo(2));
+        assertThat(doubles[0], equalTo(2d));
+        assertThat(doubles[1], equalTo(3d));
+
         IndexSearcher searcher = new IndexSearcher(readerContext.reader());
         TopFieldDocs topDocs;
 
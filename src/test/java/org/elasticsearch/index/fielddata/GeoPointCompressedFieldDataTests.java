@@ -0,0 +1,180 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.fielddata;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.elasticsearch.common.geo.GeoDistance;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.geo.GeoUtils;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.fielddata.plain.GeoPointCompressedAtomicFieldData;
+import org.elasticsearch.index.fielddata.plain.GeoPointCompressedIndexFieldData.Encoding;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class GeoPointCompressedFieldDataTests extends AbstractFieldDataTests {
+
+    @Override
+    protected FieldDataType getFieldDataType() {
+        return new FieldDataType("geo_point", ImmutableSettings.builder().put("format", "compressed").put("precision", "1m"));
+    }
+
+    @Test
+    public void testEncoding() {
+        assertThat(Encoding.of(DistanceUnit.Distance.parseDistance("1cm", DistanceUnit.METERS)).bitsPerCoordinate(), equalTo(32));
+        assertThat(Encoding.of(DistanceUnit.Distance.parseDistance("1m", DistanceUnit.METERS)).bitsPerCoordinate(), equalTo(25));
+        assertThat(Encoding.of(DistanceUnit.Distance.parseDistance("1km", DistanceUnit.METERS)).bitsPerCoordinate(), equalTo(15));
+
+        for (String precision : new String[] {"1mm", "1cm", "1m", "100m", "1km"}) {
+            final double meters = DistanceUnit.Distance.parseDistance(precision, DistanceUnit.METERS).convert(DistanceUnit.METERS).value;
+            final Encoding encoding = Encoding.of(DistanceUnit.Distance.parseDistance(precision, DistanceUnit.METERS));
+            assertThat(encoding.precisionInMeters(), lessThanOrEqualTo(meters));
+            assertThat(encoding.decodeLat(encoding.encodeLat(-90)), equalTo(-90d));
+            assertThat(encoding.decodeLon(encoding.encodeLon(-180)), equalTo(-180d));
+            assertThat(encoding.decodeLat(encoding.encodeLat(90)), closeTo(90d, 1e-9));
+            assertThat(encoding.decodeLon(encoding.encodeLon(180)), closeTo(180d, 1e-9));
+            for (int i = 0; i < 1000; ++i) {
+                final double lat = -90 + 180 * getRandom().nextDouble();
+                final double lon = -180 + 360 * getRandom().nextDouble();
+                final double decodedLat = encoding.decodeLat(encoding.encodeLat(lat));
+                final double decodedLon = encoding.decodeLon(encoding.encodeLon(lon));
+                // the length of a degree is at most the length of a degree along the equator
+                final double errorInMeters = Math.hypot(decodedLat - lat, decodedLon - lon) * GeoUtils.EARTH_EQUATOR / 360;
+                assertThat(errorInMeters, lessThanOrEqualTo(meters));
+            }
+        }
+    }
+
+    @Test
+    public void testSingleValueAllSet() throws Exception {
+        final GeoPoint[] points = new GeoPoint[100];
+        for (int i = 0; i < points.length; ++i) {
+            points[i] = randomPoint();
+            Document d = new Document();
+            d.add(new StringField("value", toTerm(points[i]), Field.Store.NO));
+            writer.addDocument(d);
+        }
+        IndexGeoPointFieldData<?> indexFieldData = getForField("value");
+        AtomicGeoPointFieldData<?> fieldData = indexFieldData.load(refreshReader());
+        assertThat(fieldData, instanceOf(GeoPointCompressedAtomicFieldData.Single.class));
+        assertThat(fieldData.isMultiValued(), equalTo(false));
+        assertThat(fieldData.getNumDocs(), equalTo(points.length));
+
+        GeoPointValues values = fieldData.getGeoPointValues();
+        for (int i = 0; i < points.length; ++i) {
+            assertThat(values.hasValue(i), equalTo(true));
+            assertClose(values.getValue(i), points[i]);
+            assertClose(values.getValueSafe(i), points[i]);
+            GeoPointValues.Iter iter = values.getIter(i);
+            assertThat(iter.hasNext(), equalTo(true));
+            assertClose(iter.next(), points[i]);
+            assertThat(iter.hasNext(), equalTo(false));
+        }
+    }
+
+    @Test
+    public void testSingleValueWithMissing() throws Exception {
+        final GeoPoint[] points = new GeoPoint[100];
+        for (int i = 0; i < points.length; ++i) {
+            Document d = new Document();
+            if (i % 3 != 0) {
+                points[i] = randomPoint();
+                d.add(new StringField("value", toTerm(points[i]), Field.Store.NO));
+            } else {
+                d.add(new StringField("other", "value", Field.Store.NO));
+            }
+            writer.addDocument(d);
+        }
+        IndexGeoPointFieldData<?> indexFieldData = getForField("value");
+        AtomicGeoPointFieldData<?> fieldData = indexFieldData.load(refreshReader());
+        assertThat(fieldData, instanceOf(GeoPointCompressedAtomicFieldData.SingleFixedSet.class));
+
+        GeoPointValues values = fieldData.getGeoPointValues();
+        for (int i = 0; i < points.length; ++i) {
+            if (points[i] == null) {
+                assertThat(values.hasValue(i), equalTo(false));
+                assertThat(values.getValue(i), nullValue());
+                assertThat(values.getIter(i).hasNext(), equalTo(false));
+            } else {
+                assertThat(values.hasValue(i), equalTo(true));
+                assertClose(values.getValue(i), points[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testMultiValue() throws Exception {
+        final GeoPoint[][] points = new GeoPoint[100][];
+        for (int i = 0; i < points.length; ++i) {
+            points[i] = new GeoPoint[i % 4];
+            Document d = new Document();
+            d.add(new StringField("other", "value", Field.Store.NO));
+            for (int j = 0; j < points[i].length; ++j) {
+                points[i][j] = randomPoint();
+                d.add(new StringField("value", toTerm(points[i][j]), Field.Store.NO));
+            }
+            writer.addDocument(d);
+        }
+        IndexGeoPointFieldData<?> indexFieldData = getForField("value");
+        AtomicGeoPointFieldData<?> fieldData = indexFieldData.load(refreshReader());
+        assertThat(fieldData.isMultiValued(), equalTo(true));
+
+        GeoPointValues values = fieldData.getGeoPointValues();
+        for (int i = 0; i < points.length; ++i) {
+            assertThat(values.hasValue(i), equalTo(points[i].length > 0));
+            int count = 0;
+            for (GeoPointValues.Iter iter = values.getIter(i); iter.hasNext(); ) {
+                final GeoPoint point = iter.next();
+                boolean found = false;
+                for (GeoPoint expected : points[i]) {
+                    if (GeoDistance.ARC.calculate(point.lat(), point.lon(), expected.lat(), expected.lon(), DistanceUnit.METERS) <= 1) {
+                        found = true;
+                        break;
+                    }
+                }
+                assertThat(found, equalTo(true));
+                ++count;
+            }
+            assertThat(count, lessThanOrEqualTo(points[i].length)); // duplicate points are deduplicated
+            if (points[i].length > 0) {
+                assertThat(count, greaterThan(0));
+            }
+        }
+    }
+
+    private GeoPoint randomPoint() {
+        return new GeoPoint(-90 + 180 * getRandom().nextDouble(), -180 + 360 * getRandom().nextDouble());
+    }
+
+    private static String toTerm(GeoPoint point) {
+        return point.lat() + "," + point.lon();
+    }
+
+    private static void assertClose(GeoPoint actual, GeoPoint expected) {
+        assertThat(actual, notNullValue());
+        assertThat(GeoDistance.ARC.calculate(actual.lat(), actual.lon(), expected.lat(), expected.lon(), DistanceUnit.METERS), lessThanOrEqualTo(1d));
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.mapper.dynamic;
 
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.analysis.FieldNameAnalyzer;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.StrictDynamicMappingException;
@@ -30,6 +31,7 @@ import java.io.IOException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
 public class DynamicMappingTests {
@@ -124,6 +126,36 @@ public class DynamicMappingTests {
         assertThat(doc.rootDoc().get("obj1.field2"), nullValue());
     }
 
+    @Test
+    public void testDynamicFalseSkipsUnmappedArrays() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .field("dynamic", "false")
+                .startObject("properties")
+                .startObject("field1").field("type", "string").endObject()
+                .startObject("tags").field("type", "string").endObject()
+                .endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTestUtils.newParser().parse(mapping);
+
+        ParsedDocument doc = defaultMapper.parse("type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .startArray("unmapped")
+                .value("value").value(1).nullValue()
+                .startObject().field("field1", "inner").startArray("inner").value(1).endArray().endObject()
+                .startArray().value("value").endArray()
+                .endArray()
+                .field("field1", "value1")
+                .array("tags", "tag1", "tag2")
+                .endObject()
+                .bytes());
+
+        assertThat(doc.rootDoc().get("field1"), equalTo("value1"));
+        assertThat(doc.rootDoc().getValues("tags").length, equalTo(2));
+        assertThat(doc.rootDoc().get("unmapped"), nullValue());
+        assertThat(doc.rootDoc().get("unmapped.field1"), nullValue());
+    }
+
     @Test
     public void testDynamicStrictWithInnerObjectButDynamicSetOnRoot() throws IOException {
         String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
@@ -149,4 +181,43 @@ public class DynamicMappingTests {
             // all is well
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDynamicFieldsAreAddedToLookups() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties")
+                .startObject("field1").field("type", "string").field("analyzer", "whitespace").endObject()
+                .endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTestUtils.newParser().parse(mapping);
+        int numMappers = defaultMapper.mappers().mappers().size();
+        for (int i = 0; i < 10; i++) {
+            ParsedDocument doc = defaultMapper.parse("type", Integer.toString(i), XContentFactory.jsonBuilder()
+                    .startObject()
+                    .field("field1", "value1")
+                    .field("dynamic" + i, "value")
+                    .startObject("obj").field("dynamic" + i, "value").endObject()
+                    .endObject()
+                    .bytes());
+            assertThat(doc.mappingsModified(), equalTo(true));
+        }
+
+        assertThat(defaultMapper.mappers().mappers().size(), equalTo(numMappers + 20));
+        assertThat(defaultMapper.mappers().fullName("field1").mappers().size(), equalTo(1));
+        assertThat(((FieldNameAnalyzer) defaultMapper.mappers().indexAnalyzer()).analyzers().get("field1"), notNullValue());
+        for (int i = 0; i < 10; i++) {
+            assertThat(defaultMapper.mappers().fullName("dynamic" + i).mappers().size(), equalTo(1));
+            assertThat(defaultMapper.mappers().fullName("obj.dynamic" + i).mappers().size(), equalTo(1));
+            assertThat(defaultMapper.mappers().name("dynamic" + i).mappers().size(), equalTo(2));
+        }
+
+        ParsedDocument doc = defaultMapper.parse("type", "10", XContentFactory.jsonBuilder()
+                .startObject()
+                .field("field1", "value1")
+                .field("dynamic0", "value")
+                .endObject()
+                .bytes());
+        assertThat(doc.mappingsModified(), equalTo(false));
+    }
+}
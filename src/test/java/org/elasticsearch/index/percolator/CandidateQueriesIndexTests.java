@@ -0,0 +1,107 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.*;
+import org.elasticsearch.ElasticsearchTestCase;
+import org.elasticsearch.common.lucene.HashedBytesRef;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.search.XConstantScoreQuery;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class CandidateQueriesIndexTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testExtract() {
+        assertThat(QueryTermExtractor.extract(new TermQuery(new Term("field", "value"))), contains(new Term("field", "value")));
+        assertThat(QueryTermExtractor.extract(new MatchAllDocsQuery()), nullValue());
+
+        PhraseQuery phraseQuery = new PhraseQuery();
+        phraseQuery.add(new Term("field", "a"));
+        phraseQuery.add(new Term("field", "longest"));
+        phraseQuery.add(new Term("field", "bc"));
+        assertThat(QueryTermExtractor.extract(phraseQuery), contains(new Term("field", "longest")));
+
+        BooleanQuery disjunction = new BooleanQuery();
+        disjunction.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "b")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "c")), BooleanClause.Occur.MUST_NOT);
+        assertThat(QueryTermExtractor.extract(disjunction), containsInAnyOrder(new Term("field", "a"), new Term("field", "b")));
+
+        disjunction.add(new MatchAllDocsQuery(), BooleanClause.Occur.SHOULD);
+        assertThat(QueryTermExtractor.extract(disjunction), nullValue());
+
+        BooleanQuery conjunction = new BooleanQuery();
+        conjunction.add(disjunction, BooleanClause.Occur.MUST);
+        conjunction.add(NumericRangeQuery.newLongRange("number", 1l, 10l, true, true), BooleanClause.Occur.MUST);
+        conjunction.add(new TermQuery(new Term("field", "d")), BooleanClause.Occur.SHOULD);
+        assertThat(QueryTermExtractor.extract(conjunction), contains(QueryTermExtractor.anyTerm("number")));
+
+        conjunction.add(new TermQuery(new Term("field", "e")), BooleanClause.Occur.MUST);
+        assertThat(QueryTermExtractor.extract(conjunction), contains(new Term("field", "e")));
+
+        BooleanQuery prohibitedOnly = new BooleanQuery();
+        prohibitedOnly.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.MUST_NOT);
+        assertThat(QueryTermExtractor.extract(prohibitedOnly), nullValue());
+
+        Query constantScore = new XConstantScoreQuery(new QueryWrapperFilter(new TermQuery(new Term("field", "a"))));
+        assertThat(QueryTermExtractor.extract(constantScore), nullValue());
+        constantScore = new ConstantScoreQuery(new PrefixQuery(new Term("field", "pre")));
+        assertThat(QueryTermExtractor.extract(constantScore), contains(QueryTermExtractor.anyTerm("field")));
+    }
+
+    @Test
+    public void testCandidates() throws Exception {
+        CandidateQueriesIndex index = new CandidateQueriesIndex();
+        HashedBytesRef termId = new HashedBytesRef("term");
+        index.add(termId, new TermQuery(new Term("field", "quick")));
+        HashedBytesRef otherFieldId = new HashedBytesRef("other_field");
+        index.add(otherFieldId, new TermQuery(new Term("other", "quick")));
+        HashedBytesRef prefixId = new HashedBytesRef("prefix");
+        index.add(prefixId, new PrefixQuery(new Term("field", "qu")));
+        HashedBytesRef missingId = new HashedBytesRef("missing");
+        index.add(missingId, new TermQuery(new Term("field", "slow")));
+        HashedBytesRef matchAllId = new HashedBytesRef("match_all");
+        index.add(matchAllId, new MatchAllDocsQuery());
+
+        MemoryIndex memoryIndex = new MemoryIndex();
+        memoryIndex.addField("field", "the quick brown fox", Lucene.STANDARD_ANALYZER);
+        IndexSearcher searcher = memoryIndex.createSearcher();
+        Set<HashedBytesRef> candidates = index.candidates(searcher.getIndexReader());
+        assertThat(candidates, containsInAnyOrder(termId, prefixId, matchAllId));
+
+        index.remove(termId, new TermQuery(new Term("field", "quick")));
+        index.remove(matchAllId, new MatchAllDocsQuery());
+        candidates = index.candidates(searcher.getIndexReader());
+        assertThat(candidates, contains(prefixId));
+
+        index.clear();
+        assertThat(index.candidates(searcher.getIndexReader()).isEmpty(), equalTo(true));
+    }
+}
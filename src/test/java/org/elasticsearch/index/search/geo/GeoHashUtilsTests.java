@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.search.geo;
 
+import com.google.common.primitives.UnsignedLongs;
 import org.elasticsearch.common.geo.GeoHashUtils;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.junit.Test;
@@ -85,4 +86,31 @@ public class GeoHashUtilsTests {
 
         assertEquals(geoHash, GeoHashUtils.encode(decode.lat(), decode.lon()));
     }
+
+    /**
+     * Pass condition: geohashes packed in longs decode to the same strings as the string encoding,
+     * for all precisions
+     */
+    @Test
+    public void testEncodeAsLong() {
+        for (int precision = 1; precision <= GeoHashUtils.PRECISION; precision++) {
+            assertEquals(GeoHashUtils.encode(42.6, -5.6, precision), GeoHashUtils.toString(GeoHashUtils.encodeAsLong(42.6, -5.6, precision)));
+            assertEquals(GeoHashUtils.encode(-33.9, 151.2, precision), GeoHashUtils.toString(GeoHashUtils.encodeAsLong(-33.9, 151.2, precision)));
+        }
+        assertEquals("ezs42e44yx96", GeoHashUtils.toString(GeoHashUtils.encodeAsLong(42.6, -5.6, 12)));
+    }
+
+    @Test
+    public void testEncodeAsLongOrder() {
+        double[][] points = new double[][]{{42.6, -5.6}, {57.64911, 10.40744}, {-33.9, 151.2}, {84.6, 10.5}, {-89.9, -179.9}, {89.9, 179.9}};
+        for (int precision = 1; precision <= GeoHashUtils.PRECISION; precision++) {
+            for (double[] a : points) {
+                for (double[] b : points) {
+                    int stringOrder = GeoHashUtils.encode(a[0], a[1], precision).compareTo(GeoHashUtils.encode(b[0], b[1], precision));
+                    int longOrder = UnsignedLongs.compare(GeoHashUtils.encodeAsLong(a[0], a[1], precision), GeoHashUtils.encodeAsLong(b[0], b[1], precision));
+                    assertEquals(Integer.signum(stringOrder), Integer.signum(longOrder));
+                }
+            }
+        }
+    }
 }
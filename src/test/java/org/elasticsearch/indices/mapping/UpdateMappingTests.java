@@ -1,5 +1,6 @@
 package org.elasticsearch.indices.mapping;
 
+import com.google.common.base.Predicate;
 import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
@@ -17,9 +18,13 @@ import org.elasticsearch.AbstractSharedClusterTest;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
@@ -352,4 +357,77 @@ public class UpdateMappingTests extends AbstractSharedClusterTest {
         }
 
     }
+
+    @Test
+    public void dynamicUpdatesFromManyShardsConcurrently() throws Throwable {
+        // shards of the same index add the same dynamic fields at the same time, as well as their own ones
+        prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 5)
+                .put("index.number_of_replicas", 0)).execute().actionGet();
+        ensureGreen();
+
+        final Throwable[] threadException = new Throwable[1];
+        Thread[] threads = new Thread[3];
+        final CyclicBarrier barrier = new CyclicBarrier(threads.length);
+        final int numDocs = 50;
+        for (int j = 0; j < threads.length; j++) {
+            final int threadId = j;
+            threads[j] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < numDocs; i++) {
+                            client().prepareIndex("test", "type", threadId + "_" + i).setSource(jsonBuilder().startObject()
+                                    .field("shared_" + (i % 10), "value")
+                                    .field("thread_" + threadId + "_" + i, "value")
+                                    .endObject()).get();
+                        }
+                    } catch (Throwable t) {
+                        threadException[0] = t;
+                    }
+                }
+            });
+            threads[j].start();
+        }
+        for (Thread t : threads) t.join();
+        if (threadException[0] != null) {
+            throw threadException[0];
+        }
+
+        // the updates are sent to the master asynchronously, wait for all of them to be merged
+        final Set<String> expectedFields = new HashSet<String>();
+        for (int i = 0; i < 10; i++) {
+            expectedFields.add("shared_" + i);
+        }
+        for (int j = 0; j < threads.length; j++) {
+            for (int i = 0; i < numDocs; i++) {
+                expectedFields.add("thread_" + j + "_" + i);
+            }
+        }
+        awaitBusy(new Predicate<Object>() {
+            @Override
+            public boolean apply(Object input) {
+                return mappedFields().containsAll(expectedFields);
+            }
+        }, 30, TimeUnit.SECONDS);
+        assertThat(mappedFields(), equalTo(expectedFields));
+
+        refresh();
+        CountResponse response = client().prepareCount("test").execute().actionGet();
+        assertThat(response.getCount(), equalTo((long) threads.length * numDocs));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> mappedFields() {
+        MappingMetaData mapping = client().admin().cluster().prepareState().get().getState().metaData().index("test").mapping("type");
+        if (mapping == null) {
+            return new HashSet<String>();
+        }
+        try {
+            return new HashSet<String>(((Map<String, Object>) mapping.getSourceAsMap().get("properties")).keySet());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -21,8 +21,11 @@ package org.elasticsearch.percolator;
 import org.elasticsearch.action.ShardOperationFailedException;
 import org.elasticsearch.action.percolate.MultiPercolateRequestBuilder;
 import org.elasticsearch.action.percolate.MultiPercolateResponse;
+import org.elasticsearch.action.percolate.PercolateResponse;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.query.CommonTermsQueryBuilder;
 import org.elasticsearch.AbstractSharedClusterTest;
 import org.junit.Test;
 
@@ -269,4 +272,101 @@ public class MultiPercolatorTests extends AbstractSharedClusterTest {
         assertThat(response.items()[numPercolateRequest].getResponse().getMatches().length, equalTo(numQueries));
     }
 
+    @Test
+    public void testBatchMatchesLikeSinglePercolation() throws Exception {
+        client().admin().indices().prepareCreate("test")
+                .addMapping("company", jsonBuilder().startObject().startObject("company").startObject("properties")
+                        .startObject("name").field("type", "string").endObject()
+                        .startObject("motto").field("type", "string").field("index_options", "docs").endObject()
+                        .startObject("employee").field("type", "nested").startObject("properties")
+                        .startObject("name").field("type", "string").endObject()
+                        .endObject().endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        ensureGreen();
+
+        client().prepareIndex("test", "_percolator", "nested")
+                .setSource(jsonBuilder().startObject().field("query", nestedQuery("employee", matchQuery("employee.name", "virginia"))).endObject())
+                .execute().actionGet();
+        client().prepareIndex("test", "_percolator", "root")
+                .setSource(jsonBuilder().startObject().field("query", matchQuery("name", "stark")).endObject())
+                .execute().actionGet();
+        client().prepareIndex("test", "_percolator", "phrase")
+                .setSource(jsonBuilder().startObject().field("query", matchPhraseQuery("motto", "future is now")).endObject())
+                .execute().actionGet();
+
+        XContentBuilder nestedDoc = jsonBuilder().startObject().field("name", "stark industries").field("motto", "the future is now")
+                .startArray("employee")
+                .startObject().field("name", "virginia potts").endObject()
+                .endArray().endObject();
+        XContentBuilder flatDoc = jsonBuilder().startObject().field("name", "stark").field("motto", "the future is now").endObject();
+
+        PercolateResponse nestedResponse = client().preparePercolate()
+                .setIndices("test").setDocumentType("company")
+                .setPercolateDoc(docBuilder().setDoc(nestedDoc))
+                .execute().actionGet();
+        assertNoFailures(nestedResponse);
+        PercolateResponse flatResponse = client().preparePercolate()
+                .setIndices("test").setDocumentType("company")
+                .setPercolateDoc(docBuilder().setDoc(flatDoc))
+                .execute().actionGet();
+        assertNoFailures(flatResponse);
+        assertThat(convertFromTextArray(flatResponse.getMatches(), "test"), arrayContainingInAnyOrder("root", "phrase"));
+
+        // the flat docs land on the same shards and are percolated as a batch
+        MultiPercolateRequestBuilder builder = client().prepareMultiPercolate();
+        builder.add(client().preparePercolate().setIndices("test").setDocumentType("company").setPercolateDoc(docBuilder().setDoc(nestedDoc)));
+        builder.add(client().preparePercolate().setIndices("test").setDocumentType("company").setPercolateDoc(docBuilder().setDoc(flatDoc)));
+        builder.add(client().preparePercolate().setIndices("test").setDocumentType("company").setPercolateDoc(docBuilder().setDoc(flatDoc)));
+        MultiPercolateResponse response = builder.execute().actionGet();
+
+        MultiPercolateResponse.Item item = response.getItems()[0];
+        assertThat(item.errorMessage(), nullValue());
+        assertNoFailures(item.response());
+        assertThat(item.getResponse().getCount(), equalTo(nestedResponse.getCount()));
+        assertThat(convertFromTextArray(item.getResponse().getMatches(), "test"), arrayContainingInAnyOrder(convertFromTextArray(nestedResponse.getMatches(), "test")));
+        for (int i = 1; i < 3; i++) {
+            item = response.getItems()[i];
+            assertThat(item.errorMessage(), nullValue());
+            assertNoFailures(item.response());
+            assertThat(item.getResponse().getCount(), equalTo(flatResponse.getCount()));
+            assertThat(convertFromTextArray(item.getResponse().getMatches(), "test"), arrayContainingInAnyOrder(convertFromTextArray(flatResponse.getMatches(), "test")));
+        }
+    }
+
+    @Test
+    public void testBatchMatchesStatsDependentQueriesLikeSinglePercolation() throws Exception {
+        client().admin().indices().prepareCreate("test").execute().actionGet();
+        ensureGreen();
+
+        // "future" is a high frequency term in a batch of documents that all contain it, but not in a single document
+        client().prepareIndex("test", "_percolator", "common")
+                .setSource(jsonBuilder().startObject().field("query", commonTerms("motto", "future quick")
+                        .cutoffFrequency(0.4f).lowFreqOperator(CommonTermsQueryBuilder.Operator.OR)).endObject())
+                .execute().actionGet();
+        client().prepareIndex("test", "_percolator", "term")
+                .setSource(jsonBuilder().startObject().field("query", termQuery("motto", "future")).endObject())
+                .execute().actionGet();
+
+        XContentBuilder doc = jsonBuilder().startObject().field("motto", "the future is now").endObject();
+        PercolateResponse singleResponse = client().preparePercolate()
+                .setIndices("test").setDocumentType("type")
+                .setPercolateDoc(docBuilder().setDoc(doc))
+                .execute().actionGet();
+        assertNoFailures(singleResponse);
+        assertThat(convertFromTextArray(singleResponse.getMatches(), "test"), arrayContainingInAnyOrder("common", "term"));
+
+        MultiPercolateRequestBuilder builder = client().prepareMultiPercolate();
+        for (int i = 0; i < 3; i++) {
+            builder.add(client().preparePercolate().setIndices("test").setDocumentType("type").setPercolateDoc(docBuilder().setDoc(doc)));
+        }
+        MultiPercolateResponse response = builder.execute().actionGet();
+        for (MultiPercolateResponse.Item item : response) {
+            assertThat(item.errorMessage(), nullValue());
+            assertNoFailures(item.response());
+            assertThat(item.getResponse().getCount(), equalTo(2l));
+            assertThat(convertFromTextArray(item.getResponse().getMatches(), "test"), arrayContainingInAnyOrder("common", "term"));
+        }
+    }
+
 }
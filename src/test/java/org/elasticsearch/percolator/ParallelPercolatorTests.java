@@ -0,0 +1,118 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.elasticsearch.AbstractNodesTests;
+import org.elasticsearch.action.percolate.PercolateRequestBuilder;
+import org.elasticsearch.action.percolate.PercolateResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.highlight.HighlightBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.elasticsearch.action.percolate.PercolateSourceBuilder.docBuilder;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.percolator.PercolatorTests.convertFromTextArray;
+import static org.elasticsearch.percolator.TTLPercolatorTests.ensureGreen;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class ParallelPercolatorTests extends AbstractNodesTests {
+
+    @After
+    public void closeNodes() {
+        closeAllNodes();
+    }
+
+    @Test
+    public void testParallelPercolationMatchesSequentialPercolation() throws Exception {
+        // two single node clusters with the same queries, one of them percolating slices of 3 queries in parallel
+        Client sequential = startNode("sequential", settingsBuilder().put("cluster.name", "sequential-" + randomLong())).client();
+        Client parallel = startNode("parallel", settingsBuilder().put("cluster.name", "parallel-" + randomLong())
+                .put("percolator.parallel.threads", 2)
+                .put("percolator.parallel.slice_size", 3)).client();
+        for (Client client : new Client[]{sequential, parallel}) {
+            client.admin().indices().prepareCreate("test")
+                    .setSettings(settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                    .execute().actionGet();
+            ensureGreen(client);
+            for (int i = 0; i < 30; i++) {
+                QueryBuilder query;
+                if (i % 3 == 0) {
+                    query = matchQuery("field1", "fox");
+                } else if (i % 3 == 1) {
+                    query = matchQuery("field1", "cat");
+                } else {
+                    query = matchAllQuery();
+                }
+                client.prepareIndex("test", "_percolator", Integer.toString(i))
+                        .setSource(jsonBuilder().startObject().field("query", query).endObject())
+                        .execute().actionGet();
+            }
+        }
+
+        XContentBuilder doc = jsonBuilder().startObject().field("field1", "the quick brown fox").endObject();
+
+        PercolateResponse expected = percolate(sequential, doc).execute().actionGet();
+        PercolateResponse actual = percolate(parallel, doc).execute().actionGet();
+        assertNoFailures(expected);
+        assertNoFailures(actual);
+        assertThat(expected.getCount(), equalTo(20l));
+        assertThat(actual.getCount(), equalTo(expected.getCount()));
+        String[] expectedMatches = convertFromTextArray(expected.getMatches(), "test");
+        assertThat(convertFromTextArray(actual.getMatches(), "test"), arrayContainingInAnyOrder(expectedMatches));
+
+        actual = percolate(parallel, doc).setOnlyCount(true).execute().actionGet();
+        assertNoFailures(actual);
+        assertThat(actual.getCount(), equalTo(expected.getCount()));
+
+        actual = percolate(parallel, doc).setSize(5).execute().actionGet();
+        assertNoFailures(actual);
+        assertThat(actual.getCount(), equalTo(expected.getCount()));
+        assertThat(actual.getMatches(), arrayWithSize(5));
+        assertThat(Arrays.asList(expectedMatches), hasItems(convertFromTextArray(actual.getMatches(), "test")));
+
+        // highlighting percolates sequentially, and has to return the same matches
+        PercolateResponse expectedHighlighted = percolate(sequential, doc).setSize(30).setHighlightBuilder(new HighlightBuilder().field("field1")).execute().actionGet();
+        actual = percolate(parallel, doc).setSize(30).setHighlightBuilder(new HighlightBuilder().field("field1")).execute().actionGet();
+        assertNoFailures(expectedHighlighted);
+        assertNoFailures(actual);
+        assertThat(actual.getCount(), equalTo(expectedHighlighted.getCount()));
+        assertThat(convertFromTextArray(actual.getMatches(), "test"), arrayContainingInAnyOrder(expectedMatches));
+        for (PercolateResponse.Match match : actual.getMatches()) {
+            if (Integer.parseInt(match.getId().string()) % 3 == 0) {
+                assertThat(match.getHighlightFields().get("field1").fragments()[0].string(), equalTo("the quick brown <em>fox</em>"));
+            }
+        }
+    }
+
+    private static PercolateRequestBuilder percolate(Client client, XContentBuilder doc) {
+        return client.preparePercolate().setIndices("test").setDocumentType("type").setPercolateDoc(docBuilder().setDoc(doc));
+    }
+}
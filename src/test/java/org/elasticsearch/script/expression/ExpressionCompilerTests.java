@@ -0,0 +1,148 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.ElasticsearchTestCase;
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class ExpressionCompilerTests extends ElasticsearchTestCase {
+
+    private static double eval(String source) {
+        return eval(source, 0d, new DoubleValues[0], new double[0]);
+    }
+
+    private static double eval(String source, double score, DoubleValues[] fields, double[] params) {
+        return ExpressionCompiler.compile(source).expression().evaluate(0, score, fields, params);
+    }
+
+    @Test
+    public void testArithmetic() {
+        assertThat(eval("1 + 2 * 3"), equalTo(7d));
+        assertThat(eval("(1 + 2) * 3"), equalTo(9d));
+        assertThat(eval("10 - 4 - 3"), equalTo(3d));
+        assertThat(eval("7 % 4"), equalTo(3d));
+        assertThat(eval("1 / 4"), equalTo(0.25d));
+        assertThat(eval("-2 * -3"), equalTo(6d));
+        assertThat(eval("1.5e3 + .5"), equalTo(1500.5d));
+        assertThat(eval("1000000 * 3"), equalTo(3000000d));
+    }
+
+    @Test
+    public void testFunctions() {
+        assertThat(eval("pow(2, 10)"), equalTo(1024d));
+        assertThat(eval("max(1, min(5, 3))"), equalTo(3d));
+        assertThat(eval("abs(-3) + sqrt(16)"), equalTo(7d));
+        assertThat(eval("log(exp(2))"), closeTo(2d, 1e-12));
+    }
+
+    @Test
+    public void testLogic() {
+        assertThat(eval("1 < 2"), equalTo(1d));
+        assertThat(eval("2 <= 1"), equalTo(0d));
+        assertThat(eval("2 > 1 && 3 >= 3"), equalTo(1d));
+        assertThat(eval("1 == 2 || 2 != 2"), equalTo(0d));
+        assertThat(eval("!(1 == 2)"), equalTo(1d));
+        assertThat(eval("1 > 2 ? 10 : 1 < 2 ? 20 : 30"), equalTo(20d));
+        // like in Java, comparisons with NaN are false except for !=
+        assertThat(eval("0 / 0 < 1 || 0 / 0 >= 1 || 0 / 0 == 0 / 0"), equalTo(0d));
+        assertThat(eval("0 / 0 != 0 / 0"), equalTo(1d));
+    }
+
+    @Test
+    public void testBindings() {
+        CompiledExpression compiled = ExpressionCompiler.compile("doc['price'].value * factor + (doc['rank'].empty ? 0 : doc['rank'].value) + _score * factor");
+        assertThat(compiled.fields(), equalTo(new String[]{"price", "rank"}));
+        assertThat(compiled.params(), equalTo(new String[]{"factor"}));
+        assertThat(compiled.needsScores(), equalTo(true));
+        assertThat(ExpressionCompiler.compile("doc['price'].value").needsScores(), equalTo(false));
+
+        DoubleValues[] fields = new DoubleValues[]{new SingleValue(5d), new SingleValue(Double.NaN)};
+        assertThat(compiled.expression().evaluate(0, 2d, fields, new double[]{3d}), equalTo(21d));
+        fields[1] = new SingleValue(100d);
+        assertThat(compiled.expression().evaluate(0, 2d, fields, new double[]{3d}), equalTo(121d));
+    }
+
+    @Test
+    public void testSearchScript() {
+        Map<String, Object> vars = ImmutableMap.<String, Object>of("a", 2, "b", "0.5");
+        ExpressionSearchScript script = new ExpressionSearchScript(ExpressionCompiler.compile("a * b + _score"), null, vars);
+        script.setNextDocId(0);
+        script.setNextScore(3f);
+        assertThat(script.runAsDouble(), equalTo(4d));
+        assertThat(script.runAsLong(), equalTo(4l));
+        script.setNextVar("a", 4);
+        assertThat((Double) script.run(), equalTo(5d));
+    }
+
+    @Test(expected = ElasticSearchIllegalArgumentException.class)
+    public void testMissingParam() {
+        new ExpressionSearchScript(ExpressionCompiler.compile("a * 2"), null, null);
+    }
+
+    @Test(expected = ElasticSearchIllegalArgumentException.class)
+    public void testFieldOutsideOfSearch() {
+        new ExpressionSearchScript(ExpressionCompiler.compile("doc['a'].value"), null, null);
+    }
+
+    @Test
+    public void testParseErrors() {
+        for (String source : new String[]{"", "1 +", "(1", "1 = 2", "foo(1)", "pow(1)", "doc['a']", "doc['a'].values", "doc[a].value", "1 2"}) {
+            try {
+                ExpressionCompiler.compile(source);
+                fail("expected a parse failure for [" + source + "]");
+            } catch (ElasticSearchIllegalArgumentException e) {
+                assertThat(e.getMessage(), containsString("Failed to parse expression"));
+            }
+        }
+    }
+
+    /**
+     * A single value per document, documents have no value if it is NaN.
+     */
+    private static class SingleValue extends DoubleValues {
+
+        private final double value;
+
+        SingleValue(double value) {
+            super(false);
+            this.value = value;
+        }
+
+        @Override
+        public boolean hasValue(int docId) {
+            return !Double.isNaN(value);
+        }
+
+        @Override
+        public double getValue(int docId) {
+            return value;
+        }
+    }
+}
@@ -29,6 +29,8 @@ import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.lucene.search.function.CombineFunction;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.cache.id.IdCacheStats;
+import org.elasticsearch.index.cache.id.simple.SimpleIdCache;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.facet.terms.TermsFacet;
 import org.elasticsearch.search.sort.SortBuilders;
@@ -343,6 +345,8 @@ public class SimpleChildQuerySearchTests extends AbstractSharedClusterTest {
                         ImmutableSettings.settingsBuilder()
                                 .put("index.number_of_shards", 1)
                                 .put("index.number_of_replicas", 0)
+                                // the id cache should only be loaded by the search
+                                .put(SimpleIdCache.WARM, false)
                 ).execute().actionGet();
         client().admin().cluster().prepareHealth().setWaitForEvents(Priority.LANGUID).setWaitForGreenStatus().execute().actionGet();
         client().admin().indices().preparePutMapping("test").setType("child").setSource(jsonBuilder().startObject().startObject("type")
@@ -379,6 +383,61 @@ public class SimpleChildQuerySearchTests extends AbstractSharedClusterTest {
         assertThat(indicesStatsResponse.getTotal().getIdCache().getMemorySizeInBytes(), equalTo(0l));
     }
 
+    @Test
+    public void testIdCacheLoadedOnRefresh() throws Exception {
+        client().admin().indices().prepareCreate("test")
+                .setSettings(
+                        ImmutableSettings.settingsBuilder()
+                                .put("index.number_of_shards", 1)
+                                .put("index.number_of_replicas", 0)
+                                .put("index.refresh_interval", -1)
+                ).execute().actionGet();
+        client().admin().cluster().prepareHealth().setWaitForEvents(Priority.LANGUID).setWaitForGreenStatus().execute().actionGet();
+        client().admin().indices().preparePutMapping("test").setType("child").setSource(jsonBuilder().startObject().startObject("type")
+                .startObject("_parent").field("type", "parent").endObject()
+                .endObject().endObject()).execute().actionGet();
+
+        client().prepareIndex("test", "parent", "p1").setSource("p_field", "p_value1").execute().actionGet();
+        client().prepareIndex("test", "child", "c1").setSource("c_field", "red").setParent("p1").execute().actionGet();
+        client().admin().indices().prepareRefresh().execute().actionGet();
+
+        // loaded by the warmer, before any parent/child query ran
+        IdCacheStats idCacheStats = client().admin().indices()
+                .prepareStats("test").setIdCache(true).execute().actionGet().getTotal().getIdCache();
+        assertThat(idCacheStats.getMemorySizeInBytes(), greaterThan(0l));
+        assertThat(idCacheStats.getSegments(), equalTo(1l));
+        assertThat(idCacheStats.getLoadTotal(), equalTo(1l));
+
+        // the top level parent ordinals are loaded by the warmer as well, so the query doesn't add to the id cache
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setQuery(hasChildQuery("child", termQuery("c_field", "red")))
+                .execute().actionGet();
+        assertNoFailures(searchResponse);
+        assertThat(searchResponse.getHits().totalHits(), equalTo(1l));
+        assertThat(client().admin().indices().prepareStats("test").setIdCache(true).execute().actionGet()
+                .getTotal().getIdCache().getMemorySizeInBytes(), equalTo(idCacheStats.getMemorySizeInBytes()));
+
+        // only the new segment gets loaded on the next refresh
+        client().prepareIndex("test", "parent", "p2").setSource("p_field", "p_value2").execute().actionGet();
+        client().prepareIndex("test", "child", "c2").setSource("c_field", "blue").setParent("p2").execute().actionGet();
+        client().admin().indices().prepareRefresh().execute().actionGet();
+
+        idCacheStats = client().admin().indices()
+                .prepareStats("test").setIdCache(true).execute().actionGet().getTotal().getIdCache();
+        assertThat(idCacheStats.getSegments(), equalTo(2l));
+        assertThat(idCacheStats.getLoadTotal(), equalTo(2l));
+
+        searchResponse = client().prepareSearch("test")
+                .setQuery(hasChildQuery("child", termQuery("c_field", "blue")))
+                .execute().actionGet();
+        assertNoFailures(searchResponse);
+        assertThat(searchResponse.getHits().totalHits(), equalTo(1l));
+        IdCacheStats afterQuery = client().admin().indices().prepareStats("test").setIdCache(true).execute().actionGet()
+                .getTotal().getIdCache();
+        assertThat(afterQuery.getLoadTotal(), equalTo(2l));
+        assertThat(afterQuery.getMemorySizeInBytes(), equalTo(idCacheStats.getMemorySizeInBytes()));
+    }
+
     @Test
     // See: https://github.com/elasticsearch/elasticsearch/issues/3290
     public void testCachingBug_withFqueryFilter() throws Exception {
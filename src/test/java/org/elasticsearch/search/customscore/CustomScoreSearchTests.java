@@ -527,6 +527,47 @@ public class CustomScoreSearchTests extends AbstractSharedClusterTest {
                                                                       // 1
     }
 
+    @Test
+    public void testExpressionScriptBoost() throws Exception {
+        client().admin().indices().prepareDelete().execute().actionGet();
+        client().admin().indices().prepareCreate("test").setSettings(settingsBuilder().put("index.number_of_shards", 1)).execute()
+                .actionGet();
+
+        client().index(
+                indexRequest("test").type("type1").id("1")
+                        .source(jsonBuilder().startObject().field("test", "value beck").field("num1", 1.0f).field("num2", 10).endObject())).actionGet();
+        client().index(
+                indexRequest("test").type("type1").id("2")
+                        .source(jsonBuilder().startObject().field("test", "value check").field("num1", 2.0f).endObject())).actionGet();
+        client().admin().indices().refresh(refreshRequest()).actionGet();
+
+        logger.info("running doc['num1'].value * factor");
+        SearchResponse response = client().search(
+                searchRequest().searchType(SearchType.QUERY_THEN_FETCH).source(
+                        searchSource().query(customScoreQuery(termFilter("test", "value")).lang("expression")
+                                .script("doc['num1'].value * factor").param("factor", 3)))).actionGet();
+
+        assertNoFailures(response);
+        assertThat(response.getHits().totalHits(), equalTo(2l));
+        assertThat(response.getHits().getAt(0).id(), equalTo("2"));
+        assertThat(response.getHits().getAt(0).score(), equalTo(6f));
+        assertThat(response.getHits().getAt(1).id(), equalTo("1"));
+        assertThat(response.getHits().getAt(1).score(), equalTo(3f));
+
+        logger.info("running doc['num2'].empty ? _score : doc['num2'].value + _score");
+        response = client().search(
+                searchRequest().searchType(SearchType.QUERY_THEN_FETCH).source(
+                        searchSource().query(customScoreQuery(termFilter("test", "value")).lang("expression")
+                                .script("doc['num2'].empty ? _score : doc['num2'].value + _score")))).actionGet();
+
+        assertNoFailures(response);
+        assertThat(response.getHits().totalHits(), equalTo(2l));
+        assertThat(response.getHits().getAt(0).id(), equalTo("1"));
+        assertThat(response.getHits().getAt(0).score(), equalTo(11f));
+        assertThat(response.getHits().getAt(1).id(), equalTo("2"));
+        assertThat(response.getHits().getAt(1).score(), equalTo(1f));
+    }
+
     @Test
     public void testCustomScriptBoost_withFunctionScore() throws Exception {
         client().admin().indices().prepareDelete().execute().actionGet();
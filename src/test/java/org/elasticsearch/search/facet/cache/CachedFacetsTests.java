@@ -0,0 +1,152 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.cache;
+
+import org.elasticsearch.AbstractSharedClusterTest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.cache.facet.FacetCacheStats;
+import org.elasticsearch.search.facet.histogram.HistogramFacet;
+import org.junit.Test;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.facet.FacetBuilders.histogramFacet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ */
+public class CachedFacetsTests extends AbstractSharedClusterTest {
+
+    private static final String FACET_SOURCE = "{\"facets\":{\"histo\":{\"cache\":true,\"histogram\":{\"field\":\"num\",\"interval\":10}}}}";
+
+    @Test
+    public void testCachedFacetMatchesUncached() throws Exception {
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        ensureGreen();
+
+        int numDocs = 0;
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = 0; i < 50; i++) {
+                client().prepareIndex("test", "type1").setSource(jsonBuilder().startObject().field("num", numDocs++).endObject()).execute().actionGet();
+            }
+            flush();
+        }
+        refresh();
+
+        SearchResponse uncached = client().prepareSearch("test").setSource(FACET_SOURCE.replace("true", "false")).execute().actionGet();
+        SearchResponse first = client().prepareSearch("test").setSource(FACET_SOURCE).execute().actionGet();
+        SearchResponse second = client().prepareSearch("test").setSource(FACET_SOURCE).execute().actionGet();
+        assertSameHistogram(uncached, first);
+        assertSameHistogram(uncached, second);
+
+        FacetCacheStats stats = client().admin().indices().prepareStats("test").clear().setFacetCache(true).execute().actionGet().getTotal().getFacetCache();
+        assertThat(stats.getHitCount(), greaterThan(0l));
+        assertThat(stats.getMemorySizeInBytes(), greaterThan(0l));
+
+        // a new segment only requires collecting that segment
+        for (int i = 0; i < 50; i++) {
+            client().prepareIndex("test", "type1").setSource(jsonBuilder().startObject().field("num", numDocs++).endObject()).execute().actionGet();
+        }
+        refresh();
+        long hitCount = stats.getHitCount();
+        uncached = client().prepareSearch("test").setSource(FACET_SOURCE.replace("true", "false")).execute().actionGet();
+        SearchResponse third = client().prepareSearch("test").setSource(FACET_SOURCE).execute().actionGet();
+        assertSameHistogram(uncached, third);
+        IndicesStatsResponse statsResponse = client().admin().indices().prepareStats("test").clear().setFacetCache(true).execute().actionGet();
+        assertThat(statsResponse.getTotal().getFacetCache().getHitCount(), greaterThan(hitCount));
+    }
+
+    @Test
+    public void testCacheAfterFacetType() throws Exception {
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        ensureGreen();
+        for (int i = 0; i < 20; i++) {
+            client().prepareIndex("test", "type1").setSource(jsonBuilder().startObject().field("num", i).endObject()).execute().actionGet();
+        }
+        refresh();
+
+        // the builder writes [cache] after the facet type
+        SearchResponse first = client().prepareSearch("test")
+                .addFacet(histogramFacet("histo").field("num").interval(10).cache(true))
+                .execute().actionGet();
+        SearchResponse second = client().prepareSearch("test")
+                .setSource("{\"facets\":{\"histo\":{\"histogram\":{\"field\":\"num\",\"interval\":10},\"cache\":true}}}")
+                .execute().actionGet();
+        assertSameHistogram(first, second);
+        SearchResponse third = client().prepareSearch("test")
+                .addFacet(histogramFacet("histo").field("num").interval(10).cache(true))
+                .execute().actionGet();
+        assertSameHistogram(first, third);
+
+        FacetCacheStats stats = client().admin().indices().prepareStats("test").clear().setFacetCache(true).execute().actionGet().getTotal().getFacetCache();
+        assertThat(stats.getHitCount(), greaterThan(0l));
+    }
+
+    @Test
+    public void testTermsLookupIsNotCached() throws Exception {
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        client().admin().indices().prepareCreate("lookup")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        ensureGreen();
+        for (int i = 0; i < 20; i++) {
+            client().prepareIndex("test", "type1").setSource(jsonBuilder().startObject().field("num", i).endObject()).execute().actionGet();
+        }
+        client().prepareIndex("lookup", "type", "1").setSource(jsonBuilder().startObject().array("nums", 1, 2).endObject()).execute().actionGet();
+        refresh();
+
+        String source = "{\"query\":{\"filtered\":{\"query\":{\"match_all\":{}},\"filter\":{\"terms\":{\"num\":" +
+                "{\"index\":\"lookup\",\"type\":\"type\",\"id\":\"1\",\"path\":\"nums\"},\"_cache\":false}}}}," +
+                "\"facets\":{\"histo\":{\"cache\":true,\"histogram\":{\"field\":\"num\",\"interval\":10}}}}";
+        SearchResponse response = client().prepareSearch("test").setSource(source).execute().actionGet();
+        HistogramFacet facet = response.getFacets().facet("histo");
+        assertThat(facet.getEntries().get(0).getCount(), equalTo(2l));
+
+        // the facet follows the looked up document
+        client().prepareIndex("lookup", "type", "1").setSource(jsonBuilder().startObject().array("nums", 1, 2, 3).endObject()).setRefresh(true).execute().actionGet();
+        response = client().prepareSearch("test").setSource(source).execute().actionGet();
+        facet = response.getFacets().facet("histo");
+        assertThat(facet.getEntries().get(0).getCount(), equalTo(3l));
+
+        FacetCacheStats stats = client().admin().indices().prepareStats("test").clear().setFacetCache(true).execute().actionGet().getTotal().getFacetCache();
+        assertThat(stats.getMemorySizeInBytes(), equalTo(0l));
+        assertThat(stats.getHitCount(), equalTo(0l));
+        assertThat(stats.getMissCount(), equalTo(0l));
+    }
+
+    private void assertSameHistogram(SearchResponse expected, SearchResponse actual) {
+        HistogramFacet expectedFacet = expected.getFacets().facet("histo");
+        HistogramFacet actualFacet = actual.getFacets().facet("histo");
+        assertThat(actualFacet.getEntries().size(), equalTo(expectedFacet.getEntries().size()));
+        for (int i = 0; i < expectedFacet.getEntries().size(); i++) {
+            assertThat(actualFacet.getEntries().get(i).getKey(), equalTo(expectedFacet.getEntries().get(i).getKey()));
+            assertThat(actualFacet.getEntries().get(i).getCount(), equalTo(expectedFacet.getEntries().get(i).getCount()));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.datehistogram;
+
+import org.elasticsearch.ElasticsearchTestCase;
+import org.elasticsearch.common.joda.TimeZoneRounding;
+import org.elasticsearch.common.unit.TimeValue;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class RoundingTableTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testFixedInterval() {
+        TimeZoneRounding tzRounding = TimeZoneRounding.builder(TimeValue.timeValueHours(1)).build();
+        RoundingTable table = RoundingTable.build(tzRounding, -TimeValue.timeValueDays(3).millis(), TimeValue.timeValueDays(3).millis(), 1024);
+        assertThat(table, instanceOf(RoundingTable.Interval.class));
+        assertSameBuckets(tzRounding, table, -TimeValue.timeValueDays(3).millis(), TimeValue.timeValueDays(3).millis());
+    }
+
+    @Test
+    public void testCalendarField() {
+        TimeZoneRounding tzRounding = TimeZoneRounding.builder(ISOChronology.getInstanceUTC().monthOfYear()).build();
+        long min = TimeValue.timeValueDays(-400).millis();
+        long max = TimeValue.timeValueDays(800).millis();
+        RoundingTable table = RoundingTable.build(tzRounding, min, max, 1024);
+        assertThat(table, instanceOf(RoundingTable.Boundaries.class));
+        assertThat(table.size(), equalTo(41));
+        assertSameBuckets(tzRounding, table, min, max);
+
+        tzRounding = TimeZoneRounding.builder(ISOChronology.getInstanceUTC().weekOfWeekyear()).preOffset(TimeValue.timeValueHours(6).millis()).build();
+        table = RoundingTable.build(tzRounding, min, max, 1024);
+        assertThat(table, notNullValue());
+        assertSameBuckets(tzRounding, table, min, max);
+    }
+
+    @Test
+    public void testSingleValue() {
+        TimeZoneRounding tzRounding = TimeZoneRounding.builder(ISOChronology.getInstanceUTC().dayOfMonth()).build();
+        RoundingTable table = RoundingTable.build(tzRounding, 12345, 12345, 1024);
+        assertThat(table.size(), equalTo(1));
+        assertThat(table.key(table.bucket(12345)), equalTo(tzRounding.calc(12345)));
+    }
+
+    @Test
+    public void testFallback() {
+        TimeZoneRounding tzRounding = TimeZoneRounding.builder(ISOChronology.getInstanceUTC().dayOfMonth()).preZone(DateTimeZone.forOffsetHours(-2)).build();
+        assertThat(RoundingTable.build(tzRounding, 0, TimeValue.timeValueDays(10).millis(), 1024), nullValue());
+
+        tzRounding = TimeZoneRounding.builder(ISOChronology.getInstanceUTC().hourOfDay()).build();
+        assertThat(RoundingTable.build(tzRounding, 0, TimeValue.timeValueDays(10).millis(), 100), nullValue());
+        assertThat(RoundingTable.build(TimeZoneRounding.builder(TimeValue.timeValueHours(1)).build(), 0, TimeValue.timeValueDays(10).millis(), 100), nullValue());
+    }
+
+    private void assertSameBuckets(TimeZoneRounding tzRounding, RoundingTable table, long min, long max) {
+        for (int i = 0; i < 1000; i++) {
+            long value = min + (long) (getRandom().nextDouble() * (max - min));
+            assertThat(table.key(table.bucket(value)), equalTo(tzRounding.calc(value)));
+        }
+        assertThat(table.key(table.bucket(min)), equalTo(tzRounding.calc(min)));
+        assertThat(table.key(table.bucket(max)), equalTo(tzRounding.calc(max)));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.geohashgrid;
+
+import org.elasticsearch.AbstractSharedClusterTest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.facet.FacetBuilder;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.search.facet.FacetBuilders.geoHashGridFacet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class GeoHashGridFacetTests extends AbstractSharedClusterTest {
+
+    @Test
+    public void testGeoHashGrid() throws Exception {
+        XContentBuilder mapping = jsonBuilder().startObject().startObject("type1").startObject("properties")
+                .startObject("location").field("type", "geo_point").field("lat_lon", getRandom().nextBoolean()).endObject()
+                .endObject().endObject().endObject();
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", between(1, 3)).put("index.number_of_replicas", 0))
+                .addMapping("type1", mapping)
+                .execute().actionGet();
+        ensureGreen();
+
+        int precision = between(1, 6);
+        Map<String, Long> expected = new HashMap<String, Long>();
+        Map<String, Long> expectedInBox = new HashMap<String, Long>();
+        for (int i = 0; i < 200; i++) {
+            double lat = getRandom().nextDouble() * 180 - 90;
+            double lon = getRandom().nextDouble() * 360 - 180;
+            String cell = GeoHashUtils.encode(lat, lon, precision);
+            expected.put(cell, expected.containsKey(cell) ? expected.get(cell) + 1 : 1);
+            if (lat >= 0 && lon >= 0) {
+                expectedInBox.put(cell, expectedInBox.containsKey(cell) ? expectedInBox.get(cell) + 1 : 1);
+            }
+            client().prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource(jsonBuilder().startObject().startObject("location").field("lat", lat).field("lon", lon).endObject().endObject())
+                    .execute().actionGet();
+        }
+        refresh();
+
+        SearchResponse response = client().prepareSearch("test").setQuery(matchAllQuery())
+                .addFacet(geoHashGridFacet("grid").field("location").precision(precision))
+                .execute().actionGet();
+        assertThat(response.getFailedShards(), equalTo(0));
+        assertCells((GeoHashGridFacet) response.getFacets().facet("grid"), expected);
+
+        response = client().prepareSearch("test").setQuery(matchAllQuery())
+                .addFacet(geoHashGridFacet("grid").field("location").precision(precision).boundingBox(90, 0, 0, 180))
+                .execute().actionGet();
+        assertThat(response.getFailedShards(), equalTo(0));
+        assertCells((GeoHashGridFacet) response.getFacets().facet("grid"), expectedInBox);
+    }
+
+    @Test
+    public void testPostModeMatchesCollectorMode() throws Exception {
+        XContentBuilder mapping = jsonBuilder().startObject().startObject("type1").startObject("properties")
+                .startObject("location").field("type", "geo_point").field("lat_lon", true).endObject()
+                .endObject().endObject().endObject();
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", between(1, 3)).put("index.number_of_replicas", 0))
+                .addMapping("type1", mapping)
+                .execute().actionGet();
+        ensureGreen();
+
+        for (int i = 0; i < 200; i++) {
+            XContentBuilder source = jsonBuilder().startObject().field("even", i % 2 == 0).startArray("location");
+            // some docs have several points, possibly on both sides of the bounding box
+            for (int j = between(1, 3); j > 0; j--) {
+                source.startObject().field("lat", getRandom().nextDouble() * 180 - 90).field("lon", getRandom().nextDouble() * 360 - 180).endObject();
+            }
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource(source.endArray().endObject()).execute().actionGet();
+            if (rarely()) {
+                refresh();
+            }
+        }
+        refresh();
+
+        int precision = between(1, 3);
+        double[][] boxes = new double[][]{{90, 0, 0, 180}, {45.5, -120.25, -30.75, 60.5}, {60, 170, -60, -170}};
+        for (double[] box : boxes) {
+            SearchResponse response = client().prepareSearch("test").setQuery(termQuery("even", true))
+                    .addFacet(geoHashGridFacet("collector").field("location").precision(precision)
+                            .boundingBox(box[0], box[1], box[2], box[3]).mode(FacetBuilder.Mode.COLLECTOR))
+                    .addFacet(geoHashGridFacet("post").field("location").precision(precision)
+                            .boundingBox(box[0], box[1], box[2], box[3]).mode(FacetBuilder.Mode.POST))
+                    .execute().actionGet();
+            assertThat(response.getFailedShards(), equalTo(0));
+            Map<String, Long> expected = new HashMap<String, Long>();
+            for (GeoHashGridFacet.Entry entry : (GeoHashGridFacet) response.getFacets().facet("collector")) {
+                expected.put(entry.getGeohash(), entry.getCount());
+            }
+            assertThat(expected.isEmpty(), equalTo(false));
+            assertCells((GeoHashGridFacet) response.getFacets().facet("post"), expected);
+        }
+    }
+
+    private void assertCells(GeoHashGridFacet facet, Map<String, Long> expected) {
+        assertThat(facet.getEntries().size(), equalTo(expected.size()));
+        long previousCount = Long.MAX_VALUE;
+        for (GeoHashGridFacet.Entry entry : facet) {
+            assertThat(entry.getCount(), equalTo(expected.get(entry.getGeohash())));
+            assertThat(entry.getCount() <= previousCount, equalTo(true));
+            previousCount = entry.getCount();
+        }
+    }
+}
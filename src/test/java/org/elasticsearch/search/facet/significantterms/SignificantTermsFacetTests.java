@@ -0,0 +1,90 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.significantterms;
+
+import org.elasticsearch.AbstractSharedClusterTest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Test;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.search.facet.FacetBuilders.significantTermsFacet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class SignificantTermsFacetTests extends AbstractSharedClusterTest {
+
+    @Test
+    public void testSignificantTerms() throws Exception {
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", between(1, 3)).put("index.number_of_replicas", 0))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("category").field("type", "string").field("index", "not_analyzed").endObject()
+                        .startObject("tag").field("type", "string").field("index", "not_analyzed").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        ensureGreen();
+
+        for (int i = 0; i < 100; i++) {
+            String category = i % 4 == 0 ? "a" : "b";
+            String[] tags = category.equals("a") ? new String[]{"common", "special"} : new String[]{"common", "other" + (i % 3)};
+            client().prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource(jsonBuilder().startObject().field("category", category).field("tag", tags).endObject())
+                    .execute().actionGet();
+        }
+        refresh();
+
+        for (SignificantTermsFacet.SignificanceHeuristic heuristic : SignificantTermsFacet.SignificanceHeuristic.values()) {
+            SearchResponse response = client().prepareSearch("test")
+                    .setQuery(termQuery("category", "a"))
+                    .addFacet(significantTermsFacet("tags").field("tag").size(2).heuristic(heuristic))
+                    .execute().actionGet();
+            assertThat(response.getFailedShards(), equalTo(0));
+
+            SignificantTermsFacet facet = response.getFacets().facet("tags");
+            assertThat(facet.getSubsetSize(), equalTo(25l));
+            assertThat(facet.getSupersetSize(), equalTo(100l));
+            if (heuristic != SignificantTermsFacet.SignificanceHeuristic.PERCENTAGE) {
+                // common is as frequent in the subset as in the superset, it is not significant
+                assertThat(facet.getEntries().size(), equalTo(1));
+            }
+            assertThat(facet.getEntries().get(0).getTerm().string(), equalTo("special"));
+            assertThat(facet.getEntries().get(0).getSubsetDf(), equalTo(25l));
+            assertThat(facet.getEntries().get(0).getSupersetDf(), equalTo(25l));
+            assertThat(facet.getEntries().get(0).getScore(), greaterThan(0d));
+        }
+    }
+
+    @Test
+    public void testHeuristics() {
+        for (SignificantTermsFacet.SignificanceHeuristic heuristic : SignificantTermsFacet.SignificanceHeuristic.values()) {
+            assertThat(SignificantTermsFacet.SignificanceHeuristic.fromId(heuristic.id()), sameInstance(heuristic));
+            if (heuristic != SignificantTermsFacet.SignificanceHeuristic.PERCENTAGE) {
+                // same frequency in the subset as in the superset
+                assertThat(heuristic.score(10, 100, 100, 1000), equalTo(0d));
+            }
+            // more frequent in the subset
+            assertThat(heuristic.score(50, 100, 100, 1000), greaterThan(heuristic.score(20, 100, 100, 1000)));
+        }
+    }
+}
@@ -330,4 +330,53 @@ public class SearchFieldsTests extends AbstractSharedClusterTest {
         assertThat(((BytesReference) searchResponse.getHits().getAt(0).fields().get("binary_field").value()).toBytesArray(), equalTo((BytesReference) new BytesArray("testing text".getBytes("UTF8"))));
 
     }
+
+    @Test
+    public void testFieldDataFields() throws Exception {
+        createIndex("test");
+        client().admin().cluster().prepareHealth().setWaitForEvents(Priority.LANGUID).setWaitForYellowStatus().execute().actionGet();
+
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1").startObject("properties")
+                .startObject("long_field").field("type", "long").endObject()
+                .startObject("double_field").field("type", "double").endObject()
+                .startObject("string_field").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("location").field("type", "geo_point").endObject()
+                .endObject().endObject().endObject().string();
+
+        client().admin().indices().preparePutMapping().setType("type1").setSource(mapping).execute().actionGet();
+
+        client().prepareIndex("test", "type1", "1").setSource(jsonBuilder().startObject()
+                .field("long_field", 4l)
+                .field("double_field", 6.5d)
+                .array("string_field", "foo", "bar")
+                .startObject("location").field("lat", 1.5).field("lon", 2.5).endObject()
+                .endObject()).execute().actionGet();
+        client().prepareIndex("test", "type1", "2").setSource(jsonBuilder().startObject()
+                .field("long_field", 5l)
+                .endObject()).execute().actionGet();
+
+        client().admin().indices().prepareRefresh().execute().actionGet();
+
+        SearchResponse searchResponse = client().prepareSearch().setQuery(matchAllQuery())
+                .addFieldDataField("long_field")
+                .addFieldDataField("double_field")
+                .addFieldDataField("string_field")
+                .addFieldDataField("location")
+                .addFieldDataField("unknown_field")
+                .addSort("long_field", SortOrder.ASC)
+                .execute().actionGet();
+
+        assertNoFailures(searchResponse);
+        assertThat(searchResponse.getHits().getTotalHits(), equalTo(2l));
+        // the source is not loaded when only field data fields are requested
+        assertThat(searchResponse.getHits().getAt(0).sourceRef(), nullValue());
+        assertThat(searchResponse.getHits().getAt(0).fields().size(), equalTo(4));
+        assertThat(searchResponse.getHits().getAt(0).fields().get("long_field").value(), equalTo((Object) 4l));
+        assertThat(searchResponse.getHits().getAt(0).fields().get("double_field").value(), equalTo((Object) 6.5d));
+        assertThat(searchResponse.getHits().getAt(0).fields().get("string_field").values(), equalTo(Arrays.<Object>asList("bar", "foo")));
+        assertThat(searchResponse.getHits().getAt(0).fields().get("location").value(), equalTo((Object) "1.5,2.5"));
+
+        assertThat(searchResponse.getHits().getAt(1).fields().size(), equalTo(1));
+        assertThat(searchResponse.getHits().getAt(1).fields().get("long_field").value(), equalTo((Object) 5l));
+    }
 }
@@ -38,6 +38,9 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
@@ -640,4 +643,129 @@ public class GeoDistanceTests extends AbstractSharedClusterTest {
         assertHitCount(result, 1);
     } 
 
+
+    @Test
+    public void testGeohashCellsOptimization() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1")
+                .startObject("properties")
+                .startObject("location").field("type", "geo_point").field("geohash", true).field("geohash_prefix", true).endObject()
+                .startObject("location_no_prefix").field("type", "geo_point").field("geohash", true).endObject()
+                .endObject()
+                .endObject().endObject().string();
+        client().admin().indices().prepareCreate("test").addMapping("type1", mapping).execute().actionGet();
+        ensureGreen();
+
+        final double lat = 40.7143528;
+        final double lon = -74.0059731;
+        final int numDocs = 200;
+        for (int i = 0; i < numDocs; i++) {
+            final double docLat = lat - 0.1 + 0.2 * getRandom().nextDouble();
+            final double docLon = lon - 0.1 + 0.2 * getRandom().nextDouble();
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .startObject("location").field("lat", docLat).field("lon", docLon).endObject()
+                    .startObject("location_no_prefix").field("lat", docLat).field("lon", docLon).endObject()
+                    .endObject()).execute().actionGet();
+        }
+        refresh();
+
+        for (String distance : new String[] {"500m", "3km", "8km", "100km"}) {
+            for (GeoDistance geoDistance : new GeoDistance[] {GeoDistance.ARC, GeoDistance.PLANE}) {
+                SearchResponse expected = client().prepareSearch().setSize(numDocs)
+                        .setQuery(filteredQuery(matchAllQuery(), geoDistanceFilter("location").distance(distance).geoDistance(geoDistance).point(lat, lon)))
+                        .execute().actionGet();
+                for (String field : new String[] {"location", "location_no_prefix"}) {
+                    SearchResponse searchResponse = client().prepareSearch().setSize(numDocs)
+                            .setQuery(filteredQuery(matchAllQuery(), geoDistanceFilter(field).distance(distance).geoDistance(geoDistance).point(lat, lon).optimizeBbox("geohash")))
+                            .execute().actionGet();
+                    assertSameHits(expected, searchResponse);
+                }
+            }
+
+            SearchResponse expected = client().prepareSearch().setSize(numDocs)
+                    .setQuery(filteredQuery(matchAllQuery(), geoDistanceRangeFilter("location").from("1km").to(distance).point(lat, lon)))
+                    .execute().actionGet();
+            SearchResponse searchResponse = client().prepareSearch().setSize(numDocs)
+                    .setQuery(filteredQuery(matchAllQuery(), geoDistanceRangeFilter("location").from("1km").to(distance).point(lat, lon).optimizeBbox("geohash")))
+                    .execute().actionGet();
+            assertSameHits(expected, searchResponse);
+        }
+    }
+
+    @Test
+    public void testDistanceSortingTopHits() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1")
+                .startObject("properties")
+                .startObject("location").field("type", "geo_point").endObject()
+                .startObject("locations").field("type", "geo_point").endObject()
+                .endObject()
+                .endObject().endObject().string();
+        client().admin().indices().prepareCreate("test").addMapping("type1", mapping).execute().actionGet();
+        ensureGreen();
+
+        final double lat = 40.7143528;
+        final double lon = -74.0059731;
+        final int numDocs = 300;
+        final double[] distances = new double[numDocs];
+        final double[] minDistances = new double[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            final double docLat = -80 + 160 * getRandom().nextDouble();
+            final double docLon = -180 + 360 * getRandom().nextDouble();
+            distances[i] = GeoDistance.ARC.calculate(lat, lon, docLat, docLon, DistanceUnit.KILOMETERS);
+            XContentBuilder source = jsonBuilder().startObject()
+                    .startObject("location").field("lat", docLat).field("lon", docLon).endObject()
+                    .startArray("locations");
+            minDistances[i] = Double.MAX_VALUE;
+            for (int j = 0; j < 3; j++) {
+                final double pointLat = -80 + 160 * getRandom().nextDouble();
+                final double pointLon = -180 + 360 * getRandom().nextDouble();
+                minDistances[i] = Math.min(minDistances[i], GeoDistance.ARC.calculate(lat, lon, pointLat, pointLon, DistanceUnit.KILOMETERS));
+                source.startObject().field("lat", pointLat).field("lon", pointLon).endObject();
+            }
+            source.endArray().endObject();
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource(source).execute().actionGet();
+        }
+        refresh();
+
+        final int size = 10;
+        double[] sorted = distances.clone();
+        Arrays.sort(sorted);
+        SearchResponse searchResponse = client().prepareSearch().setQuery(matchAllQuery()).setSize(size)
+                .addSort(SortBuilders.geoDistanceSort("location").point(lat, lon).order(SortOrder.ASC))
+                .execute().actionGet();
+        assertNoFailures(searchResponse);
+        for (int i = 0; i < size; i++) {
+            assertThat(((Number) searchResponse.getHits().getAt(i).sortValues()[0]).doubleValue(), closeTo(sorted[i], 0.01d));
+        }
+
+        searchResponse = client().prepareSearch().setQuery(matchAllQuery()).setSize(size)
+                .addSort(SortBuilders.geoDistanceSort("location").point(lat, lon).order(SortOrder.DESC))
+                .execute().actionGet();
+        assertNoFailures(searchResponse);
+        for (int i = 0; i < size; i++) {
+            assertThat(((Number) searchResponse.getHits().getAt(i).sortValues()[0]).doubleValue(), closeTo(sorted[numDocs - 1 - i], 0.01d));
+        }
+
+        sorted = minDistances.clone();
+        Arrays.sort(sorted);
+        searchResponse = client().prepareSearch().setQuery(matchAllQuery()).setSize(size)
+                .addSort(SortBuilders.geoDistanceSort("locations").point(lat, lon).sortMode("min").order(SortOrder.ASC))
+                .execute().actionGet();
+        assertNoFailures(searchResponse);
+        for (int i = 0; i < size; i++) {
+            assertThat(((Number) searchResponse.getHits().getAt(i).sortValues()[0]).doubleValue(), closeTo(sorted[i], 0.01d));
+        }
+    }
+
+    private static void assertSameHits(SearchResponse expected, SearchResponse actual) {
+        assertNoFailures(actual);
+        assertHitCount(actual, expected.getHits().totalHits());
+        Set<String> expectedIds = new HashSet<String>();
+        for (SearchHit hit : expected.getHits()) {
+            expectedIds.add(hit.id());
+        }
+        for (SearchHit hit : actual.getHits()) {
+            assertThat(expectedIds, hasItem(hit.id()));
+        }
+    }
+
 }
\ No newline at end of file
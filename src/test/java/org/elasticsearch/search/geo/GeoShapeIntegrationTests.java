@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.geo;
 
+import com.google.common.cache.CacheStats;
 import org.apache.lucene.util.LuceneTestCase.AwaitsFix;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.search.SearchResponse;
@@ -26,12 +27,16 @@ import org.elasticsearch.common.geo.builders.ShapeBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.indices.cache.filter.shape.IndicesShapeCellsCache;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.AbstractSharedClusterTest;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.FilterBuilders.geoIntersectionFilter;
@@ -106,6 +111,106 @@ public class GeoShapeIntegrationTests extends AbstractSharedClusterTest {
         assertThat(searchResponse.getHits().getAt(0).id(), equalTo("1"));
     }
 
+    @Test
+    public void testCachedCells() throws Exception {
+        for (String tree : new String[] {"geohash", "quadtree"}) {
+            String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1")
+                    .startObject("properties").startObject("location")
+                    .field("type", "geo_shape")
+                    .field("tree", tree)
+                    .endObject().endObject()
+                    .endObject().endObject().string();
+            prepareCreate("test").addMapping("type1", mapping).execute().actionGet();
+            ensureGreen();
+
+            int id = 0;
+            for (int lon = -50; lon <= 50; lon += 5) {
+                for (int lat = -50; lat <= 50; lat += 5) {
+                    client().prepareIndex("test", "type1", Integer.toString(id++)).setSource(jsonBuilder().startObject()
+                            .startObject("location")
+                            .field("type", "point")
+                            .startArray("coordinates").value(lon).value(lat).endArray()
+                            .endObject()
+                            .endObject()).execute().actionGet();
+                }
+            }
+            // shapes that contain some of the cells of the query shapes
+            client().prepareIndex("test", "type1", "large").setSource(jsonBuilder().startObject()
+                    .field("location", ShapeBuilder.newEnvelope().topLeft(-60, 60).bottomRight(60, -60))
+                    .endObject()).execute().actionGet();
+            client().prepareIndex("test", "type1", "small").setSource(jsonBuilder().startObject()
+                    .field("location", ShapeBuilder.newEnvelope().topLeft(31, 2).bottomRight(33, 1))
+                    .endObject()).execute().actionGet();
+            refresh();
+
+            ShapeBuilder[] shapes = new ShapeBuilder[] {
+                    ShapeBuilder.newEnvelope().topLeft(-45, 45).bottomRight(45, -45),
+                    ShapeBuilder.newEnvelope().topLeft(30, 3).bottomRight(34, 0),
+                    ShapeBuilder.newEnvelope().topLeft(-12, -8).bottomRight(-11, -9),
+                    ShapeBuilder.newPolygon().point(-20, -20).point(20, -20).point(0, 25).close()
+            };
+            for (ShapeBuilder shape : shapes) {
+                CacheStats before = shapeCellsCacheStats();
+                SearchResponse expected = client().prepareSearch("test").setSize(id + 2)
+                        .setQuery(filteredQuery(matchAllQuery(), geoIntersectionFilter("location", shape).cacheCells(false)))
+                        .execute().actionGet();
+                assertThat(shapeCellsCacheStats(), equalTo(before));
+
+                // twice, the second time the cells come from the cache
+                CacheStats firstRound = null;
+                for (int i = 0; i < 2; i++) {
+                    SearchResponse searchResponse = client().prepareSearch("test").setSize(id + 2)
+                            .setQuery(filteredQuery(matchAllQuery(), geoIntersectionFilter("location", shape).cacheCells(true)))
+                            .execute().actionGet();
+                    assertSameIds(expected, searchResponse);
+
+                    searchResponse = client().prepareSearch("test").setSize(id + 2)
+                            .setQuery(geoShapeQuery("location", shape).cacheCells(true))
+                            .execute().actionGet();
+                    assertSameIds(expected, searchResponse);
+
+                    if (i == 0) {
+                        firstRound = shapeCellsCacheStats();
+                        assertThat(firstRound.missCount(), greaterThan(before.missCount()));
+                        assertThat(shapeCellsCacheSize(), greaterThan(0l));
+                    } else {
+                        CacheStats secondRound = shapeCellsCacheStats();
+                        assertThat(secondRound.missCount(), equalTo(firstRound.missCount()));
+                        assertThat(secondRound.hitCount(), greaterThan(firstRound.hitCount()));
+                    }
+                }
+            }
+            wipeIndex("test");
+        }
+    }
+
+    private static CacheStats shapeCellsCacheStats() {
+        CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (IndicesShapeCellsCache cache : cluster().getInstances(IndicesShapeCellsCache.class)) {
+            stats = stats.plus(cache.stats());
+        }
+        return stats;
+    }
+
+    private static long shapeCellsCacheSize() {
+        long size = 0;
+        for (IndicesShapeCellsCache cache : cluster().getInstances(IndicesShapeCellsCache.class)) {
+            size += cache.size();
+        }
+        return size;
+    }
+
+    private static void assertSameIds(SearchResponse expected, SearchResponse actual) {
+        assertHitCount(actual, expected.getHits().totalHits());
+        Set<String> expectedIds = new HashSet<String>();
+        for (SearchHit hit : expected.getHits()) {
+            expectedIds.add(hit.id());
+        }
+        for (SearchHit hit : actual.getHits()) {
+            assertThat(expectedIds, hasItem(hit.id()));
+        }
+    }
+
     @Test
     public void testEdgeCases() throws Exception {
 
@@ -1603,4 +1603,130 @@ public class HighlighterSearchTests extends AbstractSharedClusterTest {
         assertThat(response.getFailedShards(), equalTo(0));
     }
 
+    @Test
+    public void testPostingsHighlighter() throws Exception {
+        client().admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 2))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("field1").field("type", "string").field("index_options", "offsets").endObject()
+                        .startObject("field2").field("type", "string").field("store", "yes").field("index_options", "offsets").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        ensureGreen();
+
+        client().prepareIndex("test", "type1", "1")
+                .setSource(jsonBuilder().startObject()
+                        .field("field1", "This is a test. The quick brown fox jumps over the lazy dog. A test is a test.")
+                        .array("field2", "The first test value.", "The second value. And another test.")
+                        .endObject())
+                .setRefresh(true).execute().actionGet();
+
+        logger.info("--> highlighting sentences in document order");
+        SearchResponse response = client().prepareSearch("test")
+                .setQuery(termQuery("field1", "test"))
+                .addHighlightedField("field1")
+                .execute().actionGet();
+        assertNoFailures(response);
+        assertHighlight(response, 0, "field1", 0, equalTo("This is a <em>test</em>."));
+        assertHighlight(response, 0, "field1", 1, equalTo("A <em>test</em> is a <em>test</em>."));
+        assertThat(response.getHits().getAt(0).highlightFields().get("field1").fragments().length, equalTo(2));
+
+        logger.info("--> highlighting the best sentence");
+        response = client().prepareSearch("test")
+                .setQuery(termQuery("field1", "test"))
+                .addHighlightedField(new HighlightBuilder.Field("field1").numOfFragments(1))
+                .setHighlighterOrder("score")
+                .execute().actionGet();
+        assertNoFailures(response);
+        assertHighlight(response, 0, "field1", 0, equalTo("A <em>test</em> is a <em>test</em>."));
+        assertThat(response.getHits().getAt(0).highlightFields().get("field1").fragments().length, equalTo(1));
+
+        logger.info("--> highlighting the whole field");
+        response = client().prepareSearch("test")
+                .setQuery(termQuery("field1", "fox"))
+                .addHighlightedField(new HighlightBuilder.Field("field1").numOfFragments(0).preTags("<xxx>").postTags("</xxx>"))
+                .execute().actionGet();
+        assertNoFailures(response);
+        assertHighlight(response, 0, "field1", 0, equalTo("This is a test. The quick brown <xxx>fox</xxx> jumps over the lazy dog. A test is a test."));
+
+        logger.info("--> highlighting a stored multi valued field");
+        response = client().prepareSearch("test")
+                .setQuery(termQuery("field2", "test"))
+                .addHighlightedField("field2")
+                .execute().actionGet();
+        assertNoFailures(response);
+        assertHighlight(response, 0, "field2", 0, equalTo("The first <em>test</em> value."));
+        assertHighlight(response, 0, "field2", 1, equalTo("And another <em>test</em>."));
+        assertThat(response.getHits().getAt(0).highlightFields().get("field2").fragments().length, equalTo(2));
+    }
+
+    @Test
+    public void testPostingsHighlighterMultiTermQueryManyHits() throws Exception {
+        client().admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 2))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("field1").field("type", "string").field("index_options", "offsets").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        ensureGreen();
+
+        String[] words = new String[]{"quick", "quiet", "quilt", "quiz", "quit"};
+        for (int i = 0; i < 20; i++) {
+            client().prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource("field1", "Nothing to see here. The " + words[i % words.length] + " fox number " + i + ".").execute().actionGet();
+        }
+        refresh();
+
+        // the terms the query is rewritten to are computed once for all the hits of a shard
+        SearchResponse response = client().prepareSearch("test")
+                .setQuery(prefixQuery("field1", "qui"))
+                .addHighlightedField("field1")
+                .setSize(20)
+                .execute().actionGet();
+        assertNoFailures(response);
+        assertThat(response.getHits().hits().length, equalTo(20));
+        for (SearchHit hit : response.getHits()) {
+            String word = words[Integer.parseInt(hit.id()) % words.length];
+            assertThat(hit.highlightFields().get("field1").fragments()[0].string(), equalTo("The <em>" + word + "</em> fox number " + hit.id() + "."));
+        }
+
+        response = client().prepareSearch("test")
+                .setQuery(wildcardQuery("field1", "qui?t"))
+                .addHighlightedField("field1")
+                .setSize(20)
+                .execute().actionGet();
+        assertNoFailures(response);
+        assertThat(response.getHits().hits().length, equalTo(8));
+        for (SearchHit hit : response.getHits()) {
+            String word = words[Integer.parseInt(hit.id()) % words.length];
+            assertThat(hit.highlightFields().get("field1").fragments()[0].string(), equalTo("The <em>" + word + "</em> fox number " + hit.id() + "."));
+        }
+    }
+
+    @Test
+    public void testPostingsHighlighterRequiresOffsets() throws Exception {
+        client().admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 2))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("title").field("type", "string").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        ensureGreen();
+
+        for (int i = 0; i < 5; i++) {
+            client().prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource("title", "This is a test for the postings highlighter").execute().actionGet();
+        }
+        refresh();
+
+        SearchResponse search = client().prepareSearch()
+                .setQuery(matchQuery("title", "test"))
+                .addHighlightedField("title")
+                .execute().actionGet();
+        assertNoFailures(search);
+
+        search = client().prepareSearch()
+                .setQuery(matchQuery("title", "test"))
+                .addHighlightedField("title")
+                .setHighlighterType("postings")
+                .execute().actionGet();
+        assertThat(search.getFailedShards(), equalTo(2));
+    }
 }
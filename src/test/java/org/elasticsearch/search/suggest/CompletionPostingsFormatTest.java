@@ -36,6 +36,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRef;
 import org.apache.lucene.util.LineFileDocs;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.codec.postingsformat.ElasticSearch090PostingsFormat;
@@ -55,8 +56,10 @@ import java.lang.reflect.Field;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class CompletionPostingsFormatTest extends ElasticsearchTestCase {
 
@@ -268,5 +271,56 @@ public class CompletionPostingsFormatTest extends ElasticsearchTestCase {
         dir.close();
     }
 
+    @Test
+    public void testResultFilterRejections() throws IOException {
+        XAnalyzingSuggester suggester = new XAnalyzingSuggester(new StandardAnalyzer(TEST_VERSION_CURRENT), new StandardAnalyzer(
+                TEST_VERSION_CURRENT), AnalyzingSuggester.PRESERVE_SEP, 256, -1, null, false, 1);
+        final int numSuggestions = 1000;
+        suggester.build(new TermFreqIterator() {
+            int index = 0;
+
+            @Override
+            public Comparator<BytesRef> getComparator() {
+                return null;
+            }
+
+            @Override
+            public BytesRef next() throws IOException {
+                return index < numSuggestions ? new BytesRef("foo" + index++) : null;
+            }
+
+            @Override
+            public long weight() {
+                return index - 1;
+            }
+        });
+
+        // rejected completions don't count against the number of completions to return
+        suggester.setResultFilter(new XAnalyzingSuggester.ResultFilter() {
+            @Override
+            public boolean accept(IntsRef analyzed, long cost, BytesRef output) throws IOException {
+                return output.bytes[output.offset + output.length - 1] % 2 == 0;
+            }
+        });
+        List<LookupResult> results = suggester.lookup("foo", false, 5);
+        assertThat(results.size(), equalTo(5));
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).key.toString(), equalTo("foo" + (numSuggestions - 2 - 2 * i)));
+        }
+
+        // once the filter rejected a bounded number of completions fewer completions are returned
+        final AtomicInteger calls = new AtomicInteger();
+        suggester.setResultFilter(new XAnalyzingSuggester.ResultFilter() {
+            @Override
+            public boolean accept(IntsRef analyzed, long cost, BytesRef output) throws IOException {
+                calls.incrementAndGet();
+                return output.utf8ToString().equals("foo0");
+            }
+        });
+        results = suggester.lookup("foo", false, 5);
+        assertThat(results.size(), equalTo(0));
+        assertThat(calls.get(), lessThan(numSuggestions / 10));
+    }
+
     // TODO ADD more unittests
 }
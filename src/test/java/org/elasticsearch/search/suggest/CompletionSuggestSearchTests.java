@@ -802,6 +802,147 @@ public class CompletionSuggestSearchTests extends AbstractSharedClusterTest {
 
     }
 
+    @Test
+    public void testCategoryContext() throws Exception {
+        client().admin().indices().prepareCreate(INDEX).setSettings(createDefaultSettings()).get();
+        ElasticsearchAssertions.assertAcked(client().admin().indices().preparePutMapping(INDEX).setType(TYPE).setSource(jsonBuilder().startObject()
+                .startObject(TYPE).startObject("properties")
+                .startObject(FIELD)
+                .field("type", "completion")
+                .startObject("context")
+                .startObject("color").field("type", "category").field("default", "red").endObject()
+                .endObject()
+                .endObject()
+                .endObject().endObject()
+                .endObject()));
+        ensureYellow();
+
+        // the blue inputs are the heavier ones, so that a filter applied after the top-N lookup would miss the red ones
+        for (int i = 0; i < 10; i++) {
+            XContentBuilder source = jsonBuilder().startObject().startObject(FIELD)
+                    .startArray("input").value("suggestion" + i).endArray()
+                    .field("weight", i);
+            if (i % 2 == 1) {
+                source.startObject("context").field("color", "blue").endObject();
+            } else if (i != 0) {
+                source.startObject("context").array("color", "red", "green").endObject();
+            }
+            client().prepareIndex(INDEX, TYPE, "" + i).setSource(source.endObject().endObject()).get();
+        }
+        refresh();
+
+        SuggestResponse suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("red").field(FIELD).text("sugg").size(3).addCategory("color", "red")
+        ).get();
+        assertSuggestions(suggestResponse, "red", "suggestion8", "suggestion6", "suggestion4");
+
+        suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("blue").field(FIELD).text("sugg").size(3).addCategory("color", "blue")
+        ).get();
+        assertSuggestions(suggestResponse, "blue", "suggestion9", "suggestion7", "suggestion5");
+
+        suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("green").field(FIELD).text("suggestion0").size(3).addCategory("color", "green")
+        ).get();
+        assertSuggestions(suggestResponse, "green");
+
+        suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionFuzzyBuilder("fuzzy").field(FIELD).text("sugestion").size(2).addCategory("color", "red", "blue")
+        ).get();
+        assertSuggestions(suggestResponse, "fuzzy", "suggestion9", "suggestion8");
+
+        // without a context all inputs are candidates
+        suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("all").field(FIELD).text("sugg").size(2)
+        ).get();
+        assertSuggestions(suggestResponse, "all", "suggestion9", "suggestion8");
+    }
+
+    @Test
+    public void testGeoContext() throws Exception {
+        client().admin().indices().prepareCreate(INDEX).setSettings(createDefaultSettings()).get();
+        ElasticsearchAssertions.assertAcked(client().admin().indices().preparePutMapping(INDEX).setType(TYPE).setSource(jsonBuilder().startObject()
+                .startObject(TYPE).startObject("properties")
+                .startObject(FIELD)
+                .field("type", "completion")
+                .startObject("context")
+                .startObject("location").field("type", "geo").field("precision", 4).endObject()
+                .endObject()
+                .endObject()
+                .endObject().endObject()
+                .endObject()));
+        ensureYellow();
+
+        client().prepareIndex(INDEX, TYPE, "1").setSource(jsonBuilder().startObject().startObject(FIELD)
+                .startArray("input").value("Hotel Berlin").endArray()
+                .field("weight", 1)
+                .startObject("context").startObject("location").field("lat", 52.5167).field("lon", 13.3833).endObject().endObject()
+                .endObject().endObject()).get();
+        client().prepareIndex(INDEX, TYPE, "2").setSource(jsonBuilder().startObject().startObject(FIELD)
+                .startArray("input").value("Hotel Amsterdam").endArray()
+                .field("weight", 2)
+                .startObject("context").startArray("location").value(4.8925).value(52.3731).endArray().endObject()
+                .endObject().endObject()).get();
+        refresh();
+
+        SuggestResponse suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("berlin").field(FIELD).text("hotel").size(10).addGeoLocation("location", 52.52, 13.4)
+        ).get();
+        assertSuggestions(suggestResponse, "berlin", "Hotel Berlin");
+
+        suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("amsterdam").field(FIELD).text("hotel").size(10).addGeoLocation("location", 52.37, 4.89)
+        ).get();
+        assertSuggestions(suggestResponse, "amsterdam", "Hotel Amsterdam");
+
+        suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("nowhere").field(FIELD).text("hotel").size(10).addGeoLocation("location", 0, 0)
+        ).get();
+        assertSuggestions(suggestResponse, "nowhere");
+    }
+
+    @Test
+    public void testThatUpdatesAndDeletesAreVisibleWithoutMerge() throws Exception {
+        createIndexAndMapping();
+        client().prepareIndex(INDEX, TYPE, "1").setSource(jsonBuilder()
+                .startObject().startObject(FIELD)
+                .startArray("input").value("Nirvana").endArray()
+                .field("weight", 10)
+                .endObject().endObject()
+        ).get();
+        client().prepareIndex(INDEX, TYPE, "2").setSource(jsonBuilder()
+                .startObject().startObject(FIELD)
+                .startArray("input").value("Nevermind").endArray()
+                .field("weight", 5)
+                .endObject().endObject()
+        ).get();
+        client().prepareIndex(INDEX, TYPE, "3").setSource(jsonBuilder()
+                .startObject().startObject(FIELD)
+                .startArray("input").value("Nirvana Unplugged").endArray()
+                .field("weight", 1)
+                .endObject().endObject()
+        ).get();
+        refresh();
+        assertSuggestions("n", "Nirvana", "Nevermind", "Nirvana Unplugged");
+
+        // the old suggestions stay in the FSTs of the existing segments until they are merged away
+        client().prepareIndex(INDEX, TYPE, "1").setSource(jsonBuilder()
+                .startObject().startObject(FIELD)
+                .startArray("input").value("Nirvana").endArray()
+                .field("weight", 2)
+                .endObject().endObject()
+        ).get();
+        client().prepareDelete(INDEX, TYPE, "2").get();
+        refresh();
+        assertSuggestions("n", "Nirvana", "Nirvana Unplugged");
+
+        SuggestResponse suggestResponse = client().prepareSuggest(INDEX).addSuggestion(
+                new CompletionSuggestionBuilder("top").field(FIELD).text("n").size(1)
+        ).get();
+        assertSuggestions(suggestResponse, "top", "Nirvana");
+        assertThat(suggestResponse.getSuggest().getSuggestion("top").getEntries().get(0).getOptions().get(0).getScore(), equalTo(2f));
+    }
+
     private static String replaceReservedChars(String input, char replacement) {
         char[] charArray = input.toCharArray();
         for (int i = 0; i < charArray.length; i++) {
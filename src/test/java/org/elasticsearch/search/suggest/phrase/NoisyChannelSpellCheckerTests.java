@@ -398,4 +398,65 @@ public class NoisyChannelSpellCheckerTests extends ElasticsearchTestCase{
         assertThat(corrections[0].join(new BytesRef(" ")).utf8ToString(), equalTo("xorr the god jewel"));
         assertThat(corrections[1].join(new BytesRef(" ")).utf8ToString(), equalTo("xor the god jewel"));
     }
+
+    @Test
+    public void testCandidateCache() throws IOException {
+        RAMDirectory dir = new RAMDirectory();
+        Map<String, Analyzer> mapping = new HashMap<String, Analyzer>();
+        mapping.put("body_ngram", new Analyzer() {
+
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName, Reader reader) {
+                Tokenizer t = new StandardTokenizer(Version.LUCENE_41, reader);
+                ShingleFilter tf = new ShingleFilter(t, 2, 3);
+                tf.setOutputUnigrams(false);
+                return new TokenStreamComponents(t, new LowerCaseFilter(Version.LUCENE_41, tf));
+            }
+
+        });
+
+        mapping.put("body", new Analyzer() {
+
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName, Reader reader) {
+                Tokenizer t = new StandardTokenizer(Version.LUCENE_41, reader);
+                return new TokenStreamComponents(t, new LowerCaseFilter(Version.LUCENE_41, t));
+            }
+
+        });
+        PerFieldAnalyzerWrapper wrapper = new PerFieldAnalyzerWrapper(new WhitespaceAnalyzer(Version.LUCENE_41), mapping);
+
+        IndexWriterConfig conf = new IndexWriterConfig(Version.LUCENE_41, wrapper);
+        IndexWriter writer = new IndexWriter(dir, conf);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(NoisyChannelSpellCheckerTests.class.getResourceAsStream("/config/names.txt"), Charsets.UTF_8));
+        String line = null;
+        while ((line = reader.readLine()) != null) {
+            Document doc = new Document();
+            doc.add(new Field("body", line, TextField.TYPE_NOT_STORED));
+            doc.add(new Field("body_ngram", line, TextField.TYPE_NOT_STORED));
+            writer.addDocument(doc);
+        }
+
+        DirectoryReader ir = DirectoryReader.open(writer, false);
+        WordScorer wordScorer = new LaplaceScorer(ir, MultiFields.getTerms(ir, "body_ngram"), "body_ngram", 0.85d, new BytesRef(" "), 0.5f);
+        NoisyChannelSpellChecker suggester = new NoisyChannelSpellChecker(0.85);
+        DirectSpellChecker spellchecker = new DirectSpellChecker();
+        spellchecker.setMinQueryLength(1);
+        CandidateCache cache = new CandidateCache(100);
+        for (int i = 0; i < 2; i++) {
+            // the second round is served from the cache and has to return the same corrections
+            DirectCandidateGenerator generator = new DirectCandidateGenerator(spellchecker, "body", SuggestMode.SUGGEST_MORE_POPULAR, ir, 0.95, 5,
+                    null, null, MultiFields.getTerms(ir, "body"), cache);
+            Correction[] corrections = suggester.getCorrections(wrapper, new BytesRef("Xor the Got-Jewel"), generator, 0.5f, 4, ir, "body", wordScorer, 0, 2).corrections;
+            assertThat(corrections.length, equalTo(4));
+            assertThat(corrections[0].join(space).utf8ToString(), equalTo("xorr the god jewel"));
+            assertThat(corrections[1].join(space).utf8ToString(), equalTo("xor the god jewel"));
+            assertThat(corrections[2].join(space).utf8ToString(), equalTo("xorn the god jewel"));
+            assertThat(corrections[3].join(space).utf8ToString(), equalTo("xorr the got jewel"));
+            assertThat(cache.numReaders(), equalTo(1));
+        }
+        ir.close();
+        assertThat(cache.numReaders(), equalTo(0));
+        writer.close();
+    }
 }